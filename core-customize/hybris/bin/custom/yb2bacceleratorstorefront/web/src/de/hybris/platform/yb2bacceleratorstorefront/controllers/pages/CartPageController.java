@@ -205,10 +205,9 @@ public class CartPageController extends AbstractCartPageController
 			@RequestParam(value = "readOnly", required = false, defaultValue = "false") final String readOnly, final Model model)
 	{
 
+		// the grid is loaded page by page from the variant matrix of the product
 		final ProductData productData = productFacade.getProductForCodeAndOptions(productCode,
-				Arrays.asList(ProductOption.BASIC, ProductOption.CATEGORIES, ProductOption.VARIANT_MATRIX_BASE,
-						ProductOption.VARIANT_MATRIX_PRICE, ProductOption.VARIANT_MATRIX_MEDIA, ProductOption.VARIANT_MATRIX_STOCK,
-						ProductOption.VARIANT_MATRIX_URL));
+				Arrays.asList(ProductOption.BASIC, ProductOption.URL));
 
 		model.addAttribute("product", productData);
 		model.addAttribute("readOnly", Boolean.valueOf(readOnly));
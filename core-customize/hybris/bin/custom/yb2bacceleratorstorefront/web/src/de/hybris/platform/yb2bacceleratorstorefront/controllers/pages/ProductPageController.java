@@ -33,15 +33,22 @@ import de.hybris.platform.product.ProductService;
 import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
 import de.hybris.platform.util.Config;
 import de.hybris.platform.yb2bacceleratorstorefront.controllers.ControllerConstants;
+import de.hybris.platform.yb2bacceleratorstorefront.product.BatchedFutureStockLookup;
+import de.hybris.platform.yb2bacceleratorstorefront.product.ParallelProductPopulator;
+import de.hybris.platform.yb2bacceleratorstorefront.product.VariantMatrixJsonWriter;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
@@ -59,11 +66,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.google.common.collect.Maps;
-
 
 /**
  * Controller for product details page
@@ -87,13 +91,25 @@ public class ProductPageController extends AbstractPageController
 	private static final String STOCK_SERVICE_UNAVAILABLE = "basket.page.viewFuture.unavailable";
 	private static final String NOT_MULTISKU_ITEM_ERROR = "basket.page.viewFuture.not.multisku";
 
+	private static final List<ProductOption> VARIANT_MATRIX_OPTIONS = Collections.unmodifiableList(Arrays.asList(
+			ProductOption.BASIC, ProductOption.VARIANT_MATRIX_BASE));
+
+	private static final List<ProductOption> PRODUCT_DETAIL_OPTIONS = Collections.unmodifiableList(Arrays.asList(
+			ProductOption.VARIANT_FIRST_VARIANT, ProductOption.BASIC, ProductOption.URL, ProductOption.PRICE, ProductOption.SUMMARY,
+			ProductOption.DESCRIPTION, ProductOption.GALLERY, ProductOption.CATEGORIES, ProductOption.REVIEW,
+			ProductOption.PROMOTIONS, ProductOption.CLASSIFICATION, ProductOption.VARIANT_FULL, ProductOption.STOCK,
+			ProductOption.VOLUME_PRICES, ProductOption.PRICE_RANGE, ProductOption.DELIVERY_MODE_AVAILABILITY));
+
 	@Resource(name = "productDataUrlResolver")
 	private UrlResolver<ProductData> productDataUrlResolver;
 
+	@Resource(name = "productModelUrlResolver")
+	private UrlResolver<ProductModel> productModelUrlResolver;
+
 	@Resource(name = "productVariantFacade")
 	private ProductFacade productFacade;
 
-	@Resource(name = "productService")
+	@Resource(name = "storefrontProductService")
 	private ProductService productService;
 
 	@Resource(name = "productBreadcrumbBuilder")
@@ -111,6 +127,15 @@ public class ProductPageController extends AbstractPageController
 	@Resource(name = "futureStockFacade")
 	private FutureStockFacade futureStockFacade;
 
+	@Resource(name = "batchedFutureStockLookup")
+	private BatchedFutureStockLookup batchedFutureStockLookup;
+
+	@Resource(name = "parallelProductPopulator")
+	private ParallelProductPopulator parallelProductPopulator;
+
+	@Resource(name = "variantMatrixJsonWriter")
+	private VariantMatrixJsonWriter variantMatrixJsonWriter;
+
 	@RequestMapping(value = PRODUCT_CODE_PATH_VARIABLE_PATTERN, method = RequestMethod.GET)
 	public String productDetail(@PathVariable("productCode") final String productCode, final Model model,
 			final HttpServletRequest request, final HttpServletResponse response)
@@ -119,18 +144,19 @@ public class ProductPageController extends AbstractPageController
 		final List<ProductOption> extraOptions = Arrays.asList(ProductOption.VARIANT_MATRIX_BASE, ProductOption.VARIANT_MATRIX_URL,
 				ProductOption.VARIANT_MATRIX_MEDIA);
 
-		final ProductData productData = productFacade.getProductForCodeAndOptions(productCode, extraOptions);
-
-		final String redirection = checkRequestUrl(request, response, productDataUrlResolver.resolve(productData));
+		// the product is looked up once and its canonical URL is checked before it is converted
+		final ProductModel productModel = productService.getProductForCode(productCode);
+		final String redirection = checkRequestUrl(request, response, productModelUrlResolver.resolve(productModel));
 		if (StringUtils.isNotEmpty(redirection))
 		{
 			return redirection;
 		}
 
-		updatePageTitle(productCode, model);
+		final ProductData productData = getProductDetailData(productModel, extraOptions);
 
+		updatePageTitle(productCode, model);
 
-		populateProductDetailForDisplay(productCode, model, request, extraOptions);
+		populateProductDetailForDisplay(productModel, productData, model, request);
 
 		model.addAttribute(new ReviewForm());
 		model.addAttribute("pageType", PageType.PRODUCT.name());
@@ -146,14 +172,14 @@ public class ProductPageController extends AbstractPageController
 	public String productOrderForm(@PathVariable("productCode") final String productCode, final Model model,
 			final HttpServletRequest request, final HttpServletResponse response) throws CMSItemNotFoundException
 	{
-		final List<ProductOption> extraOptions = Arrays.asList(ProductOption.VARIANT_MATRIX_BASE,
-				ProductOption.VARIANT_MATRIX_PRICE, ProductOption.VARIANT_MATRIX_MEDIA, ProductOption.VARIANT_MATRIX_STOCK,
-				ProductOption.URL);
+		// the grid loads the prices, media and stock of the variants page by page from the variant matrix
+		final List<ProductOption> extraOptions = Arrays.asList(ProductOption.VARIANT_MATRIX_BASE, ProductOption.URL);
 
-		final ProductData productData = productFacade.getProductForCodeAndOptions(productCode, extraOptions);
+		final ProductModel productModel = productService.getProductForCode(productCode);
+		final ProductData productData = getProductDetailData(productModel, extraOptions);
 		updatePageTitle(productCode, model);
 
-		populateProductDetailForDisplay(productCode, model, request, extraOptions);
+		populateProductDetailForDisplay(productModel, productData, model, request);
 
 		if (!model.containsAttribute(WebConstants.MULTI_DIMENSIONAL_PRODUCT))
 		{
@@ -163,6 +189,26 @@ public class ProductPageController extends AbstractPageController
 		return ControllerConstants.Views.Pages.Product.OrderForm;
 	}
 
+	/**
+	 * Streams a page of the variant matrix with the URLs and images of its variants and the prices and stock of its SKUs
+	 * as JSON, so the order form can load the matrix progressively. A page holds pageSize elements of the first dimension.
+	 * The product is converted with the variant matrix base only, the rest is looked up for the variants of the page.
+	 */
+	@RequestMapping(value = PRODUCT_CODE_PATH_VARIABLE_PATTERN
+			+ "/variantMatrix", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+	public void productVariantMatrix(@PathVariable("productCode") final String productCode,
+			@RequestParam(value = "page", defaultValue = "0") final int page,
+			@RequestParam(value = "pageSize", defaultValue = "0") final int pageSize, final HttpServletResponse response)
+			throws IOException
+	{
+		final ProductModel productModel = productService.getProductForCode(productCode);
+		final ProductData productData = productFacade.getProductForCodeAndOptions(productCode, VARIANT_MATRIX_OPTIONS);
+
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
+		variantMatrixJsonWriter.write(productModel, productData, page, pageSize, response.getOutputStream());
+	}
+
 	@RequestMapping(value = PRODUCT_CODE_PATH_VARIABLE_PATTERN + "/zoomImages", method = RequestMethod.GET)
 	public String showZoomImages(@PathVariable("productCode") final String productCode,
 			@RequestParam(value = "galleryPosition", required = false) final String galleryPosition, final Model model)
@@ -341,38 +387,38 @@ public class ProductPageController extends AbstractPageController
 		}
 	}
 
-	@ResponseBody
 	@RequestMapping(value = PRODUCT_CODE_PATH_VARIABLE_PATTERN + "/grid/skusFutureStock", method =
 	{ RequestMethod.POST }, produces = MediaType.APPLICATION_JSON_VALUE)
-	public final Map<String, Object> productSkusFutureStock(final FutureStockForm form, final Model model)
+	public final void productSkusFutureStock(final FutureStockForm form, final HttpServletResponse response)
+			throws IOException
 	{
 		final String productCode = form.getProductCode();
 		final List<String> skus = form.getSkus();
 		final boolean futureStockEnabled = Config.getBoolean(FUTURE_STOCK_ENABLED, false);
 
-		Map<String, Object> result = new HashMap<>();
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding("UTF-8");
 		if (futureStockEnabled && CollectionUtils.isNotEmpty(skus) && StringUtils.isNotBlank(productCode))
 		{
-			final Map<String, List<FutureStockData>> futureStockData = futureStockFacade
-					.getFutureAvailabilityForSelectedVariants(productCode, skus);
+			final Map<String, List<FutureStockData>> futureStockData = batchedFutureStockLookup.getFutureAvailability(productCode,
+					skus);
 
 			if (futureStockData == null)
 			{
 				// future availability service is down, we show this to the user
-				result = Maps.newHashMap();
 				final String errorMessage = getMessageSource().getMessage(NOT_MULTISKU_ITEM_ERROR, null,
 						getI18nService().getCurrentLocale());
-				result.put(NOT_MULTISKU_ITEM_ERROR, errorMessage);
+				batchedFutureStockLookup.writeMessage(NOT_MULTISKU_ITEM_ERROR, errorMessage, response.getOutputStream());
 			}
 			else
 			{
-				for (final Map.Entry<String, List<FutureStockData>> entry : futureStockData.entrySet())
-				{
-					result.put(entry.getKey(), entry.getValue());
-				}
+				batchedFutureStockLookup.write(futureStockData, response.getOutputStream());
 			}
 		}
-		return result;
+		else
+		{
+			batchedFutureStockLookup.write(Collections.emptyMap(), response.getOutputStream());
+		}
 	}
 
 	@ExceptionHandler(UnknownIdentifierException.class)
@@ -391,23 +437,26 @@ public class ProductPageController extends AbstractPageController
 			final List<ProductOption> extraOptions) throws CMSItemNotFoundException
 	{
 		final ProductModel productModel = productService.getProductForCode(productCode);
+		final ProductData productData = getProductDetailData(productModel, extraOptions);
 
-		getRequestContextData(request).setProduct(productModel);
-
-		final List<ProductOption> options = new ArrayList<>(Arrays.asList(ProductOption.VARIANT_FIRST_VARIANT, ProductOption.BASIC,
-				ProductOption.URL, ProductOption.PRICE, ProductOption.SUMMARY, ProductOption.DESCRIPTION, ProductOption.GALLERY,
-				ProductOption.CATEGORIES, ProductOption.REVIEW, ProductOption.PROMOTIONS, ProductOption.CLASSIFICATION,
-				ProductOption.VARIANT_FULL, ProductOption.STOCK, ProductOption.VOLUME_PRICES, ProductOption.PRICE_RANGE,
-				ProductOption.DELIVERY_MODE_AVAILABILITY));
-
-		options.addAll(extraOptions);
+		populateProductDetailForDisplay(productModel, productData, model, request);
+	}
 
-		final ProductData productData = productFacade.getProductForCodeAndOptions(productCode, options);
+	/**
+	 * Stores the product, its page and breadcrumbs in the model.
+	 *
+	 * @param productData
+	 *           the product converted with {@link #getProductDetailOptions(Collection)}
+	 */
+	protected void populateProductDetailForDisplay(final ProductModel productModel, final ProductData productData,
+			final Model model, final HttpServletRequest request) throws CMSItemNotFoundException
+	{
+		getRequestContextData(request).setProduct(productModel);
 
 		sortVariantOptionData(productData);
-		storeCmsPageInModel(model, getPageForProduct(productCode));
+		storeCmsPageInModel(model, getPageForProduct(productModel));
 		populateProductData(productData, model);
-		model.addAttribute(WebConstants.BREADCRUMBS_KEY, productBreadcrumbBuilder.getBreadcrumbs(productCode));
+		model.addAttribute(WebConstants.BREADCRUMBS_KEY, productBreadcrumbBuilder.getBreadcrumbs(productData.getCode()));
 
 		if (CollectionUtils.isNotEmpty(productData.getVariantMatrix()))
 		{
@@ -416,6 +465,31 @@ public class ProductPageController extends AbstractPageController
 		}
 	}
 
+	/**
+	 * Converts the product with the union of the product detail options and the extra options, concurrently if the
+	 * {@link ParallelProductPopulator} is enabled.
+	 */
+	protected ProductData getProductDetailData(final ProductModel productModel, final Collection<ProductOption> extraOptions)
+	{
+		final Set<ProductOption> options = getProductDetailOptions(extraOptions);
+		if (parallelProductPopulator != null && parallelProductPopulator.isEnabled())
+		{
+			return parallelProductPopulator.getProductForOptions(productModel, options);
+		}
+		return productFacade.getProductForOptions(productModel, options);
+	}
+
+	/**
+	 * @return the options the product details are displayed with, followed by the extra options of the request, so the
+	 *         product is converted only once
+	 */
+	protected Set<ProductOption> getProductDetailOptions(final Collection<ProductOption> extraOptions)
+	{
+		final Set<ProductOption> options = new LinkedHashSet<>(PRODUCT_DETAIL_OPTIONS);
+		options.addAll(extraOptions);
+		return options;
+	}
+
 	protected void populateProductData(final ProductData productData, final Model model)
 	{
 		model.addAttribute("galleryImages", getGalleryImages(productData));
@@ -506,7 +580,11 @@ public class ProductPageController extends AbstractPageController
 
 	protected AbstractPageModel getPageForProduct(final String productCode) throws CMSItemNotFoundException
 	{
-		final ProductModel productModel = productService.getProductForCode(productCode);
+		return getPageForProduct(productService.getProductForCode(productCode));
+	}
+
+	protected AbstractPageModel getPageForProduct(final ProductModel productModel) throws CMSItemNotFoundException
+	{
 		return cmsPageService.getPageForProduct(productModel, getCmsPreviewService().getPagePreviewCriteria());
 	}
 }
@@ -10,12 +10,17 @@ import de.hybris.platform.util.Utilities;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.servlet.FilterChain;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
@@ -41,9 +46,24 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 
 	public static final String ADDON_FILTER_ACTIVE_PROPERTY = "addonfilter.active";
 
+	/**
+	 * Servlet context attribute set once all add-on resources have been synchronised at startup, see
+	 * {@link HybrisStorefrontContextLoaderListener}. Per request synchronisation is skipped while it is set.
+	 */
+	public static final String ADDON_RESOURCES_PRESYNCHRONIZED_ATTRIBUTE = AcceleratorAddOnFilter.class.getName()
+			+ ".presynchronized";
+
 	private ConfigurationService configurationService;
 	private ExtensionAccessor extensionAccessor;
 
+	/**
+	 * Add-on source files that have already been copied to the storefront, kept up to date by the resource watcher.
+	 */
+	private final Map<Path, SyncedAddOnResource> syncedResources = new ConcurrentHashMap<>();
+	private volatile AddOnResourceWatcher resourceWatcher;
+	private volatile Collection<ResourceAddOnResolver> addOnResolvers;
+	private volatile boolean resourceWatcherUnavailable;
+
 	public AcceleratorAddOnFilter()
 	{
 		extensionAccessor = new DefaultExtensionAccessor();
@@ -51,7 +71,14 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 
 	protected Collection<ResourceAddOnResolver> getAddOnResolvers()
 	{
-		return Arrays.asList(new PlainResourceAddOnResolver(), new ExecutableResourceAddOnResolver());
+		// Resolvers keep no per-request state, so they are created once and shared
+		Collection<ResourceAddOnResolver> resolvers = addOnResolvers;
+		if (resolvers == null)
+		{
+			resolvers = Arrays.asList(new PlainResourceAddOnResolver(), new ExecutableResourceAddOnResolver());
+			addOnResolvers = resolvers;
+		}
+		return resolvers;
 	}
 
 	@Override
@@ -65,15 +92,16 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 		{
 			LOG.debug("Hit by URI  [" + request.getRequestURI() + "]");
 		}
-		if (isActive())
+		if (isActive() && !isPreSynchronized())
 		{
 			for (final ResourceAddOnResolver resolver : getAddOnResolvers())
 			{
-				if (resolver.supports(request))
+				final Matcher matcher = resolver.match(request);
+				if (matcher != null)
 				{
-					final String sourceAddOnResource = resolver.getAddOnFullPathName(request);
-					final String targetAddOnResource = resolver.getStorefrontFullPathName(request);
-					copyFileInternalIfNeeded(sourceAddOnResource, targetAddOnResource);
+					final String sourceAddOnResource = resolver.getAddOnFullPathName(matcher, request);
+					final String targetAddOnResource = resolver.getStorefrontFullPathName(matcher, request);
+					synchronizeResource(sourceAddOnResource, targetAddOnResource);
 					break;
 				}
 			}
@@ -91,47 +119,56 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 
 		private final Pattern pattern;
 
-		protected Matcher patternMatcher;
-
 		ResourceAddOnResolver(final String patternString)
 		{
 			this.pattern = Pattern.compile(patternString);
 		}
 
 		public boolean supports(final HttpServletRequest request)
+		{
+			return match(request) != null;
+		}
+
+		/**
+		 * Matches the request against the resolver pattern. The returned matcher holds the match state for this call only,
+		 * so a resolver can be shared between concurrent requests.
+		 *
+		 * @return the successful matcher, or null if the request is not supported
+		 */
+		public Matcher match(final HttpServletRequest request)
 		{
 			final String includeServletPath = (String) request.getAttribute("javax.servlet.include.servlet_path");
 			if (includeServletPath != null)
 			{
-				patternMatcher = pattern.matcher(includeServletPath);
-				if (patternMatcher.matches())
+				final Matcher includeMatcher = pattern.matcher(includeServletPath);
+				if (includeMatcher.matches())
 				{
-					return true;
+					return includeMatcher;
 				}
 			}
-			patternMatcher = pattern.matcher(request.getRequestURI());
-			return patternMatcher.matches();
+			final Matcher uriMatcher = pattern.matcher(request.getRequestURI());
+			return uriMatcher.matches() ? uriMatcher : null;
 		}
 
-		protected abstract String[] getAddOnExtensionInfo();
+		protected abstract String[] getAddOnExtensionInfo(Matcher matcher);
 
-		protected final String getAddOnExtensionInfoName()
+		protected final String getAddOnExtensionInfoName(final Matcher matcher)
 		{
-			return getAddOnExtensionInfo()[EXTENSION_NAME];
+			return getAddOnExtensionInfo(matcher)[EXTENSION_NAME];
 		}
 
-		protected final String getAddOnExtensionInfoPayload()
+		protected final String getAddOnExtensionInfoPayload(final Matcher matcher)
 		{
-			return getAddOnExtensionInfo()[PATH_PAYLOAD];
+			return getAddOnExtensionInfo(matcher)[PATH_PAYLOAD];
 		}
 
-		abstract String getAddOnFullPathName(HttpServletRequest request);
+		abstract String getAddOnFullPathName(Matcher matcher, HttpServletRequest request);
 
-		abstract String getStorefrontFullPathName(HttpServletRequest request);
+		abstract String getStorefrontFullPathName(Matcher matcher, HttpServletRequest request);
 
-		protected String getExtensionPath()
+		protected String getExtensionPath(final Matcher matcher)
 		{
-			final String addOnExtension = getAddOnExtensionInfoName();
+			final String addOnExtension = getAddOnExtensionInfoName(matcher);
 			return getExtensionAccessor().getExtensionDir(addOnExtension).getAbsolutePath();
 		}
 	}
@@ -146,20 +183,20 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 		}
 
 		@Override
-		protected String[] getAddOnExtensionInfo()
+		protected String[] getAddOnExtensionInfo(final Matcher matcher)
 		{
-			return patternMatcher.group(EXTENSION_INFO_GROUP).split("/", 2); //first from whole request path
+			return matcher.group(EXTENSION_INFO_GROUP).split("/", 2); //first from whole request path
 		}
 
 		@Override
-		public String getAddOnFullPathName(final HttpServletRequest request)
+		public String getAddOnFullPathName(final Matcher matcher, final HttpServletRequest request)
 		{
-			final String sourceAddOnResource = getExtensionPath();
-			return sourceAddOnResource + "/" + ADDON_FOLDER + "/web/webroot/_ui/" + getAddOnExtensionInfoPayload();
+			final String sourceAddOnResource = getExtensionPath(matcher);
+			return sourceAddOnResource + "/" + ADDON_FOLDER + "/web/webroot/_ui/" + getAddOnExtensionInfoPayload(matcher);
 		}
 
 		@Override
-		public String getStorefrontFullPathName(final HttpServletRequest request)
+		public String getStorefrontFullPathName(final Matcher matcher, final HttpServletRequest request)
 		{
 			return getFullPathNameFromRequest(request);
 		}
@@ -177,29 +214,29 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 		}
 
 		@Override
-		protected String[] getAddOnExtensionInfo()
+		protected String[] getAddOnExtensionInfo(final Matcher matcher)
 		{
-			final String resourcePath = patternMatcher.group(EXTENSION_INFO_GROUP); //first from whole request path
+			final String resourcePath = matcher.group(EXTENSION_INFO_GROUP); //first from whole request path
 			return resourcePath.split("/", 2);
 		}
 
 		@Override
-		public String getAddOnFullPathName(final HttpServletRequest request)
+		public String getAddOnFullPathName(final Matcher matcher, final HttpServletRequest request)
 		{
-			final String sourceAddOnResource = getExtensionPath();
-			final String addOnFolder = patternMatcher.group(ADDON_ROOT_FOLDER_GROUP);
+			final String sourceAddOnResource = getExtensionPath(matcher);
+			final String addOnFolder = matcher.group(ADDON_ROOT_FOLDER_GROUP);
 
 			return sourceAddOnResource + "/" + ADDON_FOLDER + "/web/webroot/WEB-INF/" + addOnFolder + "/"
-					+ getAddOnExtensionInfoPayload();
+					+ getAddOnExtensionInfoPayload(matcher);
 		}
 
 		@Override
-		public String getStorefrontFullPathName(final HttpServletRequest request)
+		public String getStorefrontFullPathName(final Matcher matcher, final HttpServletRequest request)
 		{
 			//
 			final String ctxRootDir = getAppContextFullPathNameFromRequest(request);
-			final String addOnDir = patternMatcher.group(ADDON_ROOT_FOLDER_GROUP);
-			final String resourcePath = patternMatcher.group(EXTENSION_INFO_GROUP);
+			final String addOnDir = matcher.group(ADDON_ROOT_FOLDER_GROUP);
+			final String resourcePath = matcher.group(EXTENSION_INFO_GROUP);
 			return ctxRootDir + "WEB-INF/" + addOnDir + "/addons/" + resourcePath;
 		}
 	}
@@ -222,6 +259,118 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 		return FilenameUtils.normalize(request.getServletContext().getRealPath(requestUri), true);
 	}
 
+	/**
+	 * Makes sure the target resource is up to date with the add-on source. Resources which have been synchronised before
+	 * are kept up to date by the background {@link AddOnResourceWatcher}, so only the first hit for a resource (or any
+	 * hit when watching is not possible) checks and copies the file on the request thread.
+	 *
+	 * @param sourceAddOnFileName
+	 * @param targetWebAddOnFileName
+	 * @throws IOException
+	 */
+	protected void synchronizeResource(final String sourceAddOnFileName, final String targetWebAddOnFileName)
+			throws IOException
+	{
+		PathTraversalResourceUtils.assertPathSegmentIsSecure(sourceAddOnFileName);
+		final Path sourcePath = Paths.get(sourceAddOnFileName);
+		final SyncedAddOnResource synced = syncedResources.get(sourcePath);
+		if (synced != null && synced.getTargetFileName().equals(targetWebAddOnFileName))
+		{
+			return;
+		}
+
+		final AddOnResourceWatcher watcher = getResourceWatcher();
+
+		// Start watching before copying, so a change in between is not lost
+		final boolean watched = watcher != null && watcher.watch(sourcePath.getParent());
+		copyFileInternalIfNeeded(sourceAddOnFileName, targetWebAddOnFileName);
+
+		final File sourceFile = sourcePath.toFile();
+		if (watched && sourceFile.isFile())
+		{
+			syncedResources.put(sourcePath, new SyncedAddOnResource(targetWebAddOnFileName, sourceFile.lastModified()));
+		}
+	}
+
+	/**
+	 * Called from the watcher thread when a watched add-on source file changed.
+	 */
+	protected void onSourceFileChanged(final Path sourcePath, final boolean deleted)
+	{
+		final SyncedAddOnResource synced = syncedResources.get(sourcePath);
+		if (synced == null)
+		{
+			// Never requested, will be synchronised on first hit
+			return;
+		}
+
+		final File sourceFile = sourcePath.toFile();
+		if (deleted || !sourceFile.isFile())
+		{
+			syncedResources.remove(sourcePath);
+			return;
+		}
+
+		final long lastModified = sourceFile.lastModified();
+		if (lastModified != synced.getLastModified())
+		{
+			try
+			{
+				copyFileInternalIfNeeded(sourcePath.toString(), synced.getTargetFileName());
+				syncedResources.put(sourcePath, new SyncedAddOnResource(synced.getTargetFileName(), lastModified));
+			}
+			catch (final IOException e)
+			{
+				// Let the next request retry the copy
+				syncedResources.remove(sourcePath);
+				LOG.warn("Unable to copy add-on resource " + sourcePath, e);
+			}
+		}
+	}
+
+	protected AddOnResourceWatcher getResourceWatcher()
+	{
+		AddOnResourceWatcher watcher = resourceWatcher;
+		if (watcher == null && !resourceWatcherUnavailable)
+		{
+			synchronized (this)
+			{
+				watcher = resourceWatcher;
+				if (watcher == null && !resourceWatcherUnavailable)
+				{
+					watcher = AddOnResourceWatcher.start(new AddOnResourceWatcher.Listener()
+					{
+						@Override
+						public void fileChanged(final Path file, final boolean deleted)
+						{
+							onSourceFileChanged(file, deleted);
+						}
+
+						@Override
+						public void eventsLost()
+						{
+							syncedResources.clear();
+						}
+					});
+					resourceWatcher = watcher;
+					resourceWatcherUnavailable = watcher == null;
+				}
+			}
+		}
+		return watcher;
+	}
+
+	@Override
+	public void destroy()
+	{
+		final AddOnResourceWatcher watcher = resourceWatcher;
+		if (watcher != null)
+		{
+			watcher.stop();
+		}
+		syncedResources.clear();
+	}
+
 	/**
 	 * Copies file @param sourceAddOnFileName to @param targetWebAddOnFileName if it is older. Creates a directory
 	 * structure if needed.
@@ -282,6 +431,16 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 		return getConfigurationService().getConfiguration().getBoolean(ADDON_FILTER_ACTIVE_PROPERTY, false);
 	}
 
+	/**
+	 * @return true if all add-on resources have been synchronised on web application start
+	 */
+	protected boolean isPreSynchronized()
+	{
+		final ServletContext servletContext = getServletContext();
+		return servletContext != null
+				&& Boolean.TRUE.equals(servletContext.getAttribute(ADDON_RESOURCES_PRESYNCHRONIZED_ATTRIBUTE));
+	}
+
 	@Required
 	public void setConfigurationService(final ConfigurationService configurationService)
 	{
@@ -292,6 +451,31 @@ public class AcceleratorAddOnFilter extends GenericFilterBean
 		}
 	}
 
+	/**
+	 * Target of an already synchronised add-on resource together with the last modification time of its source.
+	 */
+	protected static class SyncedAddOnResource
+	{
+		private final String targetFileName;
+		private final long lastModified;
+
+		public SyncedAddOnResource(final String targetFileName, final long lastModified)
+		{
+			this.targetFileName = targetFileName;
+			this.lastModified = lastModified;
+		}
+
+		public String getTargetFileName()
+		{
+			return targetFileName;
+		}
+
+		public long getLastModified()
+		{
+			return lastModified;
+		}
+	}
+
 	//Utilities abstraction
 
 	protected ExtensionAccessor getExtensionAccessor()
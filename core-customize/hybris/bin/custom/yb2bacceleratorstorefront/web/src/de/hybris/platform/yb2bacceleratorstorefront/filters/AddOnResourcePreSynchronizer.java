@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import de.hybris.platform.yb2bacceleratorstorefront.filters.AcceleratorAddOnFilter.ExtensionAccessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import javax.servlet.ServletContext;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Copies the <code>_ui</code> and <code>WEB-INF</code> resources of all add-ons into the storefront web root in one go,
+ * using the same locations the {@link AcceleratorAddOnFilter} would copy them to on first request. Files are copied in
+ * parallel on a fork-join pool, and only if the target is missing or older than the source. Copies are delegated to
+ * {@link Files#copy(Path, Path, java.nio.file.CopyOption...)}, which uses the in-kernel copy of the platform where
+ * available; optionally hard links are created instead.
+ */
+public class AddOnResourcePreSynchronizer
+{
+	private static final Logger LOG = Logger.getLogger(AddOnResourcePreSynchronizer.class);
+
+	private static final String ADDON_WEBROOT = "acceleratoraddon/web/webroot";
+	private static final String UI_FOLDER = "_ui";
+	private static final String WEB_INF_FOLDER = "WEB-INF";
+	private static final String ADDONS_FOLDER = "addons";
+
+	private final ExtensionAccessor extensionAccessor;
+	private final Path webRoot;
+	private final boolean useHardLinks;
+	private final int parallelism;
+
+	private final LongAdder fileCount = new LongAdder();
+	private final LongAdder copiedCount = new LongAdder();
+	private final LongAdder copiedBytes = new LongAdder();
+
+	/**
+	 * @param parallelism
+	 *           the number of files synchronised at once, the number of available processors if less than 1
+	 */
+	public AddOnResourcePreSynchronizer(final ExtensionAccessor extensionAccessor, final Path webRoot,
+			final boolean useHardLinks, final int parallelism)
+	{
+		this.extensionAccessor = extensionAccessor;
+		this.webRoot = webRoot;
+		this.useHardLinks = useHardLinks;
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Synchronises all add-on resources and, if there were no errors, marks the servlet context with
+	 * {@link AcceleratorAddOnFilter#ADDON_RESOURCES_PRESYNCHRONIZED_ATTRIBUTE} so the filter skips its per request checks.
+	 *
+	 * @return true if all resources have been synchronised without errors
+	 */
+	public boolean synchronize(final ServletContext servletContext)
+	{
+		final boolean success = synchronize();
+		if (success)
+		{
+			servletContext.setAttribute(AcceleratorAddOnFilter.ADDON_RESOURCES_PRESYNCHRONIZED_ATTRIBUTE, Boolean.TRUE);
+		}
+		return success;
+	}
+
+	/**
+	 * Synchronises all add-on resources and logs the totals.
+	 *
+	 * @return true if all resources have been synchronised without errors
+	 */
+	public boolean synchronize()
+	{
+		final long start = System.currentTimeMillis();
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		boolean success;
+		try
+		{
+			final List<Path[]> resources = collectResources();
+			pool.submit(() -> resources.parallelStream().forEach(this::synchronizeResource)).get();
+			success = true;
+		}
+		catch (final ExecutionException | UncheckedIOException e)
+		{
+			LOG.error("Failed to pre-synchronise add-on resources, falling back to per request synchronisation",
+					e instanceof ExecutionException ? e.getCause() : e);
+			success = false;
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			success = false;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		LOG.info("Pre-synchronised add-on resources: " + fileCount.sum() + " files checked, " + copiedCount.sum()
+				+ " files " + (useHardLinks ? "linked or copied" : "copied") + ", " + copiedBytes.sum() + " bytes in "
+				+ (System.currentTimeMillis() - start) + " ms");
+		return success;
+	}
+
+	/**
+	 * @return pairs of source and target file for all add-on resources
+	 */
+	protected List<Path[]> collectResources()
+	{
+		final List<Path[]> resources = new ArrayList<>();
+		for (final String extensionName : extensionAccessor.getAllExtensionNames())
+		{
+			final File extensionDir = extensionAccessor.getExtensionDir(extensionName);
+			if (extensionDir == null)
+			{
+				continue;
+			}
+			final Path addOnWebRoot = extensionDir.toPath().resolve(ADDON_WEBROOT);
+			if (!Files.isDirectory(addOnWebRoot))
+			{
+				continue;
+			}
+
+			// _ui/<payload> -> _ui/addons/<addon>/<payload>
+			collectFiles(addOnWebRoot.resolve(UI_FOLDER), webRoot.resolve(UI_FOLDER).resolve(ADDONS_FOLDER).resolve(extensionName),
+					resources);
+
+			// WEB-INF/<folder>/<payload> -> WEB-INF/<folder>/addons/<addon>/<payload>
+			final Path addOnWebInf = addOnWebRoot.resolve(WEB_INF_FOLDER);
+			if (Files.isDirectory(addOnWebInf))
+			{
+				try (final DirectoryStream<Path> folders = Files.newDirectoryStream(addOnWebInf, Files::isDirectory))
+				{
+					for (final Path folder : folders)
+					{
+						collectFiles(folder, webRoot.resolve(WEB_INF_FOLDER).resolve(folder.getFileName().toString())
+								.resolve(ADDONS_FOLDER).resolve(extensionName), resources);
+					}
+				}
+				catch (final IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+		return resources;
+	}
+
+	protected void collectFiles(final Path sourceRoot, final Path targetRoot, final List<Path[]> resources)
+	{
+		if (!Files.isDirectory(sourceRoot))
+		{
+			return;
+		}
+		try (final Stream<Path> files = Files.walk(sourceRoot))
+		{
+			files.filter(Files::isRegularFile)
+					.forEach(source -> resources.add(new Path[]
+					{ source, targetRoot.resolve(sourceRoot.relativize(source).toString()) }));
+		}
+		catch (final IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	protected void synchronizeResource(final Path[] resource)
+	{
+		final Path source = resource[0];
+		final Path target = resource[1];
+		fileCount.increment();
+		try
+		{
+			final BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+			if (Files.exists(target)
+					&& Files.getLastModifiedTime(target).compareTo(sourceAttributes.lastModifiedTime()) >= 0)
+			{
+				return;
+			}
+
+			Files.createDirectories(target.getParent());
+			if (!useHardLinks || !link(source, target))
+			{
+				Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+			}
+			copiedCount.increment();
+			copiedBytes.add(sourceAttributes.size());
+		}
+		catch (final IOException e)
+		{
+			throw new UncheckedIOException("Unable to synchronise " + source + " to " + target, e);
+		}
+	}
+
+	protected boolean link(final Path source, final Path target)
+	{
+		try
+		{
+			Files.deleteIfExists(target);
+			Files.createLink(target, source);
+			return true;
+		}
+		catch (final FileAlreadyExistsException e)
+		{
+			return false;
+		}
+		catch (final IOException | UnsupportedOperationException e)
+		{
+			// e.g. source and target on different file systems
+			LOG.debug("Unable to link " + target + ", copying instead", e);
+			return false;
+		}
+	}
+}
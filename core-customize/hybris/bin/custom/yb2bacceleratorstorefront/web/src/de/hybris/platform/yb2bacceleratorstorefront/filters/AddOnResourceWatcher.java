@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Watches add-on source directories on a background thread and reports changed files to a {@link Listener}. Used by
+ * the {@link AcceleratorAddOnFilter} so that request threads do not have to check the file system for add-on resources
+ * that are already synchronised.
+ */
+public class AddOnResourceWatcher implements Runnable
+{
+	private static final Logger LOG = Logger.getLogger(AddOnResourceWatcher.class);
+
+	private final WatchService watchService;
+	private final Listener listener;
+	private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+	private final Map<WatchKey, Path> directoriesByKey = new ConcurrentHashMap<>();
+	private final Thread thread;
+
+	/**
+	 * Callback interface for file system changes in watched directories.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called when a file in a watched directory was created, modified or deleted.
+		 */
+		void fileChanged(Path file, boolean deleted);
+
+		/**
+		 * Called when events may have been lost, either because of an overflow or because a watched directory is no longer
+		 * accessible. All state derived from previous events should be discarded.
+		 */
+		void eventsLost();
+	}
+
+	protected AddOnResourceWatcher(final WatchService watchService, final Listener listener)
+	{
+		this.watchService = watchService;
+		this.listener = listener;
+		this.thread = new Thread(this, "addon-resource-watcher");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Creates and starts a watcher for the default file system.
+	 *
+	 * @return the started watcher, or null if the file system does not support watching
+	 */
+	public static AddOnResourceWatcher start(final Listener listener)
+	{
+		try
+		{
+			final AddOnResourceWatcher watcher = new AddOnResourceWatcher(FileSystems.getDefault().newWatchService(), listener);
+			watcher.thread.start();
+			return watcher;
+		}
+		catch (final IOException | UnsupportedOperationException e)
+		{
+			LOG.warn("Unable to watch add-on resources, falling back to checking them on every request", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Registers the given directory, if not yet watched.
+	 *
+	 * @return true if the directory is being watched
+	 */
+	public boolean watch(final Path directory)
+	{
+		if (directory == null)
+		{
+			return false;
+		}
+		if (watchedDirectories.containsKey(directory))
+		{
+			return true;
+		}
+		if (!Files.isDirectory(directory))
+		{
+			return false;
+		}
+
+		synchronized (watchedDirectories)
+		{
+			if (!watchedDirectories.containsKey(directory))
+			{
+				try
+				{
+					final WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+					directoriesByKey.put(key, directory);
+					watchedDirectories.put(directory, key);
+				}
+				catch (final IOException | ClosedWatchServiceException e)
+				{
+					LOG.debug("Unable to watch add-on directory " + directory, e);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				processEvents(watchService.take());
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (final ClosedWatchServiceException e)
+		{
+			LOG.debug("Add-on resource watcher stopped");
+		}
+	}
+
+	protected void processEvents(final WatchKey key)
+	{
+		final Path directory = directoriesByKey.get(key);
+		for (final WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == OVERFLOW)
+			{
+				listener.eventsLost();
+			}
+			else if (directory != null)
+			{
+				final Path file = directory.resolve((Path) event.context());
+				try
+				{
+					listener.fileChanged(file, event.kind() == ENTRY_DELETE);
+				}
+				catch (final RuntimeException e)
+				{
+					LOG.warn("Failed to synchronise add-on resource " + file, e);
+				}
+			}
+		}
+
+		if (!key.reset())
+		{
+			// The directory is gone, forget it so it can be registered again once it exists
+			directoriesByKey.remove(key);
+			if (directory != null)
+			{
+				watchedDirectories.remove(directory);
+			}
+			listener.eventsLost();
+		}
+	}
+
+	public void stop()
+	{
+		thread.interrupt();
+		try
+		{
+			watchService.close();
+		}
+		catch (final IOException e)
+		{
+			LOG.debug("Failed to close add-on resource watch service", e);
+		}
+		watchedDirectories.clear();
+		directoriesByKey.clear();
+	}
+}
@@ -3,6 +3,8 @@
  */
 package de.hybris.platform.yb2bacceleratorstorefront.filters;
 
+import de.hybris.platform.yb2bacceleratorstorefront.util.CompiledPathMatcher;
+
 import java.io.IOException;
 import java.util.Map;
 
@@ -22,6 +24,7 @@ public class FileUploadFilter extends OncePerRequestFilter
 {
 	private Map<String, MultipartFilter> urlFilterMapping;
 	private PathMatcher pathMatcher;
+	private volatile CompiledPathMatcher<MultipartFilter> urlFilterMatcher;
 
 	@Override
 	public void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
@@ -47,15 +50,21 @@ public class FileUploadFilter extends OncePerRequestFilter
 
 	protected MultipartFilter getMultipartFilter(final String servletPath)
 	{
-		for (Map.Entry<String, MultipartFilter> urlFilterMapping : getUrlFilterMapping().entrySet())
+		return getUrlFilterMatcher().lookup(servletPath);
+	}
+
+	/**
+	 * Returns the url filter mapping compiled into a matcher, building it on first use.
+	 */
+	protected CompiledPathMatcher<MultipartFilter> getUrlFilterMatcher()
+	{
+		CompiledPathMatcher<MultipartFilter> matcher = urlFilterMatcher;
+		if (matcher == null)
 		{
-			if (getPathMatcher().match(urlFilterMapping.getKey(), servletPath))
-			{
-				return urlFilterMapping.getValue();
-			}
+			matcher = CompiledPathMatcher.forMapping(getUrlFilterMapping(), getPathMatcher());
+			urlFilterMatcher = matcher;
 		}
-
-		return null;
+		return matcher;
 	}
 
 	protected Map<String, MultipartFilter> getUrlFilterMapping()
@@ -67,6 +76,7 @@ public class FileUploadFilter extends OncePerRequestFilter
 	public void setUrlFilterMapping(final Map<String, MultipartFilter> urlFilterMapping)
 	{
 		this.urlFilterMapping = urlFilterMapping;
+		this.urlFilterMatcher = null;
 	}
 
 	protected PathMatcher getPathMatcher()
@@ -78,5 +88,6 @@ public class FileUploadFilter extends OncePerRequestFilter
 	public void setPathMatcher(final PathMatcher pathMatcher)
 	{
 		this.pathMatcher = pathMatcher;
+		this.urlFilterMatcher = null;
 	}
 }
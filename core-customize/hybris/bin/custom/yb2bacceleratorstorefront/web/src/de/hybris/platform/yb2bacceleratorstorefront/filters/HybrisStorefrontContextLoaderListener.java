@@ -4,9 +4,15 @@
 package de.hybris.platform.yb2bacceleratorstorefront.filters;
 
 import de.hybris.platform.spring.HybrisContextLoaderListener;
+import de.hybris.platform.util.Config;
 
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+
 import org.apache.log4j.Logger;
 
 
@@ -15,13 +21,76 @@ import org.apache.log4j.Logger;
  * also loaded from properties which are prefixed with the display name of the web application. As the accelerator is a
  * template the final name of the web application is not know at this time, therefore this class also loads properties
  * using the 'acceleratorstorefront' prefix.
+ * <p>
+ * When <code>addonfilter.presync.active</code> is enabled together with the {@link AcceleratorAddOnFilter}, all add-on
+ * resources are synchronised into the web root on startup and the filter skips its per request checks.
+ * <p>
+ * When <code>storefront.staticResourceFilter.precompressed.enabled</code> is enabled, gzip siblings of the static text
+ * resources below <code>_ui</code> are written on startup, see {@link StaticResourcePrecompressor}.
  */
 public class HybrisStorefrontContextLoaderListener extends HybrisContextLoaderListener
 {
-	@SuppressWarnings("unused")
 	private static final Logger LOG = Logger.getLogger(HybrisStorefrontContextLoaderListener.class);
 	protected static final String ACCELERATORSTOREFRONT = "acceleratorstorefront";
 
+	public static final String ADDON_PRESYNC_ACTIVE_PROPERTY = "addonfilter.presync.active";
+	public static final String ADDON_PRESYNC_HARDLINKS_PROPERTY = "addonfilter.presync.hardlinks";
+	public static final String ADDON_PRESYNC_PARALLELISM_PROPERTY = "addonfilter.presync.parallelism";
+	public static final String PRECOMPRESS_MIN_SIZE_PROPERTY = "storefront.staticResourceFilter.precompressed.minSize";
+	public static final String PRECOMPRESS_PARALLELISM_PROPERTY = "storefront.staticResourceFilter.precompressed.parallelism";
+
+	private static final String UI_FOLDER = "_ui";
+
+	@Override
+	public void contextInitialized(final ServletContextEvent event)
+	{
+		super.contextInitialized(event);
+
+		if (Config.getBoolean(AcceleratorAddOnFilter.ADDON_FILTER_ACTIVE_PROPERTY, false)
+				&& Config.getBoolean(ADDON_PRESYNC_ACTIVE_PROPERTY, false))
+		{
+			preSynchronizeAddOnResources(event.getServletContext());
+		}
+
+		// After the add-on resources, so that their text resources are compressed as well
+		if (Config.getBoolean(StaticResourceFilter.PRECOMPRESSED_ENABLED_PROPERTY, false))
+		{
+			precompressStaticResources(event.getServletContext());
+		}
+	}
+
+	protected void precompressStaticResources(final ServletContext servletContext)
+	{
+		final String uiRoot = servletContext.getRealPath("/" + UI_FOLDER);
+		if (uiRoot == null)
+		{
+			LOG.warn("Web application is not deployed to a directory, skipping static resource precompression");
+			return;
+		}
+
+		final String extensions = Config.getString(StaticResourceFilter.PRECOMPRESSED_EXTENSIONS_PROPERTY,
+				StaticResourceFilter.DEFAULT_PRECOMPRESSED_EXTENSIONS);
+		new StaticResourcePrecompressor(Paths.get(uiRoot), Arrays.asList(extensions.split(",")),
+				Config.getInt(PRECOMPRESS_MIN_SIZE_PROPERTY, 1024),
+				Config.getInt(PRECOMPRESS_PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors())).compress();
+	}
+
+	protected void preSynchronizeAddOnResources(final ServletContext servletContext)
+	{
+		final String webRoot = servletContext.getRealPath("/");
+		if (webRoot == null)
+		{
+			LOG.warn("Web application is not deployed to a directory, skipping add-on resource pre-synchronisation");
+			return;
+		}
+
+		final AddOnResourcePreSynchronizer synchronizer = new AddOnResourcePreSynchronizer(
+				new AcceleratorAddOnFilter.DefaultExtensionAccessor(), Paths.get(webRoot),
+				Config.getBoolean(ADDON_PRESYNC_HARDLINKS_PROPERTY, false),
+				Config.getInt(ADDON_PRESYNC_PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+		synchronizer.synchronize(servletContext);
+	}
+
 	@Override
 	protected void fillConfigLocations(final String appName, final List<String> locations)
 	{
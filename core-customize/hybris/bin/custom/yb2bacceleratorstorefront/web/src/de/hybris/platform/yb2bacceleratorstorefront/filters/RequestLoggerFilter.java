@@ -3,7 +3,16 @@
  */
 package de.hybris.platform.yb2bacceleratorstorefront.filters;
 
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsTextFormat;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsWriter;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.RequestMetrics;
+
 import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -14,20 +23,62 @@ import javax.servlet.http.HttpServletResponseWrapper;
 
 import org.apache.log4j.Logger;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import com.google.common.base.Stopwatch;
 
 
 /**
  * A filter that logs each request. This is a spring configured filter that is executed by the PlatformFilterChain.
+ * <p>
+ * If {@link RequestMetrics} are configured and enabled, the duration, route and status of every request are recorded
+ * independently of the log level. The metrics can be scraped in plain text from the configured scrape path by the
+ * configured remote addresses, together with any additional metrics.
  */
 public class RequestLoggerFilter extends OncePerRequestFilter
 {
 	private static final Logger LOG = Logger.getLogger(RequestLoggerFilter.class.getName());
 
+	private RequestMetrics requestMetrics;
+	private String scrapePath;
+	private Set<String> scrapeAllowedAddresses = Collections.emptySet();
+	private List<MetricsWriter> additionalMetrics = Collections.emptyList();
+
 	@Override
 	public void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
 			final FilterChain filterChain) throws IOException, ServletException
+	{
+		final RequestMetrics metrics = getRequestMetrics();
+		if (metrics == null || !metrics.isEnabled())
+		{
+			doFilterAndLog(request, response, filterChain);
+			return;
+		}
+
+		if (isScrapeRequest(request))
+		{
+			writeMetrics(response, metrics);
+			return;
+		}
+
+		final long start = System.nanoTime();
+		metrics.requestStarted();
+		// An exception propagating to the container is answered with an internal server error
+		int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		try
+		{
+			doFilterAndLog(request, response, filterChain);
+			status = response.getStatus();
+		}
+		finally
+		{
+			metrics.requestCompleted((String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), status,
+					System.nanoTime() - start);
+		}
+	}
+
+	protected void doFilterAndLog(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws IOException, ServletException
 	{
 		if (LOG.isDebugEnabled())
 		{
@@ -64,6 +115,34 @@ public class RequestLoggerFilter extends OncePerRequestFilter
 		filterChain.doFilter(request, response);
 	}
 
+	protected boolean isScrapeRequest(final HttpServletRequest request)
+	{
+		final String path = getScrapePath();
+		if (path == null || path.isEmpty())
+		{
+			return false;
+		}
+
+		// Compare without building the path within the application, this runs for every request
+		final String requestUri = request.getRequestURI();
+		final String contextPath = request.getContextPath();
+		return requestUri.length() == contextPath.length() + path.length() && requestUri.startsWith(contextPath)
+				&& requestUri.endsWith(path) && getScrapeAllowedAddresses().contains(request.getRemoteAddr());
+	}
+
+	protected void writeMetrics(final HttpServletResponse response, final RequestMetrics metrics) throws IOException
+	{
+		response.setContentType(MetricsTextFormat.CONTENT_TYPE);
+		response.setHeader("Cache-Control", "no-cache");
+		final Writer writer = response.getWriter();
+		metrics.writeMetrics(writer);
+		for (final MetricsWriter additional : getAdditionalMetrics())
+		{
+			additional.writeMetrics(writer);
+		}
+		writer.flush();
+	}
+
 	protected void logCookies(final HttpServletRequest httpRequest)
 	{
 		if (LOG.isDebugEnabled())
@@ -104,6 +183,65 @@ public class RequestLoggerFilter extends OncePerRequestFilter
 		return securePrefix + methodPrefix + " [" + requestUri + "] [" + queryString + "] ";
 	}
 
+	protected RequestMetrics getRequestMetrics()
+	{
+		return requestMetrics;
+	}
+
+	public void setRequestMetrics(final RequestMetrics requestMetrics)
+	{
+		this.requestMetrics = requestMetrics;
+	}
+
+	protected String getScrapePath()
+	{
+		return scrapePath;
+	}
+
+	/**
+	 * @param scrapePath
+	 *           path within the web application the metrics are served from, e.g. <code>/metrics</code>; empty to disable
+	 */
+	public void setScrapePath(final String scrapePath)
+	{
+		this.scrapePath = scrapePath == null ? null : scrapePath.trim();
+	}
+
+	protected Set<String> getScrapeAllowedAddresses()
+	{
+		return scrapeAllowedAddresses;
+	}
+
+	/**
+	 * @param scrapeAllowedAddresses
+	 *           comma separated remote addresses allowed to scrape the metrics
+	 */
+	public void setScrapeAllowedAddresses(final String scrapeAllowedAddresses)
+	{
+		final Set<String> addresses = new HashSet<>();
+		if (scrapeAllowedAddresses != null)
+		{
+			for (final String address : scrapeAllowedAddresses.split(","))
+			{
+				if (!address.trim().isEmpty())
+				{
+					addresses.add(address.trim());
+				}
+			}
+		}
+		this.scrapeAllowedAddresses = addresses;
+	}
+
+	protected List<MetricsWriter> getAdditionalMetrics()
+	{
+		return additionalMetrics;
+	}
+
+	public void setAdditionalMetrics(final List<MetricsWriter> additionalMetrics)
+	{
+		this.additionalMetrics = additionalMetrics == null ? Collections.<MetricsWriter> emptyList() : additionalMetrics;
+	}
+
 	protected static class ResponseWrapper extends HttpServletResponseWrapper
 	{
 		private int status;
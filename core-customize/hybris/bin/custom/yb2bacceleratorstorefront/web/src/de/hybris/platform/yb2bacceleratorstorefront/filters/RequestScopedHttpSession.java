@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+
+
+/**
+ * Http session of a single request handled by the stateless filter chain. It is not known to the servlet container,
+ * so no session cookie is sent and nothing is replicated, and its attributes are discarded with the request.
+ */
+public class RequestScopedHttpSession implements HttpSession
+{
+	private final String id = UUID.randomUUID().toString();
+	private final long creationTime = System.currentTimeMillis();
+	private final Map<String, Object> attributes = new LinkedHashMap<>();
+	private final ServletContext servletContext;
+	private int maxInactiveInterval;
+	private boolean valid = true;
+
+	public RequestScopedHttpSession(final ServletContext servletContext)
+	{
+		this.servletContext = servletContext;
+	}
+
+	@Override
+	public long getCreationTime()
+	{
+		checkValid();
+		return creationTime;
+	}
+
+	@Override
+	public String getId()
+	{
+		return id;
+	}
+
+	@Override
+	public long getLastAccessedTime()
+	{
+		checkValid();
+		return creationTime;
+	}
+
+	@Override
+	public ServletContext getServletContext()
+	{
+		return servletContext;
+	}
+
+	@Override
+	public void setMaxInactiveInterval(final int interval)
+	{
+		this.maxInactiveInterval = interval;
+	}
+
+	@Override
+	public int getMaxInactiveInterval()
+	{
+		return maxInactiveInterval;
+	}
+
+	@Override
+	@Deprecated
+	public javax.servlet.http.HttpSessionContext getSessionContext()
+	{
+		return null;
+	}
+
+	@Override
+	public Object getAttribute(final String name)
+	{
+		checkValid();
+		return attributes.get(name);
+	}
+
+	@Override
+	@Deprecated
+	public Object getValue(final String name)
+	{
+		return getAttribute(name);
+	}
+
+	@Override
+	public Enumeration<String> getAttributeNames()
+	{
+		checkValid();
+		return Collections.enumeration(attributes.keySet());
+	}
+
+	@Override
+	@Deprecated
+	public String[] getValueNames()
+	{
+		checkValid();
+		return attributes.keySet().toArray(new String[attributes.size()]);
+	}
+
+	@Override
+	public void setAttribute(final String name, final Object value)
+	{
+		checkValid();
+		if (value == null)
+		{
+			attributes.remove(name);
+		}
+		else
+		{
+			attributes.put(name, value);
+		}
+	}
+
+	@Override
+	@Deprecated
+	public void putValue(final String name, final Object value)
+	{
+		setAttribute(name, value);
+	}
+
+	@Override
+	public void removeAttribute(final String name)
+	{
+		checkValid();
+		attributes.remove(name);
+	}
+
+	@Override
+	@Deprecated
+	public void removeValue(final String name)
+	{
+		removeAttribute(name);
+	}
+
+	@Override
+	public void invalidate()
+	{
+		checkValid();
+		valid = false;
+		attributes.clear();
+	}
+
+	@Override
+	public boolean isNew()
+	{
+		checkValid();
+		return true;
+	}
+
+	public boolean isValid()
+	{
+		return valid;
+	}
+
+	protected void checkValid()
+	{
+		if (!valid)
+		{
+			throw new IllegalStateException("Session " + id + " has been invalidated");
+		}
+	}
+}
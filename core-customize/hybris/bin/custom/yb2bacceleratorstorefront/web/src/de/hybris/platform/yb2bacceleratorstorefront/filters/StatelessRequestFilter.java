@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import de.hybris.platform.cms2.misc.CMSFilter;
+import de.hybris.platform.yb2bacceleratorstorefront.util.CompiledPathMatcher;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+
+/**
+ * Decides at the front of the storefront filter chain whether a request is handled without an HTTP session, before any
+ * filter created one.
+ * <p>
+ * If the stateless mode is enabled, anonymous GET requests without any cookies for one of the stateless URL patterns
+ * (typically product, category and content pages hit by crawlers) are marked with the
+ * {@link #STATELESS_REQUEST_ATTRIBUTE} and passed to the stateless filter chain, which runs them in a session for the
+ * request only instead of the session filters. All other requests are passed to the default filter chain.
+ */
+public class StatelessRequestFilter extends OncePerRequestFilter
+{
+	public static final String STATELESS_REQUEST_ATTRIBUTE = StatelessRequestFilter.class.getName() + ".stateless";
+
+	private Filter defaultFilter;
+	private Filter statelessFilter;
+	private PathMatcher pathMatcher;
+	private boolean statelessEnabled;
+	private Set<String> statelessUrlSet = Collections.emptySet();
+	private volatile CompiledPathMatcher<String> statelessMatcher;
+
+	/**
+	 * @return true if the request was marked as stateless by this filter
+	 */
+	public static boolean isStateless(final HttpServletRequest request)
+	{
+		return Boolean.TRUE.equals(request.getAttribute(STATELESS_REQUEST_ATTRIBUTE));
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException
+	{
+		if (isStatelessRequest(request))
+		{
+			request.setAttribute(STATELESS_REQUEST_ATTRIBUTE, Boolean.TRUE);
+			getStatelessFilter().doFilter(request, response, filterChain);
+		}
+		else
+		{
+			getDefaultFilter().doFilter(request, response, filterChain);
+		}
+	}
+
+	/**
+	 * Checks whether the request can be handled without a session: stateless mode is enabled, and the request is a non
+	 * AJAX GET request without session id or cookies, for a URL matching one of the stateless URL patterns.
+	 */
+	protected boolean isStatelessRequest(final HttpServletRequest request)
+	{
+		if (!isStatelessEnabled() || !"GET".equalsIgnoreCase(request.getMethod()) || request.getRequestedSessionId() != null)
+		{
+			return false;
+		}
+		final Cookie[] cookies = request.getCookies();
+		return (cookies == null || cookies.length == 0)
+				&& StringUtils.isBlank(request.getHeader(StorefrontFilter.AJAX_REQUEST_HEADER_NAME))
+				&& !StringUtils.contains(request.getQueryString(), CMSFilter.CLEAR_CMSSITE_PARAM)
+				&& getStatelessMatcher().matches(request.getServletPath());
+	}
+
+	/**
+	 * Returns the stateless URL patterns compiled into a matcher, building it on first use.
+	 */
+	protected CompiledPathMatcher<String> getStatelessMatcher()
+	{
+		CompiledPathMatcher<String> matcher = statelessMatcher;
+		if (matcher == null)
+		{
+			matcher = CompiledPathMatcher.forPatterns(getStatelessUrlSet(), getPathMatcher());
+			statelessMatcher = matcher;
+		}
+		return matcher;
+	}
+
+	protected Filter getDefaultFilter()
+	{
+		return defaultFilter;
+	}
+
+	@Required
+	public void setDefaultFilter(final Filter defaultFilter)
+	{
+		this.defaultFilter = defaultFilter;
+	}
+
+	protected Filter getStatelessFilter()
+	{
+		return statelessFilter;
+	}
+
+	@Required
+	public void setStatelessFilter(final Filter statelessFilter)
+	{
+		this.statelessFilter = statelessFilter;
+	}
+
+	protected PathMatcher getPathMatcher()
+	{
+		return pathMatcher;
+	}
+
+	@Required
+	public void setPathMatcher(final PathMatcher pathMatcher)
+	{
+		this.pathMatcher = pathMatcher;
+		this.statelessMatcher = null;
+	}
+
+	protected boolean isStatelessEnabled()
+	{
+		return statelessEnabled;
+	}
+
+	public void setStatelessEnabled(final boolean statelessEnabled)
+	{
+		this.statelessEnabled = statelessEnabled;
+	}
+
+	protected Set<String> getStatelessUrlSet()
+	{
+		return statelessUrlSet;
+	}
+
+	public void setStatelessUrlSet(final Set<String> statelessUrlSet)
+	{
+		this.statelessUrlSet = statelessUrlSet == null ? Collections.<String> emptySet() : statelessUrlSet;
+		this.statelessMatcher = null;
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+
+/**
+ * Replaces the session filters in the stateless filter chain: runs the request in a new session that is not bound to
+ * an HTTP session and is closed once the request is done.
+ * <p>
+ * The request is passed on wrapped, so that filters, controllers and JSPs asking for an HTTP session get a
+ * {@link RequestScopedHttpSession} instead of creating one in the servlet container.
+ */
+public class StatelessSessionFilter extends OncePerRequestFilter
+{
+	private SessionService sessionService;
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException
+	{
+		final Session session = getSessionService().createNewSession();
+		try
+		{
+			filterChain.doFilter(new StatelessHttpServletRequest(request), response);
+		}
+		finally
+		{
+			getSessionService().closeSession(session);
+		}
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	/**
+	 * Request wrapper that never creates an HTTP session in the servlet container, but a session for the request only.
+	 */
+	protected static class StatelessHttpServletRequest extends HttpServletRequestWrapper
+	{
+		private RequestScopedHttpSession session;
+
+		public StatelessHttpServletRequest(final HttpServletRequest request)
+		{
+			super(request);
+		}
+
+		@Override
+		public HttpSession getSession()
+		{
+			return getSession(true);
+		}
+
+		@Override
+		public HttpSession getSession(final boolean create)
+		{
+			if ((session == null || !session.isValid()) && create)
+			{
+				session = new RequestScopedHttpSession(getServletContext());
+			}
+			return session != null && session.isValid() ? session : null;
+		}
+
+		@Override
+		public String changeSessionId()
+		{
+			final HttpSession currentSession = getSession(false);
+			if (currentSession == null)
+			{
+				throw new IllegalStateException("No session associated with the request");
+			}
+			return currentSession.getId();
+		}
+
+		@Override
+		public String getRequestedSessionId()
+		{
+			return null;
+		}
+
+		@Override
+		public boolean isRequestedSessionIdValid()
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.ServletContext;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Bounded cache of static web resource metadata used by the {@link StaticResourceFilter} fast path. For every resource
+ * the strong ETag is computed once from the file content; small files additionally keep their content in memory. The
+ * file is checked for changes, or for its existence if it was missing, at most once per check interval.
+ */
+public class StaticResourceCache
+{
+	private static final Logger LOG = Logger.getLogger(StaticResourceCache.class);
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final int BUFFER_SIZE = 8192;
+
+	private final ServletContext servletContext;
+	private final int maxEntries;
+	private final int maxContentSize;
+	private final long checkInterval;
+	private final Map<String, StaticResource> resources = new ConcurrentHashMap<>();
+
+	/**
+	 * @param servletContext
+	 *           used to resolve resource paths to files and mime types
+	 * @param maxEntries
+	 *           maximum number of cached resources, the cache is cleared when exceeded
+	 * @param maxContentSize
+	 *           files up to this size in bytes are kept in memory
+	 * @param checkInterval
+	 *           minimum time in milliseconds between two modification checks of the same file
+	 */
+	public StaticResourceCache(final ServletContext servletContext, final int maxEntries, final int maxContentSize,
+			final long checkInterval)
+	{
+		this.servletContext = servletContext;
+		this.maxEntries = maxEntries;
+		this.maxContentSize = maxContentSize;
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * @param path
+	 *           the resource path within the web application, e.g. <code>/_ui/responsive/common/js/acc.cart.js</code>
+	 * @return the resource, or null if the path does not denote a readable file
+	 */
+	public StaticResource getResource(final String path)
+	{
+		final long now = System.currentTimeMillis();
+		final StaticResource cached = resources.get(path);
+		if (cached != null)
+		{
+			if (now - cached.getCheckedAt() < checkInterval)
+			{
+				return cached.isMissing() ? null : cached;
+			}
+			if (!cached.isMissing() && isUnchanged(cached))
+			{
+				cached.setCheckedAt(now);
+				return cached;
+			}
+			resources.remove(path);
+		}
+
+		// Missing files are remembered as well, so probing for optional files does not hit the file system every time
+		final StaticResource resource = loadResource(path, now);
+		if (resources.size() >= maxEntries)
+		{
+			resources.clear();
+		}
+		resources.put(path, resource == null ? StaticResource.missing(now) : resource);
+		return resource;
+	}
+
+	protected boolean isUnchanged(final StaticResource resource)
+	{
+		try
+		{
+			final BasicFileAttributes attributes = Files.readAttributes(resource.getFile(), BasicFileAttributes.class);
+			return attributes.lastModifiedTime().toMillis() == resource.getLastModified()
+					&& attributes.size() == resource.getLength();
+		}
+		catch (final IOException e)
+		{
+			return false;
+		}
+	}
+
+	protected StaticResource loadResource(final String path, final long now)
+	{
+		final String realPath = servletContext.getRealPath(path);
+		if (realPath == null)
+		{
+			return null;
+		}
+
+		final Path file = Paths.get(realPath);
+		try
+		{
+			final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			if (!attributes.isRegularFile())
+			{
+				return null;
+			}
+
+			final long length = attributes.size();
+			final MessageDigest digest = MessageDigest.getInstance("MD5");
+			byte[] content = null;
+			if (length <= maxContentSize)
+			{
+				content = Files.readAllBytes(file);
+				digest.update(content);
+			}
+			else
+			{
+				digestFile(file, digest);
+			}
+
+			return new StaticResource(file, content == null ? length : content.length, attributes.lastModifiedTime()
+					.toMillis(), '"' + toHex(digest.digest()) + '"', servletContext.getMimeType(file.getFileName().toString()),
+					content, now);
+		}
+		catch (final NoSuchFileException e)
+		{
+			return null;
+		}
+		catch (final IOException | NoSuchAlgorithmException e)
+		{
+			LOG.warn("Unable to read static resource " + file, e);
+			return null;
+		}
+	}
+
+	protected void digestFile(final Path file, final MessageDigest digest) throws IOException
+	{
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		try (final InputStream in = new DigestInputStream(Files.newInputStream(file), digest))
+		{
+			while (in.read(buffer) != -1)
+			{
+				// read through to update the digest
+			}
+		}
+	}
+
+	protected static String toHex(final byte[] bytes)
+	{
+		final char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++)
+		{
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	public void clear()
+	{
+		resources.clear();
+	}
+
+	/**
+	 * Metadata and optionally content of a single static resource.
+	 */
+	public static class StaticResource
+	{
+		private final Path file;
+		private final long length;
+		private final long lastModified;
+		private final String etag;
+		private final String contentType;
+		private final byte[] content;
+		private volatile long checkedAt;
+
+		public StaticResource(final Path file, final long length, final long lastModified, final String etag,
+				final String contentType, final byte[] content, final long checkedAt)
+		{
+			this.file = file;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.etag = etag;
+			this.contentType = contentType;
+			this.content = content;
+			this.checkedAt = checkedAt;
+		}
+
+		protected static StaticResource missing(final long checkedAt)
+		{
+			return new StaticResource(null, -1, 0, null, null, null, checkedAt);
+		}
+
+		protected boolean isMissing()
+		{
+			return file == null;
+		}
+
+		public Path getFile()
+		{
+			return file;
+		}
+
+		public long getLength()
+		{
+			return length;
+		}
+
+		public long getLastModified()
+		{
+			return lastModified;
+		}
+
+		/**
+		 * @return the quoted strong entity tag
+		 */
+		public String getEtag()
+		{
+			return etag;
+		}
+
+		public String getContentType()
+		{
+			return contentType;
+		}
+
+		/**
+		 * @return the file content if it is small enough to be kept in memory, otherwise null
+		 */
+		public byte[] getContent()
+		{
+			return content;
+		}
+
+		protected long getCheckedAt()
+		{
+			return checkedAt;
+		}
+
+		protected void setCheckedAt(final long checkedAt)
+		{
+			this.checkedAt = checkedAt;
+		}
+	}
+}
@@ -5,49 +5,116 @@ package de.hybris.platform.yb2bacceleratorstorefront.filters;
 
 import de.hybris.platform.core.Registry;
 import de.hybris.platform.util.config.ConfigIntf;
+import de.hybris.platform.yb2bacceleratorstorefront.filters.StaticResourceCache.StaticResource;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.log4j.Logger;
+
 
 /**
  * Filter which allows us to bypass all of the spring filters for requests to a given path.
  * This is a simple servlet filter. It is intended to be used to serve static resources from the
  * web application. I can be used early in the filter chain to bypass any spring setup or hybris
  * session setup for the static resources.
+ * <p>
+ * If "storefront.staticResourceFilter.fastpath.enabled" is true, GET and HEAD requests for existing files are served
+ * directly by this filter with strong ETags and conditional request handling, instead of being forwarded to the
+ * container's default servlet. Requests for a byte range are left to the default servlet, which answers them with
+ * partial content. Fingerprinted file names get a far future Cache-Control header, also when they are served by the
+ * default servlet.
+ * <p>
+ * If "storefront.staticResourceFilter.precompressed.enabled" is true as well, existing <code>.br</code> and
+ * <code>.gz</code> siblings of a resource are served to clients accepting the respective content encoding. The gzip
+ * siblings are written on startup by the {@link StaticResourcePrecompressor}.
  */
 public class StaticResourceFilter implements Filter
 {
+	private static final Logger LOG = Logger.getLogger(StaticResourceFilter.class);
+
 	private static final String COMMON_DEFAULT_SERVLET_NAME = "default";
 	private static final String GAE_DEFAULT_SERVLET_NAME = "_ah_default";
 	private static final String RESIN_DEFAULT_SERVLET_NAME = "resin-file";
 	private static final String WEBLOGIC_DEFAULT_SERVLET_NAME = "FileServlet";
 	private static final String WEBSPHERE_DEFAULT_SERVLET_NAME = "SimpleFileServlet";
 
-	private static final String HEADER_PROPERTIES_PREFIX = "storefront.staticResourceFilter.response.header.";
+	private static final String PROPERTIES_PREFIX = "storefront.staticResourceFilter.";
+	private static final String HEADER_PROPERTIES_PREFIX = PROPERTIES_PREFIX + "response.header.";
+	private static final String FASTPATH_PROPERTIES_PREFIX = PROPERTIES_PREFIX + "fastpath.";
+	private static final String FASTPATH_ENABLED_PROPERTY = FASTPATH_PROPERTIES_PREFIX + "enabled";
+	private static final String FASTPATH_MAX_ENTRIES_PROPERTY = FASTPATH_PROPERTIES_PREFIX + "maxEntries";
+	private static final String FASTPATH_MAX_CONTENT_SIZE_PROPERTY = FASTPATH_PROPERTIES_PREFIX + "maxContentSize";
+	private static final String FASTPATH_CHECK_INTERVAL_PROPERTY = FASTPATH_PROPERTIES_PREFIX + "checkInterval";
+	private static final String FASTPATH_SENDFILE_SIZE_PROPERTY = FASTPATH_PROPERTIES_PREFIX + "sendfileSize";
+	private static final String FINGERPRINT_PATTERN_PROPERTY = PROPERTIES_PREFIX + "fingerprint.pattern";
+	private static final String FINGERPRINT_CACHE_CONTROL_PROPERTY = PROPERTIES_PREFIX + "fingerprint.cacheControl";
+	public static final String PRECOMPRESSED_ENABLED_PROPERTY = PROPERTIES_PREFIX + "precompressed.enabled";
+	public static final String PRECOMPRESSED_EXTENSIONS_PROPERTY = PROPERTIES_PREFIX + "precompressed.extensions";
+	public static final String DEFAULT_PRECOMPRESSED_EXTENSIONS = "css,js,svg,json,html,txt,xml,map";
+
+	private static final String DEFAULT_FINGERPRINT_PATTERN = ".*[.-][0-9a-fA-F]{8,}\\.[A-Za-z0-9]+$";
+	private static final String DEFAULT_FINGERPRINT_CACHE_CONTROL = "public,max-age=31536000,immutable";
+
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	private static final String HEADER_ETAG = "ETag";
+	private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+	private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+	private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+	private static final String HEADER_RANGE = "Range";
+	private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+	private static final String HEADER_VARY = "Vary";
+
+	private static final String ENCODING_BROTLI = "br";
+	private static final String ENCODING_GZIP = "gzip";
 
 	/**
-	 * Lazy loaded map which contains the http header parameters defined in the *.properties. The String
-	 * "storefront.staticResourceFilter.response.header." will be removed from the key, the remaining is added to this map.
+	 * Lazy loaded, immutable snapshot of the filter configuration. The http header parameters are defined in the
+	 * *.properties; the String "storefront.staticResourceFilter.response.header." is removed from the key. The snapshot
+	 * is replaced as a whole by the config change listener.
 	 */
-	private Map<String, String> headerParams = null;
+	private volatile Settings settings;
 
 	private ConfigIntf.ConfigChangeListener cfgChangeListener;
 
 	private RequestDispatcher defaultRequestDispatcher;
 
+	private ServletContext servletContext;
+
+	private volatile StaticResourceCache resourceCache;
+
 	protected RequestDispatcher getDefaultRequestDispatcher()
 	{
 		return defaultRequestDispatcher;
@@ -57,6 +124,7 @@ public class StaticResourceFilter implements Filter
 	public void init(final FilterConfig filterConfig) throws ServletException
 	{
 		final ServletContext servletContext = filterConfig.getServletContext();
+		this.servletContext = servletContext;
 
 		// Try and work out the default RequestDispatcher for common servlet containers
 		if (servletContext.getNamedDispatcher(COMMON_DEFAULT_SERVLET_NAME) != null)
@@ -92,7 +160,7 @@ public class StaticResourceFilter implements Filter
 		// Unregister the change listener if one exists
 		if (cfgChangeListener != null)
 		{
-			Registry.getMasterTenant().getConfig().unregisterConfigChangeListener(cfgChangeListener);
+			getConfig().unregisterConfigChangeListener(cfgChangeListener);
 		}
 	}
 
@@ -100,53 +168,508 @@ public class StaticResourceFilter implements Filter
 	public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
 			throws IOException, ServletException
 	{
+		final HttpServletResponse httpResponse = (HttpServletResponse) response;
+
 		// Add any configured response headers
-		readConfiguredHeaderParamsAndWriteToResponse((HttpServletResponse) response);
+		readConfiguredHeaderParamsAndWriteToResponse(httpResponse);
+
+		if (getSettings().isFastPathEnabled() && serveResource((HttpServletRequest) request, httpResponse))
+		{
+			return;
+		}
+
+		setFingerprintCacheControl((HttpServletRequest) request, httpResponse);
 
 		// Forward to the default dispatcher for efficient file serving
 		getDefaultRequestDispatcher().forward(request, response);
 	}
 
 	/**
-	 * Reads the defined http header parameters from the properties into the map and writes to <code>httpResponse</code>.
-	 * And also register a config change listener to get the properties changes during runtime.
+	 * Writes the configured http header parameters to <code>httpResponse</code>. The parameters are read from the
+	 * properties on first use, and a config change listener is registered to get the properties changes during runtime.
 	 *
 	 * @throws java.io.UnsupportedEncodingException
 	 *
 	 */
 	protected void readConfiguredHeaderParamsAndWriteToResponse(final HttpServletResponse httpResponse) throws UnsupportedEncodingException
 	{
-		if (headerParams == null)
-		{
-			// Lazily build the headers from the configuration options
-			headerParams = new ConcurrentHashMap<String, String>();
-			final ConfigIntf config = Registry.getMasterTenant().getConfig();
-
-			addHeaderParamsFromConfig(config);
-
-			// Create the change listener and register it
-			cfgChangeListener = new ConfigChangeListener();
-			config.registerConfigChangeListener(cfgChangeListener);
-		}
-
 		// Add any configured headers to the response
-		for (final Map.Entry<String, String> param : headerParams.entrySet())
+		final Settings currentSettings = getSettings();
+		final String[] headerNames = currentSettings.headerNames;
+		final String[] headerValues = currentSettings.headerValues;
+		for (int i = 0; i < headerNames.length; i++)
 		{
-			httpResponse.setHeader(param.getKey(), param.getValue());
+			httpResponse.setHeader(headerNames[i], headerValues[i]);
 		}
 	}
 
-	protected void addHeaderParamsFromConfig(final ConfigIntf config)
+	protected Settings getSettings()
 	{
-		for (final String key : config.getAllParameters().keySet())
+		Settings currentSettings = settings;
+		if (currentSettings == null)
 		{
-			if (key.startsWith(HEADER_PROPERTIES_PREFIX))
+			synchronized (this)
 			{
-				final String headerKey = key.substring(HEADER_PROPERTIES_PREFIX.length(), key.length());
-				if (!headerKey.isEmpty())
+				currentSettings = settings;
+				if (currentSettings == null)
 				{
-					headerParams.put(headerKey, config.getParameter(key));
+					// Lazily build the settings from the configuration options
+					final ConfigIntf config = getConfig();
+					currentSettings = new Settings(readParamsFromConfig(config));
+					settings = currentSettings;
+
+					// Create the change listener and register it
+					cfgChangeListener = new ConfigChangeListener();
+					config.registerConfigChangeListener(cfgChangeListener);
 				}
+			}
+		}
+		return currentSettings;
+	}
+
+	protected ConfigIntf getConfig()
+	{
+		return Registry.getMasterTenant().getConfig();
+	}
+
+	protected Map<String, String> readParamsFromConfig(final ConfigIntf config)
+	{
+		final Map<String, String> params = new HashMap<>();
+		for (final Map.Entry<String, String> entry : config.getAllParameters().entrySet())
+		{
+			if (entry.getKey().startsWith(PROPERTIES_PREFIX))
+			{
+				params.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * Serves the requested file directly if possible.
+	 *
+	 * @return true if the response has been written, false if the request should be forwarded to the default servlet
+	 */
+	protected boolean serveResource(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+	{
+		final String method = request.getMethod();
+		final boolean head = "HEAD".equals(method);
+		if ((!head && !"GET".equals(method)) || request.getDispatcherType() != DispatcherType.REQUEST)
+		{
+			return false;
+		}
+
+		// Let the default servlet answer range requests with partial content
+		if (request.getHeader(HEADER_RANGE) != null)
+		{
+			return false;
+		}
+
+		final String path = getResourcePath(request);
+		if (path == null || path.contains("/..") || path.endsWith("/"))
+		{
+			return false;
+		}
+
+		final StaticResource resource = getResourceCache().getResource(path);
+		if (resource == null)
+		{
+			// Let the default servlet produce the error response
+			return false;
+		}
+
+		final Settings currentSettings = getSettings();
+		if (currentSettings.isFingerprinted(path))
+		{
+			response.setHeader(HEADER_CACHE_CONTROL, currentSettings.fingerprintCacheControl);
+		}
+
+		// Each content encoding is a representation of its own with its own entity tag
+		StaticResource representation = resource;
+		if (currentSettings.isPrecompressed(path))
+		{
+			response.setHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+			representation = getPrecompressedRepresentation(request, response, path, resource);
+		}
+		response.setHeader(HEADER_ETAG, representation.getEtag());
+		response.setDateHeader(HEADER_LAST_MODIFIED, resource.getLastModified());
+
+		if (isNotModified(request, representation))
+		{
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+
+		if (resource.getContentType() != null)
+		{
+			response.setContentType(resource.getContentType());
+		}
+		response.setContentLengthLong(representation.getLength());
+
+		if (!head)
+		{
+			writeContent(request, response, representation);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the far future Cache-Control header of fingerprinted files for a request forwarded to the default servlet, if
+	 * the file exists, so a missing resource is not cached.
+	 */
+	protected void setFingerprintCacheControl(final HttpServletRequest request, final HttpServletResponse response)
+	{
+		final String method = request.getMethod();
+		if ((!"GET".equals(method) && !"HEAD".equals(method)) || request.getDispatcherType() != DispatcherType.REQUEST)
+		{
+			return;
+		}
+
+		final String path = getResourcePath(request);
+		if (path == null || path.contains("/..") || !getSettings().isFingerprinted(path))
+		{
+			return;
+		}
+
+		try
+		{
+			if (servletContext.getResource(path) != null)
+			{
+				response.setHeader(HEADER_CACHE_CONTROL, getSettings().fingerprintCacheControl);
+			}
+		}
+		catch (final MalformedURLException e)
+		{
+			LOG.debug("Invalid resource path " + path, e);
+		}
+	}
+
+	/**
+	 * Selects the brotli or gzip sibling of the resource if the client accepts that encoding and the sibling is at least
+	 * as recent as the resource, and sets the Content-Encoding header accordingly.
+	 *
+	 * @return the selected sibling, or the resource itself if none applies
+	 */
+	protected StaticResource getPrecompressedRepresentation(final HttpServletRequest request,
+			final HttpServletResponse response, final String path, final StaticResource resource)
+	{
+		final String acceptEncoding = request.getHeader(HEADER_ACCEPT_ENCODING);
+		if (acceptEncoding == null || acceptEncoding.isEmpty())
+		{
+			return resource;
+		}
+
+		if (acceptsEncoding(acceptEncoding, ENCODING_BROTLI))
+		{
+			final StaticResource brotli = getResourceCache().getResource(path + StaticResourcePrecompressor.BROTLI_SUFFIX);
+			if (brotli != null && brotli.getLastModified() >= resource.getLastModified())
+			{
+				response.setHeader(HEADER_CONTENT_ENCODING, ENCODING_BROTLI);
+				return brotli;
+			}
+		}
+		if (acceptsEncoding(acceptEncoding, ENCODING_GZIP))
+		{
+			final StaticResource gzip = getResourceCache().getResource(path + StaticResourcePrecompressor.GZIP_SUFFIX);
+			if (gzip != null && gzip.getLastModified() >= resource.getLastModified())
+			{
+				response.setHeader(HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+				return gzip;
+			}
+		}
+		return resource;
+	}
+
+	/**
+	 * Checks whether the Accept-Encoding header value lists the given encoding, or "*", with a quality value above zero.
+	 */
+	protected boolean acceptsEncoding(final String acceptEncoding, final String encoding)
+	{
+		boolean wildcard = false;
+		for (final String element : acceptEncoding.split(","))
+		{
+			final int semicolon = element.indexOf(';');
+			final String coding = (semicolon == -1 ? element : element.substring(0, semicolon)).trim();
+			final boolean exact = coding.equalsIgnoreCase(encoding);
+			if (exact || "*".equals(coding))
+			{
+				final boolean accepted = semicolon == -1 || getQuality(element.substring(semicolon + 1)) > 0;
+				if (exact)
+				{
+					// An explicit entry takes precedence over the wildcard
+					return accepted;
+				}
+				wildcard = accepted;
+			}
+		}
+		return wildcard;
+	}
+
+	private static double getQuality(final String parameters)
+	{
+		for (final String parameter : parameters.split(";"))
+		{
+			final int equals = parameter.indexOf('=');
+			if (equals != -1 && "q".equalsIgnoreCase(parameter.substring(0, equals).trim()))
+			{
+				try
+				{
+					return Double.parseDouble(parameter.substring(equals + 1).trim());
+				}
+				catch (final NumberFormatException e)
+				{
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	protected String getResourcePath(final HttpServletRequest request)
+	{
+		final String servletPath = request.getServletPath();
+		final String pathInfo = request.getPathInfo();
+		return pathInfo == null ? servletPath : servletPath + pathInfo;
+	}
+
+	protected boolean isNotModified(final HttpServletRequest request, final StaticResource resource)
+	{
+		final String ifNoneMatch = request.getHeader(HEADER_IF_NONE_MATCH);
+		if (ifNoneMatch != null)
+		{
+			return matchesEtag(ifNoneMatch, resource.getEtag());
+		}
+
+		try
+		{
+			final long ifModifiedSince = request.getDateHeader(HEADER_IF_MODIFIED_SINCE);
+			// HTTP dates have a precision of one second
+			return ifModifiedSince != -1 && resource.getLastModified() / 1000 <= ifModifiedSince / 1000;
+		}
+		catch (final IllegalArgumentException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Weak comparison of the If-None-Match header value with the entity tag, as defined for GET and HEAD requests.
+	 */
+	protected boolean matchesEtag(final String ifNoneMatch, final String etag)
+	{
+		int start = 0;
+		final int length = ifNoneMatch.length();
+		while (start < length)
+		{
+			int end = ifNoneMatch.indexOf(',', start);
+			if (end == -1)
+			{
+				end = length;
+			}
+			int tokenStart = start;
+			int tokenEnd = end;
+			while (tokenStart < tokenEnd && ifNoneMatch.charAt(tokenStart) == ' ')
+			{
+				tokenStart++;
+			}
+			while (tokenEnd > tokenStart && ifNoneMatch.charAt(tokenEnd - 1) == ' ')
+			{
+				tokenEnd--;
+			}
+			if (ifNoneMatch.startsWith("W/", tokenStart))
+			{
+				tokenStart += 2;
+			}
+			final int tokenLength = tokenEnd - tokenStart;
+			if ((tokenLength == 1 && ifNoneMatch.charAt(tokenStart) == '*')
+					|| (tokenLength == etag.length() && ifNoneMatch.regionMatches(tokenStart, etag, 0, tokenLength)))
+			{
+				return true;
+			}
+			start = end + 1;
+		}
+		return false;
+	}
+
+	protected void writeContent(final HttpServletRequest request, final HttpServletResponse response,
+			final StaticResource resource) throws IOException
+	{
+		final byte[] content = resource.getContent();
+		if (content != null)
+		{
+			response.getOutputStream().write(content);
+			return;
+		}
+
+		final long length = resource.getLength();
+		if (length >= getSettings().sendfileSize && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)))
+		{
+			// Let the connector transfer the file with sendfile once the response is complete
+			request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, resource.getFile().toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTRIBUTE, Long.valueOf(0L));
+			request.setAttribute(SENDFILE_END_ATTRIBUTE, Long.valueOf(length));
+			return;
+		}
+
+		final ServletOutputStream outputStream = response.getOutputStream();
+		try (final FileChannel fileChannel = FileChannel.open(resource.getFile(), StandardOpenOption.READ))
+		{
+			final WritableByteChannel target = Channels.newChannel(outputStream);
+			long position = 0;
+			while (position < length)
+			{
+				final long transferred = fileChannel.transferTo(position, length - position, target);
+				if (transferred <= 0)
+				{
+					break;
+				}
+				position += transferred;
+			}
+		}
+	}
+
+	protected StaticResourceCache getResourceCache()
+	{
+		StaticResourceCache cache = resourceCache;
+		if (cache == null)
+		{
+			synchronized (this)
+			{
+				cache = resourceCache;
+				if (cache == null)
+				{
+					final Settings currentSettings = getSettings();
+					cache = new StaticResourceCache(servletContext, currentSettings.maxEntries, currentSettings.maxContentSize,
+							currentSettings.checkInterval);
+					resourceCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Immutable snapshot of all "storefront.staticResourceFilter." properties.
+	 */
+	protected static class Settings
+	{
+		private final Map<String, String> params;
+		private final String[] headerNames;
+		private final String[] headerValues;
+		private final boolean fastPathEnabled;
+		private final int maxEntries;
+		private final int maxContentSize;
+		private final long checkInterval;
+		private final long sendfileSize;
+		private final Pattern fingerprintPattern;
+		private final String fingerprintCacheControl;
+		private final boolean precompressedEnabled;
+		private final Set<String> precompressedExtensions;
+
+		protected Settings(final Map<String, String> params)
+		{
+			this.params = Collections.unmodifiableMap(params);
+
+			final Map<String, String> headers = new HashMap<>();
+			for (final Map.Entry<String, String> param : params.entrySet())
+			{
+				if (param.getKey().startsWith(HEADER_PROPERTIES_PREFIX))
+				{
+					final String headerKey = param.getKey().substring(HEADER_PROPERTIES_PREFIX.length());
+					if (!headerKey.isEmpty() && param.getValue() != null && !param.getValue().isEmpty())
+					{
+						headers.put(headerKey, param.getValue());
+					}
+				}
+			}
+			this.headerNames = headers.keySet().toArray(new String[headers.size()]);
+			this.headerValues = new String[headerNames.length];
+			for (int i = 0; i < headerNames.length; i++)
+			{
+				headerValues[i] = headers.get(headerNames[i]);
+			}
+
+			this.fastPathEnabled = Boolean.parseBoolean(params.get(FASTPATH_ENABLED_PROPERTY));
+			this.maxEntries = getInt(FASTPATH_MAX_ENTRIES_PROPERTY, 4096);
+			this.maxContentSize = getInt(FASTPATH_MAX_CONTENT_SIZE_PROPERTY, 64 * 1024);
+			this.checkInterval = getInt(FASTPATH_CHECK_INTERVAL_PROPERTY, 5000);
+			this.sendfileSize = getInt(FASTPATH_SENDFILE_SIZE_PROPERTY, 48 * 1024);
+			this.fingerprintPattern = compileFingerprintPattern(getString(FINGERPRINT_PATTERN_PROPERTY,
+					DEFAULT_FINGERPRINT_PATTERN));
+			this.fingerprintCacheControl = getString(FINGERPRINT_CACHE_CONTROL_PROPERTY, DEFAULT_FINGERPRINT_CACHE_CONTROL);
+			this.precompressedEnabled = Boolean.parseBoolean(params.get(PRECOMPRESSED_ENABLED_PROPERTY));
+			this.precompressedExtensions = new HashSet<>();
+			for (final String extension : getString(PRECOMPRESSED_EXTENSIONS_PROPERTY, DEFAULT_PRECOMPRESSED_EXTENSIONS).split(","))
+			{
+				if (!extension.trim().isEmpty())
+				{
+					precompressedExtensions.add(extension.trim().toLowerCase(Locale.ROOT));
+				}
+			}
+		}
+
+		protected Settings withParam(final String key, final String value)
+		{
+			final Map<String, String> newParams = new HashMap<>(params);
+			if (value == null || value.isEmpty())
+			{
+				newParams.remove(key);
+			}
+			else
+			{
+				newParams.put(key, value);
+			}
+			return new Settings(newParams);
+		}
+
+		protected boolean isFastPathEnabled()
+		{
+			return fastPathEnabled;
+		}
+
+		protected boolean isFingerprinted(final String path)
+		{
+			return fingerprintPattern.matcher(path).matches();
+		}
+
+		protected boolean isPrecompressed(final String path)
+		{
+			if (!precompressedEnabled)
+			{
+				return false;
+			}
+			final int dot = path.lastIndexOf('.');
+			return dot > path.lastIndexOf('/') && precompressedExtensions.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+		}
+
+		private static Pattern compileFingerprintPattern(final String pattern)
+		{
+			try
+			{
+				return Pattern.compile(pattern);
+			}
+			catch (final PatternSyntaxException e)
+			{
+				LOG.warn("Invalid " + FINGERPRINT_PATTERN_PROPERTY + " [" + pattern + "], using the default pattern");
+				return Pattern.compile(DEFAULT_FINGERPRINT_PATTERN);
+			}
+		}
+
+		private String getString(final String key, final String defaultValue)
+		{
+			final String value = params.get(key);
+			return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+		}
+
+		private int getInt(final String key, final int defaultValue)
+		{
+			try
+			{
+				return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+			}
+			catch (final NumberFormatException e)
+			{
+				return defaultValue;
 			}
 		}
 	}
@@ -156,18 +679,15 @@ public class StaticResourceFilter implements Filter
 		@Override
 		public void configChanged(final String key, final String newValue)
 		{
-			if (key.startsWith(HEADER_PROPERTIES_PREFIX))
+			if (key.startsWith(PROPERTIES_PREFIX))
 			{
-				final String headerKey = key.substring(HEADER_PROPERTIES_PREFIX.length(), key.length());
-				if (!headerKey.isEmpty())
+				synchronized (StaticResourceFilter.this)
 				{
-					if (newValue == null || newValue.isEmpty())
-					{
-						headerParams.remove(headerKey);
-					}
-					else
+					settings = getSettings().withParam(key, newValue);
+					if (key.startsWith(FASTPATH_PROPERTIES_PREFIX))
 					{
-						headerParams.put(headerKey, newValue);
+						// Rebuild the resource cache with the new limits on next use
+						resourceCache = null;
 					}
 				}
 			}
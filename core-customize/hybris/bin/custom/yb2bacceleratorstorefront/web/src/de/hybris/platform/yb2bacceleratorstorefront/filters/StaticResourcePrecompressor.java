@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Writes gzip compressed siblings (<code>*.gz</code>) of static text resources, which the {@link StaticResourceFilter}
+ * serves to clients accepting the gzip content encoding. A sibling is only (re)written if it is missing or older than
+ * the resource, and it is not kept if compression does not make the resource smaller.
+ */
+public class StaticResourcePrecompressor
+{
+	private static final Logger LOG = Logger.getLogger(StaticResourcePrecompressor.class);
+
+	public static final String GZIP_SUFFIX = ".gz";
+	public static final String BROTLI_SUFFIX = ".br";
+
+	private final Path root;
+	private final Set<String> extensions;
+	private final long minSize;
+	private final int parallelism;
+
+	private final LongAdder fileCount = new LongAdder();
+	private final LongAdder compressedCount = new LongAdder();
+	private final LongAdder originalBytes = new LongAdder();
+	private final LongAdder compressedBytes = new LongAdder();
+
+	/**
+	 * @param root
+	 *           directory to compress the resources in, including sub directories
+	 * @param extensions
+	 *           lower case file extensions without dot of the resources to compress
+	 * @param minSize
+	 *           smaller files are not worth compressing
+	 * @param parallelism
+	 *           number of files compressed in parallel
+	 */
+	public StaticResourcePrecompressor(final Path root, final Collection<String> extensions, final long minSize,
+			final int parallelism)
+	{
+		this.root = root;
+		this.extensions = extensions.stream().map(extension -> extension.trim().toLowerCase(Locale.ROOT))
+				.filter(extension -> !extension.isEmpty()).collect(Collectors.toSet());
+		this.minSize = minSize;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Compresses all matching resources and logs the totals.
+	 *
+	 * @return true if all resources have been compressed without errors
+	 */
+	public boolean compress()
+	{
+		if (!Files.isDirectory(root))
+		{
+			return true;
+		}
+
+		final long start = System.currentTimeMillis();
+		final ForkJoinPool pool = new ForkJoinPool(parallelism);
+		boolean success;
+		try (final Stream<Path> files = Files.walk(root))
+		{
+			final List<Path> resources = files.filter(this::isCompressible).collect(Collectors.toList());
+			pool.submit(() -> resources.parallelStream().forEach(this::compressResource)).get();
+			success = true;
+		}
+		catch (final IOException | ExecutionException | UncheckedIOException e)
+		{
+			LOG.error("Failed to precompress static resources in " + root,
+					e instanceof ExecutionException ? e.getCause() : e);
+			success = false;
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			success = false;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		LOG.info("Precompressed static resources in " + root + ": " + fileCount.sum() + " files checked, "
+				+ compressedCount.sum() + " files compressed from " + originalBytes.sum() + " to " + compressedBytes.sum()
+				+ " bytes in " + (System.currentTimeMillis() - start) + " ms");
+		return success;
+	}
+
+	protected boolean isCompressible(final Path file)
+	{
+		final String fileName = file.getFileName().toString();
+		final int dot = fileName.lastIndexOf('.');
+		return dot > 0 && extensions.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT)) && Files.isRegularFile(file);
+	}
+
+	protected void compressResource(final Path source)
+	{
+		fileCount.increment();
+		final Path target = source.resolveSibling(source.getFileName() + GZIP_SUFFIX);
+		try
+		{
+			final BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+			if (sourceAttributes.size() < minSize
+					|| (Files.exists(target) && Files.getLastModifiedTime(target).compareTo(sourceAttributes.lastModifiedTime()) >= 0))
+			{
+				return;
+			}
+
+			// Write to a temporary file first, so the filter never serves a partially written sibling
+			final Path temp = Files.createTempFile(source.getParent(), source.getFileName().toString(), ".tmp");
+			try
+			{
+				try (final OutputStream out = new BestCompressionGZIPOutputStream(Files.newOutputStream(temp)))
+				{
+					Files.copy(source, out);
+				}
+
+				final long size = Files.size(temp);
+				if (size < sourceAttributes.size())
+				{
+					Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					compressedCount.increment();
+					originalBytes.add(sourceAttributes.size());
+					compressedBytes.add(size);
+				}
+				else
+				{
+					Files.deleteIfExists(target);
+				}
+			}
+			finally
+			{
+				Files.deleteIfExists(temp);
+			}
+		}
+		catch (final IOException e)
+		{
+			throw new UncheckedIOException("Unable to precompress " + source, e);
+		}
+	}
+
+	protected static class BestCompressionGZIPOutputStream extends GZIPOutputStream
+	{
+		public BestCompressionGZIPOutputStream(final OutputStream out) throws IOException
+		{
+			super(out);
+			def.setLevel(Deflater.BEST_COMPRESSION);
+		}
+	}
+}
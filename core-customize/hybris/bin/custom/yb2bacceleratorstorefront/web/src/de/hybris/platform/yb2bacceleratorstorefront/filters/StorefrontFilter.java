@@ -8,6 +8,7 @@ import de.hybris.platform.acceleratorstorefrontcommons.history.BrowseHistoryEntr
 import de.hybris.platform.cms2.misc.CMSFilter;
 import de.hybris.platform.commercefacades.storesession.StoreSessionFacade;
 import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.yb2bacceleratorstorefront.util.CompiledPathMatcher;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -28,6 +29,10 @@ import org.springframework.web.filter.OncePerRequestFilter;
 /**
  * Filter that initializes the session for the yb2bacceleratorstorefront. This is a spring configured filter that is
  * executed by the PlatformFilterChain.
+ * <p>
+ * Requests marked as stateless by the {@link StatelessRequestFilter} are passed on without touching the HTTP session:
+ * the session defaults are initialized from the request locales in the session of the request opened by the
+ * {@link StatelessSessionFilter}, and neither the original referer nor the browse history is stored.
  */
 public class StorefrontFilter extends OncePerRequestFilter
 {
@@ -39,11 +44,19 @@ public class StorefrontFilter extends OncePerRequestFilter
 	private Set<String> refererExcludeUrlSet;
 	private PathMatcher pathMatcher;
 	private CommerceCommonI18NService commerceCommonI18NService;
+	private volatile CompiledPathMatcher<String> refererExcludeMatcher;
 
 	@Override
 	public void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
 			final FilterChain filterChain) throws IOException, ServletException
 	{
+		if (StatelessRequestFilter.isStateless(request))
+		{
+			initDefaults(request);
+			filterChain.doFilter(request, response);
+			return;
+		}
+
 		final HttpSession session = request.getSession();
 		final String queryString = request.getQueryString();
 
@@ -129,18 +142,21 @@ public class StorefrontFilter extends OncePerRequestFilter
 
 	protected boolean isRequestPathExcluded(final HttpServletRequest request)
 	{
-		final Set<String> inputSet = getRefererExcludeUrlSet();
-		final String servletPath = request.getServletPath();
+		return getRefererExcludeMatcher().matches(request.getServletPath());
+	}
 
-		for (final String input : inputSet)
+	/**
+	 * Returns the referer exclude patterns compiled into a matcher, building it on first use.
+	 */
+	protected CompiledPathMatcher<String> getRefererExcludeMatcher()
+	{
+		CompiledPathMatcher<String> matcher = refererExcludeMatcher;
+		if (matcher == null)
 		{
-			if (getPathMatcher().match(input, servletPath))
-			{
-				return true;
-			}
+			matcher = CompiledPathMatcher.forPatterns(getRefererExcludeUrlSet(), getPathMatcher());
+			refererExcludeMatcher = matcher;
 		}
-
-		return false;
+		return matcher;
 	}
 
 	protected Set<String> getRefererExcludeUrlSet()
@@ -152,6 +168,7 @@ public class StorefrontFilter extends OncePerRequestFilter
 	public void setRefererExcludeUrlSet(final Set<String> refererExcludeUrlSet)
 	{
 		this.refererExcludeUrlSet = refererExcludeUrlSet;
+		this.refererExcludeMatcher = null;
 	}
 
 	protected PathMatcher getPathMatcher()
@@ -163,6 +180,7 @@ public class StorefrontFilter extends OncePerRequestFilter
 	public void setPathMatcher(final PathMatcher pathMatcher)
 	{
 		this.pathMatcher = pathMatcher;
+		this.refererExcludeMatcher = null;
 	}
 
 	public void setCommerceCommonI18NService(final CommerceCommonI18NService commerceCommonI18NService)
@@ -44,7 +44,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * Responsible for setting up application - to main responsibility belongs:
  * <p>
  * <ul>
- * <li>Matches current site by current URL</li>
+ * <li>Matches current site by current URL, using the {@link CMSSiteResolutionCache} if configured</li>
  * <li>Setting current site in session (through {@link CMSSiteService} )</li>
  * <li>Setting current catalog version (through {@link CMSSiteService} )</li>
  * <li>Setting session catalog versions (through {@link CatalogService} )</li>
@@ -73,6 +73,7 @@ public class CMSSiteFilter extends OncePerRequestFilter implements CMSFilter
 	private ContextInformationLoader contextInformationLoader;
 	private CMSPageContextService cmsPageContextService;
 	private SiteChannelValidationStrategy siteChannelValidationStrategy;
+	private CMSSiteResolutionCache siteResolutionCache;
 
 	@Override
 	protected void doFilterInternal(final HttpServletRequest httpRequest, final HttpServletResponse httpResponse,
@@ -154,16 +155,12 @@ public class CMSSiteFilter extends OncePerRequestFilter implements CMSFilter
 			throws IOException
 	{
 		final String queryString = httpRequest.getQueryString();
-		final String currentRequestURL = httpRequest.getRequestURL().toString();
 
 		//set current site
 		CMSSiteModel cmsSiteModel = getCurrentCmsSite();
 		if (cmsSiteModel == null || StringUtils.contains(queryString, CLEAR_CMSSITE_PARAM))
 		{
-			final String absoluteURL = StringUtils.removeEnd(currentRequestURL, "/")
-					+ (StringUtils.isBlank(queryString) ? "" : "?" + queryString);
-
-			cmsSiteModel = getContextInformationLoader().initializeSiteFromRequest(absoluteURL);
+			cmsSiteModel = initializeSiteFromRequest(httpRequest, queryString);
 		}
 
 		if (cmsSiteModel == null)
@@ -191,6 +188,36 @@ public class CMSSiteFilter extends OncePerRequestFilter implements CMSFilter
 		return true;
 	}
 
+	/**
+	 * Resolves the site for the request and sets it as current site. Requests without query string are looked up in the
+	 * {@link CMSSiteResolutionCache} first, as the query string may select a different site.
+	 *
+	 * @return the current site, or null if no site matches the request
+	 */
+	protected CMSSiteModel initializeSiteFromRequest(final HttpServletRequest httpRequest, final String queryString)
+	{
+		final CMSSiteResolutionCache cache = getSiteResolutionCache();
+		final String cacheKey = cache == null || StringUtils.isNotEmpty(queryString) ? null : cache.getKey(httpRequest);
+		if (cacheKey != null)
+		{
+			final CMSSiteModel cachedSite = cache.get(cacheKey);
+			if (cachedSite != null)
+			{
+				getBaseSiteService().setCurrentBaseSite(cachedSite, true);
+				return cachedSite;
+			}
+		}
+
+		final String absoluteURL = StringUtils.removeEnd(httpRequest.getRequestURL().toString(), "/")
+				+ (StringUtils.isBlank(queryString) ? "" : "?" + queryString);
+		final CMSSiteModel cmsSiteModel = getContextInformationLoader().initializeSiteFromRequest(absoluteURL);
+		if (cacheKey != null && cmsSiteModel != null)
+		{
+			cache.put(cacheKey, cmsSiteModel);
+		}
+		return cmsSiteModel;
+	}
+
 	protected boolean isActiveSite(final CMSSiteModel site)
 	{
 		return site.getActive() != null && site.getActive().booleanValue();
@@ -431,4 +458,14 @@ public class CMSSiteFilter extends OncePerRequestFilter implements CMSFilter
 	{
 		this.siteChannelValidationStrategy = siteChannelValidationStrategy;
 	}
+
+	protected CMSSiteResolutionCache getSiteResolutionCache()
+	{
+		return siteResolutionCache;
+	}
+
+	public void setSiteResolutionCache(final CMSSiteResolutionCache siteResolutionCache)
+	{
+		this.siteResolutionCache = siteResolutionCache;
+	}
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters.cms;
+
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.InvalidationTopic;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.servicelayer.exceptions.ModelLoadingException;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsMBeanSupport;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsTextFormat;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsWriter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Bounded cache of the {@link CMSSiteModel} resolved for a request, keyed by scheme, host, port and the first path
+ * segment within the web application. Used by the {@link CMSSiteFilter} so that new sessions do not have to evaluate
+ * the URL patterns of all sites. Only the site PK is cached; entries expire after the configured time to live, and the
+ * whole cache is cleared whenever any CMSSite is created, modified or removed on any cluster node.
+ * <p>
+ * Hit and miss counts are available over JMX and from the request metrics scrape endpoint.
+ */
+public class CMSSiteResolutionCache implements CMSSiteResolutionCacheMBean, MetricsWriter
+{
+	private static final Logger LOG = Logger.getLogger(CMSSiteResolutionCache.class);
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile int siteTypeCode = -1;
+
+	private ModelService modelService;
+	private boolean enabled = true;
+	private int maxEntries = 1024;
+	private long timeToLive = TimeUnit.MINUTES.toMillis(5);
+	private String objectName;
+
+	private InvalidationListener invalidationListener;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void init()
+	{
+		invalidationListener = new SiteInvalidationListener();
+		getInvalidationTopic().addInvalidationListener(invalidationListener);
+		registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+	}
+
+	@PreDestroy
+	public void destroy()
+	{
+		if (invalidationListener != null)
+		{
+			getInvalidationTopic().removeInvalidationListener(invalidationListener);
+			invalidationListener = null;
+		}
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	protected InvalidationTopic getInvalidationTopic()
+	{
+		return InvalidationManager.getInstance().getInvalidationTopic(new String[]
+		{ Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY });
+	}
+
+	/**
+	 * @return the cache key for the request, or null if the request cannot be cached
+	 */
+	public String getKey(final HttpServletRequest request)
+	{
+		if (!isEnabled())
+		{
+			return null;
+		}
+
+		final String requestUri = request.getRequestURI();
+		final String contextPath = request.getContextPath();
+		if (requestUri == null || contextPath == null || !requestUri.startsWith(contextPath))
+		{
+			return null;
+		}
+		int prefixEnd = requestUri.indexOf('/', contextPath.length() + 1);
+		if (prefixEnd == -1)
+		{
+			prefixEnd = requestUri.length();
+		}
+
+		return new StringBuilder(64).append(request.getScheme()).append("://").append(request.getServerName()).append(':')
+				.append(request.getServerPort()).append(requestUri, 0, prefixEnd).toString();
+	}
+
+	/**
+	 * @return the cached site for the key, or null if there is no valid entry
+	 */
+	public CMSSiteModel get(final String key)
+	{
+		final Entry entry = entries.get(key);
+		if (entry == null || entry.expiresAt < System.currentTimeMillis())
+		{
+			misses.increment();
+			return null;
+		}
+
+		try
+		{
+			final Object site = getModelService().get(entry.sitePk);
+			if (site instanceof CMSSiteModel)
+			{
+				hits.increment();
+				return (CMSSiteModel) site;
+			}
+		}
+		catch (final ModelLoadingException e)
+		{
+			LOG.debug("Cached site " + entry.sitePk + " no longer exists", e);
+		}
+		entries.remove(key);
+		misses.increment();
+		return null;
+	}
+
+	public void put(final String key, final CMSSiteModel site)
+	{
+		final PK sitePk = site.getPk();
+		if (sitePk == null)
+		{
+			return;
+		}
+		siteTypeCode = sitePk.getTypeCode();
+		if (entries.size() >= getMaxEntries())
+		{
+			entries.clear();
+		}
+		entries.put(key, new Entry(sitePk, System.currentTimeMillis() + getTimeToLive()));
+	}
+
+	@Override
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	@Override
+	public int getSize()
+	{
+		return entries.size();
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		MetricsTextFormat.writeType(out, "storefront_cmssite_cache_requests_total", "counter");
+		MetricsTextFormat.writeValue(out, "storefront_cmssite_cache_requests_total", "result", "hit", getHitCount());
+		MetricsTextFormat.writeValue(out, "storefront_cmssite_cache_requests_total", "result", "miss", getMissCount());
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public void setMaxEntries(final int maxEntries)
+	{
+		this.maxEntries = maxEntries;
+	}
+
+	protected long getTimeToLive()
+	{
+		return timeToLive;
+	}
+
+	/**
+	 * @param timeToLive
+	 *           time in milliseconds after which an entry is resolved again
+	 */
+	public void setTimeToLive(final long timeToLive)
+	{
+		this.timeToLive = timeToLive;
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+
+	protected static class Entry
+	{
+		private final PK sitePk;
+		private final long expiresAt;
+
+		protected Entry(final PK sitePk, final long expiresAt)
+		{
+			this.sitePk = sitePk;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * Clears the cache when an item of the CMSSite deployment is invalidated, locally or on another cluster node.
+	 */
+	protected class SiteInvalidationListener implements InvalidationListener
+	{
+		@Override
+		public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+				final RemoteInvalidationSource remoteSrc)
+		{
+			final int typeCode = siteTypeCode;
+			if (typeCode == -1 || entries.isEmpty())
+			{
+				return;
+			}
+			for (final Object keyElement : key)
+			{
+				if (keyElement instanceof PK && ((PK) keyElement).getTypeCode() == typeCode)
+				{
+					clear();
+					return;
+				}
+			}
+		}
+	}
+}
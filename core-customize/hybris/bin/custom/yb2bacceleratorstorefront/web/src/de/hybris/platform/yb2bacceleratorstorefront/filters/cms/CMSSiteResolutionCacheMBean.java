@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters.cms;
+
+/**
+ * JMX management interface of {@link CMSSiteResolutionCache}.
+ */
+public interface CMSSiteResolutionCacheMBean
+{
+	int getSize();
+
+	long getHitCount();
+
+	long getMissCount();
+
+	void clear();
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.history;
+
+import de.hybris.platform.acceleratorstorefrontcommons.history.BrowseHistoryEntry;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+
+/**
+ * Fixed size ring buffer of visited URLs stored in the session by the {@link RingBufferBrowseHistory}. The URLs and
+ * page titles are kept in plain arrays, so the serialised form is little more than the strings themselves. Page titles
+ * are only allocated once a title is added. Callers synchronise on the buffer.
+ */
+public class BrowseHistoryBuffer implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private final String[] urls;
+	private String[] pageTitles;
+	private int head;
+	private int size;
+
+	public BrowseHistoryBuffer(final int capacity)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.urls = new String[capacity];
+	}
+
+	/**
+	 * Adds an entry as the most recent one, overwriting the oldest entry if the buffer is full. An entry equal to the most
+	 * recent one is not added again.
+	 *
+	 * @return true if the buffer has been changed
+	 */
+	public boolean add(final String url, final String pageTitle)
+	{
+		if (size > 0 && Objects.equals(urls[head], url) && Objects.equals(getPageTitle(head), pageTitle))
+		{
+			return false;
+		}
+
+		head = size == 0 ? 0 : (head + 1) % urls.length;
+		urls[head] = url;
+		if (pageTitle != null && pageTitles == null)
+		{
+			pageTitles = new String[urls.length];
+		}
+		if (pageTitles != null)
+		{
+			pageTitles[head] = pageTitle;
+		}
+		if (size < urls.length)
+		{
+			size++;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the most recent entry whose URL ends with the given suffix, or null if there is none
+	 */
+	public BrowseHistoryEntry findMostRecentUrlEndingWith(final String suffix)
+	{
+		for (int i = 0; i < size; i++)
+		{
+			final int index = (head - i + urls.length) % urls.length;
+			if (urls[index] != null && urls[index].endsWith(suffix))
+			{
+				return new BrowseHistoryEntry(urls[index], getPageTitle(index));
+			}
+		}
+		return null;
+	}
+
+	public String getMostRecentUrl()
+	{
+		return size == 0 ? null : urls[head];
+	}
+
+	public int getSize()
+	{
+		return size;
+	}
+
+	public int getCapacity()
+	{
+		return urls.length;
+	}
+
+	protected String getPageTitle(final int index)
+	{
+		return pageTitles == null ? null : pageTitles[index];
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.history;
+
+import de.hybris.platform.acceleratorstorefrontcommons.history.BrowseHistory;
+import de.hybris.platform.acceleratorstorefrontcommons.history.BrowseHistoryEntry;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsTextFormat;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * {@link BrowseHistory} keeping the visited pages in a fixed size {@link BrowseHistoryBuffer} per site in the session.
+ * <p>
+ * Consecutive visits of the same page are recorded once, and the session attribute is only set again when the most
+ * recent page changes, so reloads and repeated requests of a page do not mark the session dirty. The number of session
+ * writes and skipped writes is reported through {@link MetricsWriter}; if enabled, the serialised size of the written
+ * buffers is added up as well, to compare the replicated bytes with other implementations.
+ */
+public class RingBufferBrowseHistory implements BrowseHistory, MetricsWriter
+{
+	private static final Logger LOG = Logger.getLogger(RingBufferBrowseHistory.class);
+
+	protected static final String SESSION_KEY_PREFIX = "ringBufferBrowseHistory-";
+
+	private final LongAdder sessionWrites = new LongAdder();
+	private final LongAdder skippedWrites = new LongAdder();
+	private final LongAdder sessionWriteBytes = new LongAdder();
+
+	private SessionService sessionService;
+	private CMSSiteService cmsSiteService;
+	private int capacity = 10;
+	private boolean measureSerializedSize;
+
+	@Override
+	public void addBrowseHistoryEntry(final BrowseHistoryEntry browseHistoryEntry)
+	{
+		if (browseHistoryEntry == null || !getSessionService().hasCurrentSession())
+		{
+			return;
+		}
+
+		final String sessionKey = getSessionKey();
+		BrowseHistoryBuffer buffer = getSessionService().getAttribute(sessionKey);
+		if (buffer == null || buffer.getCapacity() != getCapacity())
+		{
+			buffer = new BrowseHistoryBuffer(getCapacity());
+		}
+
+		synchronized (buffer)
+		{
+			if (!buffer.add(browseHistoryEntry.getUrl(), browseHistoryEntry.getPageTitle()))
+			{
+				skippedWrites.increment();
+				return;
+			}
+			if (isMeasureSerializedSize())
+			{
+				sessionWriteBytes.add(getSerializedSize(buffer));
+			}
+		}
+		// set the attribute again so that session persistence picks up the change
+		getSessionService().setAttribute(sessionKey, buffer);
+		sessionWrites.increment();
+	}
+
+	@Override
+	public BrowseHistoryEntry findEntryMatchUrlEndsWith(final String match)
+	{
+		if (match == null || !getSessionService().hasCurrentSession())
+		{
+			return null;
+		}
+
+		final BrowseHistoryBuffer buffer = getSessionService().getAttribute(getSessionKey());
+		if (buffer == null)
+		{
+			return null;
+		}
+		synchronized (buffer)
+		{
+			return buffer.findMostRecentUrlEndingWith(match);
+		}
+	}
+
+	protected String getSessionKey()
+	{
+		final CMSSiteModel currentSite = getCmsSiteService().getCurrentSite();
+		return currentSite == null ? SESSION_KEY_PREFIX : SESSION_KEY_PREFIX + currentSite.getUid();
+	}
+
+	protected long getSerializedSize(final BrowseHistoryBuffer buffer)
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (final ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(buffer);
+		}
+		catch (final IOException e)
+		{
+			LOG.debug("Could not serialise browse history", e);
+			return 0;
+		}
+		return bytes.size();
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		MetricsTextFormat.writeType(out, "storefront_browse_history_updates_total", "counter");
+		MetricsTextFormat.writeValue(out, "storefront_browse_history_updates_total", "result", "written", getSessionWriteCount());
+		MetricsTextFormat.writeValue(out, "storefront_browse_history_updates_total", "result", "skipped", getSkippedWriteCount());
+		if (isMeasureSerializedSize())
+		{
+			MetricsTextFormat.writeType(out, "storefront_browse_history_session_write_bytes_total", "counter");
+			MetricsTextFormat.writeValue(out, "storefront_browse_history_session_write_bytes_total", null, null,
+					getSessionWriteBytes());
+		}
+	}
+
+	public long getSessionWriteCount()
+	{
+		return sessionWrites.sum();
+	}
+
+	public long getSkippedWriteCount()
+	{
+		return skippedWrites.sum();
+	}
+
+	public long getSessionWriteBytes()
+	{
+		return sessionWriteBytes.sum();
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected CMSSiteService getCmsSiteService()
+	{
+		return cmsSiteService;
+	}
+
+	@Required
+	public void setCmsSiteService(final CMSSiteService cmsSiteService)
+	{
+		this.cmsSiteService = cmsSiteService;
+	}
+
+	protected int getCapacity()
+	{
+		return capacity;
+	}
+
+	public void setCapacity(final int capacity)
+	{
+		this.capacity = capacity;
+	}
+
+	protected boolean isMeasureSerializedSize()
+	{
+		return measureSerializedSize;
+	}
+
+	/**
+	 * @param measureSerializedSize
+	 *           add up the serialised size of every written buffer, costs one serialisation per session write
+	 */
+	public void setMeasureSerializedSize(final boolean measureSerializedSize)
+	{
+		this.measureSerializedSize = measureSerializedSize;
+	}
+}
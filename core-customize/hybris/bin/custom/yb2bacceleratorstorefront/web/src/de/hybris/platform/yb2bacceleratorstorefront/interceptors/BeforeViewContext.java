@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors;
+
+import de.hybris.platform.acceleratorservices.addonsupport.RequiredAddOnsNameProvider;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
+import de.hybris.platform.acceleratorservices.util.SpringHelper;
+import de.hybris.platform.acceleratorstorefrontcommons.constants.WebConstants;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang.StringUtils;
+
+
+/**
+ * Values shared by the {@link ContextAwareBeforeViewHandler}s of one request, looked up on first use and then reused by
+ * all handlers. Created by the {@link BeforeViewHandlerInterceptor} and bound to the request under
+ * {@link #REQUEST_ATTRIBUTE} while the handlers run. Not thread safe, like the request it belongs to.
+ */
+public class BeforeViewContext
+{
+	public static final String REQUEST_ATTRIBUTE = BeforeViewContext.class.getName();
+
+	private final HttpServletRequest request;
+	private final CMSSiteService cmsSiteService;
+	private final UiExperienceService uiExperienceService;
+	private final CommerceCommonI18NService commerceCommonI18NService;
+	private final RequiredAddOnsNameProvider requiredAddOnsNameProvider;
+
+	private CMSSiteModel currentSite;
+	private UiExperienceLevel uiExperienceLevel;
+	private LanguageModel currentLanguage;
+	private boolean currentLanguageResolved;
+	private List<String> requiredAddOns;
+	private String contextPath;
+
+	public BeforeViewContext(final HttpServletRequest request, final CMSSiteService cmsSiteService,
+			final UiExperienceService uiExperienceService, final CommerceCommonI18NService commerceCommonI18NService,
+			final RequiredAddOnsNameProvider requiredAddOnsNameProvider)
+	{
+		this.request = request;
+		this.cmsSiteService = cmsSiteService;
+		this.uiExperienceService = uiExperienceService;
+		this.commerceCommonI18NService = commerceCommonI18NService;
+		this.requiredAddOnsNameProvider = requiredAddOnsNameProvider;
+	}
+
+	/**
+	 * Creates a context for a request that is not within the {@link BeforeViewHandlerInterceptor}, with the services
+	 * looked up from the application context of the request. The context is not bound to the request.
+	 */
+	public static BeforeViewContext createTransient(final HttpServletRequest request)
+	{
+		return new BeforeViewContext(request,
+				SpringHelper.getSpringBean(request, "cmsSiteService", CMSSiteService.class, true),
+				SpringHelper.getSpringBean(request, "uiExperienceService", UiExperienceService.class, true),
+				SpringHelper.getSpringBean(request, "commerceCommonI18NService", CommerceCommonI18NService.class, true),
+				SpringHelper.getSpringBean(request, "reqAddOnsNameProvider", RequiredAddOnsNameProvider.class, true));
+	}
+
+	/**
+	 * @return the context bound to the request, or null if the request is not within the before view handlers
+	 */
+	public static BeforeViewContext getCurrent(final HttpServletRequest request)
+	{
+		return (BeforeViewContext) request.getAttribute(REQUEST_ATTRIBUTE);
+	}
+
+	public HttpServletRequest getRequest()
+	{
+		return request;
+	}
+
+	public CMSSiteModel getCurrentSite()
+	{
+		if (currentSite == null)
+		{
+			currentSite = cmsSiteService.getCurrentSite();
+		}
+		return currentSite;
+	}
+
+	public UiExperienceLevel getUiExperienceLevel()
+	{
+		if (uiExperienceLevel == null)
+		{
+			uiExperienceLevel = uiExperienceService.getUiExperienceLevel();
+		}
+		return uiExperienceLevel;
+	}
+
+	/**
+	 * @return the current language, or null if none is set
+	 */
+	public LanguageModel getCurrentLanguage()
+	{
+		if (!currentLanguageResolved)
+		{
+			currentLanguage = commerceCommonI18NService.getCurrentLanguage();
+			currentLanguageResolved = true;
+		}
+		return currentLanguage;
+	}
+
+	/**
+	 * @return the names of the addons the storefront depends on
+	 */
+	public List<String> getRequiredAddOns()
+	{
+		if (requiredAddOns == null)
+		{
+			requiredAddOns = requiredAddOnsNameProvider.getAddOns(request.getServletContext().getServletContextName());
+		}
+		return requiredAddOns;
+	}
+
+	/**
+	 * @return the context path of the request without the url encoding attributes
+	 */
+	public String getContextPath()
+	{
+		if (contextPath == null)
+		{
+			final Object urlEncodingAttributes = request.getAttribute(WebConstants.URL_ENCODING_ATTRIBUTES);
+			contextPath = StringUtils.remove(request.getContextPath(),
+					urlEncodingAttributes != null ? urlEncodingAttributes.toString() : "");
+		}
+		return contextPath;
+	}
+}
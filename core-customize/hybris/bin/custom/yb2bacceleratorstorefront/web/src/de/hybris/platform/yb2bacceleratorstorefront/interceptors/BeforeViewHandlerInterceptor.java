@@ -3,23 +3,39 @@
  */
 package de.hybris.platform.yb2bacceleratorstorefront.interceptors;
 
+import de.hybris.platform.acceleratorservices.addonsupport.RequiredAddOnsNameProvider;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
 import de.hybris.platform.acceleratorstorefrontcommons.interceptors.BeforeViewHandler;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.HandlerMetrics;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
  * A postHandle HandlerInterceptor that runs a number of BeforeViewHandlers before the view is rendered.
+ * <p>
+ * The handlers share one {@link BeforeViewContext} per request, so the current site, UI experience level, language
+ * and required addons are looked up once; {@link ContextAwareBeforeViewHandler}s get it passed directly. If handler
+ * metrics are set, the time of every handler is recorded under its class name.
  */
 public class BeforeViewHandlerInterceptor implements HandlerInterceptor
 {
 	private List<BeforeViewHandler> beforeViewHandlers;
+	private CMSSiteService cmsSiteService;
+	private UiExperienceService uiExperienceService;
+	private CommerceCommonI18NService commerceCommonI18NService;
+	private RequiredAddOnsNameProvider requiredAddOnsNameProvider;
+	private HandlerMetrics handlerMetrics;
 
 	protected List<BeforeViewHandler> getBeforeViewHandlers()
 	{
@@ -30,6 +46,7 @@ public class BeforeViewHandlerInterceptor implements HandlerInterceptor
 	public void setBeforeViewHandlers(final List<BeforeViewHandler> beforeViewHandlers)
 	{
 		this.beforeViewHandlers = beforeViewHandlers;
+		registerHandlerNames();
 	}
 
 	@Override
@@ -37,10 +54,65 @@ public class BeforeViewHandlerInterceptor implements HandlerInterceptor
 	{
 		if (modelAndView != null && !isIncludeRequest(request) && isSupportedView(modelAndView))
 		{
+			final BeforeViewContext context = createBeforeViewContext(request);
+			request.setAttribute(BeforeViewContext.REQUEST_ATTRIBUTE, context);
+			try
+			{
+				final List<BeforeViewHandler> handlers = getBeforeViewHandlers();
+				final HandlerMetrics metrics = getHandlerMetrics();
+				for (int i = 0; i < handlers.size(); i++)
+				{
+					final long start = metrics == null ? 0 : System.nanoTime();
+					try
+					{
+						runBeforeViewHandler(handlers.get(i), request, response, modelAndView, context);
+					}
+					finally
+					{
+						if (metrics != null)
+						{
+							metrics.record(i, System.nanoTime() - start);
+						}
+					}
+				}
+			}
+			finally
+			{
+				request.removeAttribute(BeforeViewContext.REQUEST_ATTRIBUTE);
+			}
+		}
+	}
+
+	protected void runBeforeViewHandler(final BeforeViewHandler beforeViewHandler, final HttpServletRequest request,
+			final HttpServletResponse response, final ModelAndView modelAndView, final BeforeViewContext context)
+			throws Exception
+	{
+		if (beforeViewHandler instanceof ContextAwareBeforeViewHandler)
+		{
+			((ContextAwareBeforeViewHandler) beforeViewHandler).beforeView(request, response, modelAndView, context);
+		}
+		else
+		{
+			beforeViewHandler.beforeView(request, response, modelAndView);
+		}
+	}
+
+	protected BeforeViewContext createBeforeViewContext(final HttpServletRequest request)
+	{
+		return new BeforeViewContext(request, getCmsSiteService(), getUiExperienceService(), getCommerceCommonI18NService(),
+				getRequiredAddOnsNameProvider());
+	}
+
+	protected void registerHandlerNames()
+	{
+		if (getHandlerMetrics() != null && getBeforeViewHandlers() != null)
+		{
+			final List<String> names = new ArrayList<>(getBeforeViewHandlers().size());
 			for (final BeforeViewHandler beforeViewHandler : getBeforeViewHandlers())
 			{
-				beforeViewHandler.beforeView(request, response, modelAndView);
+				names.add(ClassUtils.getUserClass(beforeViewHandler).getSimpleName());
 			}
+			getHandlerMetrics().setHandlerNames(names);
 		}
 	}
 
@@ -59,4 +131,63 @@ public class BeforeViewHandlerInterceptor implements HandlerInterceptor
 		final String viewName = modelAndView.getViewName();
 		return viewName != null && viewName.startsWith("redirect:");
 	}
+
+	protected CMSSiteService getCmsSiteService()
+	{
+		return cmsSiteService;
+	}
+
+	@Required
+	public void setCmsSiteService(final CMSSiteService cmsSiteService)
+	{
+		this.cmsSiteService = cmsSiteService;
+	}
+
+	protected UiExperienceService getUiExperienceService()
+	{
+		return uiExperienceService;
+	}
+
+	@Required
+	public void setUiExperienceService(final UiExperienceService uiExperienceService)
+	{
+		this.uiExperienceService = uiExperienceService;
+	}
+
+	protected CommerceCommonI18NService getCommerceCommonI18NService()
+	{
+		return commerceCommonI18NService;
+	}
+
+	@Required
+	public void setCommerceCommonI18NService(final CommerceCommonI18NService commerceCommonI18NService)
+	{
+		this.commerceCommonI18NService = commerceCommonI18NService;
+	}
+
+	protected RequiredAddOnsNameProvider getRequiredAddOnsNameProvider()
+	{
+		return requiredAddOnsNameProvider;
+	}
+
+	@Required
+	public void setRequiredAddOnsNameProvider(final RequiredAddOnsNameProvider requiredAddOnsNameProvider)
+	{
+		this.requiredAddOnsNameProvider = requiredAddOnsNameProvider;
+	}
+
+	protected HandlerMetrics getHandlerMetrics()
+	{
+		return handlerMetrics;
+	}
+
+	/**
+	 * @param handlerMetrics
+	 *           the metrics to record the time of every handler into, or null to not record it
+	 */
+	public void setHandlerMetrics(final HandlerMetrics handlerMetrics)
+	{
+		this.handlerMetrics = handlerMetrics;
+		registerHandlerNames();
+	}
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors;
+
+import de.hybris.platform.acceleratorstorefrontcommons.interceptors.BeforeViewHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.ModelAndView;
+
+
+/**
+ * A {@link BeforeViewHandler} that takes the shared values of the request from a {@link BeforeViewContext} instead of
+ * looking them up itself. The {@link BeforeViewHandlerInterceptor} passes its context directly; callers using the plain
+ * {@link BeforeViewHandler} method get the context bound to the request, or a transient one if they run outside of the
+ * interceptor.
+ */
+public interface ContextAwareBeforeViewHandler extends BeforeViewHandler
+{
+	void beforeView(HttpServletRequest request, HttpServletResponse response, ModelAndView modelAndView,
+			BeforeViewContext context) throws Exception;
+
+	@Override
+	default void beforeView(final HttpServletRequest request, final HttpServletResponse response,
+			final ModelAndView modelAndView) throws Exception
+	{
+		final BeforeViewContext context = BeforeViewContext.getCurrent(request);
+		beforeView(request, response, modelAndView,
+				context != null ? context : BeforeViewContext.createTransient(request));
+	}
+}
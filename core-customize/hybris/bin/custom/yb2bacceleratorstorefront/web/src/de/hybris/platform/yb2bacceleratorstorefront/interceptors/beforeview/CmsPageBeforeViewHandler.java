@@ -6,11 +6,9 @@ package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
 import de.hybris.platform.acceleratorcms.data.CmsPageRequestContextData;
 import de.hybris.platform.acceleratorcms.model.actions.AbstractCMSActionModel;
 import de.hybris.platform.acceleratorcms.services.CMSPageContextService;
-import de.hybris.platform.acceleratorservices.addonsupport.RequiredAddOnsNameProvider;
 import de.hybris.platform.acceleratorservices.data.RequestContextData;
 import de.hybris.platform.acceleratorservices.util.SpringHelper;
 import de.hybris.platform.acceleratorstorefrontcommons.controllers.pages.AbstractPageController;
-import de.hybris.platform.acceleratorstorefrontcommons.interceptors.BeforeViewHandler;
 import de.hybris.platform.cms2.jalo.preview.PreviewData;
 import de.hybris.platform.cms2.model.contents.components.AbstractCMSComponentModel;
 import de.hybris.platform.cms2.model.contents.contentslot.ContentSlotModel;
@@ -23,12 +21,14 @@ import de.hybris.platform.cms2.servicelayer.data.ContentSlotData;
 import de.hybris.platform.cms2.servicelayer.data.RestrictionData;
 import de.hybris.platform.cms2.servicelayer.services.CMSPageService;
 import de.hybris.platform.cms2.servicelayer.services.CMSPreviewService;
-import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
 import de.hybris.platform.jalo.c2l.LocalizableItem;
 import de.hybris.platform.servicelayer.model.AbstractItemModel;
 import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.type.TypeService;
 import de.hybris.platform.yb2bacceleratorstorefront.filters.cms.CMSSiteFilter;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.BeforeViewContext;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.ContextAwareBeforeViewHandler;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview.CmsPageRenderDataCache.PageRenderData;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -47,8 +47,11 @@ import org.springframework.web.servlet.ModelAndView;
 
 /**
  * Filter to load the appropriate Cms page slots into the model
+ * <p>
+ * The body CSS classes and CMS action JavaScript files of a page are cached per page and content version in the
+ * {@link CmsPageRenderDataCache}, except for preview requests.
  */
-public class CmsPageBeforeViewHandler implements BeforeViewHandler
+public class CmsPageBeforeViewHandler implements ContextAwareBeforeViewHandler
 {
 	private static final Logger LOG = Logger.getLogger(CmsPageBeforeViewHandler.class);
 
@@ -57,9 +60,6 @@ public class CmsPageBeforeViewHandler implements BeforeViewHandler
 	private static final String CSS_TYPE_PREFIX = "pageType-";
 	private static final String CSS_TEMPLATE_PREFIX = "template-";
 
-	@Resource(name = "cmsSiteService")
-	private CMSSiteService cmsSiteService;
-
 	@Resource(name = "cmsPageService")
 	private CMSPageService cmsPageService;
 
@@ -78,35 +78,28 @@ public class CmsPageBeforeViewHandler implements BeforeViewHandler
 	@Resource(name = "typeService")
 	private TypeService typeService;
 
-	@Resource(name = "reqAddOnsNameProvider")
-	private RequiredAddOnsNameProvider requiredAddOnsNameProvider;
+	@Resource(name = "cmsPageRenderDataCache")
+	private CmsPageRenderDataCache cmsPageRenderDataCache;
 
 
 	@Override
-	public void beforeView(final HttpServletRequest request, final HttpServletResponse response, final ModelAndView modelAndView)
+	public void beforeView(final HttpServletRequest request, final HttpServletResponse response, final ModelAndView modelAndView,
+			final BeforeViewContext context)
 	{
-		modelAndView.addObject("cmsSite", cmsSiteService.getCurrentSite());
+		modelAndView.addObject("cmsSite", context.getCurrentSite());
 
 		// Look for the page in the model
 		final AbstractPageModel page = updateCmsPageInModelAndView(request, modelAndView);
 
-		modelAndView.addObject("pageBodyCssClasses", buildCssClasses(page));
 		if (page != null)
 		{
-			final List<String> dependantAddOns = requiredAddOnsNameProvider
-					.getAddOns(request.getServletContext().getServletContextName());
-
-			final Set<String> actionJsFiles = new HashSet();
-
-			final Collection<ContentSlotData> contentSlotsForPage = cmsPageService.getContentSlotsForPage(page,
-					cmsPreviewService.getPagePreviewCriteria());
-			for (final ContentSlotData contentSlotData : contentSlotsForPage)
-			{
-				final ContentSlotModel contentSlot = contentSlotData.getContentSlot();
-				final List<AbstractCMSComponentModel> cmsComponents = contentSlot.getCmsComponents();
-				addCmsComponentActions(actionJsFiles, cmsComponents, dependantAddOns);
-			}
-			modelAndView.addObject("cmsActionsJsFiles", actionJsFiles);
+			final PageRenderData pageRenderData = getPageRenderData(request, page, context.getRequiredAddOns());
+			modelAndView.addObject("pageBodyCssClasses", pageRenderData.getCssClasses());
+			modelAndView.addObject("cmsActionsJsFiles", pageRenderData.getActionJsFiles());
+		}
+		else
+		{
+			modelAndView.addObject("pageBodyCssClasses", buildCssClasses(null));
 		}
 
 		// Create the restriction data
@@ -123,6 +116,50 @@ public class CmsPageBeforeViewHandler implements BeforeViewHandler
 		sessionService.setAttribute(AbstractItemModel.LANGUAGE_FALLBACK_ENABLED_SERVICE_LAYER, Boolean.TRUE);
 	}
 
+	protected PageRenderData getPageRenderData(final HttpServletRequest request, final AbstractPageModel page,
+			final List<String> dependantAddOns)
+	{
+		final boolean cacheable = cmsPageRenderDataCache != null && !isPreviewRequest(request);
+		if (cacheable)
+		{
+			final PageRenderData cached = cmsPageRenderDataCache.get(page.getPk());
+			if (cached != null)
+			{
+				return cached;
+			}
+		}
+
+		// read the version before computing, so that data computed during a content change is not cached
+		final long contentVersion = cacheable ? cmsPageRenderDataCache.getContentVersion() : 0;
+		final PageRenderData pageRenderData = new PageRenderData(contentVersion, buildCssClasses(page),
+				collectCmsActionJsFiles(page, dependantAddOns));
+		if (cacheable)
+		{
+			cmsPageRenderDataCache.put(page.getPk(), pageRenderData);
+		}
+		return pageRenderData;
+	}
+
+	protected boolean isPreviewRequest(final HttpServletRequest request)
+	{
+		return cmsPageContextService.getCmsPageRequestContextData(request).getPreviewData() != null;
+	}
+
+	protected Set<String> collectCmsActionJsFiles(final AbstractPageModel page, final List<String> dependantAddOns)
+	{
+		final Set<String> actionJsFiles = new HashSet();
+
+		final Collection<ContentSlotData> contentSlotsForPage = cmsPageService.getContentSlotsForPage(page,
+				cmsPreviewService.getPagePreviewCriteria());
+		for (final ContentSlotData contentSlotData : contentSlotsForPage)
+		{
+			final ContentSlotModel contentSlot = contentSlotData.getContentSlot();
+			final List<AbstractCMSComponentModel> cmsComponents = contentSlot.getCmsComponents();
+			addCmsComponentActions(actionJsFiles, cmsComponents, dependantAddOns);
+		}
+		return actionJsFiles;
+	}
+
 	protected String getNameOfComponentExtension(final AbstractCMSComponentModel component)
 	{
 		return typeService.getComposedTypeForCode(component.getItemtype()).getExtensionName();
@@ -201,14 +238,21 @@ public class CmsPageBeforeViewHandler implements BeforeViewHandler
 		{
 			return "";
 		}
+		return buildCssClasses(page, getViewForPage(page));
+	}
 
-		final String regEx = "[^a-zA-Z0-9-]";
-		final StringBuilder cssClasses = new StringBuilder();
-		cssClasses.append(CSS_CODE_PREFIX).append(page.getUid().replaceAll(regEx, "-"));
+	/**
+	 * Builds the body CSS classes of the page. The result is cached with the other page render data, so this only runs
+	 * when the page or its content changed, or for preview requests.
+	 */
+	protected String buildCssClasses(final AbstractPageModel page, final String viewName)
+	{
+		final StringBuilder cssClasses = new StringBuilder(128);
+		appendCssName(cssClasses.append(CSS_CODE_PREFIX), page.getUid());
 		cssClasses.append(' ');
-		cssClasses.append(CSS_TYPE_PREFIX).append(page.getItemtype().replaceAll(regEx, "-"));
+		appendCssName(cssClasses.append(CSS_TYPE_PREFIX), page.getItemtype());
 		cssClasses.append(' ');
-		cssClasses.append(CSS_TEMPLATE_PREFIX).append(getViewForPage(page).replaceAll(regEx, "-"));
+		appendCssName(cssClasses.append(CSS_TEMPLATE_PREFIX), viewName);
 		cssClasses.append(' ');
 
 		if (ContentPageModel.class.equals(page.getClass()))
@@ -216,13 +260,40 @@ public class CmsPageBeforeViewHandler implements BeforeViewHandler
 			final ContentPageModel contentPage = (ContentPageModel) page;
 			if (contentPage.getLabel() != null)
 			{
-				cssClasses.append(CSS_LABEL_PREFIX).append(contentPage.getLabel().replaceAll(regEx, "-"));
+				appendCssName(cssClasses.append(CSS_LABEL_PREFIX), contentPage.getLabel());
 			}
 		}
 
 		return cssClasses.toString();
 	}
 
+	/**
+	 * Appends the value with every character other than <code>a-z</code>, <code>A-Z</code>, <code>0-9</code> and
+	 * <code>-</code> replaced by <code>-</code>, like <code>value.replaceAll("[^a-zA-Z0-9-]", "-")</code> but without
+	 * compiling a pattern or creating intermediate strings.
+	 */
+	protected static void appendCssName(final StringBuilder builder, final String value)
+	{
+		if (value == null)
+		{
+			return;
+		}
+		final int length = value.length();
+		int i = 0;
+		while (i < length)
+		{
+			final int codePoint = value.codePointAt(i);
+			builder.append(isCssNameChar(codePoint) ? (char) codePoint : '-');
+			i += Character.charCount(codePoint);
+		}
+	}
+
+	protected static boolean isCssNameChar(final int codePoint)
+	{
+		return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z')
+				|| (codePoint >= '0' && codePoint <= '9') || codePoint == '-';
+	}
+
 	/**
 	 * Retrieves a preview ticket, if available and retrieves the preview page from the {@link PreviewData}
 	 *
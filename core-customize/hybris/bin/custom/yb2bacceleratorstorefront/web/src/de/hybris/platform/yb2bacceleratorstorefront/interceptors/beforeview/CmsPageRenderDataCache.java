@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
+
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.InvalidationTopic;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.jalo.JaloItemNotFoundException;
+import de.hybris.platform.jalo.type.ComposedType;
+import de.hybris.platform.jalo.type.TypeManager;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsMBeanSupport;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsTextFormat;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Bounded cache of the data the {@link CmsPageBeforeViewHandler} derives from a CMS page and its content: the body CSS
+ * classes and the JavaScript files of the CMS component actions. Entries are keyed by page PK and stamped
+ * with a content version, which is incremented, and the cache cleared, whenever an item of one of the CMS types is
+ * saved, removed or synchronised on any cluster node.
+ * <p>
+ * Hit and miss counts are available over JMX and from the request metrics scrape endpoint.
+ */
+public class CmsPageRenderDataCache implements CmsPageRenderDataCacheMBean, MetricsWriter
+{
+	private static final Logger LOG = Logger.getLogger(CmsPageRenderDataCache.class);
+
+	private final Map<PK, PageRenderData> entries = new ConcurrentHashMap<>();
+	private final AtomicLong contentVersion = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile Set<Integer> cmsTypeCodes;
+
+	private boolean enabled = true;
+	private int maxEntries = 2048;
+	private List<String> cmsTypes = Arrays.asList("CMSItem", "CMSRelation", "ElementsForSlot");
+	private String objectName;
+
+	private InvalidationListener invalidationListener;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void init()
+	{
+		invalidationListener = new CmsInvalidationListener();
+		getInvalidationTopic().addInvalidationListener(invalidationListener);
+		registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+	}
+
+	@PreDestroy
+	public void destroy()
+	{
+		if (invalidationListener != null)
+		{
+			getInvalidationTopic().removeInvalidationListener(invalidationListener);
+			invalidationListener = null;
+		}
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	protected InvalidationTopic getInvalidationTopic()
+	{
+		return InvalidationManager.getInstance().getInvalidationTopic(new String[]
+		{ Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY });
+	}
+
+	/**
+	 * @return the current content version, to be stored in the {@link PageRenderData} computed after a cache miss
+	 */
+	public long getContentVersion()
+	{
+		return contentVersion.get();
+	}
+
+	/**
+	 * @return the cached data of the page, or null if there is no entry for the current content version
+	 */
+	public PageRenderData get(final PK pagePk)
+	{
+		if (!isEnabled() || pagePk == null)
+		{
+			return null;
+		}
+		// resolve the CMS type codes in the request thread, where the tenant is active, before anything is cached
+		getCmsTypeCodes();
+		final PageRenderData data = entries.get(pagePk);
+		if (data == null || data.getContentVersion() != contentVersion.get())
+		{
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return data;
+	}
+
+	/**
+	 * Caches the data of the page, unless the content changed since the given version was read.
+	 */
+	public void put(final PK pagePk, final PageRenderData data)
+	{
+		if (!isEnabled() || pagePk == null || data.getContentVersion() != contentVersion.get())
+		{
+			return;
+		}
+		if (entries.size() >= getMaxEntries())
+		{
+			entries.clear();
+		}
+		entries.put(pagePk, data);
+	}
+
+	@Override
+	public void clear()
+	{
+		contentVersion.incrementAndGet();
+		entries.clear();
+	}
+
+	protected Set<Integer> getCmsTypeCodes()
+	{
+		Set<Integer> typeCodes = cmsTypeCodes;
+		if (typeCodes == null)
+		{
+			typeCodes = resolveTypeCodes();
+			cmsTypeCodes = typeCodes;
+		}
+		return typeCodes;
+	}
+
+	protected Set<Integer> resolveTypeCodes()
+	{
+		final Set<Integer> typeCodes = new HashSet<>();
+		for (final String cmsType : getCmsTypes())
+		{
+			try
+			{
+				final ComposedType composedType = TypeManager.getInstance().getComposedType(cmsType);
+				typeCodes.add(Integer.valueOf(composedType.getItemTypeCode()));
+				for (final ComposedType subType : composedType.getAllSubTypes())
+				{
+					typeCodes.add(Integer.valueOf(subType.getItemTypeCode()));
+				}
+			}
+			catch (final JaloItemNotFoundException e)
+			{
+				LOG.warn("Unknown CMS type [" + cmsType + "], changes to its items do not invalidate the page cache");
+			}
+		}
+		return Collections.unmodifiableSet(typeCodes);
+	}
+
+	@Override
+	public int getSize()
+	{
+		return entries.size();
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		MetricsTextFormat.writeType(out, "storefront_cmspage_cache_requests_total", "counter");
+		MetricsTextFormat.writeValue(out, "storefront_cmspage_cache_requests_total", "result", "hit", getHitCount());
+		MetricsTextFormat.writeValue(out, "storefront_cmspage_cache_requests_total", "result", "miss", getMissCount());
+	}
+
+	protected boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public void setMaxEntries(final int maxEntries)
+	{
+		this.maxEntries = maxEntries;
+	}
+
+	protected List<String> getCmsTypes()
+	{
+		return cmsTypes;
+	}
+
+	/**
+	 * @param cmsTypes
+	 *           the composed and relation types whose items, including those of all subtypes, affect the cached data
+	 */
+	public void setCmsTypes(final List<String> cmsTypes)
+	{
+		this.cmsTypes = cmsTypes;
+		this.cmsTypeCodes = null;
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+
+	/**
+	 * The cached data of a page.
+	 */
+	public static class PageRenderData
+	{
+		private final long contentVersion;
+		private final String cssClasses;
+		private final Set<String> actionJsFiles;
+
+		public PageRenderData(final long contentVersion, final String cssClasses, final Set<String> actionJsFiles)
+		{
+			this.contentVersion = contentVersion;
+			this.cssClasses = cssClasses;
+			this.actionJsFiles = actionJsFiles == null ? null : Collections.unmodifiableSet(actionJsFiles);
+		}
+
+		public long getContentVersion()
+		{
+			return contentVersion;
+		}
+
+		public String getCssClasses()
+		{
+			return cssClasses;
+		}
+
+		public Set<String> getActionJsFiles()
+		{
+			return actionJsFiles;
+		}
+	}
+
+	/**
+	 * Clears the cache when an item of one of the CMS types is invalidated, locally or on another cluster node.
+	 */
+	protected class CmsInvalidationListener implements InvalidationListener
+	{
+		@Override
+		public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+				final RemoteInvalidationSource remoteSrc)
+		{
+			final Set<Integer> typeCodes = cmsTypeCodes;
+			if (typeCodes == null)
+			{
+				// nothing has been cached yet
+				return;
+			}
+			for (final Object keyElement : key)
+			{
+				if (keyElement instanceof PK && typeCodes.contains(Integer.valueOf(((PK) keyElement).getTypeCode())))
+				{
+					clear();
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
+
+/**
+ * JMX management interface of {@link CmsPageRenderDataCache}.
+ */
+public interface CmsPageRenderDataCacheMBean
+{
+	int getSize();
+
+	long getContentVersion();
+
+	long getHitCount();
+
+	long getMissCount();
+
+	void clear();
+}
@@ -4,14 +4,13 @@
 package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
 
 import de.hybris.platform.acceleratorservices.storefront.data.MetaElementData;
-import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
-import de.hybris.platform.acceleratorstorefrontcommons.interceptors.BeforeViewHandler;
 import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
 import de.hybris.platform.commerceservices.util.ResponsiveUtils;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.BeforeViewContext;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.ContextAwareBeforeViewHandler;
 
 import java.util.List;
 
-import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -21,22 +20,18 @@ import org.springframework.web.servlet.ModelAndView;
 /**
  * Adds meta tags to help guide the device for the current UI Experience.
  */
-public class UiExperienceMetadataViewHandler implements BeforeViewHandler
+public class UiExperienceMetadataViewHandler implements ContextAwareBeforeViewHandler
 {
-
-	@Resource(name = "uiExperienceService")
-	private UiExperienceService uiExperienceService;
-
 	@Override
-	public void beforeView(final HttpServletRequest request, final HttpServletResponse response, final ModelAndView modelAndView)
-			throws Exception
+	public void beforeView(final HttpServletRequest request, final HttpServletResponse response, final ModelAndView modelAndView,
+			final BeforeViewContext context) throws Exception
 	{
 
 		if (modelAndView != null && modelAndView.getModel().containsKey("metatags"))
 		{
 
 			final List<MetaElementData> metaelements = (List<MetaElementData>) modelAndView.getModel().get("metatags");
-			final UiExperienceLevel currentUiExperienceLevel = uiExperienceService.getUiExperienceLevel();
+			final UiExperienceLevel currentUiExperienceLevel = context.getUiExperienceLevel();
 			if (UiExperienceLevel.DESKTOP.equals(currentUiExperienceLevel))
 			{
 				if (!ResponsiveUtils.isResponsive())
@@ -6,12 +6,12 @@ package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
 import de.hybris.platform.acceleratorfacades.device.DeviceDetectionFacade;
 import de.hybris.platform.acceleratorfacades.device.data.DeviceData;
 import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
-import de.hybris.platform.acceleratorstorefrontcommons.interceptors.BeforeViewHandler;
 import de.hybris.platform.cms2.model.site.CMSSiteModel;
-import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
 import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
-import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
 import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.BeforeViewContext;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.ContextAwareBeforeViewHandler;
+import de.hybris.platform.yb2bacceleratorstorefront.util.UiThemeResources;
 import de.hybris.platform.yb2bacceleratorstorefront.util.UiThemeUtils;
 
 import javax.annotation.Resource;
@@ -27,7 +27,7 @@ import org.springframework.web.servlet.ModelAndView;
  * to the web accessible UI resources for the following: * The current site * The current theme * The common resources
  * All of these paths are qualified by the current UiExperienceLevel
  */
-public class UiThemeResourceBeforeViewHandler implements BeforeViewHandler
+public class UiThemeResourceBeforeViewHandler implements ContextAwareBeforeViewHandler
 {
 	@SuppressWarnings("unused")
 	private static final Logger LOG = Logger.getLogger(UiThemeResourceBeforeViewHandler.class);
@@ -35,15 +35,9 @@ public class UiThemeResourceBeforeViewHandler implements BeforeViewHandler
 	protected static final String COMMON = "common";
 	protected static final String SHARED = "shared";
 
-	@Resource(name = "cmsSiteService")
-	private CMSSiteService cmsSiteService;
-
 	@Resource(name = "deviceDetectionFacade")
 	private DeviceDetectionFacade deviceDetectionFacade;
 
-	@Resource(name = "commerceCommonI18NService")
-	private CommerceCommonI18NService commerceCommonI18NService;
-
 	@Resource(name = "uiThemeUtils")
 	private UiThemeUtils uiThemeUtils;
 
@@ -51,34 +45,27 @@ public class UiThemeResourceBeforeViewHandler implements BeforeViewHandler
 	private UiExperienceService uiExperienceService;
 
 	@Override
-	public void beforeView(final HttpServletRequest request, final HttpServletResponse response, final ModelAndView modelAndView)
+	public void beforeView(final HttpServletRequest request, final HttpServletResponse response, final ModelAndView modelAndView,
+			final BeforeViewContext context)
 	{
-		final CMSSiteModel currentSite = cmsSiteService.getCurrentSite();
-
-		final String siteName = currentSite.getUid();
-		final String themeName = uiThemeUtils.getThemeNameForCurrentSite();
-		final String uiExperienceCode = uiExperienceService.getUiExperienceLevel().getCode();
-		final String uiExperienceCodeLower = uiThemeUtils.getUiExperience();
-
-		final String contextPath = uiThemeUtils.getContextPathFromRequest(request);
+		final CMSSiteModel currentSite = context.getCurrentSite();
+		final String uiExperienceCode = context.getUiExperienceLevel().getCode();
 
-		final String siteRootUrl = contextPath + "/_ui/" + uiExperienceCodeLower;
-		final String sharedResourcePath = contextPath + "/_ui/" + SHARED;
-		final String siteResourcePath = siteRootUrl + "/site-" + siteName;
-		final String themeResourcePath = siteRootUrl + "/theme-" + themeName;
-		final String commonResourcePath = siteRootUrl + "/" + COMMON;
+		// all paths are cached per site, theme, ui experience and context path
+		final UiThemeResources resources = uiThemeUtils.getUiThemeResources(currentSite, context.getUiExperienceLevel(),
+				context.getContextPath(), context.getRequiredAddOns());
 		final String encodedContextPath = request.getContextPath();
-		final LanguageModel currentLanguage = commerceCommonI18NService.getCurrentLanguage();
+		final LanguageModel currentLanguage = context.getCurrentLanguage();
 
-		modelAndView.addObject("contextPath", contextPath);
-		modelAndView.addObject("sharedResourcePath", sharedResourcePath);
-		modelAndView.addObject("siteResourcePath", siteResourcePath);
-		modelAndView.addObject("themeResourcePath", themeResourcePath);
-		modelAndView.addObject("commonResourcePath", commonResourcePath);
+		modelAndView.addObject("contextPath", resources.getContextPath());
+		modelAndView.addObject("sharedResourcePath", resources.getSharedResourcePath());
+		modelAndView.addObject("siteResourcePath", resources.getSiteResourcePath());
+		modelAndView.addObject("themeResourcePath", resources.getThemeResourcePath());
+		modelAndView.addObject("commonResourcePath", resources.getCommonResourcePath());
 		modelAndView.addObject("encodedContextPath", encodedContextPath);
-		modelAndView.addObject("siteRootUrl", siteRootUrl);
+		modelAndView.addObject("siteRootUrl", resources.getSiteRootUrl());
 		modelAndView.addObject("language", currentLanguage != null ? currentLanguage.getIsocode() : "en");
-		modelAndView.addObject("themeName", themeName);
+		modelAndView.addObject("themeName", resources.getThemeName());
 		modelAndView.addObject("uiExperienceLevel", uiExperienceCode);
 
 		final String detectedUiExperienceCode = uiExperienceService.getDetectedUiExperienceLevel().getCode();
@@ -98,8 +85,8 @@ public class UiThemeResourceBeforeViewHandler implements BeforeViewHandler
 		final DeviceData currentDetectedDevice = deviceDetectionFacade.getCurrentDetectedDevice();
 		modelAndView.addObject("detectedDevice", currentDetectedDevice);
 
-		modelAndView.addObject("addOnCommonCssPaths", uiThemeUtils.getAddOnCommonCSSPaths(request));
-		modelAndView.addObject("addOnThemeCssPaths", uiThemeUtils.getAddOnThemeCSSPaths(request));
-		modelAndView.addObject("addOnJavaScriptPaths", uiThemeUtils.getAddOnJSPaths(request));
+		modelAndView.addObject("addOnCommonCssPaths", resources.getAddOnCommonCssPaths());
+		modelAndView.addObject("addOnThemeCssPaths", resources.getAddOnThemeCssPaths());
+		modelAndView.addObject("addOnJavaScriptPaths", resources.getAddOnJavaScriptPaths());
 	}
 }
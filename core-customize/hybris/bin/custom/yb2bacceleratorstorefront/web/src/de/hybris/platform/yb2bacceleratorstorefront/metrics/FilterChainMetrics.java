@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Records the self time of every filter of a filter chain, i.e. the time spent in the filter excluding the time spent
+ * in the rest of the chain, into one {@link LatencyHistogram} per filter. The filters are instrumented with
+ * {@link #wrapFilters(List, List)}.
+ * <p>
+ * If a trace sample rate is set, one in that many requests is traced and the slowest traced requests are kept together
+ * with their self time per filter. The per request bookkeeping lives in a reused thread local frame stack, so timing
+ * does not allocate.
+ */
+public class FilterChainMetrics implements FilterChainMetricsMBean, MetricsWriter
+{
+	private static final Logger LOG = Logger.getLogger(FilterChainMetrics.class);
+
+	private final ThreadLocal<TimingContext> timingContext = ThreadLocal.withInitial(TimingContext::new);
+
+	private volatile String[] filterNames = new String[0];
+	private volatile LatencyHistogram[] histograms = new LatencyHistogram[0];
+	private final PriorityQueue<RequestTrace> slowestRequests = new PriorityQueue<>(
+			Comparator.comparingLong(RequestTrace::getTotalNanos));
+	private volatile long slowestRequestThreshold;
+
+	private String chainName = "storefront";
+	private volatile int traceSampleRate;
+	private int slowestRequestCount = 10;
+	private String objectName;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void registerMBean()
+	{
+		registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+	}
+
+	@PreDestroy
+	public void unregisterMBean()
+	{
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	/**
+	 * Wraps every filter so that its self time is recorded under the given name. Replaces the filters of a previous call.
+	 *
+	 * @param filters
+	 *           the filters of the chain in chain order
+	 * @param names
+	 *           the names of the filters, used in metrics and traces
+	 * @return the wrapped filters in the same order
+	 */
+	public synchronized List<Filter> wrapFilters(final List<Filter> filters, final List<String> names)
+	{
+		final LatencyHistogram[] newHistograms = new LatencyHistogram[filters.size()];
+		final List<Filter> wrapped = new ArrayList<>(filters.size());
+		for (int i = 0; i < filters.size(); i++)
+		{
+			newHistograms[i] = new LatencyHistogram();
+			wrapped.add(new TimedFilter(filters.get(i), i, this));
+		}
+		histograms = newHistograms;
+		filterNames = names.toArray(new String[names.size()]);
+		reset();
+		return wrapped;
+	}
+
+	protected void doFilter(final Filter filter, final int index, final ServletRequest request, final ServletResponse response,
+			final FilterChain chain) throws IOException, ServletException
+	{
+		final TimingContext context = timingContext.get();
+		final Frame frame = context.enter(index, chain, request);
+		try
+		{
+			filter.doFilter(request, response, frame);
+		}
+		finally
+		{
+			final long selfNanos = context.exit(frame);
+			final LatencyHistogram[] currentHistograms = histograms;
+			if (index < currentHistograms.length)
+			{
+				currentHistograms[index].record(selfNanos);
+			}
+			if (context.depth == 0 && context.traced)
+			{
+				offerTrace(context);
+			}
+		}
+	}
+
+	protected boolean isTraced()
+	{
+		final int rate = traceSampleRate;
+		return rate > 0 && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+	}
+
+	protected void offerTrace(final TimingContext context)
+	{
+		final long totalNanos = context.totalNanos;
+		if (slowestRequestCount <= 0 || totalNanos <= slowestRequestThreshold)
+		{
+			return;
+		}
+		synchronized (slowestRequests)
+		{
+			slowestRequests.add(new RequestTrace(context.requestUri, totalNanos, Arrays.copyOf(context.selfNanos,
+					filterNames.length)));
+			while (slowestRequests.size() > slowestRequestCount)
+			{
+				slowestRequests.poll();
+			}
+			if (slowestRequests.size() == slowestRequestCount)
+			{
+				slowestRequestThreshold = slowestRequests.peek().getTotalNanos();
+			}
+		}
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		final String[] names = filterNames;
+		final LatencyHistogram[] currentHistograms = histograms;
+		MetricsTextFormat.writeType(out, "storefront_filter_self_seconds", "summary");
+		for (int i = 0; i < names.length && i < currentHistograms.length; i++)
+		{
+			MetricsTextFormat.writeSummary(out, "storefront_filter_self_seconds", "filter", chainName + "/" + names[i],
+					currentHistograms[i].getSnapshot());
+		}
+	}
+
+	@Override
+	public String[] getFilterSummaries()
+	{
+		final String[] names = filterNames;
+		final LatencyHistogram[] currentHistograms = histograms;
+		final List<String> summaries = new ArrayList<>();
+		for (int i = 0; i < names.length && i < currentHistograms.length; i++)
+		{
+			final LatencyHistogram.Snapshot snapshot = currentHistograms[i].getSnapshot();
+			summaries.add(names[i] + " count=" + snapshot.getCount() + " mean=" + snapshot.getMean() + " p50="
+					+ snapshot.getValueAtPercentile(50) + " p90=" + snapshot.getValueAtPercentile(90) + " p99="
+					+ snapshot.getValueAtPercentile(99) + " max=" + snapshot.getMax());
+		}
+		return summaries.toArray(new String[summaries.size()]);
+	}
+
+	@Override
+	public String[] getSlowestRequests()
+	{
+		final List<RequestTrace> traces;
+		synchronized (slowestRequests)
+		{
+			traces = new ArrayList<>(slowestRequests);
+		}
+		traces.sort(Comparator.comparingLong(RequestTrace::getTotalNanos).reversed());
+
+		final String[] names = filterNames;
+		final String[] result = new String[traces.size()];
+		for (int i = 0; i < traces.size(); i++)
+		{
+			result[i] = traces.get(i).format(names);
+		}
+		return result;
+	}
+
+	@Override
+	public String dumpSlowestRequests()
+	{
+		final String dump = String.join("\n", getSlowestRequests());
+		LOG.info("Slowest traced requests of the " + chainName + " filter chain:\n" + dump);
+		return dump;
+	}
+
+	@Override
+	public void reset()
+	{
+		for (final LatencyHistogram histogram : histograms)
+		{
+			histogram.reset();
+		}
+		synchronized (slowestRequests)
+		{
+			slowestRequests.clear();
+			slowestRequestThreshold = 0;
+		}
+	}
+
+	protected String getChainName()
+	{
+		return chainName;
+	}
+
+	public void setChainName(final String chainName)
+	{
+		this.chainName = chainName;
+	}
+
+	@Override
+	public int getTraceSampleRate()
+	{
+		return traceSampleRate;
+	}
+
+	/**
+	 * @param traceSampleRate
+	 *           trace one in this many requests, 0 to disable tracing
+	 */
+	@Override
+	public void setTraceSampleRate(final int traceSampleRate)
+	{
+		this.traceSampleRate = traceSampleRate;
+	}
+
+	protected int getSlowestRequestCount()
+	{
+		return slowestRequestCount;
+	}
+
+	public void setSlowestRequestCount(final int slowestRequestCount)
+	{
+		this.slowestRequestCount = slowestRequestCount;
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Filter chain handed to an instrumented filter, measuring the time spent downstream of it.
+	 */
+	protected static class Frame implements FilterChain
+	{
+		private FilterChain chain;
+		private int index;
+		private long startNanos;
+		private long downstreamNanos;
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException, ServletException
+		{
+			final long start = System.nanoTime();
+			try
+			{
+				chain.doFilter(request, response);
+			}
+			finally
+			{
+				downstreamNanos += System.nanoTime() - start;
+			}
+		}
+	}
+
+	/**
+	 * Per thread state of the request being filtered. Frames are reused by nesting depth.
+	 */
+	protected class TimingContext
+	{
+		private Frame[] frames = new Frame[0];
+		private int depth;
+		private boolean traced;
+		private String requestUri;
+		private long requestStartNanos;
+		private long totalNanos;
+		private long[] selfNanos = new long[0];
+
+		protected Frame enter(final int index, final FilterChain chain, final ServletRequest request)
+		{
+			if (depth == 0)
+			{
+				traced = isTraced();
+				if (traced)
+				{
+					final int filterCount = filterNames.length;
+					if (selfNanos.length < filterCount)
+					{
+						selfNanos = new long[filterCount];
+					}
+					Arrays.fill(selfNanos, 0);
+					requestUri = request instanceof HttpServletRequest ? ((HttpServletRequest) request).getRequestURI() : null;
+				}
+			}
+			if (depth == frames.length)
+			{
+				frames = Arrays.copyOf(frames, depth + 8);
+				for (int i = depth; i < frames.length; i++)
+				{
+					frames[i] = new Frame();
+				}
+			}
+
+			final Frame frame = frames[depth++];
+			frame.chain = chain;
+			frame.index = index;
+			frame.downstreamNanos = 0;
+			frame.startNanos = System.nanoTime();
+			if (depth == 1)
+			{
+				requestStartNanos = frame.startNanos;
+			}
+			return frame;
+		}
+
+		/**
+		 * @return the self time of the frame
+		 */
+		protected long exit(final Frame frame)
+		{
+			final long now = System.nanoTime();
+			final long self = now - frame.startNanos - frame.downstreamNanos;
+			frame.chain = null;
+			depth--;
+			if (traced && frame.index < selfNanos.length)
+			{
+				selfNanos[frame.index] += self;
+			}
+			if (depth == 0)
+			{
+				totalNanos = now - requestStartNanos;
+			}
+			return self;
+		}
+	}
+
+	/**
+	 * Self times per filter of a single traced request.
+	 */
+	protected static class RequestTrace
+	{
+		private final String requestUri;
+		private final long totalNanos;
+		private final long[] selfNanos;
+
+		protected RequestTrace(final String requestUri, final long totalNanos, final long[] selfNanos)
+		{
+			this.requestUri = requestUri;
+			this.totalNanos = totalNanos;
+			this.selfNanos = selfNanos;
+		}
+
+		public long getTotalNanos()
+		{
+			return totalNanos;
+		}
+
+		protected String format(final String[] names)
+		{
+			final StringBuilder builder = new StringBuilder();
+			builder.append(requestUri).append(" total=").append(totalNanos / 1000).append("us");
+			for (int i = 0; i < selfNanos.length && i < names.length; i++)
+			{
+				builder.append(' ').append(names[i]).append('=').append(selfNanos[i] / 1000).append("us");
+			}
+			return builder.toString();
+		}
+	}
+
+	/**
+	 * Delegates to a filter of the chain and records its self time.
+	 */
+	protected static class TimedFilter implements Filter
+	{
+		private final Filter delegate;
+		private final int index;
+		private final FilterChainMetrics metrics;
+
+		protected TimedFilter(final Filter delegate, final int index, final FilterChainMetrics metrics)
+		{
+			this.delegate = delegate;
+			this.index = index;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void init(final FilterConfig filterConfig) throws ServletException
+		{
+			delegate.init(filterConfig);
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+				throws IOException, ServletException
+		{
+			metrics.doFilter(delegate, index, request, response, chain);
+		}
+
+		@Override
+		public void destroy()
+		{
+			delegate.destroy();
+		}
+
+		protected Filter getDelegate()
+		{
+			return delegate;
+		}
+	}
+}
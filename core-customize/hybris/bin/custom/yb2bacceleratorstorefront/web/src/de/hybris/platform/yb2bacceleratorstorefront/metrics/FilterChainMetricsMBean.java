@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+/**
+ * JMX management interface of {@link FilterChainMetrics}. Times are reported in microseconds.
+ */
+public interface FilterChainMetricsMBean
+{
+	/**
+	 * @return one line per filter in chain order with count, mean, p50, p90, p99 and max self time
+	 */
+	String[] getFilterSummaries();
+
+	/**
+	 * @return the slowest traced requests, slowest first, each with its self time per filter
+	 */
+	String[] getSlowestRequests();
+
+	/**
+	 * Writes the slowest traced requests to the log and returns them.
+	 */
+	String dumpSlowestRequests();
+
+	int getTraceSampleRate();
+
+	void setTraceSampleRate(int traceSampleRate);
+
+	void reset();
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+
+
+/**
+ * Records the time of every handler of a handler list, e.g. the before view handlers, into one {@link LatencyHistogram}
+ * per handler. The handlers are identified by their index in the list set with {@link #setHandlerNames(List)}.
+ */
+public class HandlerMetrics implements HandlerMetricsMBean, MetricsWriter
+{
+	private volatile String[] handlerNames = new String[0];
+	private volatile LatencyHistogram[] histograms = new LatencyHistogram[0];
+
+	private String metricName = "storefront_handler_seconds";
+	private String objectName;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void registerMBean()
+	{
+		registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+	}
+
+	@PreDestroy
+	public void unregisterMBean()
+	{
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	/**
+	 * Replaces the handlers and their histograms.
+	 *
+	 * @param names
+	 *           the names of the handlers in execution order, used in metrics
+	 */
+	public synchronized void setHandlerNames(final List<String> names)
+	{
+		final LatencyHistogram[] newHistograms = new LatencyHistogram[names.size()];
+		for (int i = 0; i < newHistograms.length; i++)
+		{
+			newHistograms[i] = new LatencyHistogram();
+		}
+		histograms = newHistograms;
+		handlerNames = names.toArray(new String[names.size()]);
+	}
+
+	/**
+	 * @param index
+	 *           the index of the handler in the list of handler names
+	 * @param durationNanos
+	 *           the time spent in the handler in nanoseconds
+	 */
+	public void record(final int index, final long durationNanos)
+	{
+		final LatencyHistogram[] currentHistograms = histograms;
+		if (index >= 0 && index < currentHistograms.length)
+		{
+			currentHistograms[index].record(durationNanos);
+		}
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		final String[] names = handlerNames;
+		final LatencyHistogram[] currentHistograms = histograms;
+		MetricsTextFormat.writeType(out, metricName, "summary");
+		for (int i = 0; i < names.length && i < currentHistograms.length; i++)
+		{
+			MetricsTextFormat.writeSummary(out, metricName, "handler", names[i], currentHistograms[i].getSnapshot());
+		}
+	}
+
+	@Override
+	public String[] getHandlerSummaries()
+	{
+		final String[] names = handlerNames;
+		final LatencyHistogram[] currentHistograms = histograms;
+		final List<String> summaries = new ArrayList<>();
+		for (int i = 0; i < names.length && i < currentHistograms.length; i++)
+		{
+			final LatencyHistogram.Snapshot snapshot = currentHistograms[i].getSnapshot();
+			summaries.add(names[i] + " count=" + snapshot.getCount() + " mean=" + snapshot.getMean() + " p50="
+					+ snapshot.getValueAtPercentile(50) + " p90=" + snapshot.getValueAtPercentile(90) + " p99="
+					+ snapshot.getValueAtPercentile(99) + " max=" + snapshot.getMax());
+		}
+		return summaries.toArray(new String[summaries.size()]);
+	}
+
+	@Override
+	public void reset()
+	{
+		for (final LatencyHistogram histogram : histograms)
+		{
+			histogram.reset();
+		}
+	}
+
+	protected String getMetricName()
+	{
+		return metricName;
+	}
+
+	public void setMetricName(final String metricName)
+	{
+		this.metricName = metricName;
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+}
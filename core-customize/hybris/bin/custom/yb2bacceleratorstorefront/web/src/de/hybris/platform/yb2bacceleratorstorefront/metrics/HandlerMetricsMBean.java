@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+/**
+ * JMX management interface of {@link HandlerMetrics}. Times are reported in microseconds.
+ */
+public interface HandlerMetricsMBean
+{
+	/**
+	 * @return one line per handler in execution order with count, mean, p50, p90, p99 and max time
+	 */
+	String[] getHandlerSummaries();
+
+	void reset();
+}
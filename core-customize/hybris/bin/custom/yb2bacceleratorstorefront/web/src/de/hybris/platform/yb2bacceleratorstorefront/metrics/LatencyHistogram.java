@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock free latency histogram with log-linear buckets in the style of an HDR histogram. Durations are recorded in
+ * microseconds; every power of two range is split into 16 linear sub buckets, so reported percentiles are at most
+ * 1/16 (6.25%) above the recorded value. Recording does not allocate, so it is cheap enough to run on every request.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+	private static final int MAX_SHIFT = 32;
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF_COUNT;
+
+	/**
+	 * Highest trackable value in microseconds (about 38 hours), larger values are recorded as this value.
+	 */
+	public static final long MAX_VALUE = (1L << (MAX_SHIFT + SUB_BUCKET_BITS)) - 1;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a single duration.
+	 *
+	 * @param durationNanos
+	 *           the duration in nanoseconds, e.g. the difference of two {@link System#nanoTime()} calls
+	 */
+	public void record(final long durationNanos)
+	{
+		final long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(durationNanos), 0), MAX_VALUE);
+		buckets.incrementAndGet(getBucketIndex(micros));
+		count.increment();
+		sum.add(micros);
+
+		long currentMax = max.get();
+		while (micros > currentMax && !max.compareAndSet(currentMax, micros))
+		{
+			currentMax = max.get();
+		}
+	}
+
+	public long getCount()
+	{
+		return count.sum();
+	}
+
+	/**
+	 * @return a copy of the bucket counts, which can be queried without affecting concurrent recording
+	 */
+	public Snapshot getSnapshot()
+	{
+		final long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		return new Snapshot(counts, total, sum.sum(), max.get());
+	}
+
+	/**
+	 * Clears all recorded values. Values recorded concurrently may be partially lost.
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	protected static int getBucketIndex(final long value)
+	{
+		if (value < SUB_BUCKET_COUNT)
+		{
+			return (int) value;
+		}
+		final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		final int subBucket = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket - SUB_BUCKET_HALF_COUNT;
+	}
+
+	protected static long getLowestValue(final int index)
+	{
+		if (index < SUB_BUCKET_COUNT)
+		{
+			return index;
+		}
+		final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+		final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return subBucket << shift;
+	}
+
+	protected static long getHighestValue(final int index)
+	{
+		return index + 1 < BUCKET_COUNT ? getLowestValue(index + 1) - 1 : MAX_VALUE;
+	}
+
+	/**
+	 * Point in time copy of a {@link LatencyHistogram}. All values are in microseconds.
+	 */
+	public static class Snapshot
+	{
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		protected Snapshot(final long[] counts, final long count, final long sum, final long max)
+		{
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long getCount()
+		{
+			return count;
+		}
+
+		public long getSum()
+		{
+			return sum;
+		}
+
+		public long getMax()
+		{
+			return max;
+		}
+
+		public long getMean()
+		{
+			return count == 0 ? 0 : sum / count;
+		}
+
+		/**
+		 * @param percentile
+		 *           the percentile between 0 and 100
+		 * @return the highest value of the bucket containing the percentile, capped by the maximum recorded value
+		 */
+		public long getValueAtPercentile(final double percentile)
+		{
+			if (count == 0)
+			{
+				return 0;
+			}
+			final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+			long cumulative = 0;
+			for (int i = 0; i < counts.length; i++)
+			{
+				cumulative += counts[i];
+				if (cumulative >= rank)
+				{
+					return Math.min(getHighestValue(i), max);
+				}
+			}
+			return max;
+		}
+	}
+}
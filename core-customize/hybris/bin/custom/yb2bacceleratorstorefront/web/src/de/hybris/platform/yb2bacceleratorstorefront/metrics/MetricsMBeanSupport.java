@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Registers metrics MBeans with the platform MBean server.
+ */
+public final class MetricsMBeanSupport
+{
+	private static final Logger LOG = Logger.getLogger(MetricsMBeanSupport.class);
+
+	private MetricsMBeanSupport()
+	{
+		// static helper
+	}
+
+	/**
+	 * @return the registered name, or null if no name is given or the registration failed
+	 */
+	public static ObjectName register(final Object mbean, final String objectName)
+	{
+		if (objectName == null || objectName.isEmpty())
+		{
+			return null;
+		}
+		try
+		{
+			final ObjectName name = new ObjectName(objectName);
+			ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+			return name;
+		}
+		catch (final JMException e)
+		{
+			LOG.warn("Unable to register metrics MBean [" + objectName + "]", e);
+			return null;
+		}
+	}
+
+	public static void unregister(final ObjectName objectName)
+	{
+		if (objectName == null)
+		{
+			return;
+		}
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+		catch (final JMException e)
+		{
+			LOG.debug("Unable to unregister metrics MBean [" + objectName + "]", e);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.io.IOException;
+
+
+/**
+ * Writes metrics in the plain text exposition format understood by Prometheus and compatible scrapers.
+ */
+public final class MetricsTextFormat
+{
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final double[] QUANTILES =
+	{ 0.5, 0.9, 0.99, 0.999 };
+	private static final double MICROS_PER_SECOND = 1_000_000d;
+
+	private MetricsTextFormat()
+	{
+		// static helper
+	}
+
+	public static void writeType(final Appendable out, final String name, final String type) throws IOException
+	{
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	public static void writeValue(final Appendable out, final String name, final String labelName, final String labelValue,
+			final long value) throws IOException
+	{
+		out.append(name);
+		if (labelName != null)
+		{
+			out.append('{');
+			writeLabel(out, labelName, labelValue);
+			out.append('}');
+		}
+		out.append(' ').append(String.valueOf(value)).append('\n');
+	}
+
+	/**
+	 * Writes the quantiles, count and sum of a histogram snapshot as a summary in seconds.
+	 */
+	public static void writeSummary(final Appendable out, final String name, final String labelName, final String labelValue,
+			final LatencyHistogram.Snapshot snapshot) throws IOException
+	{
+		for (final double quantile : QUANTILES)
+		{
+			out.append(name).append('{');
+			writeLabel(out, labelName, labelValue);
+			out.append(",quantile=\"").append(String.valueOf(quantile)).append("\"} ")
+					.append(String.valueOf(snapshot.getValueAtPercentile(quantile * 100) / MICROS_PER_SECOND)).append('\n');
+		}
+		out.append(name).append("_count{");
+		writeLabel(out, labelName, labelValue);
+		out.append("} ").append(String.valueOf(snapshot.getCount())).append('\n');
+		out.append(name).append("_sum{");
+		writeLabel(out, labelName, labelValue);
+		out.append("} ").append(String.valueOf(snapshot.getSum() / MICROS_PER_SECOND)).append('\n');
+	}
+
+	private static void writeLabel(final Appendable out, final String labelName, final String labelValue) throws IOException
+	{
+		out.append(labelName).append("=\"");
+		for (int i = 0; i < labelValue.length(); i++)
+		{
+			final char c = labelValue.charAt(i);
+			if (c == '\\' || c == '"')
+			{
+				out.append('\\').append(c);
+			}
+			else if (c == '\n')
+			{
+				out.append("\\n");
+			}
+			else
+			{
+				out.append(c);
+			}
+		}
+		out.append('"');
+	}
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.io.IOException;
+
+
+/**
+ * Source of metrics that can be written in the plain text exposition format, see {@link MetricsTextFormat}.
+ */
+public interface MetricsWriter
+{
+	void writeMetrics(Appendable out) throws IOException;
+}
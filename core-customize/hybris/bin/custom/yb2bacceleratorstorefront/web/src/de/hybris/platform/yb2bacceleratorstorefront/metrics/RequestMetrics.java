@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+
+
+/**
+ * Always-on request metrics: a latency histogram per route, response counters per status code and the number of
+ * requests in flight. Routes are the normalised handler mapping patterns, e.g. <code>/**&#47;p/{productCode}</code>,
+ * so the number of histograms stays bounded; requests not handled by a controller are recorded as
+ * {@value #UNMAPPED_ROUTE}, and routes beyond {@link #setMaxRoutes(int)} as {@value #OTHER_ROUTE}.
+ * <p>
+ * The metrics are registered as MBean under {@link #setObjectName(String)} and can be scraped in plain text from the
+ * {@link de.hybris.platform.yb2bacceleratorstorefront.filters.RequestLoggerFilter}.
+ */
+public class RequestMetrics implements RequestMetricsMBean, MetricsWriter
+{
+	public static final String UNMAPPED_ROUTE = "unmapped";
+	public static final String OTHER_ROUTE = "other";
+
+	private static final int MAX_STATUS = 600;
+
+	private final ConcurrentMap<String, LatencyHistogram> routes = new ConcurrentHashMap<>();
+	private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS);
+	private final LongAdder inFlight = new LongAdder();
+
+	private boolean enabled = true;
+	private int maxRoutes = 500;
+	private String objectName;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void registerMBean()
+	{
+		if (isEnabled())
+		{
+			registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+		}
+	}
+
+	@PreDestroy
+	public void unregisterMBean()
+	{
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	public void requestStarted()
+	{
+		inFlight.increment();
+	}
+
+	/**
+	 * @param route
+	 *           the handler mapping pattern, or null if the request was not handled by a controller
+	 * @param status
+	 *           the response status code
+	 * @param durationNanos
+	 *           the request duration in nanoseconds
+	 */
+	public void requestCompleted(final String route, final int status, final long durationNanos)
+	{
+		inFlight.decrement();
+		getRouteHistogram(route == null ? UNMAPPED_ROUTE : route).record(durationNanos);
+		if (status >= 0 && status < MAX_STATUS)
+		{
+			statusCounts.incrementAndGet(status);
+		}
+	}
+
+	protected LatencyHistogram getRouteHistogram(final String route)
+	{
+		final LatencyHistogram histogram = routes.get(route);
+		if (histogram != null)
+		{
+			return histogram;
+		}
+		final String key = routes.size() < maxRoutes ? route : OTHER_ROUTE;
+		return routes.computeIfAbsent(key, k -> new LatencyHistogram());
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		MetricsTextFormat.writeType(out, "storefront_requests_in_flight", "gauge");
+		MetricsTextFormat.writeValue(out, "storefront_requests_in_flight", null, null, getInFlightRequests());
+
+		MetricsTextFormat.writeType(out, "storefront_responses_total", "counter");
+		for (int status = 0; status < MAX_STATUS; status++)
+		{
+			final long count = statusCounts.get(status);
+			if (count > 0)
+			{
+				MetricsTextFormat.writeValue(out, "storefront_responses_total", "status", String.valueOf(status), count);
+			}
+		}
+
+		MetricsTextFormat.writeType(out, "storefront_request_duration_seconds", "summary");
+		for (final Map.Entry<String, LatencyHistogram> route : getSortedRoutes().entrySet())
+		{
+			MetricsTextFormat.writeSummary(out, "storefront_request_duration_seconds", "route", route.getKey(),
+					route.getValue().getSnapshot());
+		}
+	}
+
+	protected Map<String, LatencyHistogram> getSortedRoutes()
+	{
+		return new TreeMap<>(routes);
+	}
+
+	@Override
+	public String scrape()
+	{
+		final StringBuilder builder = new StringBuilder();
+		try
+		{
+			writeMetrics(builder);
+		}
+		catch (final IOException e)
+		{
+			// not thrown by StringBuilder
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public long getInFlightRequests()
+	{
+		return inFlight.sum();
+	}
+
+	@Override
+	public long getRequestCount()
+	{
+		long count = 0;
+		for (final LatencyHistogram histogram : routes.values())
+		{
+			count += histogram.getCount();
+		}
+		return count;
+	}
+
+	@Override
+	public long getServerErrorCount()
+	{
+		long count = 0;
+		for (int status = 500; status < MAX_STATUS; status++)
+		{
+			count += statusCounts.get(status);
+		}
+		return count;
+	}
+
+	@Override
+	public String[] getRouteSummaries()
+	{
+		final List<String> summaries = new ArrayList<>();
+		for (final Map.Entry<String, LatencyHistogram> route : getSortedRoutes().entrySet())
+		{
+			final LatencyHistogram.Snapshot snapshot = route.getValue().getSnapshot();
+			summaries.add(route.getKey() + " count=" + snapshot.getCount() + " mean=" + snapshot.getMean() + " p50="
+					+ snapshot.getValueAtPercentile(50) + " p90=" + snapshot.getValueAtPercentile(90) + " p99="
+					+ snapshot.getValueAtPercentile(99) + " max=" + snapshot.getMax());
+		}
+		return summaries.toArray(new String[summaries.size()]);
+	}
+
+	@Override
+	public void reset()
+	{
+		routes.clear();
+		for (int status = 0; status < MAX_STATUS; status++)
+		{
+			statusCounts.set(status, 0);
+		}
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected int getMaxRoutes()
+	{
+		return maxRoutes;
+	}
+
+	public void setMaxRoutes(final int maxRoutes)
+	{
+		this.maxRoutes = maxRoutes;
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+/**
+ * JMX management interface of {@link RequestMetrics}. Latencies are reported in microseconds.
+ */
+public interface RequestMetricsMBean
+{
+	boolean isEnabled();
+
+	long getInFlightRequests();
+
+	long getRequestCount();
+
+	/**
+	 * @return number of responses with a 5xx status code
+	 */
+	long getServerErrorCount();
+
+	/**
+	 * @return one line per route with count, mean, p50, p90, p99 and max latency
+	 */
+	String[] getRouteSummaries();
+
+	/**
+	 * @return all metrics in the plain text exposition format
+	 */
+	String scrape();
+
+	void reset();
+}
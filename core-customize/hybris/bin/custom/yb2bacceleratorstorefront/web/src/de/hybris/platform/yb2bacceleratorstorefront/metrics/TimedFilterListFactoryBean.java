@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.Filter;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+
+
+/**
+ * Provides a filter list for a filter chain with every filter instrumented by {@link FilterChainMetrics}. The filters
+ * are named after their bean names. If disabled, the original list is returned unchanged, so the chain runs without
+ * any overhead.
+ */
+public class TimedFilterListFactoryBean implements FactoryBean<List<Filter>>, ApplicationContextAware
+{
+	private List<Filter> filters;
+	private FilterChainMetrics filterChainMetrics;
+	private boolean enabled;
+	private ApplicationContext applicationContext;
+	private List<Filter> timedFilters;
+
+	@Override
+	public synchronized List<Filter> getObject()
+	{
+		if (!isEnabled())
+		{
+			return getFilters();
+		}
+		if (timedFilters == null)
+		{
+			timedFilters = getFilterChainMetrics().wrapFilters(getFilters(), getFilterNames(getFilters()));
+		}
+		return timedFilters;
+	}
+
+	protected List<String> getFilterNames(final List<Filter> filterList)
+	{
+		final Map<Filter, String> beanNames = new IdentityHashMap<>();
+		if (applicationContext != null)
+		{
+			for (final Map.Entry<String, Filter> bean : BeanFactoryUtils
+					.beansOfTypeIncludingAncestors(applicationContext, Filter.class, false, false).entrySet())
+			{
+				beanNames.putIfAbsent(bean.getValue(), bean.getKey());
+			}
+		}
+
+		final List<String> names = new ArrayList<>(filterList.size());
+		for (final Filter filter : filterList)
+		{
+			final String beanName = beanNames.get(filter);
+			names.add(beanName == null ? filter.getClass().getSimpleName() : beanName);
+		}
+		return names;
+	}
+
+	@Override
+	public Class<?> getObjectType()
+	{
+		return List.class;
+	}
+
+	@Override
+	public boolean isSingleton()
+	{
+		return true;
+	}
+
+	@Override
+	public void setApplicationContext(final ApplicationContext applicationContext) throws BeansException
+	{
+		this.applicationContext = applicationContext;
+	}
+
+	protected List<Filter> getFilters()
+	{
+		return filters;
+	}
+
+	@Required
+	public void setFilters(final List<Filter> filters)
+	{
+		this.filters = filters;
+	}
+
+	protected FilterChainMetrics getFilterChainMetrics()
+	{
+		return filterChainMetrics;
+	}
+
+	@Required
+	public void setFilterChainMetrics(final FilterChainMetrics filterChainMetrics)
+	{
+		this.filterChainMetrics = filterChainMetrics;
+	}
+
+	protected boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+}
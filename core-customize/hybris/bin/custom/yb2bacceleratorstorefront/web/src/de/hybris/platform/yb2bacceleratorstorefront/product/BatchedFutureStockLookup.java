@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import de.hybris.platform.acceleratorfacades.futurestock.FutureStockFacade;
+import de.hybris.platform.commercefacades.product.data.FutureStockData;
+import de.hybris.platform.commercefacades.product.data.StockData;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.store.services.BaseStoreService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Required;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+
+/**
+ * Looks up the future availability of the SKUs of the order form grid. The future availability of every SKU is cached
+ * per base store, language, product and SKU for a short time, and all SKUs of a request that are not cached are
+ * resolved with a single call of the {@link FutureStockFacade}, which hands them to the future stock service at once.
+ * <p>
+ * The result is written as the JSON object the grid expects, with the future stocks of every SKU by SKU code.
+ */
+public class BatchedFutureStockLookup
+{
+	private final JsonFactory jsonFactory = new JsonFactory();
+	private final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+	private FutureStockFacade futureStockFacade;
+	private BaseStoreService baseStoreService;
+	private CommerceCommonI18NService commerceCommonI18NService;
+	private long timeToLive = 60000;
+	private int maxEntries = 20000;
+
+	/**
+	 * @return the future stocks of the SKUs of the product that have future availability by SKU code in the order of the
+	 *         SKUs, or null if the future availability of the SKUs that are not cached cannot be resolved
+	 */
+	public Map<String, List<FutureStockData>> getFutureAvailability(final String productCode, final Collection<String> skus)
+	{
+		final String keyPrefix = getKeyPrefix(productCode);
+		final long now = System.currentTimeMillis();
+		final Set<String> requestedSkus = new LinkedHashSet<>(skus);
+
+		final Map<String, List<FutureStockData>> futureStocks = new LinkedHashMap<>();
+		final List<String> missingSkus = new ArrayList<>();
+		for (final String sku : requestedSkus)
+		{
+			final CacheEntry entry = cache.get(keyPrefix + sku);
+			if (entry != null && entry.expires > now)
+			{
+				futureStocks.put(sku, entry.futureStocks);
+			}
+			else
+			{
+				missingSkus.add(sku);
+			}
+		}
+
+		if (!missingSkus.isEmpty())
+		{
+			final Map<String, List<FutureStockData>> loaded = getFutureStockFacade()
+					.getFutureAvailabilityForSelectedVariants(productCode, missingSkus);
+			if (loaded == null)
+			{
+				return null;
+			}
+
+			if (cache.size() + missingSkus.size() > getMaxEntries())
+			{
+				cache.clear();
+			}
+			final long expires = System.currentTimeMillis() + getTimeToLive();
+			for (final String sku : missingSkus)
+			{
+				final List<FutureStockData> skuFutureStocks = loaded.get(sku);
+				cache.put(keyPrefix + sku, new CacheEntry(skuFutureStocks, expires));
+				futureStocks.put(sku, skuFutureStocks);
+			}
+		}
+
+		final Map<String, List<FutureStockData>> result = new LinkedHashMap<>();
+		for (final String sku : requestedSkus)
+		{
+			final List<FutureStockData> skuFutureStocks = futureStocks.get(sku);
+			if (skuFutureStocks != null)
+			{
+				result.put(sku, skuFutureStocks);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the future stocks by SKU code as JSON.
+	 */
+	public void write(final Map<String, List<FutureStockData>> futureStocks, final OutputStream out) throws IOException
+	{
+		try (final JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8))
+		{
+			generator.writeStartObject();
+			for (final Map.Entry<String, List<FutureStockData>> entry : futureStocks.entrySet())
+			{
+				generator.writeArrayFieldStart(entry.getKey());
+				for (final FutureStockData futureStock : entry.getValue())
+				{
+					writeFutureStock(generator, futureStock);
+				}
+				generator.writeEndArray();
+			}
+			generator.writeEndObject();
+		}
+	}
+
+	/**
+	 * Writes a JSON object with the message by the message key, as the grid expects it if the future availability
+	 * cannot be shown.
+	 */
+	public void writeMessage(final String key, final String message, final OutputStream out) throws IOException
+	{
+		try (final JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8))
+		{
+			generator.writeStartObject();
+			generator.writeStringField(key, message);
+			generator.writeEndObject();
+		}
+	}
+
+	public void clear()
+	{
+		cache.clear();
+	}
+
+	protected void writeFutureStock(final JsonGenerator generator, final FutureStockData futureStock) throws IOException
+	{
+		generator.writeStartObject();
+		final StockData stock = futureStock.getStock();
+		if (stock != null)
+		{
+			generator.writeObjectFieldStart("stock");
+			if (stock.getStockLevel() != null)
+			{
+				generator.writeNumberField("stockLevel", stock.getStockLevel().longValue());
+			}
+			if (stock.getStockLevelStatus() != null)
+			{
+				generator.writeStringField("stockLevelStatus", stock.getStockLevelStatus().getCode());
+			}
+			generator.writeEndObject();
+		}
+		if (futureStock.getDate() != null)
+		{
+			generator.writeNumberField("date", futureStock.getDate().getTime());
+		}
+		generator.writeStringField("formattedDate", futureStock.getFormattedDate());
+		generator.writeEndObject();
+	}
+
+	/**
+	 * @return the prefix of the cache keys of the SKUs of the product. The future availability depends on the warehouses
+	 *         of the base store, and the formatted dates on the language.
+	 */
+	protected String getKeyPrefix(final String productCode)
+	{
+		final BaseStoreModel baseStore = getBaseStoreService().getCurrentBaseStore();
+		final LanguageModel language = getCommerceCommonI18NService().getCurrentLanguage();
+		return (baseStore == null ? "" : baseStore.getUid()) + '|' + (language == null ? "" : language.getIsocode()) + '|'
+				+ productCode + '|';
+	}
+
+	protected static class CacheEntry
+	{
+		private final List<FutureStockData> futureStocks;
+		private final long expires;
+
+		protected CacheEntry(final List<FutureStockData> futureStocks, final long expires)
+		{
+			this.futureStocks = futureStocks;
+			this.expires = expires;
+		}
+	}
+
+	protected FutureStockFacade getFutureStockFacade()
+	{
+		return futureStockFacade;
+	}
+
+	@Required
+	public void setFutureStockFacade(final FutureStockFacade futureStockFacade)
+	{
+		this.futureStockFacade = futureStockFacade;
+	}
+
+	protected BaseStoreService getBaseStoreService()
+	{
+		return baseStoreService;
+	}
+
+	@Required
+	public void setBaseStoreService(final BaseStoreService baseStoreService)
+	{
+		this.baseStoreService = baseStoreService;
+	}
+
+	protected CommerceCommonI18NService getCommerceCommonI18NService()
+	{
+		return commerceCommonI18NService;
+	}
+
+	@Required
+	public void setCommerceCommonI18NService(final CommerceCommonI18NService commerceCommonI18NService)
+	{
+		this.commerceCommonI18NService = commerceCommonI18NService;
+	}
+
+	protected long getTimeToLive()
+	{
+		return timeToLive;
+	}
+
+	public void setTimeToLive(final long timeToLive)
+	{
+		this.timeToLive = timeToLive;
+	}
+
+	protected int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public void setMaxEntries(final int maxEntries)
+	{
+		this.maxEntries = maxEntries;
+	}
+}
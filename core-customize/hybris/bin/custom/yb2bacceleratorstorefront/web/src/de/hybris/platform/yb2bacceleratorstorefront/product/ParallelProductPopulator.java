@@ -0,0 +1,668 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import de.hybris.platform.basecommerce.model.site.BaseSiteModel;
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.commercefacades.product.ProductFacade;
+import de.hybris.platform.commercefacades.product.ProductOption;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.core.HybrisEnumValue;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.i18n.CommonI18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.site.BaseSiteService;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.HandlerMetrics;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Converts a product with the product facade, but populates the independent groups of product options, e.g. the prices,
+ * stock or promotions, concurrently on a bounded thread pool while the remaining options are populated on the request
+ * thread. Every group is converted into its own {@link ProductData} by a task, and the properties it set are then
+ * copied to the product data of the request.
+ * <p>
+ * The session of the request is not thread safe, so every task runs in a session of its own. The user, currency,
+ * language, session catalog versions and base site of the request are copied into it, as well as the session attributes
+ * with immutable values, e.g. the price groups and the language fallback flags.
+ * <p>
+ * A group that does not complete within the timeout is cancelled. It is populated again on the request thread once its
+ * task stopped, and left out if the task does not stop within the timeout either. A group that fails or cannot be
+ * queued is populated on the request thread, so the result is the same as that of the sequential conversion. The time
+ * of the request thread and of every group is recorded in the {@link HandlerMetrics}, if set.
+ */
+public class ParallelProductPopulator
+{
+	private static final Logger LOG = Logger.getLogger(ParallelProductPopulator.class);
+
+	protected static final String REQUEST_THREAD = "requestThread";
+
+	private static final List<PropertyDescriptor> PRODUCT_DATA_PROPERTIES = new ArrayList<>();
+	private static final List<Object> PRODUCT_DATA_DEFAULTS = new ArrayList<>();
+
+	static
+	{
+		final ProductData defaults = new ProductData();
+		for (final PropertyDescriptor property : BeanUtils.getPropertyDescriptors(ProductData.class))
+		{
+			if (property.getReadMethod() != null && property.getWriteMethod() != null)
+			{
+				PRODUCT_DATA_PROPERTIES.add(property);
+				PRODUCT_DATA_DEFAULTS.add(readProperty(property, defaults));
+			}
+		}
+	}
+
+	private ProductFacade productFacade;
+	private ModelService modelService;
+	private SessionService sessionService;
+	private UserService userService;
+	private CommonI18NService commonI18NService;
+	private CatalogVersionService catalogVersionService;
+	private BaseSiteService baseSiteService;
+	private Map<String, List<ProductOption>> optionGroups = Collections.emptyMap();
+	private HandlerMetrics optionMetrics;
+	private boolean enabled;
+	private int threads = 8;
+	private int queueCapacity = 64;
+	private long timeoutMillis = 2000;
+
+	private List<String> groupNames = Collections.emptyList();
+	private ThreadPoolExecutor executor;
+
+	@PostConstruct
+	public void init()
+	{
+		groupNames = new ArrayList<>(getOptionGroups().keySet());
+		if (getOptionMetrics() != null)
+		{
+			final List<String> metricNames = new ArrayList<>(groupNames.size() + 1);
+			metricNames.add(REQUEST_THREAD);
+			metricNames.addAll(groupNames);
+			getOptionMetrics().setHandlerNames(metricNames);
+		}
+
+		if (isEnabled())
+		{
+			final AtomicInteger threadNumber = new AtomicInteger();
+			executor = new ThreadPoolExecutor(getThreads(), getThreads(), 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(getQueueCapacity()), runnable -> {
+						final Thread thread = new Thread(runnable, "product-populator-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	@PreDestroy
+	public void destroy()
+	{
+		if (executor != null)
+		{
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * @return true if products should be converted with this populator rather than the product facade
+	 */
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Converts the product and populates it with the given options.
+	 *
+	 * @param productModel
+	 *           the product
+	 * @param options
+	 *           the options to populate, in order
+	 * @return the product data
+	 */
+	public ProductData getProductForOptions(final ProductModel productModel, final Collection<ProductOption> options)
+	{
+		final long start = System.nanoTime();
+		final Set<ProductOption> requestThreadOptions = new LinkedHashSet<>(options);
+		final Map<Integer, Collection<ProductOption>> groups = new LinkedHashMap<>();
+		for (int i = 0; i < groupNames.size(); i++)
+		{
+			final Collection<ProductOption> groupOptions = new LinkedHashSet<>(getOptionGroups().get(groupNames.get(i)));
+			groupOptions.retainAll(options);
+			if (!groupOptions.isEmpty())
+			{
+				groups.put(Integer.valueOf(i), groupOptions);
+				requestThreadOptions.removeAll(groupOptions);
+			}
+		}
+
+		// submit the groups first, so they run while the request thread populates the remaining options
+		final Map<Integer, GroupTask> tasks = submit(productModel, groups);
+
+		final ProductData productData = getProductFacade().getProductForOptions(productModel, requestThreadOptions);
+		recordTime(0, start);
+
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getTimeoutMillis());
+		for (final Map.Entry<Integer, Collection<ProductOption>> group : groups.entrySet())
+		{
+			final int index = group.getKey().intValue();
+			final GroupTask task = tasks.get(group.getKey());
+			ProductData groupData = await(task, deadline, groupNames.get(index));
+			if (groupData == null && isStopped(task, groupNames.get(index)))
+			{
+				groupData = populateGroup(productModel, group.getValue(), index);
+			}
+			if (groupData != null)
+			{
+				merge(groupData, productData);
+			}
+		}
+		return productData;
+	}
+
+	protected Map<Integer, GroupTask> submit(final ProductModel productModel,
+			final Map<Integer, Collection<ProductOption>> groups)
+	{
+		final Map<Integer, GroupTask> tasks = new LinkedHashMap<>();
+		if (executor == null || groups.isEmpty())
+		{
+			return tasks;
+		}
+
+		final Tenant tenant = Registry.hasCurrentTenant() ? Registry.getCurrentTenantNoFallback() : null;
+		final SessionContext sessionContext = tenant == null ? null : getSessionContext();
+		for (final Map.Entry<Integer, Collection<ProductOption>> group : groups.entrySet())
+		{
+			final GroupTask task = new GroupTask(tenant, sessionContext, productModel.getPk(), group.getValue(),
+					group.getKey().intValue());
+			try
+			{
+				task.future = executor.submit(task);
+				tasks.put(group.getKey(), task);
+			}
+			catch (final RejectedExecutionException e)
+			{
+				LOG.debug("Product populator queue is full, populating " + groupNames.get(group.getKey().intValue())
+						+ " on the request thread");
+			}
+		}
+		return tasks;
+	}
+
+	/**
+	 * @return the product data of the group, or null if the task did not complete it. A task that is still running is
+	 *         cancelled.
+	 */
+	protected ProductData await(final GroupTask task, final long deadline, final String groupName)
+	{
+		if (task == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return task.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+		catch (final TimeoutException e)
+		{
+			LOG.warn("Populating " + groupName + " took more than " + getTimeoutMillis() + "ms, cancelling it");
+		}
+		catch (final ExecutionException e)
+		{
+			LOG.warn("Failed to populate " + groupName, e.getCause());
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		task.future.cancel(true);
+		return null;
+	}
+
+	/**
+	 * Waits up to the timeout for a cancelled task to stop, so a group is never populated on the request thread while
+	 * its task may still be running.
+	 *
+	 * @return true if the task never started or stopped, false if the group has to be left out
+	 */
+	protected boolean isStopped(final GroupTask task, final String groupName)
+	{
+		if (task == null || task.claim())
+		{
+			return true;
+		}
+
+		try
+		{
+			if (task.finished.await(getTimeoutMillis(), TimeUnit.MILLISECONDS))
+			{
+				return true;
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		LOG.warn("Populating " + groupName + " did not stop after being cancelled, leaving it out");
+		return false;
+	}
+
+	protected ProductData populateGroup(final ProductModel productModel, final Collection<ProductOption> options,
+			final int index)
+	{
+		final long start = System.nanoTime();
+		final ProductData groupData = getProductFacade().getProductForOptions(productModel, options);
+		recordTime(index + 1, start);
+		return groupData;
+	}
+
+	/**
+	 * @return the session context of the request, with the items by PK, to be copied into the sessions of the tasks
+	 */
+	protected SessionContext getSessionContext()
+	{
+		final SessionContext sessionContext = new SessionContext();
+		final Map<String, Object> attributes = getSessionService().getAllAttributes();
+		for (final Map.Entry<String, Object> attribute : attributes.entrySet())
+		{
+			if (isImmutable(attribute.getValue()))
+			{
+				sessionContext.attributes.put(attribute.getKey(), attribute.getValue());
+			}
+		}
+		sessionContext.userPk = getPk(getUserService().getCurrentUser());
+		sessionContext.currencyPk = getPk(getCommonI18NService().getCurrentCurrency());
+		sessionContext.languagePk = getPk(getCommonI18NService().getCurrentLanguage());
+		sessionContext.sitePk = getPk(getBaseSiteService().getCurrentBaseSite());
+		final Collection<CatalogVersionModel> catalogVersions = getCatalogVersionService().getSessionCatalogVersions();
+		if (catalogVersions != null)
+		{
+			sessionContext.catalogVersionPks = new ArrayList<>(catalogVersions.size());
+			for (final CatalogVersionModel catalogVersion : catalogVersions)
+			{
+				sessionContext.catalogVersionPks.add(catalogVersion.getPk());
+			}
+		}
+		return sessionContext;
+	}
+
+	/**
+	 * Creates a session for the current thread and copies the session context of the request into it.
+	 */
+	protected Session openSession(final SessionContext sessionContext)
+	{
+		final Session session = getSessionService().createNewSession();
+		for (final Map.Entry<String, Object> attribute : sessionContext.attributes.entrySet())
+		{
+			getSessionService().setAttribute(attribute.getKey(), attribute.getValue());
+		}
+		if (sessionContext.userPk != null)
+		{
+			getUserService().setCurrentUser(getModelService().get(sessionContext.userPk));
+		}
+		if (sessionContext.currencyPk != null)
+		{
+			getCommonI18NService().setCurrentCurrency(getModelService().get(sessionContext.currencyPk));
+		}
+		if (sessionContext.languagePk != null)
+		{
+			getCommonI18NService().setCurrentLanguage(getModelService().get(sessionContext.languagePk));
+		}
+		if (sessionContext.catalogVersionPks != null)
+		{
+			final List<CatalogVersionModel> catalogVersions = new ArrayList<>(sessionContext.catalogVersionPks.size());
+			for (final PK catalogVersionPk : sessionContext.catalogVersionPks)
+			{
+				catalogVersions.add(getModelService().get(catalogVersionPk));
+			}
+			getCatalogVersionService().setSessionCatalogVersions(catalogVersions);
+		}
+		if (sessionContext.sitePk != null)
+		{
+			getBaseSiteService().setCurrentBaseSite(getModelService().<BaseSiteModel> get(sessionContext.sitePk), false);
+		}
+		return session;
+	}
+
+	/**
+	 * @return true if the session attribute value can be shared with the session of a task. Items are not shared, as
+	 *         models are not meant to be used by more than one thread.
+	 */
+	protected boolean isImmutable(final Object value)
+	{
+		return value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character
+				|| value instanceof Enum || value instanceof HybrisEnumValue || value instanceof Locale
+				|| value instanceof TimeZone || value instanceof PK;
+	}
+
+	protected static PK getPk(final ItemModel item)
+	{
+		return item == null ? null : item.getPk();
+	}
+
+	/**
+	 * Copies the properties the populators of a group set, i.e. those that differ from a new {@link ProductData}, unless
+	 * the request thread set them already. The properties the product converter set in every group are thus kept as the
+	 * request thread populated them.
+	 */
+	protected void merge(final ProductData source, final ProductData target)
+	{
+		for (int i = 0; i < PRODUCT_DATA_PROPERTIES.size(); i++)
+		{
+			final PropertyDescriptor property = PRODUCT_DATA_PROPERTIES.get(i);
+			final Object value = readProperty(property, source);
+			final Object defaultValue = PRODUCT_DATA_DEFAULTS.get(i);
+			if (!Objects.equals(value, defaultValue) && Objects.equals(readProperty(property, target), defaultValue))
+			{
+				try
+				{
+					property.getWriteMethod().invoke(target, value);
+				}
+				catch (final IllegalAccessException | InvocationTargetException e)
+				{
+					throw new IllegalStateException("Unable to copy product property " + property.getName(), e);
+				}
+			}
+		}
+	}
+
+	protected static Object readProperty(final PropertyDescriptor property, final ProductData productData)
+	{
+		try
+		{
+			return property.getReadMethod().invoke(productData);
+		}
+		catch (final IllegalAccessException | InvocationTargetException e)
+		{
+			throw new IllegalStateException("Unable to read product property " + property.getName(), e);
+		}
+	}
+
+	protected void recordTime(final int index, final long start)
+	{
+		if (getOptionMetrics() != null)
+		{
+			getOptionMetrics().record(index, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * The user, currency, language, catalog versions and base site of the session of a request by PK, and its session
+	 * attributes with immutable values.
+	 */
+	protected static class SessionContext
+	{
+		private final Map<String, Object> attributes = new HashMap<>();
+		private PK userPk;
+		private PK currencyPk;
+		private PK languagePk;
+		private PK sitePk;
+		private List<PK> catalogVersionPks;
+	}
+
+	/**
+	 * Populates one group of options in the tenant of the request that submitted it and in a session of its own, which
+	 * is closed afterwards. The product is loaded again by its PK, as models are not meant to be shared between threads.
+	 */
+	protected class GroupTask implements Callable<ProductData>
+	{
+		private final Tenant tenant;
+		private final SessionContext sessionContext;
+		private final PK productPk;
+		private final Collection<ProductOption> options;
+		private final int index;
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private final CountDownLatch finished = new CountDownLatch(1);
+		private Future<ProductData> future;
+
+		public GroupTask(final Tenant tenant, final SessionContext sessionContext, final PK productPk,
+				final Collection<ProductOption> options, final int index)
+		{
+			this.tenant = tenant;
+			this.sessionContext = sessionContext;
+			this.productPk = productPk;
+			this.options = options;
+			this.index = index;
+		}
+
+		/**
+		 * @return true if the task had not started yet and will not populate the group anymore
+		 */
+		protected boolean claim()
+		{
+			return claimed.compareAndSet(false, true);
+		}
+
+		@Override
+		public ProductData call()
+		{
+			if (!claim())
+			{
+				return null;
+			}
+
+			Session session = null;
+			try
+			{
+				if (tenant != null)
+				{
+					Registry.setCurrentTenant(tenant);
+				}
+				if (sessionContext != null)
+				{
+					session = openSession(sessionContext);
+				}
+				final ProductModel productModel = getModelService().get(productPk);
+				return populateGroup(productModel, options, index);
+			}
+			finally
+			{
+				try
+				{
+					if (session != null)
+					{
+						getSessionService().closeSession(session);
+					}
+					if (tenant != null)
+					{
+						Registry.unsetCurrentTenant();
+					}
+				}
+				finally
+				{
+					finished.countDown();
+				}
+			}
+		}
+	}
+
+	protected ProductFacade getProductFacade()
+	{
+		return productFacade;
+	}
+
+	/**
+	 * @param productFacade
+	 *           the product facade of the controllers, i.e. productVariantFacade, converting the product and every group
+	 */
+	@Required
+	public void setProductFacade(final ProductFacade productFacade)
+	{
+		this.productFacade = productFacade;
+	}
+
+	protected ModelService getModelService()
+	{
+		return modelService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	@Required
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected UserService getUserService()
+	{
+		return userService;
+	}
+
+	@Required
+	public void setUserService(final UserService userService)
+	{
+		this.userService = userService;
+	}
+
+	protected CommonI18NService getCommonI18NService()
+	{
+		return commonI18NService;
+	}
+
+	@Required
+	public void setCommonI18NService(final CommonI18NService commonI18NService)
+	{
+		this.commonI18NService = commonI18NService;
+	}
+
+	protected CatalogVersionService getCatalogVersionService()
+	{
+		return catalogVersionService;
+	}
+
+	@Required
+	public void setCatalogVersionService(final CatalogVersionService catalogVersionService)
+	{
+		this.catalogVersionService = catalogVersionService;
+	}
+
+	protected BaseSiteService getBaseSiteService()
+	{
+		return baseSiteService;
+	}
+
+	@Required
+	public void setBaseSiteService(final BaseSiteService baseSiteService)
+	{
+		this.baseSiteService = baseSiteService;
+	}
+
+	protected Map<String, List<ProductOption>> getOptionGroups()
+	{
+		return optionGroups;
+	}
+
+	/**
+	 * @param optionGroups
+	 *           the groups of options that do not depend on other options and are populated concurrently, by name. The
+	 *           options of one group are populated in order by one task.
+	 */
+	public void setOptionGroups(final Map<String, List<ProductOption>> optionGroups)
+	{
+		this.optionGroups = optionGroups;
+	}
+
+	protected HandlerMetrics getOptionMetrics()
+	{
+		return optionMetrics;
+	}
+
+	public void setOptionMetrics(final HandlerMetrics optionMetrics)
+	{
+		this.optionMetrics = optionMetrics;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected int getThreads()
+	{
+		return threads;
+	}
+
+	public void setThreads(final int threads)
+	{
+		this.threads = threads;
+	}
+
+	protected int getQueueCapacity()
+	{
+		return queueCapacity;
+	}
+
+	public void setQueueCapacity(final int queueCapacity)
+	{
+		this.queueCapacity = queueCapacity;
+	}
+
+	protected long getTimeoutMillis()
+	{
+		return timeoutMillis;
+	}
+
+	/**
+	 * @param timeoutMillis
+	 *           the time to wait for the groups after the request thread populated its options, after which a group is
+	 *           cancelled, and the time to wait for a cancelled group to stop before populating it on the request thread
+	 */
+	public void setTimeoutMillis(final long timeoutMillis)
+	{
+		this.timeoutMillis = timeoutMillis;
+	}
+}
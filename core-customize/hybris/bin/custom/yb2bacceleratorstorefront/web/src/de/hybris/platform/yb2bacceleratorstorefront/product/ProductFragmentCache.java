@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import de.hybris.platform.acceleratorcms.services.CMSPageContextService;
+import de.hybris.platform.acceleratorservices.data.RequestContextData;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
+import de.hybris.platform.acceleratorservices.util.SpringHelper;
+import de.hybris.platform.cache.Cache;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.cache.InvalidationManager;
+import de.hybris.platform.cache.InvalidationTarget;
+import de.hybris.platform.cache.InvalidationTopic;
+import de.hybris.platform.cache.RemoteInvalidationSource;
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.cms2.model.pages.AbstractPageModel;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.c2l.CurrencyModel;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.jalo.JaloItemNotFoundException;
+import de.hybris.platform.jalo.type.ComposedType;
+import de.hybris.platform.jalo.type.TypeManager;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.variants.model.VariantProductModel;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsMBeanSupport;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsTextFormat;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+
+
+/**
+ * Bounded cache of the rendered HTML of the sections of the product detail page that are the same for all anonymous
+ * users, e.g. the image gallery or the description tab, filled and used by the
+ * {@link de.hybris.platform.yb2bacceleratorstorefront.tags.FragmentCacheTag}. Prices, stock, promotions and the mini
+ * cart are not part of the cached sections and are rendered for every request.
+ * <p>
+ * Fragments are keyed by web application context path, site, session catalog versions, language, currency, UI
+ * experience, CMS page, product code and the modification times of the product and of its base products, and are only
+ * used for anonymous users outside of CMS preview. The fragments of a variant render attributes of its base products,
+ * so a saved or synchronised product, or any of its base products, gives the fragments new keys, and changes to
+ * products do not invalidate the cache; the fragments of the previous version are no longer read and expire. Every
+ * entry expires after the time to live, and the cache is cleared whenever an item of one of the invalidating types,
+ * i.e. the items rendered in the fragments that do not change the modification time of the product, e.g. a media,
+ * feature, category or CMS item, is saved, removed or synchronised on any cluster node.
+ */
+public class ProductFragmentCache implements ProductFragmentCacheMBean, MetricsWriter
+{
+	private static final Logger LOG = Logger.getLogger(ProductFragmentCache.class);
+
+	protected static final String CMS_PAGE_ATTRIBUTE = "cmsPage";
+	protected static final String REQUEST_CONTEXT_DATA_BEAN = "requestContextData";
+	protected static final char KEY_SEPARATOR = '|';
+
+	private final Map<String, Fragment> entries = new ConcurrentHashMap<>();
+	private final AtomicLong contentVersion = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile Set<Integer> invalidatingTypeCodes;
+
+	private CMSSiteService cmsSiteService;
+	private CMSPageContextService cmsPageContextService;
+	private CatalogVersionService catalogVersionService;
+	private CommerceCommonI18NService commerceCommonI18NService;
+	private UiExperienceService uiExperienceService;
+	private UserService userService;
+
+	private boolean enabled;
+	private int maxEntries = 4096;
+	private int maxFragmentLength = 65536;
+	private long timeToLive = 300000;
+	private List<String> invalidatingTypes = Arrays.asList("ProductFeature", "Media", "MediaContainer", "Category",
+			"CatalogVersion", "CMSItem", "CMSRelation", "ElementsForSlot");
+	private String objectName;
+
+	private InvalidationListener invalidationListener;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void init()
+	{
+		invalidationListener = new ProductInvalidationListener();
+		getInvalidationTopic().addInvalidationListener(invalidationListener);
+		registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+	}
+
+	@PreDestroy
+	public void destroy()
+	{
+		if (invalidationListener != null)
+		{
+			getInvalidationTopic().removeInvalidationListener(invalidationListener);
+			invalidationListener = null;
+		}
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	protected InvalidationTopic getInvalidationTopic()
+	{
+		return InvalidationManager.getInstance().getInvalidationTopic(new String[]
+		{ Cache.CACHEKEY_HJMP, Cache.CACHEKEY_ENTITY });
+	}
+
+	/**
+	 * @param request
+	 *           the current request
+	 * @param fragmentName
+	 *           the name of the section of the page
+	 * @param product
+	 *           the product the section is rendered for
+	 * @return the key of the fragment, or null if the fragment must not be cached for the current request
+	 */
+	public String getKey(final HttpServletRequest request, final String fragmentName, final ProductData product)
+	{
+		if (!isEnabled() || product == null || isPreviewRequest(request)
+				|| !getUserService().isAnonymousUser(getUserService().getCurrentUser()))
+		{
+			return null;
+		}
+
+		final ProductModel productModel = getRequestContextData(request).getProduct();
+		final CMSSiteModel site = getCmsSiteService().getCurrentSite();
+		final LanguageModel language = getCommerceCommonI18NService().getCurrentLanguage();
+		final CurrencyModel currency = getCommerceCommonI18NService().getCurrentCurrency();
+		final UiExperienceLevel uiExperienceLevel = getUiExperienceService().getUiExperienceLevel();
+		if (productModel == null || productModel.getModifiedtime() == null || !productModel.getCode().equals(product.getCode())
+				|| site == null || language == null || currency == null || uiExperienceLevel == null)
+		{
+			return null;
+		}
+
+		// resolve the invalidating type codes in the request thread, where the tenant is active, before anything is cached
+		getInvalidatingTypeCodes();
+
+		final StringBuilder key = new StringBuilder(128);
+		key.append(request.getContextPath()).append(KEY_SEPARATOR);
+		key.append(site.getUid()).append(KEY_SEPARATOR);
+		appendCatalogVersions(key);
+		key.append(KEY_SEPARATOR).append(language.getIsocode());
+		key.append(KEY_SEPARATOR).append(currency.getIsocode());
+		key.append(KEY_SEPARATOR).append(uiExperienceLevel.getCode());
+		final Object cmsPage = request.getAttribute(CMS_PAGE_ATTRIBUTE);
+		if (cmsPage instanceof AbstractPageModel)
+		{
+			key.append(KEY_SEPARATOR).append(((AbstractPageModel) cmsPage).getPk());
+		}
+		key.append(KEY_SEPARATOR).append(productModel.getCode());
+		appendModificationTimes(key, productModel);
+		key.append(KEY_SEPARATOR).append(fragmentName);
+		return key.toString();
+	}
+
+	/**
+	 * Appends the modification times of the product and of its base products, whose attributes the product populators
+	 * fall back to for variants.
+	 */
+	protected void appendModificationTimes(final StringBuilder key, final ProductModel productModel)
+	{
+		key.append(KEY_SEPARATOR).append(productModel.getModifiedtime().getTime());
+		ProductModel product = productModel;
+		while (product instanceof VariantProductModel && ((VariantProductModel) product).getBaseProduct() != null)
+		{
+			product = ((VariantProductModel) product).getBaseProduct();
+			key.append(',').append(product.getModifiedtime() == null ? 0 : product.getModifiedtime().getTime());
+		}
+	}
+
+	protected void appendCatalogVersions(final StringBuilder key)
+	{
+		final List<String> catalogVersions = new ArrayList<>();
+		for (final CatalogVersionModel catalogVersion : getCatalogVersionService().getSessionCatalogVersions())
+		{
+			catalogVersions.add(catalogVersion.getPk().toString());
+		}
+		Collections.sort(catalogVersions);
+		key.append(String.join(",", catalogVersions));
+	}
+
+	protected boolean isPreviewRequest(final HttpServletRequest request)
+	{
+		return getCmsPageContextService().getCmsPageRequestContextData(request).getPreviewData() != null;
+	}
+
+	protected RequestContextData getRequestContextData(final HttpServletRequest request)
+	{
+		return SpringHelper.getSpringBean(request, REQUEST_CONTEXT_DATA_BEAN, RequestContextData.class, true);
+	}
+
+	/**
+	 * @return the current content version, to be passed to {@link #put(String, String, long)} with the fragment
+	 *         rendered after a cache miss
+	 */
+	@Override
+	public long getContentVersion()
+	{
+		return contentVersion.get();
+	}
+
+	/**
+	 * @return the cached fragment, or null if there is none for the current content version or it expired
+	 */
+	public String get(final String key)
+	{
+		final Fragment fragment = entries.get(key);
+		if (fragment == null || fragment.getContentVersion() != contentVersion.get()
+				|| System.currentTimeMillis() - fragment.getCreated() > getTimeToLive())
+		{
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return fragment.getHtml();
+	}
+
+	/**
+	 * Caches the fragment, unless it is too large or the content changed since the given version was read.
+	 */
+	public void put(final String key, final String html, final long version)
+	{
+		if (html.length() > getMaxFragmentLength() || version != contentVersion.get())
+		{
+			return;
+		}
+		if (entries.size() >= getMaxEntries())
+		{
+			entries.clear();
+		}
+		entries.put(key, new Fragment(html, version, System.currentTimeMillis()));
+	}
+
+	@Override
+	public void clear()
+	{
+		contentVersion.incrementAndGet();
+		entries.clear();
+	}
+
+	protected Set<Integer> getInvalidatingTypeCodes()
+	{
+		Set<Integer> typeCodes = invalidatingTypeCodes;
+		if (typeCodes == null)
+		{
+			typeCodes = resolveTypeCodes();
+			invalidatingTypeCodes = typeCodes;
+		}
+		return typeCodes;
+	}
+
+	protected Set<Integer> resolveTypeCodes()
+	{
+		final Set<Integer> typeCodes = new HashSet<>();
+		for (final String type : getInvalidatingTypes())
+		{
+			try
+			{
+				final ComposedType composedType = TypeManager.getInstance().getComposedType(type);
+				typeCodes.add(Integer.valueOf(composedType.getItemTypeCode()));
+				for (final ComposedType subType : composedType.getAllSubTypes())
+				{
+					typeCodes.add(Integer.valueOf(subType.getItemTypeCode()));
+				}
+			}
+			catch (final JaloItemNotFoundException e)
+			{
+				LOG.warn("Unknown type [" + type + "], changes to its items do not invalidate the product fragment cache");
+			}
+		}
+		return Collections.unmodifiableSet(typeCodes);
+	}
+
+	@Override
+	public int getSize()
+	{
+		return entries.size();
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		MetricsTextFormat.writeType(out, "storefront_product_fragment_cache_requests_total", "counter");
+		MetricsTextFormat.writeValue(out, "storefront_product_fragment_cache_requests_total", "result", "hit", getHitCount());
+		MetricsTextFormat.writeValue(out, "storefront_product_fragment_cache_requests_total", "result", "miss", getMissCount());
+	}
+
+	protected CMSSiteService getCmsSiteService()
+	{
+		return cmsSiteService;
+	}
+
+	@Required
+	public void setCmsSiteService(final CMSSiteService cmsSiteService)
+	{
+		this.cmsSiteService = cmsSiteService;
+	}
+
+	protected CMSPageContextService getCmsPageContextService()
+	{
+		return cmsPageContextService;
+	}
+
+	@Required
+	public void setCmsPageContextService(final CMSPageContextService cmsPageContextService)
+	{
+		this.cmsPageContextService = cmsPageContextService;
+	}
+
+	protected CatalogVersionService getCatalogVersionService()
+	{
+		return catalogVersionService;
+	}
+
+	@Required
+	public void setCatalogVersionService(final CatalogVersionService catalogVersionService)
+	{
+		this.catalogVersionService = catalogVersionService;
+	}
+
+	protected CommerceCommonI18NService getCommerceCommonI18NService()
+	{
+		return commerceCommonI18NService;
+	}
+
+	@Required
+	public void setCommerceCommonI18NService(final CommerceCommonI18NService commerceCommonI18NService)
+	{
+		this.commerceCommonI18NService = commerceCommonI18NService;
+	}
+
+	protected UiExperienceService getUiExperienceService()
+	{
+		return uiExperienceService;
+	}
+
+	@Required
+	public void setUiExperienceService(final UiExperienceService uiExperienceService)
+	{
+		this.uiExperienceService = uiExperienceService;
+	}
+
+	protected UserService getUserService()
+	{
+		return userService;
+	}
+
+	@Required
+	public void setUserService(final UserService userService)
+	{
+		this.userService = userService;
+	}
+
+	protected boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected int getMaxEntries()
+	{
+		return maxEntries;
+	}
+
+	public void setMaxEntries(final int maxEntries)
+	{
+		this.maxEntries = maxEntries;
+	}
+
+	protected int getMaxFragmentLength()
+	{
+		return maxFragmentLength;
+	}
+
+	/**
+	 * @param maxFragmentLength
+	 *           the maximum number of characters of a fragment to cache
+	 */
+	public void setMaxFragmentLength(final int maxFragmentLength)
+	{
+		this.maxFragmentLength = maxFragmentLength;
+	}
+
+	protected long getTimeToLive()
+	{
+		return timeToLive;
+	}
+
+	/**
+	 * @param timeToLive
+	 *           the time in milliseconds after which a fragment is rendered again, bounding the effect of changes that
+	 *           do not invalidate the cache, e.g. time restrictions of CMS components
+	 */
+	public void setTimeToLive(final long timeToLive)
+	{
+		this.timeToLive = timeToLive;
+	}
+
+	protected List<String> getInvalidatingTypes()
+	{
+		return invalidatingTypes;
+	}
+
+	/**
+	 * @param invalidatingTypes
+	 *           the composed and relation types whose items, including those of all subtypes, affect the cached
+	 *           fragments without changing the modification time of the product, which is part of the key
+	 */
+	public void setInvalidatingTypes(final List<String> invalidatingTypes)
+	{
+		this.invalidatingTypes = invalidatingTypes;
+		this.invalidatingTypeCodes = null;
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+
+	/**
+	 * A cached fragment.
+	 */
+	protected static class Fragment
+	{
+		private final String html;
+		private final long contentVersion;
+		private final long created;
+
+		public Fragment(final String html, final long contentVersion, final long created)
+		{
+			this.html = html;
+			this.contentVersion = contentVersion;
+			this.created = created;
+		}
+
+		public String getHtml()
+		{
+			return html;
+		}
+
+		public long getContentVersion()
+		{
+			return contentVersion;
+		}
+
+		public long getCreated()
+		{
+			return created;
+		}
+	}
+
+	/**
+	 * Clears the cache when an item of one of the invalidating types is invalidated, locally or on another cluster node.
+	 * Invalidated products are ignored, as their new modification time already changes the key of their fragments and
+	 * of the fragments of their variants.
+	 */
+	protected class ProductInvalidationListener implements InvalidationListener
+	{
+		@Override
+		public void keyInvalidated(final Object[] key, final int invalidationType, final InvalidationTarget target,
+				final RemoteInvalidationSource remoteSrc)
+		{
+			final Set<Integer> typeCodes = invalidatingTypeCodes;
+			if (typeCodes == null)
+			{
+				// nothing has been cached yet
+				return;
+			}
+			for (final Object keyElement : key)
+			{
+				if (keyElement instanceof PK && typeCodes.contains(Integer.valueOf(((PK) keyElement).getTypeCode())))
+				{
+					clear();
+					return;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+/**
+ * JMX management interface of {@link ProductFragmentCache}.
+ */
+public interface ProductFragmentCacheMBean
+{
+	int getSize();
+
+	long getContentVersion();
+
+	long getHitCount();
+
+	long getMissCount();
+
+	void clear();
+}
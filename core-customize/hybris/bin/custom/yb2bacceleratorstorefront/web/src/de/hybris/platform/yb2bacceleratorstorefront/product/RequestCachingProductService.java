@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.product.impl.DefaultProductService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+
+/**
+ * Product service remembering the products resolved by code for the duration of the current request, so the product
+ * page controller, the page title resolver and the product breadcrumb builder share one lookup. Outside of a request
+ * every call is delegated to the default implementation.
+ */
+public class RequestCachingProductService extends DefaultProductService
+{
+	protected static final String REQUEST_ATTRIBUTE = RequestCachingProductService.class.getName();
+
+	@Override
+	public ProductModel getProductForCode(final String code)
+	{
+		final Map<String, ProductModel> products = getRequestProducts();
+		if (products == null)
+		{
+			return loadProductForCode(code);
+		}
+
+		ProductModel product = products.get(code);
+		if (product == null)
+		{
+			product = loadProductForCode(code);
+			products.put(code, product);
+		}
+		return product;
+	}
+
+	protected ProductModel loadProductForCode(final String code)
+	{
+		return super.getProductForCode(code);
+	}
+
+	/**
+	 * @return the products resolved within the current request, or null if there is no current request
+	 */
+	protected Map<String, ProductModel> getRequestProducts()
+	{
+		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes == null)
+		{
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		Map<String, ProductModel> products = (Map<String, ProductModel>) requestAttributes.getAttribute(REQUEST_ATTRIBUTE,
+				RequestAttributes.SCOPE_REQUEST);
+		if (products == null)
+		{
+			products = new HashMap<>();
+			requestAttributes.setAttribute(REQUEST_ATTRIBUTE, products, RequestAttributes.SCOPE_REQUEST);
+		}
+		return products;
+	}
+}
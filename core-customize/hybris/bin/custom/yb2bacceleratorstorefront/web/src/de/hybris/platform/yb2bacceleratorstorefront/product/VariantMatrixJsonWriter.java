@@ -0,0 +1,657 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import de.hybris.platform.basecommerce.enums.StockLevelStatus;
+import de.hybris.platform.commercefacades.product.PriceDataFactory;
+import de.hybris.platform.commercefacades.product.data.ImageData;
+import de.hybris.platform.commercefacades.product.data.PriceData;
+import de.hybris.platform.commercefacades.product.data.PriceDataType;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.commercefacades.product.data.StockData;
+import de.hybris.platform.commercefacades.product.data.VariantMatrixElementData;
+import de.hybris.platform.commercefacades.product.data.VariantOptionData;
+import de.hybris.platform.commerceservices.price.CommercePriceService;
+import de.hybris.platform.commerceservices.product.ImageFormatMapping;
+import de.hybris.platform.commerceservices.stock.CommerceStockService;
+import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
+import de.hybris.platform.commerceservices.url.UrlResolver;
+import de.hybris.platform.core.model.media.MediaContainerModel;
+import de.hybris.platform.core.model.media.MediaFormatModel;
+import de.hybris.platform.core.model.media.MediaModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.jalo.order.price.PriceInformation;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.servicelayer.dto.converter.Converter;
+import de.hybris.platform.servicelayer.exceptions.ModelNotFoundException;
+import de.hybris.platform.servicelayer.exceptions.UnknownIdentifierException;
+import de.hybris.platform.servicelayer.media.MediaContainerService;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.stock.strategy.StockLevelStatusStrategy;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.store.services.BaseStoreService;
+import de.hybris.platform.variants.model.VariantProductModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.springframework.beans.factory.annotation.Required;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+
+/**
+ * Writes one page of the variant matrix of a multi-dimensional product as JSON, so the order form can load large
+ * matrices progressively instead of rendering every SKU in one JSP.
+ * <p>
+ * A page holds the elements of the first dimension, e.g. the colors of an apparel product, with all their SKUs. The
+ * product is only converted with the variant matrix base option. The URLs and images of the variants of a page and the
+ * prices and stock of its SKUs are looked up together before the elements are written, the stock levels of all SKUs
+ * with a single query, so the response is only committed once all lookups succeeded. Every element is then flushed
+ * to the response as soon as it is written.
+ */
+public class VariantMatrixJsonWriter
+{
+	protected static final String STOCK_LEVELS_QUERY = "SELECT {" + StockLevelModel.PK + "} FROM {" + StockLevelModel._TYPECODE
+			+ "} WHERE {" + StockLevelModel.PRODUCTCODE + "} IN (?productCodes) AND {" + StockLevelModel.WAREHOUSE
+			+ "} IN (?warehouses)";
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	private CommercePriceService commercePriceService;
+	private PriceDataFactory priceDataFactory;
+	private CommerceStockService commerceStockService;
+	private CommerceAvailabilityCalculationStrategy commerceStockLevelCalculationStrategy;
+	private StockLevelStatusStrategy stockLevelStatusStrategy;
+	private BaseStoreService baseStoreService;
+	private FlexibleSearchService flexibleSearchService;
+	private UrlResolver<ProductModel> productModelUrlResolver;
+	private ImageFormatMapping imageFormatMapping;
+	private MediaService mediaService;
+	private MediaContainerService mediaContainerService;
+	private Converter<MediaModel, ImageData> imageConverter;
+	private List<String> imageFormats = Arrays.asList("styleSwatch", "thumbnail", "cartIcon");
+	private int defaultPageSize = 10;
+	private int maxPageSize = 50;
+
+	/**
+	 * Writes the requested page of the variant matrix of the product.
+	 *
+	 * @param productModel
+	 *           the base product or one of its variants
+	 * @param productData
+	 *           the product converted with at least the variant matrix base option
+	 * @param page
+	 *           the zero based index of the page of first dimension elements
+	 * @param pageSize
+	 *           the number of first dimension elements per page, the default page size if not positive
+	 * @param out
+	 *           the stream the UTF-8 encoded JSON is written to
+	 */
+	public void write(final ProductModel productModel, final ProductData productData, final int page, final int pageSize,
+			final OutputStream out) throws IOException
+	{
+		final List<VariantMatrixElementData> matrix = productData.getVariantMatrix() == null ? Collections.emptyList()
+				: productData.getVariantMatrix();
+		final int size = getPageSize(pageSize);
+		final int currentPage = Math.max(page, 0);
+		final int from = (int) Math.min((long) currentPage * size, matrix.size());
+		final List<VariantMatrixElementData> elements = matrix.subList(from, Math.min(from + size, matrix.size()));
+
+		// look everything up before the first byte is written, so a failing lookup can still be answered with an error
+		final Set<String> variantCodes = new LinkedHashSet<>();
+		final Set<String> skus = new LinkedHashSet<>();
+		collectVariantCodes(elements, variantCodes, skus);
+		final Map<String, ProductModel> variants = getVariants(productModel);
+		final VariantMatrixPage matrixPage = new VariantMatrixPage(lookupUrls(variantCodes, variants),
+				lookupImages(variantCodes, variants), lookupPrices(skus, variants), lookupStock(skus));
+
+		try (final JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8))
+		{
+			generator.writeStartObject();
+			generator.writeStringField("code", productData.getCode());
+			generator.writeStringField("name", productData.getName());
+			generator.writeNumberField("currentPage", currentPage);
+			generator.writeNumberField("pageSize", size);
+			generator.writeNumberField("totalResults", matrix.size());
+			generator.writeNumberField("numberOfPages", (matrix.size() + size - 1) / size);
+
+			generator.writeArrayFieldStart("elements");
+			for (final VariantMatrixElementData element : elements)
+			{
+				writeElement(generator, element, matrixPage);
+				generator.flush();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+	}
+
+	protected int getPageSize(final int pageSize)
+	{
+		return Math.max(pageSize > 0 ? Math.min(pageSize, getMaxPageSize()) : getDefaultPageSize(), 1);
+	}
+
+	/**
+	 * Collects the codes of the variants of all elements and of the SKUs, i.e. the variants of the leaf elements.
+	 */
+	protected void collectVariantCodes(final Collection<VariantMatrixElementData> elements, final Set<String> variantCodes,
+			final Set<String> skus)
+	{
+		for (final VariantMatrixElementData element : elements)
+		{
+			final boolean leaf = CollectionUtils.isEmpty(element.getElements());
+			if (element.getVariantOption() != null)
+			{
+				variantCodes.add(element.getVariantOption().getCode());
+				if (leaf)
+				{
+					skus.add(element.getVariantOption().getCode());
+				}
+			}
+			if (!leaf)
+			{
+				collectVariantCodes(element.getElements(), variantCodes, skus);
+			}
+		}
+	}
+
+	/**
+	 * @return the variants of the base product of the given product and of their variants by code
+	 */
+	protected Map<String, ProductModel> getVariants(final ProductModel productModel)
+	{
+		ProductModel baseProduct = productModel;
+		while (baseProduct instanceof VariantProductModel && ((VariantProductModel) baseProduct).getBaseProduct() != null)
+		{
+			baseProduct = ((VariantProductModel) baseProduct).getBaseProduct();
+		}
+
+		final Map<String, ProductModel> variants = new HashMap<>();
+		addVariants(baseProduct, variants);
+		return variants;
+	}
+
+	protected void addVariants(final ProductModel productModel, final Map<String, ProductModel> variants)
+	{
+		if (CollectionUtils.isNotEmpty(productModel.getVariants()))
+		{
+			for (final VariantProductModel variant : productModel.getVariants())
+			{
+				variants.put(variant.getCode(), variant);
+				addVariants(variant, variants);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the URLs of the variants of the written page.
+	 */
+	protected Map<String, String> lookupUrls(final Collection<String> variantCodes, final Map<String, ProductModel> variants)
+	{
+		final Map<String, String> urls = new HashMap<>();
+		for (final String variantCode : variantCodes)
+		{
+			final ProductModel variant = variants.get(variantCode);
+			if (variant != null)
+			{
+				urls.put(variantCode, getProductModelUrlResolver().resolve(variant));
+			}
+		}
+		return urls;
+	}
+
+	/**
+	 * Converts the medias of the image formats of the first gallery image container of the variants of the written page.
+	 */
+	protected Map<String, List<ImageData>> lookupImages(final Collection<String> variantCodes,
+			final Map<String, ProductModel> variants)
+	{
+		final Map<String, List<ImageData>> images = new HashMap<>();
+		Map<String, MediaFormatModel> mediaFormats = null;
+		for (final String variantCode : variantCodes)
+		{
+			final ProductModel variant = variants.get(variantCode);
+			if (variant != null && CollectionUtils.isNotEmpty(variant.getGalleryImages()))
+			{
+				if (mediaFormats == null)
+				{
+					mediaFormats = getMediaFormats();
+				}
+				final MediaContainerModel mediaContainer = variant.getGalleryImages().get(0);
+				final List<ImageData> variantImages = new ArrayList<>();
+				for (final Map.Entry<String, MediaFormatModel> mediaFormat : mediaFormats.entrySet())
+				{
+					try
+					{
+						final ImageData image = getImageConverter()
+								.convert(getMediaContainerService().getMediaForFormat(mediaContainer, mediaFormat.getValue()));
+						image.setFormat(mediaFormat.getKey());
+						variantImages.add(image);
+					}
+					catch (final ModelNotFoundException ignore)
+					{
+						// the container has no media of the format
+					}
+				}
+				images.put(variantCode, variantImages);
+			}
+		}
+		return images;
+	}
+
+	/**
+	 * @return the media formats of the image formats that have one, by image format
+	 */
+	protected Map<String, MediaFormatModel> getMediaFormats()
+	{
+		final Map<String, MediaFormatModel> mediaFormats = new LinkedHashMap<>();
+		for (final String imageFormat : getImageFormats())
+		{
+			final String mediaFormatQualifier = getImageFormatMapping().getMediaFormatQualifierForImageFormat(imageFormat);
+			if (mediaFormatQualifier != null)
+			{
+				try
+				{
+					mediaFormats.put(imageFormat, getMediaService().getFormat(mediaFormatQualifier));
+				}
+				catch (final ModelNotFoundException | UnknownIdentifierException ignore)
+				{
+					// no media format for the image format
+				}
+			}
+		}
+		return mediaFormats;
+	}
+
+	/**
+	 * Looks up the web prices of the SKUs. The price service has no lookup for several products, so the prices are
+	 * resolved one SKU after the other, but only for the SKUs of the written page.
+	 */
+	protected Map<String, PriceData> lookupPrices(final Collection<String> skus, final Map<String, ProductModel> variants)
+	{
+		final Map<String, PriceData> prices = new HashMap<>();
+		for (final String sku : skus)
+		{
+			final ProductModel variant = variants.get(sku);
+			final PriceInformation priceInformation = variant == null ? null
+					: getCommercePriceService().getWebPriceForProduct(variant);
+			if (priceInformation != null)
+			{
+				prices.put(sku, getPriceDataFactory().create(PriceDataType.BUY,
+						BigDecimal.valueOf(priceInformation.getPriceValue().getValue()),
+						priceInformation.getPriceValue().getCurrencyIso()));
+			}
+		}
+		return prices;
+	}
+
+	/**
+	 * Looks up the stock levels of the SKUs in the warehouses of the current base store with a single query and
+	 * calculates the availability of every SKU like the commerce stock service does.
+	 */
+	protected Map<String, StockData> lookupStock(final Collection<String> skus)
+	{
+		final BaseStoreModel baseStore = getBaseStoreService().getCurrentBaseStore();
+		if (baseStore == null || skus.isEmpty())
+		{
+			return Collections.emptyMap();
+		}
+
+		final Map<String, StockData> stocks = new HashMap<>();
+		if (!getCommerceStockService().isStockSystemEnabled(baseStore))
+		{
+			for (final String sku : skus)
+			{
+				stocks.put(sku, createStockData(StockLevelStatus.INSTOCK, Long.valueOf(0)));
+			}
+			return stocks;
+		}
+
+		final Map<String, List<StockLevelModel>> stockLevels = new HashMap<>();
+		if (CollectionUtils.isNotEmpty(baseStore.getWarehouses()))
+		{
+			final Map<String, Object> params = new HashMap<>();
+			params.put("productCodes", skus);
+			params.put("warehouses", baseStore.getWarehouses());
+			final List<StockLevelModel> result = getFlexibleSearchService()
+					.<StockLevelModel> search(new FlexibleSearchQuery(STOCK_LEVELS_QUERY, params)).getResult();
+			for (final StockLevelModel stockLevel : result)
+			{
+				stockLevels.computeIfAbsent(stockLevel.getProductCode(), code -> new ArrayList<>()).add(stockLevel);
+			}
+		}
+
+		for (final String sku : skus)
+		{
+			final List<StockLevelModel> levels = stockLevels.getOrDefault(sku, Collections.emptyList());
+			stocks.put(sku, createStockData(getStockLevelStatusStrategy().checkStatus(levels),
+					getCommerceStockLevelCalculationStrategy().calculateAvailability(levels)));
+		}
+		return stocks;
+	}
+
+	protected StockData createStockData(final StockLevelStatus status, final Long stockLevel)
+	{
+		final StockData stockData = new StockData();
+		stockData.setStockLevelStatus(status);
+		stockData.setStockLevel(stockLevel);
+		return stockData;
+	}
+
+	protected void writeElement(final JsonGenerator generator, final VariantMatrixElementData element,
+			final VariantMatrixPage matrixPage) throws IOException
+	{
+		generator.writeStartObject();
+		if (element.getParentVariantCategory() != null)
+		{
+			generator.writeStringField("dimension", element.getParentVariantCategory().getName());
+		}
+		if (element.getVariantValueCategory() != null)
+		{
+			generator.writeStringField("name", element.getVariantValueCategory().getName());
+		}
+
+		final VariantOptionData variantOption = element.getVariantOption();
+		if (variantOption != null)
+		{
+			generator.writeStringField("sku", variantOption.getCode());
+			generator.writeStringField("url", matrixPage.getUrls().get(variantOption.getCode()));
+			writeImages(generator, matrixPage.getImages().get(variantOption.getCode()));
+		}
+
+		if (CollectionUtils.isEmpty(element.getElements()))
+		{
+			if (variantOption != null)
+			{
+				writePrice(generator, matrixPage.getPrices().get(variantOption.getCode()));
+				writeStock(generator, matrixPage.getStocks().get(variantOption.getCode()));
+			}
+		}
+		else
+		{
+			generator.writeArrayFieldStart("elements");
+			for (final VariantMatrixElementData child : element.getElements())
+			{
+				writeElement(generator, child, matrixPage);
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+	}
+
+	protected void writeImages(final JsonGenerator generator, final Collection<ImageData> images) throws IOException
+	{
+		if (CollectionUtils.isEmpty(images))
+		{
+			return;
+		}
+
+		generator.writeArrayFieldStart("images");
+		for (final ImageData image : images)
+		{
+			generator.writeStartObject();
+			generator.writeStringField("format", image.getFormat());
+			generator.writeStringField("url", image.getUrl());
+			generator.writeStringField("altText", image.getAltText());
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+	}
+
+	protected void writePrice(final JsonGenerator generator, final PriceData price) throws IOException
+	{
+		if (price != null)
+		{
+			generator.writeObjectFieldStart("price");
+			generator.writeStringField("currencyIso", price.getCurrencyIso());
+			if (price.getValue() != null)
+			{
+				generator.writeNumberField("value", price.getValue());
+			}
+			generator.writeStringField("formattedValue", price.getFormattedValue());
+			generator.writeEndObject();
+		}
+	}
+
+	protected void writeStock(final JsonGenerator generator, final StockData stock) throws IOException
+	{
+		if (stock != null)
+		{
+			generator.writeObjectFieldStart("stock");
+			if (stock.getStockLevel() != null)
+			{
+				generator.writeNumberField("stockLevel", stock.getStockLevel().longValue());
+			}
+			if (stock.getStockLevelStatus() != null)
+			{
+				generator.writeStringField("stockLevelStatus", stock.getStockLevelStatus().getCode());
+			}
+			generator.writeEndObject();
+		}
+	}
+
+	protected CommercePriceService getCommercePriceService()
+	{
+		return commercePriceService;
+	}
+
+	@Required
+	public void setCommercePriceService(final CommercePriceService commercePriceService)
+	{
+		this.commercePriceService = commercePriceService;
+	}
+
+	protected PriceDataFactory getPriceDataFactory()
+	{
+		return priceDataFactory;
+	}
+
+	@Required
+	public void setPriceDataFactory(final PriceDataFactory priceDataFactory)
+	{
+		this.priceDataFactory = priceDataFactory;
+	}
+
+	protected CommerceStockService getCommerceStockService()
+	{
+		return commerceStockService;
+	}
+
+	@Required
+	public void setCommerceStockService(final CommerceStockService commerceStockService)
+	{
+		this.commerceStockService = commerceStockService;
+	}
+
+	protected CommerceAvailabilityCalculationStrategy getCommerceStockLevelCalculationStrategy()
+	{
+		return commerceStockLevelCalculationStrategy;
+	}
+
+	@Required
+	public void setCommerceStockLevelCalculationStrategy(
+			final CommerceAvailabilityCalculationStrategy commerceStockLevelCalculationStrategy)
+	{
+		this.commerceStockLevelCalculationStrategy = commerceStockLevelCalculationStrategy;
+	}
+
+	protected StockLevelStatusStrategy getStockLevelStatusStrategy()
+	{
+		return stockLevelStatusStrategy;
+	}
+
+	@Required
+	public void setStockLevelStatusStrategy(final StockLevelStatusStrategy stockLevelStatusStrategy)
+	{
+		this.stockLevelStatusStrategy = stockLevelStatusStrategy;
+	}
+
+	protected BaseStoreService getBaseStoreService()
+	{
+		return baseStoreService;
+	}
+
+	@Required
+	public void setBaseStoreService(final BaseStoreService baseStoreService)
+	{
+		this.baseStoreService = baseStoreService;
+	}
+
+	protected FlexibleSearchService getFlexibleSearchService()
+	{
+		return flexibleSearchService;
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
+
+	protected UrlResolver<ProductModel> getProductModelUrlResolver()
+	{
+		return productModelUrlResolver;
+	}
+
+	@Required
+	public void setProductModelUrlResolver(final UrlResolver<ProductModel> productModelUrlResolver)
+	{
+		this.productModelUrlResolver = productModelUrlResolver;
+	}
+
+	protected ImageFormatMapping getImageFormatMapping()
+	{
+		return imageFormatMapping;
+	}
+
+	@Required
+	public void setImageFormatMapping(final ImageFormatMapping imageFormatMapping)
+	{
+		this.imageFormatMapping = imageFormatMapping;
+	}
+
+	protected MediaService getMediaService()
+	{
+		return mediaService;
+	}
+
+	@Required
+	public void setMediaService(final MediaService mediaService)
+	{
+		this.mediaService = mediaService;
+	}
+
+	protected MediaContainerService getMediaContainerService()
+	{
+		return mediaContainerService;
+	}
+
+	@Required
+	public void setMediaContainerService(final MediaContainerService mediaContainerService)
+	{
+		this.mediaContainerService = mediaContainerService;
+	}
+
+	protected Converter<MediaModel, ImageData> getImageConverter()
+	{
+		return imageConverter;
+	}
+
+	@Required
+	public void setImageConverter(final Converter<MediaModel, ImageData> imageConverter)
+	{
+		this.imageConverter = imageConverter;
+	}
+
+	protected List<String> getImageFormats()
+	{
+		return imageFormats;
+	}
+
+	/**
+	 * @param imageFormats
+	 *           the image formats written for every variant, e.g. <code>styleSwatch</code>
+	 */
+	public void setImageFormats(final List<String> imageFormats)
+	{
+		this.imageFormats = imageFormats;
+	}
+
+	protected int getDefaultPageSize()
+	{
+		return defaultPageSize;
+	}
+
+	public void setDefaultPageSize(final int defaultPageSize)
+	{
+		this.defaultPageSize = defaultPageSize;
+	}
+
+	protected int getMaxPageSize()
+	{
+		return maxPageSize;
+	}
+
+	public void setMaxPageSize(final int maxPageSize)
+	{
+		this.maxPageSize = maxPageSize;
+	}
+
+	/**
+	 * The URLs and images of the variants and the prices and stock of the SKUs of the written page, by code.
+	 */
+	protected static class VariantMatrixPage
+	{
+		private final Map<String, String> urls;
+		private final Map<String, List<ImageData>> images;
+		private final Map<String, PriceData> prices;
+		private final Map<String, StockData> stocks;
+
+		public VariantMatrixPage(final Map<String, String> urls, final Map<String, List<ImageData>> images,
+				final Map<String, PriceData> prices, final Map<String, StockData> stocks)
+		{
+			this.urls = urls;
+			this.images = images;
+			this.prices = prices;
+			this.stocks = stocks;
+		}
+
+		public Map<String, String> getUrls()
+		{
+			return urls;
+		}
+
+		public Map<String, List<ImageData>> getImages()
+		{
+			return images;
+		}
+
+		public Map<String, PriceData> getPrices()
+		{
+			return prices;
+		}
+
+		public Map<String, StockData> getStocks()
+		{
+			return stocks;
+		}
+	}
+}
@@ -3,13 +3,21 @@
  */
 package de.hybris.platform.yb2bacceleratorstorefront.security;
 
+import de.hybris.platform.core.Registry;
 import de.hybris.platform.util.Config;
+import de.hybris.platform.util.config.ConfigIntf;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -23,6 +31,10 @@ import org.springframework.util.StringUtils;
  * This matcher returns true for POST method and the request's servlet path does not match with the combined list of
  * csrf.allowed.url.patterns from properties file and csrfAllowedUrlPatterns from spring configuration. Otherwise, it
  * will return false.
+ * <p>
+ * The combined patterns are compiled once into a single alternation and only rebuilt when the
+ * csrf.allowed.url.patterns property changes, so matching a request does not compile any regular expression. Patterns
+ * are combined as non-capturing groups, therefore they must not rely on numbered back references.
  */
 public class CsrfProtectionMatcher implements RequestMatcher
 {
@@ -37,30 +49,38 @@ public class CsrfProtectionMatcher implements RequestMatcher
 	// Set of request method that should be CSRF token validated
 	private final HashSet<String> csrfProtectedMethodSet = new HashSet<String>(Arrays.asList("POST"));
 
+	// Listener - recompiles the exclude pattern when csrf.allowed.url.patterns is changed
+	private final ConfigIntf.ConfigChangeListener cfgChangeListener = new ConfigChangeListener();
+
+	// Combined exclude pattern, lazily compiled; null means it has to be (re)built
+	private volatile Pattern excludeUrlPattern;
+
+	@PostConstruct
+	public void init()
+	{
+		Registry.getMasterTenant().getConfig().registerConfigChangeListener(cfgChangeListener);
+	}
+
+	@PreDestroy
+	public void destroy()
+	{
+		Registry.getMasterTenant().getConfig().unregisterConfigChangeListener(cfgChangeListener);
+	}
+
 	@Override
 	public boolean matches(final HttpServletRequest request)
 	{
 		if (csrfProtectedMethodSet.contains(request.getMethod()))
 		{
-			final String protectionExcludeUrls = Config.getParameter(CSRF_PROTECTION_EXCLUDE_URLS);
-			final Set<String> protectionExcludeUrlSet = StringUtils.commaDelimitedListToSet(protectionExcludeUrls);
-			if (CollectionUtils.isNotEmpty(csrfAllowedUrlPatterns))
-			{
-				// URL patterns from properties files and from spring configuration list will be combined into one set
-				protectionExcludeUrlSet.addAll(csrfAllowedUrlPatterns);
-			}
-
-			for (final String pattern : protectionExcludeUrlSet)
+			final String servletPath = request.getServletPath();
+			if (servletPath != null && getExcludeUrlPattern().matcher(servletPath).matches())
 			{
-				if (request.getServletPath() != null && request.getServletPath().matches(pattern))
+				// Request URL pattern matches with excludeUrl set
+				if (LOG.isDebugEnabled())
 				{
-					// Request URL pattern matches with excludeUrl set
-					if (LOG.isDebugEnabled())
-					{
-						LOG.debug("CSRF protection is excluded for this URL {}", request.getServletPath());
-					}
-					return false;
+					LOG.debug("CSRF protection is excluded for this URL {}", servletPath);
 				}
+				return false;
 			}
 			// CSRF protection is required for specified protectionExcludeUrlSet
 			return true;
@@ -69,6 +89,64 @@ public class CsrfProtectionMatcher implements RequestMatcher
 		return false;
 	}
 
+	/**
+	 * Returns the compiled exclude pattern, building it from the current configuration if required.
+	 */
+	protected Pattern getExcludeUrlPattern()
+	{
+		Pattern pattern = excludeUrlPattern;
+		if (pattern == null)
+		{
+			pattern = buildExcludeUrlPattern();
+			excludeUrlPattern = pattern;
+		}
+		return pattern;
+	}
+
+	/**
+	 * Combines the URL patterns from the properties file and from the spring configuration into one pattern that
+	 * matches if any of the single patterns matches the whole servlet path.
+	 */
+	protected Pattern buildExcludeUrlPattern()
+	{
+		final Set<String> protectionExcludeUrlSet = new LinkedHashSet<>(
+				StringUtils.commaDelimitedListToSet(Config.getParameter(CSRF_PROTECTION_EXCLUDE_URLS)));
+		if (CollectionUtils.isNotEmpty(csrfAllowedUrlPatterns))
+		{
+			// URL patterns from properties files and from spring configuration list will be combined into one set
+			protectionExcludeUrlSet.addAll(csrfAllowedUrlPatterns);
+		}
+
+		final StringJoiner alternation = new StringJoiner("|");
+		for (final String excludeUrl : protectionExcludeUrlSet)
+		{
+			try
+			{
+				Pattern.compile(excludeUrl);
+				alternation.add("(?:" + excludeUrl + ")");
+			}
+			catch (final PatternSyntaxException e)
+			{
+				LOG.warn("Ignoring CSRF allowed url pattern [{}] as it is not a valid regular expression", excludeUrl);
+			}
+		}
+
+		// An empty alternation would match the empty path, so use a pattern that never matches instead
+		return alternation.length() == 0 ? Pattern.compile("(?!)") : Pattern.compile(alternation.toString());
+	}
+
+	protected class ConfigChangeListener implements ConfigIntf.ConfigChangeListener
+	{
+		@Override
+		public void configChanged(final String key, final String newValue)
+		{
+			if (CSRF_PROTECTION_EXCLUDE_URLS.equals(key))
+			{
+				excludeUrlPattern = buildExcludeUrlPattern();
+			}
+		}
+	}
+
 	/**
 	 * @return the csrfAllowedUrlPatterns
 	 */
@@ -84,5 +162,6 @@ public class CsrfProtectionMatcher implements RequestMatcher
 	public void setCsrfAllowedUrlPatterns(final List<String> csrfAllowedUrlPatterns)
 	{
 		this.csrfAllowedUrlPatterns = csrfAllowedUrlPatterns;
+		this.excludeUrlPattern = null;
 	}
 }
@@ -3,6 +3,8 @@
  */
 package de.hybris.platform.yb2bacceleratorstorefront.security;
 
+import de.hybris.platform.yb2bacceleratorstorefront.util.CompiledPathMatcher;
+
 import java.util.HashSet;
 import java.util.Set;
 
@@ -24,22 +26,27 @@ public class ExcludeUrlRequestMatcher implements RequestMatcher
 
 	private Set<String> excludeUrlSet;
 	private PathMatcher pathMatcher;
+	private volatile CompiledPathMatcher<String> excludeUrlMatcher;
 
 	@Override
 	public boolean matches(final HttpServletRequest request)
 	{
 		// Do not match patterns specified in the excludeUrlSet to the servletPath
-		for (final String excludeUrl : getExcludeUrlSet())
+		return !getExcludeUrlMatcher().matches(request.getServletPath());
+	}
+
+	/**
+	 * Returns the exclude url patterns compiled into a matcher, building it on first use.
+	 */
+	protected CompiledPathMatcher<String> getExcludeUrlMatcher()
+	{
+		CompiledPathMatcher<String> matcher = excludeUrlMatcher;
+		if (matcher == null)
 		{
-			if (getPathMatcher().match(excludeUrl, request.getServletPath()))
-			{
-				// Found an exclude pattern
-				return false;
-			}
+			matcher = CompiledPathMatcher.forPatterns(getExcludeUrlSet(), getPathMatcher());
+			excludeUrlMatcher = matcher;
 		}
-
-		// Not found an exclude URL that matched therefore ok to proceed
-		return true;
+		return matcher;
 	}
 
 	protected Set<String> getExcludeUrlSet()
@@ -66,6 +73,7 @@ public class ExcludeUrlRequestMatcher implements RequestMatcher
 		}
 
 		this.excludeUrlSet = validUrls;
+		this.excludeUrlMatcher = null;
 	}
 
 	protected PathMatcher getPathMatcher()
@@ -77,5 +85,6 @@ public class ExcludeUrlRequestMatcher implements RequestMatcher
 	public void setPathMatcher(final PathMatcher pathMatcher)
 	{
 		this.pathMatcher = pathMatcher;
+		this.excludeUrlMatcher = null;
 	}
 }
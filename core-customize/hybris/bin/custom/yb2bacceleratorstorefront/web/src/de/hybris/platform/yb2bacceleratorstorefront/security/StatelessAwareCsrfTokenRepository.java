@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.security;
+
+import de.hybris.platform.yb2bacceleratorstorefront.filters.StatelessRequestFilter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.CsrfTokenRepository;
+
+
+/**
+ * CSRF token repository keeping the token in the HTTP session, except for requests handled by the stateless filter
+ * chain, which must not create a session. Their token is kept in a cookie instead.
+ * <p>
+ * A form rendered by a stateless page is posted with that cookie by a request that is not stateless, so if its session
+ * has no token yet, the token of the cookie is moved into the session.
+ */
+public class StatelessAwareCsrfTokenRepository implements CsrfTokenRepository
+{
+	private CsrfTokenRepository sessionTokenRepository;
+	private CsrfTokenRepository statelessTokenRepository;
+
+	@Override
+	public CsrfToken generateToken(final HttpServletRequest request)
+	{
+		return getSessionTokenRepository().generateToken(request);
+	}
+
+	@Override
+	public void saveToken(final CsrfToken token, final HttpServletRequest request, final HttpServletResponse response)
+	{
+		if (StatelessRequestFilter.isStateless(request))
+		{
+			getStatelessTokenRepository().saveToken(token, request, response);
+		}
+		else
+		{
+			getSessionTokenRepository().saveToken(token, request, response);
+		}
+	}
+
+	@Override
+	public CsrfToken loadToken(final HttpServletRequest request)
+	{
+		if (StatelessRequestFilter.isStateless(request))
+		{
+			return getStatelessTokenRepository().loadToken(request);
+		}
+
+		final CsrfToken token = getSessionTokenRepository().loadToken(request);
+		if (token != null)
+		{
+			return token;
+		}
+		final CsrfToken statelessToken = getStatelessTokenRepository().loadToken(request);
+		if (statelessToken != null)
+		{
+			getSessionTokenRepository().saveToken(statelessToken, request, null);
+		}
+		return statelessToken;
+	}
+
+	protected CsrfTokenRepository getSessionTokenRepository()
+	{
+		return sessionTokenRepository;
+	}
+
+	@Required
+	public void setSessionTokenRepository(final CsrfTokenRepository sessionTokenRepository)
+	{
+		this.sessionTokenRepository = sessionTokenRepository;
+	}
+
+	protected CsrfTokenRepository getStatelessTokenRepository()
+	{
+		return statelessTokenRepository;
+	}
+
+	@Required
+	public void setStatelessTokenRepository(final CsrfTokenRepository statelessTokenRepository)
+	{
+		this.statelessTokenRepository = statelessTokenRepository;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.tags;
+
+import de.hybris.platform.acceleratorservices.util.SpringHelper;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.yb2bacceleratorstorefront.product.ProductFragmentCache;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.PageContext;
+import javax.servlet.jsp.tagext.SimpleTagSupport;
+
+
+/**
+ * Tag that renders its body once and then writes the HTML cached by the {@link ProductFragmentCache} for all requests
+ * with the same key. The body must only contain content that is the same for all anonymous users of a product page, and
+ * must not set variables used outside of it, as it is not evaluated on a cache hit.
+ */
+public class FragmentCacheTag extends SimpleTagSupport
+{
+	protected static final String PRODUCT_FRAGMENT_CACHE_BEAN = "productFragmentCache";
+
+	private String name;
+	private ProductData product;
+
+	protected String getName()
+	{
+		return name;
+	}
+
+	public void setName(final String name)
+	{
+		this.name = name;
+	}
+
+	protected ProductData getProduct()
+	{
+		return product;
+	}
+
+	public void setProduct(final ProductData product)
+	{
+		this.product = product;
+	}
+
+	@Override
+	public void doTag() throws JspException, IOException
+	{
+		final PageContext pageContext = (PageContext) getJspContext();
+		final HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
+		final ProductFragmentCache fragmentCache = SpringHelper.getSpringBean(request, PRODUCT_FRAGMENT_CACHE_BEAN,
+				ProductFragmentCache.class, true);
+
+		final String key = fragmentCache.getKey(request, getName(), getProduct());
+		if (key == null)
+		{
+			getJspBody().invoke(null);
+			return;
+		}
+
+		String html = fragmentCache.get(key);
+		if (html == null)
+		{
+			final long version = fragmentCache.getContentVersion();
+			final StringWriter body = new StringWriter(4096);
+			getJspBody().invoke(body);
+			html = body.toString();
+			fragmentCache.put(key, html, version);
+		}
+		pageContext.getOut().write(html);
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+
+/**
+ * Matches a servlet path against a fixed set of Ant-style patterns without re-parsing them for every request.
+ * <p>
+ * The patterns are compiled once on construction: literal patterns (e.g. <code>/login/checkout</code>) and prefix
+ * patterns (e.g. <code>/import/csv/**</code>) are stored in a segment trie, all other patterns are kept in declaration
+ * order and delegated to the configured {@link PathMatcher}. Lookup results are cached per path in a bounded cache
+ * which is simply cleared when it runs full.
+ * <p>
+ * When several patterns match the same path the value of the pattern declared first wins, which mirrors a linear scan
+ * over the original pattern collection. Instances are immutable apart from the result cache and safe for concurrent
+ * use.
+ *
+ * @param <V>
+ *           the type of value associated with each pattern
+ */
+public class CompiledPathMatcher<V>
+{
+	public static final int DEFAULT_CACHE_SIZE = 2048;
+
+	private static final String PATH_SEPARATOR = "/";
+	private static final String PREFIX_WILDCARD = "/**";
+	private static final int NO_MATCH = Integer.MAX_VALUE;
+
+	private final PathMatcher pathMatcher;
+	private final List<V> values;
+	private final TrieNode absoluteRoot = new TrieNode();
+	private final List<String> genericPatterns = new ArrayList<>();
+	private final List<Integer> genericOrdinals = new ArrayList<>();
+	private final Map<String, Integer> resultCache = new ConcurrentHashMap<>();
+	private final int maxCacheSize;
+
+	public CompiledPathMatcher(final Map<String, V> patterns, final PathMatcher pathMatcher, final int maxCacheSize)
+	{
+		this.pathMatcher = pathMatcher;
+		this.maxCacheSize = maxCacheSize;
+		this.values = new ArrayList<>(patterns.size());
+
+		for (final Map.Entry<String, V> entry : patterns.entrySet())
+		{
+			final int ordinal = values.size();
+			values.add(entry.getValue());
+			compile(entry.getKey(), ordinal);
+		}
+	}
+
+	/**
+	 * Creates a matcher for a plain collection of patterns, each pattern being associated with itself.
+	 */
+	public static CompiledPathMatcher<String> forPatterns(final Collection<String> patterns, final PathMatcher pathMatcher)
+	{
+		final Map<String, String> patternMap = new LinkedHashMap<>();
+		if (patterns != null)
+		{
+			for (final String pattern : patterns)
+			{
+				patternMap.put(pattern, pattern);
+			}
+		}
+		return new CompiledPathMatcher<>(patternMap, pathMatcher, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a matcher for a pattern to value mapping, keeping the iteration order of the given map.
+	 */
+	public static <V> CompiledPathMatcher<V> forMapping(final Map<String, V> mapping, final PathMatcher pathMatcher)
+	{
+		return new CompiledPathMatcher<>(mapping == null ? Collections.<String, V> emptyMap() : mapping, pathMatcher,
+				DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param path
+	 *           the path to test, usually the servlet path
+	 * @return true if any of the patterns matches the given path
+	 */
+	public boolean matches(final String path)
+	{
+		return findOrdinal(path) != NO_MATCH;
+	}
+
+	/**
+	 * @param path
+	 *           the path to test, usually the servlet path
+	 * @return the value of the first pattern matching the path, or null if none matches
+	 */
+	public V lookup(final String path)
+	{
+		final int ordinal = findOrdinal(path);
+		return ordinal == NO_MATCH ? null : values.get(ordinal);
+	}
+
+	protected int findOrdinal(final String path)
+	{
+		if (path == null || values.isEmpty())
+		{
+			return NO_MATCH;
+		}
+
+		final Integer cached = resultCache.get(path);
+		if (cached != null)
+		{
+			return cached.intValue();
+		}
+
+		final int ordinal = computeOrdinal(path);
+		if (resultCache.size() >= maxCacheSize)
+		{
+			resultCache.clear();
+		}
+		resultCache.put(path, Integer.valueOf(ordinal));
+		return ordinal;
+	}
+
+	protected int computeOrdinal(final String path)
+	{
+		int best = path.startsWith(PATH_SEPARATOR) ? matchTrie(path) : NO_MATCH;
+
+		for (int i = 0; i < genericPatterns.size(); i++)
+		{
+			final int ordinal = genericOrdinals.get(i).intValue();
+			if (ordinal >= best)
+			{
+				break;
+			}
+			if (pathMatcher.match(genericPatterns.get(i), path))
+			{
+				best = ordinal;
+				break;
+			}
+		}
+		return best;
+	}
+
+	protected int matchTrie(final String path)
+	{
+		// Tokenize the same way AntPathMatcher does: empty segments are ignored
+		final String[] segments = StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+
+		TrieNode node = absoluteRoot;
+		int best = node.prefixOrdinal;
+		for (final String segment : segments)
+		{
+			node = node.children.get(segment);
+			if (node == null)
+			{
+				return best;
+			}
+			best = Math.min(best, node.prefixOrdinal);
+		}
+
+		final int exact = path.endsWith(PATH_SEPARATOR) ? node.exactSlashOrdinal : node.exactOrdinal;
+		return Math.min(best, exact);
+	}
+
+	protected void compile(final String pattern, final int ordinal)
+	{
+		if (pattern == null)
+		{
+			return;
+		}
+
+		if (pattern.startsWith(PATH_SEPARATOR))
+		{
+			if (pattern.endsWith(PREFIX_WILDCARD))
+			{
+				final String prefix = pattern.substring(0, pattern.length() - PREFIX_WILDCARD.length());
+				if (isLiteral(prefix))
+				{
+					final TrieNode node = insert(prefix);
+					node.prefixOrdinal = Math.min(node.prefixOrdinal, ordinal);
+					return;
+				}
+			}
+			else if (isLiteral(pattern))
+			{
+				final TrieNode node = insert(pattern);
+				if (pattern.endsWith(PATH_SEPARATOR))
+				{
+					node.exactSlashOrdinal = Math.min(node.exactSlashOrdinal, ordinal);
+				}
+				else
+				{
+					node.exactOrdinal = Math.min(node.exactOrdinal, ordinal);
+				}
+				return;
+			}
+		}
+
+		genericPatterns.add(pattern);
+		genericOrdinals.add(Integer.valueOf(ordinal));
+	}
+
+	protected TrieNode insert(final String literalPath)
+	{
+		TrieNode node = absoluteRoot;
+		for (final String segment : StringUtils.tokenizeToStringArray(literalPath, PATH_SEPARATOR, false, true))
+		{
+			node = node.children.computeIfAbsent(segment, key -> new TrieNode());
+		}
+		return node;
+	}
+
+	protected boolean isLiteral(final String pattern)
+	{
+		return pattern.indexOf('*') == -1 && pattern.indexOf('?') == -1 && pattern.indexOf('{') == -1;
+	}
+
+	private static class TrieNode
+	{
+		private final Map<String, TrieNode> children = new HashMap<>();
+		private int prefixOrdinal = NO_MATCH;
+		private int exactOrdinal = NO_MATCH;
+		private int exactSlashOrdinal = NO_MATCH;
+	}
+}
@@ -30,6 +30,14 @@ public class SiteThemeResolverUtils
 		return null;
 	}
 
+	/**
+	 * @return the theme name of the given site for the given ui experience level
+	 */
+	public String resolveThemeForSite(final UiExperienceLevel uiExperienceLevel, final CMSSiteModel site)
+	{
+		return combineSiteAndTheme(uiExperienceLevel.getCode(), site.getUid(), getThemeNameForSite(site));
+	}
+
 	protected String getThemeNameForSite(final CMSSiteModel site)
 	{
 		final SiteTheme theme = site.getTheme();
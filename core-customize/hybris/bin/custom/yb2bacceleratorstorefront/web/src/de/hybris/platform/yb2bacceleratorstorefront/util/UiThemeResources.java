@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.util;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The UI resource paths of one site, theme, UI experience and context path, including the CSS and JavaScript paths
+ * contributed by the addons. Immutable, cached and shared between requests by {@link UiThemeUtils}.
+ */
+public class UiThemeResources
+{
+	protected static final String UI_PATH = "/_ui/";
+
+	private final String contextPath;
+	private final String themeName;
+	private final String uiExperience;
+	private final String siteRootUrl;
+	private final String sharedResourcePath;
+	private final String siteResourcePath;
+	private final String themeResourcePath;
+	private final String commonResourcePath;
+	private final List<String> addOnCommonCssPaths;
+	private final List<String> addOnThemeCssPaths;
+	private final List<String> addOnJavaScriptPaths;
+
+	public UiThemeResources(final String contextPath, final String siteUid, final String themeName, final String uiExperience,
+			final List<String> addOnCommonCssPaths, final List<String> addOnThemeCssPaths, final List<String> addOnJavaScriptPaths)
+	{
+		this.contextPath = contextPath;
+		this.themeName = themeName;
+		this.uiExperience = uiExperience;
+		this.siteRootUrl = contextPath + UI_PATH + uiExperience;
+		this.sharedResourcePath = contextPath + UI_PATH + UiThemeUtils.SHARED;
+		this.siteResourcePath = siteRootUrl + "/site-" + siteUid;
+		this.themeResourcePath = siteRootUrl + "/theme-" + themeName;
+		this.commonResourcePath = siteRootUrl + "/" + UiThemeUtils.COMMON;
+		this.addOnCommonCssPaths = Collections.unmodifiableList(addOnCommonCssPaths);
+		this.addOnThemeCssPaths = Collections.unmodifiableList(addOnThemeCssPaths);
+		this.addOnJavaScriptPaths = Collections.unmodifiableList(addOnJavaScriptPaths);
+	}
+
+	public String getContextPath()
+	{
+		return contextPath;
+	}
+
+	public String getThemeName()
+	{
+		return themeName;
+	}
+
+	/**
+	 * @return the lower case UI experience used in resource paths
+	 */
+	public String getUiExperience()
+	{
+		return uiExperience;
+	}
+
+	public String getSiteRootUrl()
+	{
+		return siteRootUrl;
+	}
+
+	public String getSharedResourcePath()
+	{
+		return sharedResourcePath;
+	}
+
+	public String getSiteResourcePath()
+	{
+		return siteResourcePath;
+	}
+
+	public String getThemeResourcePath()
+	{
+		return themeResourcePath;
+	}
+
+	public String getCommonResourcePath()
+	{
+		return commonResourcePath;
+	}
+
+	public List<String> getAddOnCommonCssPaths()
+	{
+		return addOnCommonCssPaths;
+	}
+
+	public List<String> getAddOnThemeCssPaths()
+	{
+		return addOnThemeCssPaths;
+	}
+
+	public List<String> getAddOnJavaScriptPaths()
+	{
+		return addOnJavaScriptPaths;
+	}
+}
@@ -10,29 +10,60 @@ import de.hybris.platform.acceleratorstorefrontcommons.constants.WebConstants;
 import de.hybris.platform.cms2.model.site.CMSSiteModel;
 import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
 import de.hybris.platform.commerceservices.enums.SiteTheme;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.servicelayer.session.SessionExecutionBody;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.site.BaseSiteService;
+import de.hybris.platform.util.config.ConfigIntf;
+import de.hybris.platform.yb2bacceleratorstorefront.web.assets.AssetBundler;
 import de.hybris.platform.yb2bacceleratorstorefront.web.view.UiExperienceViewResolver;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.web.context.ServletContextAware;
 
 
 /**
  * Various utility methods for getting UI resource paths and theme information from the current site / experience.
+ * <p>
+ * The resource paths, including the addon CSS and JavaScript paths read from the site configuration, are cached as
+ * {@link UiThemeResources} per site, theme, UI experience and context path. The cache is cleared whenever an addon
+ * resource path property changes. If an {@link AssetBundler} is set, each addon path list is replaced by a single
+ * content hashed bundle. The bundles of all sites and UI experiences are built on startup, and any others when the
+ * resources are first requested.
  */
-public class UiThemeUtils
+public class UiThemeUtils implements ServletContextAware
 {
+	private static final Logger LOG = Logger.getLogger(UiThemeUtils.class);
+
 	protected static final String RESOURCE_TYPE_JAVASCRIPT = "javascript";
 	protected static final String RESOURCE_TYPE_CSS = "css";
 	protected static final String PATHS = ".paths.";
 	protected static final String SMARTEDITADDON = "smarteditaddon";
+	protected static final String COMMON = "common";
+	protected static final String SHARED = "shared";
+
+	private final ConcurrentMap<ResourcesKey, UiThemeResources> resourcesCache = new ConcurrentHashMap<>();
+	private final ConcurrentMap<UiExperienceLevel, String> uiExperienceNames = new ConcurrentHashMap<>();
+	private int maxCachedResources = 256;
+	private ConfigIntf.ConfigChangeListener cfgChangeListener;
 
 	private CMSSiteService cmsSiteService;
 	private RequiredAddOnsNameProvider requiredAddOnsNameProvider;
@@ -40,11 +71,140 @@ public class UiThemeUtils
 	private UiExperienceService uiExperienceService;
 	private UiExperienceViewResolver uiExperienceViewResolver;
 	private String defaultThemeName;
+	private AssetBundler assetBundler;
+	private SessionService sessionService;
+	private BaseSiteService baseSiteService;
+	private ServletContext servletContext;
+
+	@PostConstruct
+	public void init()
+	{
+		cfgChangeListener = new ConfigChangeListener();
+		Registry.getMasterTenant().getConfig().registerConfigChangeListener(cfgChangeListener);
+
+		if (getAssetBundler() != null && getAssetBundler().isEnabled() && servletContext != null)
+		{
+			prebuildBundles(servletContext.getContextPath(),
+					requiredAddOnsNameProvider.getAddOns(servletContext.getServletContextName()));
+		}
+	}
+
+	/**
+	 * Builds the resources of every site and UI experience for the context path, so the bundles are written before the
+	 * first page is requested. If they cannot be built, they are built on first request.
+	 */
+	protected void prebuildBundles(final String contextPath, final List<String> addOnNames)
+	{
+		final long start = System.currentTimeMillis();
+		final Collection<UiExperienceLevel> uiExperienceLevels = uiExperienceViewResolver.getUiExperienceViewPrefix().isEmpty()
+				? Arrays.asList(UiExperienceLevel.values()) : uiExperienceViewResolver.getUiExperienceViewPrefix().keySet();
+		try
+		{
+			for (final CMSSiteModel site : cmsSiteService.getSites())
+			{
+				// the addon resource paths may be configured per site
+				getSessionService().executeInLocalView(new SessionExecutionBody()
+				{
+					@Override
+					public void executeWithoutResult()
+					{
+						getBaseSiteService().setCurrentBaseSite(site, false);
+						for (final UiExperienceLevel uiExperienceLevel : uiExperienceLevels)
+						{
+							getUiThemeResources(site, uiExperienceLevel, contextPath, addOnNames);
+						}
+					}
+				});
+			}
+			LOG.info("Built the resource bundles of " + resourcesCache.size() + " site themes in "
+					+ (System.currentTimeMillis() - start) + "ms");
+		}
+		catch (final RuntimeException e)
+		{
+			LOG.warn("Unable to build the resource bundles on startup, building them on first request", e);
+		}
+	}
+
+	@PreDestroy
+	public void destroy()
+	{
+		if (cfgChangeListener != null)
+		{
+			Registry.getMasterTenant().getConfig().unregisterConfigChangeListener(cfgChangeListener);
+			cfgChangeListener = null;
+		}
+	}
+
+	/**
+	 * @return the cached resource paths of the current site, UI experience and request
+	 */
+	public UiThemeResources getUiThemeResources(final HttpServletRequest request)
+	{
+		return getUiThemeResources(cmsSiteService.getCurrentSite(), uiExperienceService.getUiExperienceLevel(),
+				getContextPathFromRequest(request),
+				requiredAddOnsNameProvider.getAddOns(request.getServletContext().getServletContextName()));
+	}
+
+	/**
+	 * @param site
+	 *           the current site
+	 * @param uiExperienceLevel
+	 *           the current UI experience level
+	 * @param contextPath
+	 *           the context path without url encoding attributes
+	 * @param addOnNames
+	 *           the addons the storefront depends on, the same for all requests of the web application
+	 * @return the cached resource paths
+	 */
+	public UiThemeResources getUiThemeResources(final CMSSiteModel site, final UiExperienceLevel uiExperienceLevel,
+			final String contextPath, final List<String> addOnNames)
+	{
+		final String themeName = getThemeName(site);
+		final String uiExperience = getUiExperience(uiExperienceLevel);
+		final ResourcesKey key = new ResourcesKey(site.getUid(), themeName, uiExperience, contextPath);
+		UiThemeResources resources = resourcesCache.get(key);
+		if (resources == null)
+		{
+			resources = createUiThemeResources(site.getUid(), themeName, uiExperience, contextPath, addOnNames);
+			if (resourcesCache.size() >= getMaxCachedResources())
+			{
+				resourcesCache.clear();
+			}
+			resourcesCache.put(key, resources);
+		}
+		return resources;
+	}
+
+	protected UiThemeResources createUiThemeResources(final String siteUid, final String themeName, final String uiExperience,
+			final String contextPath, final List<String> addOnNames)
+	{
+		final String[] themeCssPropertyNames = new String[]
+		{ RESOURCE_TYPE_CSS + PATHS + uiExperience + "." + themeName };
+		final String bundlePrefix = "addons-" + uiExperience;
+		return new UiThemeResources(contextPath, siteUid, themeName, uiExperience,
+				bundle(contextPath, bundlePrefix + "-common", AssetBundler.CSS,
+						getAddOnResourcePaths(contextPath, addOnNames, getPropertyNames(RESOURCE_TYPE_CSS, uiExperience))),
+				bundle(contextPath, bundlePrefix + "-" + themeName, AssetBundler.CSS,
+						getAddOnResourcePaths(contextPath, addOnNames, themeCssPropertyNames)),
+				bundle(contextPath, bundlePrefix, AssetBundler.JAVASCRIPT,
+						getAddOnResourcePaths(contextPath, addOnNames, getPropertyNames(RESOURCE_TYPE_JAVASCRIPT, uiExperience))));
+	}
+
+	protected List<String> bundle(final String contextPath, final String name, final String type,
+			final List<String> resourcePaths)
+	{
+		return getAssetBundler() == null ? resourcePaths
+				: getAssetBundler().bundle(contextPath, name, type, resourcePaths);
+	}
+
+	public void clearCache()
+	{
+		resourcesCache.clear();
+	}
 
 	public List getAddOnCommonCSSPaths(final HttpServletRequest request)
 	{
-		final List<String> addOnNames = requiredAddOnsNameProvider.getAddOns(request.getServletContext().getServletContextName());
-		return getAddOnResourcePaths(getContextPathFromRequest(request), addOnNames,  getCssPropertyNames());
+		return getUiThemeResources(request).getAddOnCommonCssPaths();
 	}
 
 	public List getSmartEditAddOnCSSPaths(final HttpServletRequest request)
@@ -59,11 +219,7 @@ public class UiThemeUtils
 
 	public List getAddOnThemeCSSPaths(final HttpServletRequest request)
 	{
-		final String[] propertyNames = new String[]
-		{ RESOURCE_TYPE_CSS + PATHS + getUiExperience() + "." + getThemeNameForCurrentSite() };
-
-		return getAddOnResourcePaths(getContextPathFromRequest(request),
-				requiredAddOnsNameProvider.getAddOns(request.getServletContext().getServletContextName()), propertyNames);
+		return getUiThemeResources(request).getAddOnThemeCssPaths();
 	}
 
 	public List getSmartEditAddOnJSPaths(final HttpServletRequest request)
@@ -78,13 +234,16 @@ public class UiThemeUtils
 
 	public List getAddOnJSPaths(final HttpServletRequest request)
 	{
-		return getAddOnResourcePaths(getContextPathFromRequest(request),
-				requiredAddOnsNameProvider.getAddOns(request.getServletContext().getServletContextName()), getJsPropertyNames());
+		return getUiThemeResources(request).getAddOnJavaScriptPaths();
 	}
 
 	public String getThemeNameForCurrentSite()
 	{
-		final CMSSiteModel site = cmsSiteService.getCurrentSite();
+		return getThemeName(cmsSiteService.getCurrentSite());
+	}
+
+	public String getThemeName(final CMSSiteModel site)
+	{
 		final SiteTheme theme = site.getTheme();
 		if (theme != null)
 		{
@@ -98,11 +257,25 @@ public class UiThemeUtils
 	}
 
 	public String getUiExperience()
+	{
+		return getUiExperience(uiExperienceService.getUiExperienceLevel());
+	}
+
+	/**
+	 * @return the UI experience used in resource paths for the level, computed once per level
+	 */
+	public String getUiExperience(final UiExperienceLevel uiExperienceLevel)
+	{
+		final String uiExperience = uiExperienceNames.get(uiExperienceLevel);
+		return uiExperience != null ? uiExperience : uiExperienceNames.computeIfAbsent(uiExperienceLevel,
+				this::resolveUiExperience);
+	}
+
+	protected String resolveUiExperience(final UiExperienceLevel uiExperienceLevel)
 	{
 		return uiExperienceViewResolver.getUiExperienceViewPrefix().isEmpty()
-				? uiExperienceService.getUiExperienceLevel().getCode().toLowerCase()
-				: StringUtils.remove(
-						uiExperienceViewResolver.getUiExperienceViewPrefix().get(uiExperienceService.getUiExperienceLevel()), "/");
+				? uiExperienceLevel.getCode().toLowerCase()
+				: StringUtils.remove(uiExperienceViewResolver.getUiExperienceViewPrefix().get(uiExperienceLevel), "/");
 	}
 
 	public String getContextPathFromRequest(final HttpServletRequest request)
@@ -141,18 +314,25 @@ public class UiThemeUtils
 
 	protected String[] getCssPropertyNames()
 	{
-		return new String[]
-				{ RESOURCE_TYPE_CSS + ".paths", //
-						RESOURCE_TYPE_CSS + PATHS + getUiExperience() //
-				};
+		return getPropertyNames(RESOURCE_TYPE_CSS, getUiExperience());
 	}
 
 	protected String[] getJsPropertyNames()
+	{
+		return getPropertyNames(RESOURCE_TYPE_JAVASCRIPT, getUiExperience());
+	}
+
+	protected String[] getPropertyNames(final String resourceType, final String uiExperience)
 	{
 		return new String[]
-			{ RESOURCE_TYPE_JAVASCRIPT + ".paths", //
-					RESOURCE_TYPE_JAVASCRIPT + PATHS + getUiExperience() //
-			};
+		{ resourceType + ".paths", //
+				resourceType + PATHS + uiExperience //
+		};
+	}
+
+	protected boolean isAddOnResourcePathProperty(final String key)
+	{
+		return key.contains("." + RESOURCE_TYPE_CSS + ".paths") || key.contains("." + RESOURCE_TYPE_JAVASCRIPT + ".paths");
 	}
 
 	protected Optional<String> getSmartEditAddOn(final HttpServletRequest request)
@@ -168,6 +348,56 @@ public class UiThemeUtils
 		return defaultThemeName;
 	}
 
+	protected AssetBundler getAssetBundler()
+	{
+		return assetBundler;
+	}
+
+	/**
+	 * @param assetBundler
+	 *           the bundler to combine the addon resources with, or null to serve them separately
+	 */
+	public void setAssetBundler(final AssetBundler assetBundler)
+	{
+		this.assetBundler = assetBundler;
+	}
+
+	protected SessionService getSessionService()
+	{
+		return sessionService;
+	}
+
+	public void setSessionService(final SessionService sessionService)
+	{
+		this.sessionService = sessionService;
+	}
+
+	protected BaseSiteService getBaseSiteService()
+	{
+		return baseSiteService;
+	}
+
+	public void setBaseSiteService(final BaseSiteService baseSiteService)
+	{
+		this.baseSiteService = baseSiteService;
+	}
+
+	@Override
+	public void setServletContext(final ServletContext servletContext)
+	{
+		this.servletContext = servletContext;
+	}
+
+	protected int getMaxCachedResources()
+	{
+		return maxCachedResources;
+	}
+
+	public void setMaxCachedResources(final int maxCachedResources)
+	{
+		this.maxCachedResources = maxCachedResources;
+	}
+
 	@Required
 	public void setDefaultThemeName(final String defaultThemeName)
 	{
@@ -228,4 +458,57 @@ public class UiThemeUtils
 	{
 		this.uiExperienceViewResolver = uiExperienceViewResolver;
 	}
+
+	/**
+	 * Clears the cached resource paths when an addon resource path property changes.
+	 */
+	protected class ConfigChangeListener implements ConfigIntf.ConfigChangeListener
+	{
+		@Override
+		public void configChanged(final String key, final String newValue)
+		{
+			if (key != null && isAddOnResourcePathProperty(key))
+			{
+				clearCache();
+			}
+		}
+	}
+
+	protected static class ResourcesKey
+	{
+		private final String siteUid;
+		private final String themeName;
+		private final String uiExperience;
+		private final String contextPath;
+
+		protected ResourcesKey(final String siteUid, final String themeName, final String uiExperience, final String contextPath)
+		{
+			this.siteUid = siteUid;
+			this.themeName = themeName;
+			this.uiExperience = uiExperience;
+			this.contextPath = contextPath;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof ResourcesKey))
+			{
+				return false;
+			}
+			final ResourcesKey other = (ResourcesKey) obj;
+			return Objects.equals(siteUid, other.siteUid) && Objects.equals(themeName, other.themeName)
+					&& Objects.equals(uiExperience, other.uiExperience) && Objects.equals(contextPath, other.contextPath);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(siteUid, themeName, uiExperience, contextPath);
+		}
+	}
 }
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.assets;
+
+import de.hybris.platform.yb2bacceleratorstorefront.filters.StaticResourcePrecompressor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+import org.springframework.web.context.ServletContextAware;
+
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.JawrCssMinifierProcessor;
+import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
+
+
+/**
+ * Concatenates and minifies lists of CSS or JavaScript resources of the web application into bundles named after a
+ * hash of their content, e.g. <code>/_ui/bundles/addons-common-0123456789abcdef.css</code>. The bundle file names
+ * match the fingerprint pattern of the
+ * {@link de.hybris.platform.yb2bacceleratorstorefront.filters.StaticResourceFilter}, so they are served with a far
+ * future Cache-Control header, whether or not its fast path is enabled, and with their gzip sibling if precompression
+ * and the fast path are enabled.
+ * <p>
+ * Relative URLs in style sheets are rewritten to absolute ones, as the bundle lives in a different directory. Lists
+ * that cannot be bundled, because a resource is missing, a style sheet uses <code>@import</code> or the web application
+ * is not deployed to a directory, are returned unchanged.
+ */
+public class AssetBundler implements ServletContextAware
+{
+	private static final Logger LOG = Logger.getLogger(AssetBundler.class);
+
+	public static final String CSS = "css";
+	public static final String JAVASCRIPT = "js";
+
+	private static final Pattern CSS_URL_PATTERN = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+)\\1\\s*\\)");
+	private static final Pattern CSS_IMPORT_PATTERN = Pattern.compile("@import\\s", Pattern.CASE_INSENSITIVE);
+	private static final int HASH_LENGTH = 16;
+
+	private ServletContext servletContext;
+	private boolean enabled;
+	private boolean minimize = true;
+	private boolean precompress;
+	private String bundleDirectory = "/_ui/bundles";
+
+	/**
+	 * @param contextPath
+	 *           the context path the resource paths start with
+	 * @param name
+	 *           the name of the bundle, prepended to the content hash
+	 * @param type
+	 *           {@link #CSS} or {@link #JAVASCRIPT}
+	 * @param resourcePaths
+	 *           the paths of the resources including the context path, in order
+	 * @return a list with the path of the bundle, or the resource paths if they are not bundled
+	 */
+	public List<String> bundle(final String contextPath, final String name, final String type, final List<String> resourcePaths)
+	{
+		if (!isEnabled() || resourcePaths.size() < 2)
+		{
+			return resourcePaths;
+		}
+
+		try
+		{
+			final String content = concatenate(contextPath, type, resourcePaths);
+			if (content == null)
+			{
+				return resourcePaths;
+			}
+			final byte[] bytes = minify(type, content).getBytes(StandardCharsets.UTF_8);
+			final String fileName = name + "-" + hash(bytes) + "." + type;
+			if (!writeBundle(fileName, bytes))
+			{
+				return resourcePaths;
+			}
+			return Collections.singletonList(contextPath + getBundleDirectory() + "/" + fileName);
+		}
+		catch (final IOException | RuntimeException e)
+		{
+			LOG.warn("Unable to bundle " + resourcePaths + ", serving them separately", e);
+			return resourcePaths;
+		}
+	}
+
+	/**
+	 * @return the concatenated resources, or null if they cannot be bundled
+	 */
+	protected String concatenate(final String contextPath, final String type, final List<String> resourcePaths)
+			throws IOException
+	{
+		final StringBuilder content = new StringBuilder(8192);
+		for (final String resourcePath : resourcePaths)
+		{
+			if (!resourcePath.startsWith(contextPath + "/"))
+			{
+				LOG.warn("Resource " + resourcePath + " is not part of the web application, not bundling it");
+				return null;
+			}
+			final String resource = readResource(resourcePath.substring(contextPath.length()));
+			if (resource == null)
+			{
+				LOG.warn("Resource " + resourcePath + " does not exist, not bundling it");
+				return null;
+			}
+
+			if (CSS.equals(type))
+			{
+				if (CSS_IMPORT_PATTERN.matcher(resource).find())
+				{
+					LOG.info("Style sheet " + resourcePath + " uses @import, not bundling it");
+					return null;
+				}
+				content.append(rewriteCssUrls(resourcePath, resource)).append('\n');
+			}
+			else
+			{
+				content.append(resource).append(";\n");
+			}
+		}
+		return content.toString();
+	}
+
+	protected String readResource(final String path) throws IOException
+	{
+		try (final InputStream in = getServletContext().getResourceAsStream(path))
+		{
+			return in == null ? null : IOUtils.toString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Resolves the relative URLs of the style sheet against its own path.
+	 */
+	protected String rewriteCssUrls(final String resourcePath, final String css)
+	{
+		final URI base = URI.create(resourcePath);
+		final Matcher matcher = CSS_URL_PATTERN.matcher(css);
+		final StringBuffer rewritten = new StringBuffer(css.length() + 256);
+		while (matcher.find())
+		{
+			final String url = matcher.group(2).trim();
+			String replacement = matcher.group();
+			if (isRelativeUrl(url))
+			{
+				try
+				{
+					replacement = "url(" + matcher.group(1) + base.resolve(url) + matcher.group(1) + ")";
+				}
+				catch (final IllegalArgumentException e)
+				{
+					LOG.debug("Keeping url " + url + " of " + resourcePath, e);
+				}
+			}
+			matcher.appendReplacement(rewritten, Matcher.quoteReplacement(replacement));
+		}
+		matcher.appendTail(rewritten);
+		return rewritten.toString();
+	}
+
+	protected boolean isRelativeUrl(final String url)
+	{
+		return !url.isEmpty() && url.charAt(0) != '/' && url.charAt(0) != '#' && !url.startsWith("data:")
+				&& !url.contains("://");
+	}
+
+	protected String minify(final String type, final String content) throws IOException
+	{
+		if (!isMinimize())
+		{
+			return content;
+		}
+		final ResourcePostProcessor processor = CSS.equals(type) ? new JawrCssMinifierProcessor() : new JSMinProcessor();
+		final StringWriter minified = new StringWriter(content.length());
+		processor.process(new StringReader(content), minified);
+		return minified.toString();
+	}
+
+	protected String hash(final byte[] content)
+	{
+		try
+		{
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+			final StringBuilder hex = new StringBuilder(HASH_LENGTH);
+			for (int i = 0; i < HASH_LENGTH / 2; i++)
+			{
+				hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+			}
+			return hex.toString();
+		}
+		catch (final NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	/**
+	 * Writes the bundle unless a bundle with the same name, and thus content, already exists.
+	 *
+	 * @return false if the web application is not deployed to a directory
+	 */
+	protected boolean writeBundle(final String fileName, final byte[] content) throws IOException
+	{
+		final String directory = getServletContext().getRealPath(getBundleDirectory());
+		if (directory == null)
+		{
+			LOG.warn("Web application is not deployed to a directory, not bundling resources");
+			return false;
+		}
+
+		final Path bundleDirectoryPath = Paths.get(directory);
+		final Path bundle = bundleDirectoryPath.resolve(fileName);
+		if (!Files.exists(bundle))
+		{
+			Files.createDirectories(bundleDirectoryPath);
+			// Write to a temporary file first, so the static resource filter never serves a partially written bundle
+			final Path temp = Files.createTempFile(bundleDirectoryPath, fileName, ".tmp");
+			try
+			{
+				Files.write(temp, content);
+				Files.move(temp, bundle, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally
+			{
+				Files.deleteIfExists(temp);
+			}
+			LOG.info("Wrote resource bundle " + bundle + " of " + content.length + " bytes");
+
+			if (isPrecompress())
+			{
+				new StaticResourcePrecompressor(bundleDirectoryPath, Arrays.asList(CSS, JAVASCRIPT), 0, 1).compress();
+			}
+		}
+		return true;
+	}
+
+	protected ServletContext getServletContext()
+	{
+		return servletContext;
+	}
+
+	@Override
+	public void setServletContext(final ServletContext servletContext)
+	{
+		this.servletContext = servletContext;
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected boolean isMinimize()
+	{
+		return minimize;
+	}
+
+	public void setMinimize(final boolean minimize)
+	{
+		this.minimize = minimize;
+	}
+
+	protected boolean isPrecompress()
+	{
+		return precompress;
+	}
+
+	/**
+	 * @param precompress
+	 *           whether to write gzip siblings of new bundles, for the precompressed resources of the static resource
+	 *           filter
+	 */
+	public void setPrecompress(final boolean precompress)
+	{
+		this.precompress = precompress;
+	}
+
+	protected String getBundleDirectory()
+	{
+		return bundleDirectory;
+	}
+
+	/**
+	 * @param bundleDirectory
+	 *           the directory within the web application to write the bundles to, below <code>/_ui</code>
+	 */
+	public void setBundleDirectory(final String bundleDirectory)
+	{
+		this.bundleDirectory = bundleDirectory;
+	}
+}
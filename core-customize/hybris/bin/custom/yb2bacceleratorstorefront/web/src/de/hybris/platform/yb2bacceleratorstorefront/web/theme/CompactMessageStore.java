@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsMBeanSupport;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsTextFormat;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.MetricsWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ObjectName;
+
+
+/**
+ * Store of the {@link CompactMessageTable}s shared by the {@link FrozenMessageSource}s of all themes. Codes and messages
+ * are deduplicated across all tables and locales, and tables with identical content, e.g. of ui experience levels
+ * without own message files, are stored only once.
+ * <p>
+ * The heap saved is estimated as the size of the properties of all message source layers the tables were built from,
+ * which the {@link FrozenMessageSource}s release once frozen, minus the size of the store. It is reported over JMX and
+ * the request metrics scrape endpoint.
+ */
+public class CompactMessageStore implements CompactMessageStoreMBean, MetricsWriter
+{
+	/**
+	 * Approximate size of a {@link java.util.Hashtable} entry of a {@link java.util.Properties} object plus its slot.
+	 */
+	protected static final int PROPERTIES_ENTRY_BYTES = 40;
+	protected static final int STRING_OVERHEAD_BYTES = 40;
+
+	private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+	private final ConcurrentMap<CompactMessageTable, CompactMessageTable> tables = new ConcurrentHashMap<>();
+	private final Set<Integer> recordedLayers = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder deduplicatedStrings = new LongAdder();
+	private final LongAdder sharedTables = new LongAdder();
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder retainedBytes = new LongAdder();
+	private final LongAdder layerBytes = new LongAdder();
+
+	private String objectName;
+	private ObjectName registeredObjectName;
+
+	@PostConstruct
+	public void registerMBean()
+	{
+		registeredObjectName = MetricsMBeanSupport.register(this, getObjectName());
+	}
+
+	@PreDestroy
+	public void unregisterMBean()
+	{
+		MetricsMBeanSupport.unregister(registeredObjectName);
+		registeredObjectName = null;
+	}
+
+	/**
+	 * Builds a table for the given messages, or returns an existing table with the same content.
+	 */
+	public CompactMessageTable createTable(final Map<String, String> messagesByCode)
+	{
+		final String[] codes = new String[messagesByCode.size()];
+		final Map<String, String> internedMessages = new HashMap<>(messagesByCode.size() * 4 / 3 + 1);
+		int index = 0;
+		for (final Map.Entry<String, String> entry : messagesByCode.entrySet())
+		{
+			final String code = intern(entry.getKey());
+			codes[index++] = code;
+			internedMessages.put(code, intern(entry.getValue()));
+		}
+		Arrays.sort(codes);
+
+		final CompactMessageTable table = new CompactMessageTable(codes, internedMessages);
+		final CompactMessageTable existing = tables.putIfAbsent(table, table);
+		if (existing != null)
+		{
+			sharedTables.increment();
+			return existing;
+		}
+		messages.add(table.size());
+		retainedBytes.add(table.getEstimatedSize());
+		return table;
+	}
+
+	/**
+	 * Records the properties of a message source layer a table is built from, for the estimate of the heap saved. Layers
+	 * shared by several themes are counted once.
+	 */
+	public void recordLayerProperties(final Properties properties)
+	{
+		if (recordedLayers.add(Integer.valueOf(System.identityHashCode(properties))))
+		{
+			long bytes = 0;
+			for (final String code : properties.stringPropertyNames())
+			{
+				bytes += PROPERTIES_ENTRY_BYTES + getEstimatedSize(code) + getEstimatedSize(properties.getProperty(code));
+			}
+			layerBytes.add(bytes);
+		}
+	}
+
+	protected String intern(final String value)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+		final String existing = strings.putIfAbsent(value, value);
+		if (existing != null)
+		{
+			deduplicatedStrings.increment();
+			return existing;
+		}
+		retainedBytes.add(getEstimatedSize(value));
+		return value;
+	}
+
+	protected static long getEstimatedSize(final String value)
+	{
+		// compact strings store latin-1 text in one byte per character
+		return STRING_OVERHEAD_BYTES + value.length();
+	}
+
+	@Override
+	public void writeMetrics(final Appendable out) throws IOException
+	{
+		MetricsTextFormat.writeType(out, "storefront_message_store_bytes", "gauge");
+		MetricsTextFormat.writeValue(out, "storefront_message_store_bytes", "kind", "retained", getRetainedBytes());
+		MetricsTextFormat.writeValue(out, "storefront_message_store_bytes", "kind", "saved", getEstimatedBytesSaved());
+		MetricsTextFormat.writeType(out, "storefront_message_store_messages", "gauge");
+		MetricsTextFormat.writeValue(out, "storefront_message_store_messages", null, null, getMessageCount());
+	}
+
+	@Override
+	public int getStringCount()
+	{
+		return strings.size();
+	}
+
+	@Override
+	public long getDeduplicatedStringCount()
+	{
+		return deduplicatedStrings.sum();
+	}
+
+	@Override
+	public int getTableCount()
+	{
+		return tables.size();
+	}
+
+	@Override
+	public long getSharedTableCount()
+	{
+		return sharedTables.sum();
+	}
+
+	@Override
+	public long getMessageCount()
+	{
+		return messages.sum();
+	}
+
+	@Override
+	public long getRetainedBytes()
+	{
+		return retainedBytes.sum();
+	}
+
+	@Override
+	public long getEstimatedBytesSaved()
+	{
+		return layerBytes.sum() - retainedBytes.sum();
+	}
+
+	protected String getObjectName()
+	{
+		return objectName;
+	}
+
+	public void setObjectName(final String objectName)
+	{
+		this.objectName = objectName;
+	}
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+/**
+ * JMX management interface of {@link CompactMessageStore}. All sizes are approximate heap sizes in bytes.
+ */
+public interface CompactMessageStoreMBean
+{
+	int getStringCount();
+
+	long getDeduplicatedStringCount();
+
+	int getTableCount();
+
+	long getSharedTableCount();
+
+	long getMessageCount();
+
+	long getRetainedBytes();
+
+	long getEstimatedBytesSaved();
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import java.util.Arrays;
+import java.util.Map;
+
+
+/**
+ * Immutable open addressing hash table from message code to message, backed by a single array holding each code next
+ * to its message. The table is filled at most to half of its capacity and probed linearly. The entries are inserted in
+ * code order, so tables with equal content have an identical layout and can be compared and shared by
+ * {@link CompactMessageStore}.
+ */
+public final class CompactMessageTable
+{
+	/**
+	 * Approximate size of an object header plus a reference, used for heap estimates.
+	 */
+	protected static final int OBJECT_HEADER_BYTES = 16;
+	protected static final int REFERENCE_BYTES = 4;
+
+	private final String[] slots;
+	private final int mask;
+	private final int size;
+	private final int hashCode;
+
+	/**
+	 * @param sortedCodes
+	 *           the message codes in ascending order, already interned
+	 * @param messages
+	 *           the messages by code, already interned
+	 */
+	protected CompactMessageTable(final String[] sortedCodes, final Map<String, String> messages)
+	{
+		int capacity = 2;
+		while (capacity < sortedCodes.length * 2)
+		{
+			capacity <<= 1;
+		}
+		this.mask = capacity - 1;
+		this.size = sortedCodes.length;
+		this.slots = new String[capacity * 2];
+		for (final String code : sortedCodes)
+		{
+			int index = spread(code.hashCode()) & mask;
+			while (slots[index * 2] != null)
+			{
+				index = (index + 1) & mask;
+			}
+			slots[index * 2] = code;
+			slots[index * 2 + 1] = messages.get(code);
+		}
+		this.hashCode = Arrays.hashCode(slots);
+	}
+
+	/**
+	 * @return the message for the code, or null if the table does not contain the code
+	 */
+	public String get(final String code)
+	{
+		int index = spread(code.hashCode()) & mask;
+		String key;
+		while ((key = slots[index * 2]) != null)
+		{
+			if (key == code || key.equals(code))
+			{
+				return slots[index * 2 + 1];
+			}
+			index = (index + 1) & mask;
+		}
+		return null;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return the approximate heap size of the table itself, excluding the strings it references
+	 */
+	public long getEstimatedSize()
+	{
+		return OBJECT_HEADER_BYTES * 2L + (long) slots.length * REFERENCE_BYTES;
+	}
+
+	private static int spread(final int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	@Override
+	public boolean equals(final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof CompactMessageTable))
+		{
+			return false;
+		}
+		final CompactMessageTable other = (CompactMessageTable) obj;
+		return hashCode == other.hashCode && size == other.size && Arrays.equals(slots, other.slots);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+}
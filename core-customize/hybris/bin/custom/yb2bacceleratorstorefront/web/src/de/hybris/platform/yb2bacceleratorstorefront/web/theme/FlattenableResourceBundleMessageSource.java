@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import java.util.Locale;
+import java.util.Properties;
+
+import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+
+
+/**
+ * {@link ReloadableResourceBundleMessageSource} exposing all properties it holds for a locale, so that a chain of these
+ * message sources can be flattened into a {@link FrozenMessageSource}.
+ */
+public class FlattenableResourceBundleMessageSource extends ReloadableResourceBundleMessageSource
+{
+	/**
+	 * @return the properties of all files for the locale and its fallbacks, more specific files overriding the less
+	 *         specific ones
+	 */
+	public Properties getAllProperties(final Locale locale)
+	{
+		final Properties properties = getMergedProperties(locale).getProperties();
+		return properties == null ? new Properties() : properties;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.springframework.context.HierarchicalMessageSource;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.AbstractMessageSource;
+
+
+/**
+ * Immutable snapshot of a chain of {@link FlattenableResourceBundleMessageSource}s. For every locale the properties of
+ * all layers are merged once, children overriding their parents, into a {@link CompactMessageTable} of the shared
+ * {@link CompactMessageStore}, so that a lookup is a single hash probe instead of a walk through the chain. Codes not
+ * found in the snapshot are delegated to the first parent that could not be flattened, if any.
+ * <p>
+ * Changes to the underlying files are not picked up, so this is meant for production only.
+ */
+public class FrozenMessageSource extends AbstractMessageSource
+{
+	private static final Logger LOG = Logger.getLogger(FrozenMessageSource.class);
+
+	private final List<FlattenableResourceBundleMessageSource> layers;
+	private final CompactMessageStore messageStore;
+	private final Map<Locale, CompactMessageTable> tables = new ConcurrentHashMap<>();
+	private final Map<Locale, ConcurrentMap<String, MessageFormat>> messageFormats = new ConcurrentHashMap<>();
+
+	/**
+	 * @param layers
+	 *           the message sources from the most general to the most specific one
+	 * @param parentMessageSource
+	 *           the message source asked for codes missing in all layers, may be null
+	 * @param messageStore
+	 *           the store holding the merged messages
+	 */
+	public FrozenMessageSource(final List<FlattenableResourceBundleMessageSource> layers,
+			final MessageSource parentMessageSource, final CompactMessageStore messageStore)
+	{
+		this.layers = layers;
+		this.messageStore = messageStore;
+		setParentMessageSource(parentMessageSource);
+		setUseCodeAsDefaultMessage(true);
+	}
+
+	/**
+	 * Creates a frozen message source with its own store for the given message source and all its flattenable parents.
+	 */
+	public static FrozenMessageSource freeze(final MessageSource messageSource)
+	{
+		return freeze(messageSource, new CompactMessageStore());
+	}
+
+	/**
+	 * Creates a frozen message source for the given message source and all its flattenable parents.
+	 */
+	public static FrozenMessageSource freeze(final MessageSource messageSource, final CompactMessageStore messageStore)
+	{
+		final List<FlattenableResourceBundleMessageSource> layers = new ArrayList<>();
+		MessageSource current = messageSource;
+		while (current instanceof FlattenableResourceBundleMessageSource)
+		{
+			layers.add((FlattenableResourceBundleMessageSource) current);
+			current = ((HierarchicalMessageSource) current).getParentMessageSource();
+		}
+		Collections.reverse(layers);
+		return new FrozenMessageSource(layers, current, messageStore);
+	}
+
+	/**
+	 * Merges the messages of all layers for the locale, unless this has already been done.
+	 */
+	public void freeze(final Locale locale)
+	{
+		getTable(locale);
+	}
+
+	/**
+	 * @return the locales whose messages have been merged
+	 */
+	public Set<Locale> getFrozenLocales()
+	{
+		return Collections.unmodifiableSet(tables.keySet());
+	}
+
+	/**
+	 * Drops the properties cached by the layers. Locales frozen afterwards load the files again.
+	 */
+	public void releaseLayerCaches()
+	{
+		for (final FlattenableResourceBundleMessageSource layer : layers)
+		{
+			layer.clearCache();
+		}
+	}
+
+	protected CompactMessageTable getTable(final Locale locale)
+	{
+		final CompactMessageTable table = tables.get(locale);
+		return table != null ? table : tables.computeIfAbsent(locale, this::mergeLayers);
+	}
+
+	protected CompactMessageTable mergeLayers(final Locale locale)
+	{
+		final Map<String, String> merged = new HashMap<>();
+		for (final FlattenableResourceBundleMessageSource layer : layers)
+		{
+			final Properties properties = layer.getAllProperties(locale);
+			messageStore.recordLayerProperties(properties);
+			for (final String code : properties.stringPropertyNames())
+			{
+				merged.put(code, properties.getProperty(code));
+			}
+		}
+
+		final CompactMessageTable table = messageStore.createTable(merged);
+		if (LOG.isDebugEnabled())
+		{
+			LOG.debug("Froze " + table.size() + " messages of " + layers.size() + " message sources for locale " + locale);
+		}
+		return table;
+	}
+
+	@Override
+	protected String resolveCodeWithoutArguments(final String code, final Locale locale)
+	{
+		return getTable(locale).get(code);
+	}
+
+	@Override
+	protected MessageFormat resolveCode(final String code, final Locale locale)
+	{
+		final ConcurrentMap<String, MessageFormat> formats = messageFormats.computeIfAbsent(locale,
+				l -> new ConcurrentHashMap<>());
+		final MessageFormat format = formats.get(code);
+		if (format != null)
+		{
+			return format;
+		}
+		final String message = getTable(locale).get(code);
+		// only messages used with arguments are parsed, and kept for the next use
+		return message == null ? null : formats.computeIfAbsent(code, c -> createMessageFormat(message, locale));
+	}
+}
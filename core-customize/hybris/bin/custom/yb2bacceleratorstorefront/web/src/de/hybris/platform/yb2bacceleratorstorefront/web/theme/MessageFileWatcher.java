@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+
+/**
+ * Watches message directories with a {@link WatchService} and reports the names of changed message files, without
+ * extension, to a listener. Changes arriving within the quiet period of each other, e.g. an editor writing a temporary
+ * file and renaming it, are reported together. If events have been lost, {@link #ALL_FILES} is reported.
+ */
+public class MessageFileWatcher implements Runnable
+{
+	private static final Logger LOG = Logger.getLogger(MessageFileWatcher.class);
+
+	/**
+	 * Reported instead of the file names if the watch service lost events.
+	 */
+	public static final String ALL_FILES = "*";
+
+	private static final String PROPERTIES_EXTENSION = ".properties";
+	private static final String XML_EXTENSION = ".xml";
+
+	private final Collection<Path> directories;
+	private final Consumer<Set<String>> listener;
+	private final long quietPeriodMillis;
+
+	private WatchService watchService;
+	private Thread thread;
+
+	public MessageFileWatcher(final Collection<Path> directories, final Consumer<Set<String>> listener,
+			final long quietPeriodMillis)
+	{
+		this.directories = directories;
+		this.listener = listener;
+		this.quietPeriodMillis = quietPeriodMillis;
+	}
+
+	public synchronized void start() throws IOException
+	{
+		watchService = FileSystems.getDefault().newWatchService();
+		for (final Path directory : directories)
+		{
+			if (Files.isDirectory(directory))
+			{
+				directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+				LOG.debug("Watching message directory " + directory);
+			}
+		}
+		thread = new Thread(this, "storefront-message-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public synchronized void stop()
+	{
+		if (watchService != null)
+		{
+			try
+			{
+				watchService.close();
+			}
+			catch (final IOException e)
+			{
+				LOG.debug("Failed to close message watch service", e);
+			}
+			watchService = null;
+		}
+		if (thread != null)
+		{
+			thread.interrupt();
+			thread = null;
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		final WatchService service = watchService;
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				final Set<String> changedFiles = new HashSet<>();
+				collectChanges(service.take(), changedFiles);
+				WatchKey next;
+				while ((next = service.poll(quietPeriodMillis, TimeUnit.MILLISECONDS)) != null)
+				{
+					collectChanges(next, changedFiles);
+				}
+				notifyListener(changedFiles);
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (final ClosedWatchServiceException e)
+		{
+			LOG.debug("Message watch service closed");
+		}
+	}
+
+	protected void collectChanges(final WatchKey key, final Set<String> changedFiles)
+	{
+		for (final WatchEvent<?> event : key.pollEvents())
+		{
+			if (event.kind() == OVERFLOW)
+			{
+				changedFiles.add(ALL_FILES);
+			}
+			else
+			{
+				final String name = getMessageFileName(((Path) event.context()).getFileName().toString());
+				if (name != null)
+				{
+					changedFiles.add(name);
+				}
+			}
+		}
+		key.reset();
+	}
+
+	protected void notifyListener(final Set<String> changedFiles)
+	{
+		if (changedFiles.isEmpty())
+		{
+			return;
+		}
+		try
+		{
+			listener.accept(changedFiles);
+		}
+		catch (final RuntimeException e)
+		{
+			LOG.warn("Failed to reload messages for changed files " + changedFiles, e);
+		}
+	}
+
+	/**
+	 * @return the file name without extension, e.g. <code>site-powertools_de</code>, or null if the file is no message
+	 *         file
+	 */
+	protected static String getMessageFileName(final String fileName)
+	{
+		if (fileName.endsWith(PROPERTIES_EXTENSION))
+		{
+			return fileName.substring(0, fileName.length() - PROPERTIES_EXTENSION.length());
+		}
+		if (fileName.endsWith(XML_EXTENSION))
+		{
+			return fileName.substring(0, fileName.length() - XML_EXTENSION.length());
+		}
+		return null;
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+import de.hybris.platform.enumeration.EnumerationService;
+import de.hybris.platform.servicelayer.i18n.I18NService;
+import de.hybris.platform.yb2bacceleratorstorefront.util.SiteThemeResolverUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+
+/**
+ * Warms up the {@link StorefrontResourceBundleSource} for the themes of all sites and ui experience levels and all
+ * supported locales once the web application context has been refreshed.
+ */
+public class MessageSourceWarmUpListener implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware
+{
+	private static final Logger LOG = Logger.getLogger(MessageSourceWarmUpListener.class);
+
+	private StorefrontResourceBundleSource messageSource;
+	private CMSSiteService cmsSiteService;
+	private EnumerationService enumerationService;
+	private I18NService i18NService;
+	private SiteThemeResolverUtils siteThemeResolverUtils;
+	private ApplicationContext applicationContext;
+	private boolean enabled;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	@Override
+	public void onApplicationEvent(final ContextRefreshedEvent event)
+	{
+		// events of child contexts, e.g. the dispatcher servlet context, are propagated to this context as well
+		if (!isEnabled() || event.getApplicationContext() != applicationContext)
+		{
+			return;
+		}
+
+		try
+		{
+			getMessageSource().warmUp(getThemeNames(), getI18NService().getSupportedLocales(), getParallelism());
+		}
+		catch (final RuntimeException e)
+		{
+			LOG.warn("Failed to warm up the storefront message source", e);
+		}
+	}
+
+	protected Set<String> getThemeNames()
+	{
+		final Collection<UiExperienceLevel> uiExperienceLevels = getEnumerationService()
+				.getEnumerationValues(UiExperienceLevel.class);
+		final Set<String> themeNames = new LinkedHashSet<>();
+		for (final CMSSiteModel site : getCmsSiteService().getSites())
+		{
+			for (final UiExperienceLevel uiExperienceLevel : uiExperienceLevels)
+			{
+				themeNames.add(getSiteThemeResolverUtils().resolveThemeForSite(uiExperienceLevel, site));
+			}
+		}
+		return themeNames;
+	}
+
+	@Override
+	public void setApplicationContext(final ApplicationContext applicationContext)
+	{
+		this.applicationContext = applicationContext;
+	}
+
+	protected StorefrontResourceBundleSource getMessageSource()
+	{
+		return messageSource;
+	}
+
+	@Required
+	public void setMessageSource(final StorefrontResourceBundleSource messageSource)
+	{
+		this.messageSource = messageSource;
+	}
+
+	protected CMSSiteService getCmsSiteService()
+	{
+		return cmsSiteService;
+	}
+
+	@Required
+	public void setCmsSiteService(final CMSSiteService cmsSiteService)
+	{
+		this.cmsSiteService = cmsSiteService;
+	}
+
+	protected EnumerationService getEnumerationService()
+	{
+		return enumerationService;
+	}
+
+	@Required
+	public void setEnumerationService(final EnumerationService enumerationService)
+	{
+		this.enumerationService = enumerationService;
+	}
+
+	protected I18NService getI18NService()
+	{
+		return i18NService;
+	}
+
+	@Required
+	public void setI18NService(final I18NService i18NService)
+	{
+		this.i18NService = i18NService;
+	}
+
+	protected SiteThemeResolverUtils getSiteThemeResolverUtils()
+	{
+		return siteThemeResolverUtils;
+	}
+
+	@Required
+	public void setSiteThemeResolverUtils(final SiteThemeResolverUtils siteThemeResolverUtils)
+	{
+		this.siteThemeResolverUtils = siteThemeResolverUtils;
+	}
+
+	protected boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	protected int getParallelism()
+	{
+		return parallelism;
+	}
+
+	public void setParallelism(final int parallelism)
+	{
+		this.parallelism = parallelism;
+	}
+}
@@ -6,12 +6,28 @@ package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
 import de.hybris.platform.acceleratorservices.addonsupport.RequiredAddOnsNameProvider;
 import de.hybris.platform.util.Utilities;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import de.hybris.platform.yb2bacceleratorstorefront.util.SiteThemeResolverUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
@@ -33,6 +49,15 @@ import org.springframework.web.context.ConfigurableWebApplicationContext;
  * CustomResourceBundleThemeSource. Supports site and theme specific resource bundles. Uses a
  * ReloadableResourceBundleMessageSource to load the theme file. Delegates to a message source if the theme specific
  * file cannot be found.
+ * <p>
+ * In frozen mode the message source chain of every theme is flattened into a {@link FrozenMessageSource} per locale, so
+ * that a message lookup is a single hash probe. The themes can be loaded on startup with
+ * {@link #warmUp(Collection, Collection, int)}. The messages of all themes are kept in one shared
+ * {@link CompactMessageStore}, and the properties of the underlying message sources are released after the warm-up.
+ * <p>
+ * If watching is enabled, the message directories of the storefront and all add-ons are watched by a
+ * {@link MessageFileWatcher}, and the themes using a changed file are rebuilt and swapped in the theme cache. This allows
+ * to disable the <code>cacheSeconds</code> polling in production while still picking up message patches.
  */
 public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoaderAware, MessageSource
 {
@@ -49,6 +74,11 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 	private String themePrefix;
 	private RequiredAddOnsNameProvider requiredAddOnsNameProvider;
 	private SiteThemeResolverUtils siteThemeResolverUtils;
+	private boolean frozen;
+	private CompactMessageStore compactMessageStore = new CompactMessageStore();
+	private boolean watchEnabled;
+	private long watchQuietPeriod = 500;
+	private MessageFileWatcher messageFileWatcher;
 	@Autowired private ApplicationContext appContext;
 
 	/**
@@ -57,6 +87,116 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 	private final Map<String, Theme> themeCache = new ConcurrentHashMap<>();
 
 
+	@PostConstruct
+	public void startWatching()
+	{
+		if (!isWatchEnabled())
+		{
+			return;
+		}
+		final MessageFileWatcher watcher = new MessageFileWatcher(getMessageDirectories(), this::reloadThemes,
+				getWatchQuietPeriod());
+		try
+		{
+			watcher.start();
+			messageFileWatcher = watcher;
+		}
+		catch (final IOException e)
+		{
+			LOG.warn("Unable to watch the message directories, changed messages are not reloaded", e);
+		}
+	}
+
+	@PreDestroy
+	public void stopWatching()
+	{
+		if (messageFileWatcher != null)
+		{
+			messageFileWatcher.stop();
+			messageFileWatcher = null;
+		}
+	}
+
+	protected Collection<Path> getMessageDirectories()
+	{
+		final Set<Path> directories = new LinkedHashSet<>();
+		final String storefrontDirectory = ((ConfigurableWebApplicationContext) appContext).getServletContext()
+				.getRealPath(getBasenamePrefix());
+		if (storefrontDirectory != null)
+		{
+			directories.add(Paths.get(storefrontDirectory));
+		}
+		for (final String addOnName : getAddOnNames())
+		{
+			directories.add(Paths.get(getAddOnMessageDirectory(addOnName)));
+		}
+		return directories;
+	}
+
+	/**
+	 * Rebuilds the cached themes using any of the changed message files and replaces them in the theme cache. The
+	 * locales frozen in the previous theme are frozen in the new one before it is swapped in.
+	 *
+	 * @param changedFiles the names of the changed files without extension, e.g. <code>site-powertools_de</code>
+	 */
+	protected void reloadThemes(final Set<String> changedFiles)
+	{
+		if (isAffected(getBasePrefix(), changedFiles) && getParentMessageSource() instanceof ReloadableResourceBundleMessageSource)
+		{
+			((ReloadableResourceBundleMessageSource) getParentMessageSource()).clearCache();
+		}
+
+		for (final Map.Entry<String, Theme> entry : new ArrayList<>(themeCache.entrySet()))
+		{
+			final String themeName = entry.getKey();
+			if (getMessageBasenames(themeName).stream().anyMatch(basename -> isAffected(basename, changedFiles)))
+			{
+				final Theme theme = computeThemeForGivenKey(themeName);
+				if (entry.getValue().getMessageSource() instanceof FrozenMessageSource
+						&& theme.getMessageSource() instanceof FrozenMessageSource)
+				{
+					final FrozenMessageSource messageSource = (FrozenMessageSource) theme.getMessageSource();
+					((FrozenMessageSource) entry.getValue().getMessageSource()).getFrozenLocales().forEach(messageSource::freeze);
+					messageSource.releaseLayerCaches();
+				}
+				themeCache.put(themeName, theme);
+				LOG.info("Reloaded messages of theme '" + themeName + "' after changes to " + changedFiles);
+			}
+		}
+	}
+
+	/**
+	 * @return the names of the message files used by the theme, without directory, locale and extension
+	 */
+	protected Set<String> getMessageBasenames(final String themeName)
+	{
+		final String[] strings = splitThemeName(themeName);
+		final String uiExperienceCode = strings[0].toLowerCase();
+		final String siteBasename = getSitePrefix() + "-" + strings[1];
+		final String themeBasename = getThemePrefix() + "-" + strings[2];
+
+		final Set<String> basenames = new LinkedHashSet<>();
+		basenames.add(getBasePrefix());
+		basenames.add(themeBasename);
+		basenames.add(themeBasename + "-" + uiExperienceCode);
+		basenames.add(siteBasename);
+		basenames.add(siteBasename + "-" + uiExperienceCode);
+		return basenames;
+	}
+
+	protected boolean isAffected(final String basename, final Set<String> changedFiles)
+	{
+		for (final String changedFile : changedFiles)
+		{
+			if (MessageFileWatcher.ALL_FILES.equals(changedFile) || changedFile.equals(basename)
+					|| changedFile.startsWith(basename + "_"))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * This implementation returns a SimpleTheme instance, holding a ResourceBundle-based MessageSource whose basename
 	 * corresponds to the given site name (prefixed by the configured "siteBasenamePrefix") which then delegates to a
@@ -95,8 +235,7 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 		final String siteBasename = getBasenamePrefix() + getSitePrefix() + "-" + sitePart;
 		final String themeBasename = getBasenamePrefix() + getThemePrefix() + "-" + themePart;
 		final String uiExperienceCode = uiExperiencePart.toLowerCase();
-		final List<String> addOnNames = requiredAddOnsNameProvider
-				.getAddOns(((ConfigurableWebApplicationContext) appContext).getServletContext().getServletContextName());
+		final List<String> addOnNames = getAddOnNames();
 		// Build the messages sources from most general to most specific
 		final MessageSource addOnBaseMessageSrouce = createAddOnMessageSource(addOnNames, getParentMessageSource(),
 				getBasePrefix());
@@ -122,7 +261,9 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 		}
 
 		// Create the new theme
-		return new SimpleTheme(themeName, addOnSiteUiMessageSource);
+		return new SimpleTheme(themeName, isFrozen() ? FrozenMessageSource.freeze(addOnSiteUiMessageSource,
+				getCompactMessageStore())
+				: addOnSiteUiMessageSource);
 	}
 
 
@@ -140,8 +281,7 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 		MessageSource tmpParentMessageSource = parentMessageSource;
 		for (final String addOnName : addOnNames)
 		{
-			final String basename = "file:///" + Utilities.getExtensionInfo(addOnName).getExtensionDirectory()
-					+ "/acceleratoraddon/web/webroot/WEB-INF/messages/" + lastBasenamePart;
+			final String basename = "file:///" + getAddOnMessageDirectory(addOnName) + "/" + lastBasenamePart;
 			if (LOG.isDebugEnabled())
 			{
 				LOG.debug("AddOn message reource basename: " + basename);
@@ -154,6 +294,17 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 		return messageSource;
 	}
 
+	protected List<String> getAddOnNames()
+	{
+		return requiredAddOnsNameProvider
+				.getAddOns(((ConfigurableWebApplicationContext) appContext).getServletContext().getServletContextName());
+	}
+
+	protected String getAddOnMessageDirectory(final String addOnName)
+	{
+		return Utilities.getExtensionInfo(addOnName).getExtensionDirectory() + "/acceleratoraddon/web/webroot/WEB-INF/messages";
+	}
+
 	protected String[] splitThemeName(final String themeName)
 	{
 		return themeName.split(",", 3);
@@ -169,7 +320,7 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 
 	protected AbstractMessageSource createMessageSource(final String basename)
 	{
-		final ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
+		final FlattenableResourceBundleMessageSource messageSource = new FlattenableResourceBundleMessageSource();
 		messageSource.setBasename(basename);
 		messageSource.setCacheSeconds(getCacheSeconds());
 		messageSource.setResourceLoader(getResourceLoader());
@@ -178,6 +329,85 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 		return messageSource;
 	}
 
+	/**
+	 * Loads the message files of the given themes for the given locales in parallel, so that the first requests do not
+	 * have to. In frozen mode the messages are flattened as well.
+	 *
+	 * @param themeNames the theme names as resolved by the {@link SiteThemeResolverUtils}
+	 * @param locales    the locales to load
+	 * @param parallelism the number of threads to use
+	 */
+	public void warmUp(final Collection<String> themeNames, final Collection<Locale> locales, final int parallelism)
+	{
+		final List<Callable<Void>> tasks = new ArrayList<>(themeNames.size() * locales.size());
+		for (final String themeName : themeNames)
+		{
+			for (final Locale locale : locales)
+			{
+				tasks.add(() -> {
+					warmUp(themeName, locale);
+					return null;
+				});
+			}
+		}
+
+		final long start = System.currentTimeMillis();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+		try
+		{
+			for (final Future<Void> future : executor.invokeAll(tasks))
+			{
+				try
+				{
+					future.get();
+				}
+				catch (final ExecutionException e)
+				{
+					LOG.warn("Failed to warm up message source", e.getCause());
+				}
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		releaseLayerCaches();
+		LOG.info("Warmed up " + themeNames.size() + " themes for " + locales.size() + " locales in "
+				+ (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * Releases the properties held by the message sources of frozen themes, which are no longer needed for lookups.
+	 */
+	protected void releaseLayerCaches()
+	{
+		for (final Theme theme : themeCache.values())
+		{
+			if (theme.getMessageSource() instanceof FrozenMessageSource)
+			{
+				((FrozenMessageSource) theme.getMessageSource()).releaseLayerCaches();
+			}
+		}
+	}
+
+	protected void warmUp(final String themeName, final Locale locale)
+	{
+		final MessageSource messageSource = getTheme(themeName).getMessageSource();
+		if (messageSource instanceof FrozenMessageSource)
+		{
+			((FrozenMessageSource) messageSource).freeze(locale);
+		}
+		else
+		{
+			// an unknown code makes every message source of the chain load its files
+			messageSource.getMessage(StorefrontResourceBundleSource.class.getName(), null, null, locale);
+		}
+	}
+
 	@Override public String getMessage(final String code, final Object[] args, final String defaultMessage, final Locale locale)
 	{
 		final Theme theme = getTheme(determineDefaultThemeName());
@@ -307,6 +537,55 @@ public class StorefrontResourceBundleSource implements ThemeSource, ResourceLoad
 	}
 
 
+	protected boolean isFrozen()
+	{
+		return frozen;
+	}
+
+	/**
+	 * @param frozen flatten the messages of each theme, changes to the message files are no longer picked up
+	 */
+	public void setFrozen(final boolean frozen)
+	{
+		this.frozen = frozen;
+	}
+
+	protected boolean isWatchEnabled()
+	{
+		return watchEnabled;
+	}
+
+	/**
+	 * @param watchEnabled reload the themes using a message file when the file changes
+	 */
+	public void setWatchEnabled(final boolean watchEnabled)
+	{
+		this.watchEnabled = watchEnabled;
+	}
+
+	protected long getWatchQuietPeriod()
+	{
+		return watchQuietPeriod;
+	}
+
+	/**
+	 * @param watchQuietPeriod milliseconds to wait for further changes before reloading the affected themes
+	 */
+	public void setWatchQuietPeriod(final long watchQuietPeriod)
+	{
+		this.watchQuietPeriod = watchQuietPeriod;
+	}
+
+	protected CompactMessageStore getCompactMessageStore()
+	{
+		return compactMessageStore;
+	}
+
+	public void setCompactMessageStore(final CompactMessageStore compactMessageStore)
+	{
+		this.compactMessageStore = compactMessageStore;
+	}
+
 	protected SiteThemeResolverUtils getSiteThemeResolverUtils()
 	{
 		return siteThemeResolverUtils;
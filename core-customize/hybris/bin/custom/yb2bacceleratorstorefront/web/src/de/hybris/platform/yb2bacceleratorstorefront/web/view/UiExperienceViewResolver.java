@@ -9,10 +9,16 @@ import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
 
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.web.servlet.View;
 import org.springframework.web.servlet.view.AbstractUrlBasedView;
 import org.springframework.web.servlet.view.InternalResourceView;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
@@ -21,17 +27,43 @@ import org.springframework.web.servlet.view.InternalResourceViewResolver;
 /**
  * A view resolver that detects the device a request is coming from and directs it to the appropriate view. This view
  * resolver extends Spring's org.springframework.web.servlet.view.InternalResourceViewResolver.
+ * <p>
+ * Resolved views and expanded view names are cached in one map per {@link UiExperienceLevel}, indexed by the level's
+ * ordinal, so that resolving a cached view does not build a cache key string. Each map is cleared when it exceeds the
+ * cache limit, which bounds the cache for redirect views with dynamic URLs.
  */
 public class UiExperienceViewResolver extends InternalResourceViewResolver
 {
 	private static final Logger LOG = Logger.getLogger(UiExperienceViewResolver.class);
 
 	private static final String ADDON = "addon:";
+
+	/**
+	 * Marker for views that could not be resolved, as the cache cannot hold null values.
+	 */
+	private static final View UNRESOLVED_VIEW = new View()
+	{
+		@Override
+		public String getContentType()
+		{
+			return null;
+		}
+
+		@Override
+		public void render(final Map<String, ?> model, final HttpServletRequest request, final HttpServletResponse response)
+		{
+			// never rendered
+		}
+	};
+
 	private UiExperienceService uiExperienceService;
 	private Map<UiExperienceLevel, String> uiExperienceViewPrefix;
 	private String unknownUiExperiencePrefix;
 	private String addOnPrefix;
 
+	private final ConcurrentMap<String, View>[] viewCaches = createCaches();
+	private final ConcurrentMap<String, String>[] expandedViewNames = createCaches();
+
 	protected UiExperienceService getUiExperienceService()
 	{
 		return uiExperienceService;
@@ -76,6 +108,69 @@ public class UiExperienceViewResolver extends InternalResourceViewResolver
 		this.addOnPrefix = addOnPrefix;
 	}
 
+	@SuppressWarnings("unchecked")
+	private static <V> ConcurrentMap<String, V>[] createCaches()
+	{
+		final ConcurrentMap<String, V>[] caches = new ConcurrentMap[UiExperienceLevel.values().length];
+		for (int i = 0; i < caches.length; i++)
+		{
+			caches[i] = new ConcurrentHashMap<>();
+		}
+		return caches;
+	}
+
+	@Override
+	public View resolveViewName(final String viewName, final Locale locale) throws Exception
+	{
+		final UiExperienceLevel uiExperienceLevel = getUiExperienceService().getUiExperienceLevel();
+		if (!isCache() || uiExperienceLevel == null)
+		{
+			return super.resolveViewName(viewName, locale);
+		}
+
+		final ConcurrentMap<String, View> views = viewCaches[uiExperienceLevel.ordinal()];
+		View view = views.get(viewName);
+		if (view == null)
+		{
+			view = createView(viewName, locale);
+			if (view == null)
+			{
+				if (!isCacheUnresolved())
+				{
+					return null;
+				}
+				view = UNRESOLVED_VIEW;
+			}
+			if (views.size() >= getCacheLimit())
+			{
+				views.clear();
+			}
+			views.put(viewName, view);
+		}
+		return view == UNRESOLVED_VIEW ? null : view;
+	}
+
+	@Override
+	public void removeFromCache(final String viewName, final Locale locale)
+	{
+		super.removeFromCache(viewName, locale);
+		for (final ConcurrentMap<String, View> views : viewCaches)
+		{
+			views.remove(viewName);
+		}
+	}
+
+	@Override
+	public void clearCache()
+	{
+		super.clearCache();
+		for (int i = 0; i < viewCaches.length; i++)
+		{
+			viewCaches[i].clear();
+			expandedViewNames[i].clear();
+		}
+	}
+
 	@Override
 	protected Object getCacheKey(final String viewName, final Locale locale)
 	{
@@ -100,6 +195,27 @@ public class UiExperienceViewResolver extends InternalResourceViewResolver
 	}
 
 	public String getViewName(final UiExperienceLevel uiExperienceLevel, final String viewName)
+	{
+		if (!isCache() || uiExperienceLevel == null)
+		{
+			return expandViewName(uiExperienceLevel, viewName);
+		}
+
+		final ConcurrentMap<String, String> names = expandedViewNames[uiExperienceLevel.ordinal()];
+		String expandedViewName = names.get(viewName);
+		if (expandedViewName == null)
+		{
+			expandedViewName = expandViewName(uiExperienceLevel, viewName);
+			if (names.size() >= getCacheLimit())
+			{
+				names.clear();
+			}
+			names.put(viewName, expandedViewName);
+		}
+		return expandedViewName;
+	}
+
+	protected String expandViewName(final UiExperienceLevel uiExperienceLevel, final String viewName)
 	{
 		String properViewName = viewName;
 		final String prefix = getUiExperienceViewPrefix().get(uiExperienceLevel);
@@ -3,10 +3,13 @@
  */
 package de.hybris.platform.yb2bacceleratorstorefront.controllers.pages;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,18 +26,22 @@ import de.hybris.platform.cms2.exceptions.CMSItemNotFoundException;
 import de.hybris.platform.cms2.servicelayer.services.CMSPageService;
 import de.hybris.platform.cms2.servicelayer.services.CMSPreviewService;
 import de.hybris.platform.commercefacades.product.ProductFacade;
+import de.hybris.platform.commercefacades.product.ProductOption;
 import de.hybris.platform.commercefacades.product.data.ProductData;
 import de.hybris.platform.commerceservices.url.UrlResolver;
 import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.product.ProductService;
 import de.hybris.platform.testframework.HybrisJUnit4ClassRunner;
 import de.hybris.platform.testframework.HybrisJUnit4Test;
 
 import java.io.UnsupportedEncodingException;
+import java.util.Collection;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -55,6 +62,9 @@ public class ProductPageControllerTest extends HybrisJUnit4Test
 	@Mock
 	private UrlResolver<ProductData> productDataUrlResolver;
 
+	@Mock
+	private UrlResolver<ProductModel> productModelUrlResolver;
+
 	@Mock
 	private ProductFacade productFacade;
 
@@ -95,6 +105,7 @@ public class ProductPageControllerTest extends HybrisJUnit4Test
 	private final MockHttpServletRequest request = new MockHttpServletRequest();
 	private final MockHttpServletResponse response = new MockHttpServletResponse();
 	private final ProductData productData = new ProductData();
+	private final ProductModel productModel = mock(ProductModel.class);
 
 	@Before
 	public void prepare()
@@ -102,6 +113,8 @@ public class ProductPageControllerTest extends HybrisJUnit4Test
 		MockitoAnnotations.initMocks(this);
 		productData.setConfigurable(false);
 		when(productFacade.getProductForCodeAndOptions(anyString(), any())).thenReturn(productData);
+		when(productFacade.getProductForOptions(any(ProductModel.class), any())).thenReturn(productData);
+		when(productService.getProductForCode(anyString())).thenReturn(productModel);
 
 		request.getSession().getServletContext().setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, webApplicationContext);
 		when(webApplicationContext.getBean(any(), any(Class.class))).thenReturn(requestContextData);
@@ -112,7 +125,22 @@ public class ProductPageControllerTest extends HybrisJUnit4Test
 	{
 		controller.productDetail(PRODUCT_CODE, model, request, response);
 
-		verify(productFacade).getProductForCodeAndOptions(eq(PRODUCT_CODE), any());
+		verify(productService).getProductForCode(PRODUCT_CODE);
+		verify(productFacade).getProductForOptions(eq(productModel), any());
+		verify(productFacade, never()).getProductForCodeAndOptions(anyString(), any());
+	}
+
+	@Test
+	public void testProductDetailRedirectsBeforeFullConversion() throws CMSItemNotFoundException, UnsupportedEncodingException
+	{
+		when(productModelUrlResolver.resolve(productModel)).thenReturn("/p/other");
+
+		final String view = controller.productDetail(PRODUCT_CODE, model, request, response);
+
+		assertTrue(view, view.startsWith("redirect:"));
+		verify(productService, times(1)).getProductForCode(PRODUCT_CODE);
+		verify(productFacade, never()).getProductForOptions(any(ProductModel.class), any());
+		verify(productFacade, never()).getProductForCodeAndOptions(anyString(), any());
 	}
 
 	@Test
@@ -120,7 +148,13 @@ public class ProductPageControllerTest extends HybrisJUnit4Test
 	{
 		controller.productOrderForm(PRODUCT_CODE, model, request, response);
 
-		verify(productFacade, times(2)).getProductForCodeAndOptions(eq(PRODUCT_CODE), any());
+		final ArgumentCaptor<Collection> options = ArgumentCaptor.forClass(Collection.class);
+		verify(productFacade).getProductForOptions(eq(productModel), options.capture());
+		assertTrue(options.getValue().contains(ProductOption.VARIANT_MATRIX_BASE));
+		assertFalse(options.getValue().contains(ProductOption.VARIANT_MATRIX_PRICE));
+		assertFalse(options.getValue().contains(ProductOption.VARIANT_MATRIX_MEDIA));
+		assertFalse(options.getValue().contains(ProductOption.VARIANT_MATRIX_STOCK));
+		verify(productService).getProductForCode(PRODUCT_CODE);
 		verify(pageTitleResolver).resolveProductPageTitle(PRODUCT_CODE);
 	}
 
@@ -185,6 +219,7 @@ public class ProductPageControllerTest extends HybrisJUnit4Test
 		Registry.getCurrentTenant().getConfig().setParameter("storefront.products.futurestock.enabled", "true");
 		controller.productFutureStock(PRODUCT_CODE, model, request, response);
 
-		verify(productFacade).getProductForCodeAndOptions(eq(PRODUCT_CODE), any());
+		verify(productService).getProductForCode(PRODUCT_CODE);
+		verify(productFacade).getProductForOptions(eq(productModel), any());
 	}
 }
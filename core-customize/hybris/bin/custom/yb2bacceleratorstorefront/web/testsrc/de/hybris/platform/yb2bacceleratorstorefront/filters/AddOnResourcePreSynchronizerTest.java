@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.servicelayer.config.ConfigurationService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Answers;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+
+@UnitTest
+public class AddOnResourcePreSynchronizerTest
+{
+	private static final String ADDONTWO_NAME = "addontwo";
+	private static final String STOREFRONT_NAME = "yb2bacceleratorstorefront";
+	private static final String UI_RESOURCE = "_ui/responsive/common/js/addontwo.js";
+	private static final String TAG_RESOURCE = "WEB-INF/tags/responsive/addontwo.tag";
+	private static final String UI_TARGET = "_ui/addons/addontwo/responsive/common/js/addontwo.js";
+	private static final String TAG_TARGET = "WEB-INF/tags/addons/addontwo/responsive/addontwo.tag";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final AcceleratorAddOnFilter.ExtensionAccessor extensionAccessor = Mockito
+			.mock(AcceleratorAddOnFilter.ExtensionAccessor.class);
+
+	private Path addOnWebRoot;
+	private Path webRoot;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		final Path addOnDir = temporaryFolder.newFolder(ADDONTWO_NAME).toPath();
+		addOnWebRoot = addOnDir.resolve("acceleratoraddon/web/webroot");
+		webRoot = temporaryFolder.newFolder(STOREFRONT_NAME).toPath();
+
+		Mockito.when(extensionAccessor.getAllExtensionNames()).thenReturn(Arrays.asList(STOREFRONT_NAME, ADDONTWO_NAME));
+		Mockito.when(extensionAccessor.getExtensionDir(STOREFRONT_NAME)).thenReturn(webRoot.toFile());
+		Mockito.when(extensionAccessor.getExtensionDir(ADDONTWO_NAME)).thenReturn(addOnDir.toFile());
+
+		write(addOnWebRoot.resolve(UI_RESOURCE), "ACC.addontwo = {};");
+		write(addOnWebRoot.resolve(TAG_RESOURCE), "<%@ tag body-content=\"empty\" %>");
+	}
+
+	@Test
+	public void shouldCopyUiAndWebInfResources() throws IOException
+	{
+		assertTrue(createSynchronizer(false).synchronize());
+
+		assertEquals("ACC.addontwo = {};", read(webRoot.resolve(UI_TARGET)));
+		assertEquals("<%@ tag body-content=\"empty\" %>", read(webRoot.resolve(TAG_TARGET)));
+		assertFalse(Files.isSameFile(addOnWebRoot.resolve(UI_RESOURCE), webRoot.resolve(UI_TARGET)));
+		assertEquals(Files.getLastModifiedTime(addOnWebRoot.resolve(UI_RESOURCE)),
+				Files.getLastModifiedTime(webRoot.resolve(UI_TARGET)));
+	}
+
+	@Test
+	public void shouldSkipUnchangedResources() throws IOException
+	{
+		assertTrue(createSynchronizer(false).synchronize());
+		final Path target = webRoot.resolve(UI_TARGET);
+		final FileTime lastModified = Files.getLastModifiedTime(target);
+		write(target, "local");
+		Files.setLastModifiedTime(target, lastModified);
+
+		assertTrue(createSynchronizer(false).synchronize());
+		assertEquals("local", read(target));
+
+		Files.setLastModifiedTime(addOnWebRoot.resolve(UI_RESOURCE), FileTime.fromMillis(lastModified.toMillis() + 1000));
+		assertTrue(createSynchronizer(false).synchronize());
+		assertEquals("ACC.addontwo = {};", read(target));
+	}
+
+	@Test
+	public void shouldLinkResources() throws IOException
+	{
+		assertTrue(createSynchronizer(true).synchronize());
+
+		assertTrue(Files.isSameFile(addOnWebRoot.resolve(UI_RESOURCE), webRoot.resolve(UI_TARGET)));
+		assertTrue(Files.isSameFile(addOnWebRoot.resolve(TAG_RESOURCE), webRoot.resolve(TAG_TARGET)));
+	}
+
+	@Test
+	public void shouldCopyResourcesThatCannotBeLinked() throws IOException
+	{
+		final AddOnResourcePreSynchronizer synchronizer = new AddOnResourcePreSynchronizer(extensionAccessor, webRoot, true, 2)
+		{
+			@Override
+			protected boolean link(final Path source, final Path target)
+			{
+				// as if source and target were on different file systems
+				return false;
+			}
+		};
+
+		assertTrue(synchronizer.synchronize());
+
+		assertEquals("ACC.addontwo = {};", read(webRoot.resolve(UI_TARGET)));
+		assertFalse(Files.isSameFile(addOnWebRoot.resolve(UI_RESOURCE), webRoot.resolve(UI_TARGET)));
+	}
+
+	@Test
+	public void shouldNotLinkMissingSource() throws IOException
+	{
+		final Path target = webRoot.resolve("missing.js");
+
+		assertFalse(createSynchronizer(true).link(addOnWebRoot.resolve("missing.js"), target));
+		assertFalse(Files.exists(target));
+	}
+
+	@Test
+	public void shouldUseAvailableProcessorsForInvalidParallelism()
+	{
+		assertTrue(new AddOnResourcePreSynchronizer(extensionAccessor, webRoot, false, 0).synchronize());
+		assertTrue(new AddOnResourcePreSynchronizer(extensionAccessor, webRoot, false, -1).synchronize());
+
+		assertTrue(Files.exists(webRoot.resolve(UI_TARGET)));
+	}
+
+	@Test
+	public void shouldMarkServletContextAsPreSynchronized() throws IOException, ServletException
+	{
+		final MockServletContext servletContext = new MockServletContext();
+		final AcceleratorAddOnFilter filter = createAddOnFilter(servletContext);
+
+		doFilter(filter);
+		Mockito.verify(filter).synchronizeResource(Matchers.anyString(), Matchers.anyString());
+
+		assertTrue(createSynchronizer(false).synchronize(servletContext));
+		assertEquals(Boolean.TRUE, servletContext.getAttribute(AcceleratorAddOnFilter.ADDON_RESOURCES_PRESYNCHRONIZED_ATTRIBUTE));
+
+		// still the single call of the first request
+		doFilter(filter);
+		Mockito.verify(filter).synchronizeResource(Matchers.anyString(), Matchers.anyString());
+	}
+
+	@Test
+	public void shouldNotMarkServletContextOnFailure()
+	{
+		final MockServletContext servletContext = new MockServletContext();
+		final AddOnResourcePreSynchronizer synchronizer = new AddOnResourcePreSynchronizer(extensionAccessor, webRoot, false, 2)
+		{
+			@Override
+			protected void synchronizeResource(final Path[] resource)
+			{
+				throw new UncheckedIOException(new IOException("disk full"));
+			}
+		};
+
+		assertFalse(synchronizer.synchronize(servletContext));
+		assertNull(servletContext.getAttribute(AcceleratorAddOnFilter.ADDON_RESOURCES_PRESYNCHRONIZED_ATTRIBUTE));
+	}
+
+	protected AddOnResourcePreSynchronizer createSynchronizer(final boolean useHardLinks)
+	{
+		return new AddOnResourcePreSynchronizer(extensionAccessor, webRoot, useHardLinks, 2);
+	}
+
+	protected AcceleratorAddOnFilter createAddOnFilter(final MockServletContext servletContext) throws IOException
+	{
+		final ConfigurationService configurationService = Mockito.mock(ConfigurationService.class, Answers.RETURNS_DEEP_STUBS.get());
+		Mockito.when(Boolean.valueOf(configurationService.getConfiguration()
+				.getBoolean(AcceleratorAddOnFilter.ADDON_FILTER_ACTIVE_PROPERTY, false))).thenReturn(Boolean.TRUE);
+
+		final AcceleratorAddOnFilter filter = new AcceleratorAddOnFilter();
+		filter.setConfigurationService(configurationService);
+		filter.setExtensionAccessor(extensionAccessor);
+		filter.setServletContext(servletContext);
+
+		final AcceleratorAddOnFilter spy = Mockito.spy(filter);
+		Mockito.doReturn(webRoot.resolve(UI_TARGET).toString()).when(spy)
+				.getFullPathNameFromRequest(Matchers.any(HttpServletRequest.class));
+		Mockito.doNothing().when(spy).synchronizeResource(Matchers.anyString(), Matchers.anyString());
+		return spy;
+	}
+
+	protected void doFilter(final AcceleratorAddOnFilter filter) throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET",
+				"/" + STOREFRONT_NAME + "/" + UI_TARGET);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+	}
+
+	protected void write(final Path file, final String content) throws IOException
+	{
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	protected String read(final Path file) throws IOException
+	{
+		return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+	}
+}
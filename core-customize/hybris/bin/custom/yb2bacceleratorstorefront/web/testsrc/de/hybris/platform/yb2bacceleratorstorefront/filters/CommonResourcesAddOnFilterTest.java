@@ -71,6 +71,20 @@ public class CommonResourcesAddOnFilterTest extends AbstractAddOnFilterTest
 	}
 
 
+	@Test
+	public void testSynchronisedResourceIsNotCheckedAgain() throws ServletException, IOException
+	{
+		createResource(addOnSourceResource, "/", "c.txt");
+		prepareRequest("c.txt");
+		prepareLocalContextPathRequest(STOREFRONT_NAME + "/_ui/addons/" + ADDONTWO_NAME + "/c.txt");
+		filter.doFilter(request, response, filterChain);
+		filter.doFilter(request, response, filterChain);
+		verifyFileCreated(webTargetResource, "/", "c.txt");
+		Mockito.verify(filter, Mockito.times(1)).copyFileInternalIfNeeded(Mockito.anyString(), Mockito.anyString());
+		filter.destroy();
+	}
+
+
 	@Override
 	protected String getFolder()
 	{
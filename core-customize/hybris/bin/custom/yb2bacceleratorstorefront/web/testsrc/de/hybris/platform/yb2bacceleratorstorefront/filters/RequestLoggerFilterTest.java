@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.RequestMetrics;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+
+@UnitTest
+public class RequestLoggerFilterTest
+{
+	private final RequestMetrics requestMetrics = new RequestMetrics();
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private RequestLoggerFilter filter;
+	private MockHttpServletRequest request;
+
+	@Before
+	public void setUp()
+	{
+		filter = new RequestLoggerFilter();
+		filter.setRequestMetrics(requestMetrics);
+		filter.setScrapePath("/metrics");
+		filter.setScrapeAllowedAddresses("127.0.0.1");
+
+		request = new MockHttpServletRequest("GET", "/p/123");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/**/p/{productCode:.*}");
+	}
+
+	@Test
+	public void shouldRecordResponseStatus() throws IOException, ServletException
+	{
+		filter.doFilter(request, response, new MockFilterChain()
+		{
+			@Override
+			public void doFilter(final ServletRequest request, final ServletResponse response)
+			{
+				((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+			}
+		});
+
+		assertEquals(1, requestMetrics.getRequestCount());
+		assertEquals(0, requestMetrics.getServerErrorCount());
+		assertEquals(0, requestMetrics.getInFlightRequests());
+		assertTrue(requestMetrics.scrape().contains("storefront_responses_total{status=\"404\"} 1\n"));
+	}
+
+	@Test
+	public void shouldRecordServerErrorWhenExceptionPropagates() throws IOException
+	{
+		try
+		{
+			filter.doFilter(request, response, new MockFilterChain()
+			{
+				@Override
+				public void doFilter(final ServletRequest request, final ServletResponse response) throws ServletException
+				{
+					throw new ServletException("controller failed");
+				}
+			});
+			fail("ServletException expected");
+		}
+		catch (final ServletException e)
+		{
+			assertEquals("controller failed", e.getMessage());
+		}
+
+		assertEquals(1, requestMetrics.getRequestCount());
+		assertEquals(1, requestMetrics.getServerErrorCount());
+		assertEquals(0, requestMetrics.getInFlightRequests());
+		assertTrue(requestMetrics.scrape().contains("storefront_responses_total{status=\"500\"} 1\n"));
+	}
+
+	@Test
+	public void shouldServeMetricsToAllowedAddresses() throws IOException, ServletException
+	{
+		final MockHttpServletRequest scrapeRequest = new MockHttpServletRequest("GET", "/metrics");
+		scrapeRequest.setRemoteAddr("127.0.0.1");
+
+		filter.doFilter(scrapeRequest, response, new MockFilterChain());
+
+		assertTrue(response.getContentAsString().contains("storefront_requests_in_flight 0\n"));
+		assertEquals(0, requestMetrics.getRequestCount());
+	}
+}
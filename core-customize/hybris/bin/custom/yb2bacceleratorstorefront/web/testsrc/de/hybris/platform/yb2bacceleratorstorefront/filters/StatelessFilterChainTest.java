@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorstorefrontcommons.history.BrowseHistory;
+import de.hybris.platform.commercefacades.storesession.StoreSessionFacade;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.servicelayer.session.Session;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.yb2bacceleratorstorefront.security.StatelessAwareCsrfTokenRepository;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfFilter;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.CompositeFilter;
+
+
+/**
+ * Runs a stateless request through the stateless request filter, the session, storefront and CSRF filters of the
+ * stateless chain and a servlet asking for the session and the CSRF token like a JSP rendering a form.
+ */
+@UnitTest
+public class StatelessFilterChainTest
+{
+	private final SessionService sessionService = Mockito.mock(SessionService.class);
+	private final StoreSessionFacade storeSessionFacade = Mockito.mock(StoreSessionFacade.class);
+	private final BrowseHistory browseHistory = Mockito.mock(BrowseHistory.class);
+	private final CommerceCommonI18NService commerceCommonI18NService = Mockito.mock(CommerceCommonI18NService.class);
+	private final Filter defaultFilter = Mockito.mock(Filter.class);
+	private final AtomicBoolean sessionCreationRequested = new AtomicBoolean();
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private StatelessRequestFilter filter;
+	private MockHttpServletRequest request;
+	private String renderedToken;
+
+	@Before
+	public void setUp()
+	{
+		final Session session = Mockito.mock(Session.class);
+		Mockito.when(sessionService.createNewSession()).thenReturn(session);
+		final LanguageModel language = new LanguageModel();
+		language.setIsocode("de");
+		Mockito.when(commerceCommonI18NService.getCurrentLanguage()).thenReturn(language);
+
+		final StatelessSessionFilter statelessSessionFilter = new StatelessSessionFilter();
+		statelessSessionFilter.setSessionService(sessionService);
+
+		final StorefrontFilter storefrontFilter = new StorefrontFilter();
+		storefrontFilter.setStoreSessionFacade(storeSessionFacade);
+		storefrontFilter.setBrowseHistory(browseHistory);
+		storefrontFilter.setCommerceCommonI18NService(commerceCommonI18NService);
+		storefrontFilter.setPathMatcher(new AntPathMatcher());
+		storefrontFilter.setRefererExcludeUrlSet(Collections.<String> emptySet());
+
+		final CompositeFilter statelessFilter = new CompositeFilter();
+		statelessFilter.setFilters(Arrays.asList(statelessSessionFilter, storefrontFilter, new CsrfFilter(createCsrfTokenRepository())));
+
+		filter = new StatelessRequestFilter();
+		filter.setDefaultFilter(defaultFilter);
+		filter.setStatelessFilter(statelessFilter);
+		filter.setPathMatcher(new AntPathMatcher());
+		filter.setStatelessEnabled(true);
+		filter.setStatelessUrlSet(Collections.singleton("/**/p/*"));
+
+		request = new MockHttpServletRequest("GET", "/p/123")
+		{
+			@Override
+			public HttpSession getSession(final boolean create)
+			{
+				if (create)
+				{
+					sessionCreationRequested.set(true);
+				}
+				return super.getSession(create);
+			}
+		};
+		request.setServletPath("/p/123");
+		request.addPreferredLocale(Locale.GERMAN);
+	}
+
+	@Test
+	public void shouldNotCreateHttpSessionAlongStatelessChain() throws IOException, ServletException
+	{
+		filter.doFilter(request, response, new MockFilterChain(new RenderingServlet()));
+
+		Assert.assertFalse(sessionCreationRequested.get());
+		Assert.assertNull(request.getSession(false));
+		Assert.assertNotNull(renderedToken);
+		final Cookie tokenCookie = response.getCookie("acceleratorCsrfToken");
+		Assert.assertNotNull(tokenCookie);
+		Assert.assertEquals(renderedToken, tokenCookie.getValue());
+		Mockito.verify(storeSessionFacade).initializeSession(Collections.singletonList(Locale.GERMAN));
+		Mockito.verify(sessionService).closeSession(Matchers.any(Session.class));
+		Mockito.verifyZeroInteractions(defaultFilter, browseHistory);
+	}
+
+	protected StatelessAwareCsrfTokenRepository createCsrfTokenRepository()
+	{
+		final HttpSessionCsrfTokenRepository sessionTokenRepository = new HttpSessionCsrfTokenRepository();
+		sessionTokenRepository.setParameterName("CSRFToken");
+		final CookieCsrfTokenRepository statelessTokenRepository = new CookieCsrfTokenRepository();
+		statelessTokenRepository.setCookieName("acceleratorCsrfToken");
+		statelessTokenRepository.setParameterName("CSRFToken");
+
+		final StatelessAwareCsrfTokenRepository tokenRepository = new StatelessAwareCsrfTokenRepository();
+		tokenRepository.setSessionTokenRepository(sessionTokenRepository);
+		tokenRepository.setStatelessTokenRepository(statelessTokenRepository);
+		return tokenRepository;
+	}
+
+	/**
+	 * Asks for the session like a JSP page does and renders the CSRF token of a form.
+	 */
+	protected class RenderingServlet extends HttpServlet
+	{
+		@Override
+		protected void service(final HttpServletRequest req, final HttpServletResponse resp)
+		{
+			req.getSession().setAttribute("rendered", Boolean.TRUE);
+			renderedToken = ((CsrfToken) req.getAttribute(CsrfToken.class.getName())).getToken();
+		}
+	}
+}
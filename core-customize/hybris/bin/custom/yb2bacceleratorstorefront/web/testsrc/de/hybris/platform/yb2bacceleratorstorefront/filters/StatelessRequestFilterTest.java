@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+
+
+@UnitTest
+public class StatelessRequestFilterTest
+{
+	private final Filter defaultFilter = Mockito.mock(Filter.class);
+	private final Filter statelessFilter = Mockito.mock(Filter.class);
+	private final FilterChain filterChain = Mockito.mock(FilterChain.class);
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private StatelessRequestFilter filter;
+	private MockHttpServletRequest request;
+
+	@Before
+	public void setUp()
+	{
+		filter = new StatelessRequestFilter();
+		filter.setDefaultFilter(defaultFilter);
+		filter.setStatelessFilter(statelessFilter);
+		filter.setPathMatcher(new AntPathMatcher());
+		filter.setStatelessEnabled(true);
+		filter.setStatelessUrlSet(Collections.singleton("/**/p/*"));
+
+		request = new MockHttpServletRequest("GET", "/p/123");
+		request.setServletPath("/p/123");
+	}
+
+	@Test
+	public void shouldPassStatelessRequestToStatelessChain() throws IOException, ServletException
+	{
+		filter.doFilter(request, response, filterChain);
+
+		Mockito.verify(statelessFilter).doFilter(request, response, filterChain);
+		Mockito.verifyZeroInteractions(defaultFilter);
+		Assert.assertTrue(StatelessRequestFilter.isStateless(request));
+		Assert.assertNull(request.getSession(false));
+	}
+
+	@Test
+	public void shouldPassRequestWithCookiesToDefaultChain() throws IOException, ServletException
+	{
+		request.setCookies(new Cookie("JSESSIONID", "1"));
+
+		filter.doFilter(request, response, filterChain);
+
+		Mockito.verify(defaultFilter).doFilter(request, response, filterChain);
+		Mockito.verifyZeroInteractions(statelessFilter);
+		Assert.assertFalse(StatelessRequestFilter.isStateless(request));
+	}
+
+	@Test
+	public void shouldPassOtherUrlsToDefaultChain() throws IOException, ServletException
+	{
+		request.setServletPath("/cart");
+
+		filter.doFilter(request, response, filterChain);
+
+		Mockito.verify(defaultFilter).doFilter(request, response, filterChain);
+		Mockito.verifyZeroInteractions(statelessFilter);
+	}
+
+	@Test
+	public void shouldPassEverythingToDefaultChainIfDisabled() throws IOException, ServletException
+	{
+		filter.setStatelessEnabled(false);
+
+		filter.doFilter(request, response, filterChain);
+
+		Mockito.verify(defaultFilter).doFilter(request, response, filterChain);
+		Mockito.verifyZeroInteractions(statelessFilter);
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.util.config.ConfigIntf;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+
+
+@UnitTest
+public class StaticResourceFilterTest
+{
+	private static final String SMALL_PATH = "/_ui/responsive/common/js/acc.cart.js";
+	private static final String LARGE_PATH = "/_ui/responsive/common/css/style.css";
+	private static final String SMALL_CONTENT = "ACC.cart={};";
+	private static final long LAST_MODIFIED = 1500000000500L;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final ConfigIntf config = Mockito.mock(ConfigIntf.class);
+	private final Map<String, String> params = new HashMap<>();
+
+	private Path root;
+	private MockServletContext servletContext;
+	private StaticResourceFilter filter;
+	private String largeContent;
+
+	@Before
+	public void setUp() throws IOException, ServletException
+	{
+		root = temporaryFolder.newFolder("webroot").toPath();
+		servletContext = new MockServletContext(root.toString(), new FileSystemResourceLoader());
+
+		params.put("storefront.staticResourceFilter.fastpath.enabled", "true");
+		params.put("storefront.staticResourceFilter.fastpath.maxContentSize", "16");
+		params.put("storefront.staticResourceFilter.fastpath.sendfileSize", "64");
+		when(config.getAllParameters()).thenReturn(params);
+
+		filter = new StaticResourceFilter()
+		{
+			@Override
+			protected ConfigIntf getConfig()
+			{
+				return config;
+			}
+		};
+		filter.init(new MockFilterConfig(servletContext));
+
+		final StringBuilder content = new StringBuilder();
+		while (content.length() < 100)
+		{
+			content.append("body{margin:0}");
+		}
+		largeContent = content.toString();
+		write(SMALL_PATH, SMALL_CONTENT);
+		write(LARGE_PATH, largeContent);
+	}
+
+	@Test
+	public void shouldServeFileWithStrongEtag() throws IOException, ServletException
+	{
+		final MockHttpServletResponse response = doFilter(createRequest(SMALL_PATH));
+
+		assertNull(response.getForwardedUrl());
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(SMALL_CONTENT, response.getContentAsString());
+		assertEquals(SMALL_CONTENT.length(), response.getContentLength());
+		assertTrue(response.getHeader("ETag").matches("\"[0-9a-f]{32}\""));
+		assertEquals(LAST_MODIFIED / 1000 * 1000, response.getDateHeader("Last-Modified"));
+	}
+
+	@Test
+	public void shouldMatchEtagLists()
+	{
+		assertTrue(filter.matchesEtag("\"abc\"", "\"abc\""));
+		assertTrue(filter.matchesEtag("\"xyz\", \"abc\"", "\"abc\""));
+		assertTrue(filter.matchesEtag("  \"xyz\" ,\"abc\"  ", "\"abc\""));
+		assertTrue(filter.matchesEtag("W/\"abc\"", "\"abc\""));
+		assertTrue(filter.matchesEtag("\"xyz\", W/\"abc\"", "\"abc\""));
+		assertTrue(filter.matchesEtag("*", "\"abc\""));
+		assertTrue(filter.matchesEtag("\"xyz\", *", "\"abc\""));
+
+		assertFalse(filter.matchesEtag("\"xyz\"", "\"abc\""));
+		assertFalse(filter.matchesEtag("\"abcd\", \"ab\"", "\"abc\""));
+		assertFalse(filter.matchesEtag("abc", "\"abc\""));
+		assertFalse(filter.matchesEtag("", "\"abc\""));
+		assertFalse(filter.matchesEtag(",", "\"abc\""));
+		assertFalse(filter.matchesEtag("**", "\"abc\""));
+	}
+
+	@Test
+	public void shouldAnswerMatchingIfNoneMatchWithNotModified() throws IOException, ServletException
+	{
+		final String etag = doFilter(createRequest(SMALL_PATH)).getHeader("ETag");
+
+		final MockHttpServletRequest request = createRequest(SMALL_PATH);
+		request.addHeader("If-None-Match", "\"other\", W/" + etag);
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+		assertEquals(etag, response.getHeader("ETag"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void shouldServeFileIfNoneMatchDoesNotMatch() throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = createRequest(SMALL_PATH);
+		request.addHeader("If-None-Match", "\"other\"");
+		// If-None-Match takes precedence over If-Modified-Since
+		request.addHeader("If-Modified-Since", Long.valueOf(LAST_MODIFIED));
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(SMALL_CONTENT, response.getContentAsString());
+	}
+
+	@Test
+	public void shouldAnswerIfModifiedSinceWithNotModified() throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = createRequest(SMALL_PATH);
+		// HTTP dates have no milliseconds
+		request.addHeader("If-Modified-Since", Long.valueOf(LAST_MODIFIED / 1000 * 1000));
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void shouldServeFileModifiedSinceIfModifiedSince() throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = createRequest(SMALL_PATH);
+		request.addHeader("If-Modified-Since", Long.valueOf(LAST_MODIFIED - 1000));
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(SMALL_CONTENT, response.getContentAsString());
+	}
+
+	@Test
+	public void shouldForwardRangeRequestsToDefaultServlet() throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = createRequest(LARGE_PATH);
+		request.addHeader("Range", "bytes=0-9");
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals("default", response.getForwardedUrl());
+		assertNull(response.getHeader("ETag"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	public void shouldForwardMissingFilesToDefaultServlet() throws IOException, ServletException
+	{
+		final MockHttpServletResponse response = doFilter(createRequest("/_ui/responsive/common/js/missing.js"));
+
+		assertEquals("default", response.getForwardedUrl());
+	}
+
+	@Test
+	public void shouldTransferLargeFilesFromChannel() throws IOException, ServletException
+	{
+		final MockHttpServletResponse response = doFilter(createRequest(LARGE_PATH));
+
+		assertNull(response.getForwardedUrl());
+		assertEquals(largeContent.length(), response.getContentLength());
+		assertArrayEquals(largeContent.getBytes(StandardCharsets.UTF_8), response.getContentAsByteArray());
+	}
+
+	@Test
+	public void shouldLeaveLargeFilesToSendfile() throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = createRequest(LARGE_PATH);
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals(largeContent.length(), response.getContentLength());
+		assertEquals(0, response.getContentAsByteArray().length);
+		assertEquals(root.resolve(LARGE_PATH.substring(1)).toAbsolutePath().toString(),
+				request.getAttribute("org.apache.tomcat.sendfile.filename"));
+		assertEquals(Long.valueOf(0), request.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(Long.valueOf(largeContent.length()), request.getAttribute("org.apache.tomcat.sendfile.end"));
+	}
+
+	@Test
+	public void shouldWriteSmallFilesFromMemoryDespiteSendfile() throws IOException, ServletException
+	{
+		final MockHttpServletRequest request = createRequest(SMALL_PATH);
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		final MockHttpServletResponse response = doFilter(request);
+
+		assertEquals(SMALL_CONTENT, response.getContentAsString());
+		assertNull(request.getAttribute("org.apache.tomcat.sendfile.filename"));
+	}
+
+	@Test
+	public void shouldSwapSettingsOnConfigChange() throws IOException, ServletException
+	{
+		final StaticResourceFilter.Settings settings = filter.getSettings();
+		final ArgumentCaptor<ConfigIntf.ConfigChangeListener> listener = ArgumentCaptor
+				.forClass(ConfigIntf.ConfigChangeListener.class);
+		verify(config).registerConfigChangeListener(listener.capture());
+
+		listener.getValue().configChanged("storefront.staticResourceFilter.response.header.X-Test", "value");
+		listener.getValue().configChanged("storefront.staticResourceFilter.fastpath.enabled", "false");
+		listener.getValue().configChanged("other.property", "ignored");
+
+		final StaticResourceFilter.Settings changedSettings = filter.getSettings();
+		assertNotSame(settings, changedSettings);
+		// the previous snapshot is left untouched for requests still using it
+		assertTrue(settings.isFastPathEnabled());
+		assertFalse(changedSettings.isFastPathEnabled());
+
+		final MockHttpServletResponse response = doFilter(createRequest(SMALL_PATH));
+		assertEquals("default", response.getForwardedUrl());
+		assertEquals("value", response.getHeader("X-Test"));
+		verify(config, times(1)).getAllParameters();
+	}
+
+	@Test
+	public void shouldUnregisterConfigChangeListener()
+	{
+		assertNotNull(filter.getSettings());
+		final ArgumentCaptor<ConfigIntf.ConfigChangeListener> listener = ArgumentCaptor
+				.forClass(ConfigIntf.ConfigChangeListener.class);
+		verify(config).registerConfigChangeListener(listener.capture());
+
+		filter.destroy();
+
+		verify(config).unregisterConfigChangeListener(listener.getValue());
+	}
+
+	protected MockHttpServletRequest createRequest(final String path)
+	{
+		final MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", path);
+		request.setServletPath(path);
+		return request;
+	}
+
+	protected MockHttpServletResponse doFilter(final MockHttpServletRequest request) throws IOException, ServletException
+	{
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	protected void write(final String path, final String content) throws IOException
+	{
+		final Path file = root.resolve(path.substring(1));
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.filters;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+@UnitTest
+public class StaticResourcePrecompressorTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path root;
+	private StaticResourcePrecompressor precompressor;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		root = temporaryFolder.newFolder("_ui").toPath();
+		precompressor = new StaticResourcePrecompressor(root, Arrays.asList("css", " JS "), 100, 2);
+	}
+
+	@Test
+	public void shouldWriteGzipSiblingOfTextResources() throws IOException
+	{
+		final Path css = write("responsive/common/css/style.css", repeat("body { margin: 0; }\n", 100));
+		final Path js = write("responsive/common/js/acc.cart.js", repeat("ACC.cart = {};\n", 100));
+
+		assertTrue(precompressor.compress());
+
+		assertArrayEquals(Files.readAllBytes(css), gunzip(sibling(css)));
+		assertArrayEquals(Files.readAllBytes(js), gunzip(sibling(js)));
+	}
+
+	@Test
+	public void shouldSkipOtherExtensionsAndSmallFiles() throws IOException
+	{
+		final Path png = write("images/logo.png", repeat("x", 1000));
+		final Path small = write("css/small.css", "a{}");
+
+		assertTrue(precompressor.compress());
+
+		assertFalse(Files.exists(sibling(png)));
+		assertFalse(Files.exists(sibling(small)));
+	}
+
+	@Test
+	public void shouldOnlyRewriteOutdatedSiblings() throws IOException
+	{
+		final Path css = write("css/style.css", repeat("body { margin: 0; }\n", 100));
+		assertTrue(precompressor.compress());
+		final Path gzip = sibling(css);
+
+		Files.write(css, repeat("body { padding: 0; }\n", 100).getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(gzip, FileTime.fromMillis(0));
+		Files.setLastModifiedTime(css, FileTime.fromMillis(1000));
+		assertTrue(precompressor.compress());
+		assertArrayEquals(Files.readAllBytes(css), gunzip(gzip));
+
+		final long lastModified = Files.getLastModifiedTime(gzip).toMillis();
+		assertTrue(precompressor.compress());
+		assertEquals(lastModified, Files.getLastModifiedTime(gzip).toMillis());
+	}
+
+	protected Path write(final String path, final String content) throws IOException
+	{
+		final Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	protected static Path sibling(final Path file)
+	{
+		return file.resolveSibling(file.getFileName() + StaticResourcePrecompressor.GZIP_SUFFIX);
+	}
+
+	protected static byte[] gunzip(final Path file) throws IOException
+	{
+		try (final InputStream in = new GZIPInputStream(Files.newInputStream(file)))
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+			{
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+	}
+
+	protected static String repeat(final String value, final int count)
+	{
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++)
+		{
+			builder.append(value);
+		}
+		return builder.toString();
+	}
+}
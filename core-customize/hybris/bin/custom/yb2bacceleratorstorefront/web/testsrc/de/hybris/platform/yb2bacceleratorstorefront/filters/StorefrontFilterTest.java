@@ -105,7 +105,7 @@ public class StorefrontFilterTest
 	{
 		Mockito.when(request.getMethod()).thenReturn(HttpMethod.GET.toString());
 		Mockito.when(request.getHeader(StorefrontFilter.AJAX_REQUEST_HEADER_NAME)).thenReturn(null);
-		Mockito.when(filter.isRequestPathExcluded(request)).thenReturn(false);
+		Mockito.when(request.getServletPath()).thenReturn("/p/123");
 		filter.doFilterInternal(request, response, filterChain);
 		Mockito.verify(session).setAttribute(StorefrontFilter.ORIGINAL_REFERER, REQUESTEDURL);
 	}
@@ -155,4 +155,20 @@ public class StorefrontFilterTest
 		Mockito.verify(commerceCommonI18NService).getCurrentLanguage();
 		Mockito.verify(storeSessionFacade, Mockito.never()).setCurrentLanguage(Mockito.anyString());
 	}
+
+	@Test
+	public void shouldInitDefaultsWithoutHttpSessionForStatelessRequest() throws IOException, ServletException
+	{
+		Mockito.when(request.getMethod()).thenReturn(HttpMethod.GET.toString());
+		Mockito.when(request.getAttribute(StatelessRequestFilter.STATELESS_REQUEST_ATTRIBUTE)).thenReturn(Boolean.TRUE);
+
+		filter.doFilterInternal(request, response, filterChain);
+
+		Mockito.verify(request, Mockito.never()).getSession();
+		Mockito.verify(request, Mockito.never()).getSession(Mockito.anyBoolean());
+		Mockito.verify(storeSessionFacade).initializeSession(Mockito.anyListOf(Locale.class));
+		Mockito.verify(storeSessionFacade).setCurrentLanguage("de");
+		Mockito.verifyZeroInteractions(browseHistory);
+		Mockito.verify(filterChain).doFilter(request, response);
+	}
 }
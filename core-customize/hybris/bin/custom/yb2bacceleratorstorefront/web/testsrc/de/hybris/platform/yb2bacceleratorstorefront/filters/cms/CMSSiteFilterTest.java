@@ -33,6 +33,9 @@ import java.util.Collections;
 
 import static de.hybris.platform.cms2.misc.CMSFilter.PREVIEW_TICKET_ID_PARAM;
 import static de.hybris.platform.cms2.misc.CMSFilter.PREVIEW_TOKEN;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +48,7 @@ public class CMSSiteFilterTest
 	private static final String PREVIEW_REQUEST_URL = "https://previewRequestUrl/" + PREVIEW_TOKEN;
 	private static final String PREVIEW_SITE_URL = "https://siteUrl/?site=abc";
 	private static final String TICKET_ID = "1234";
+	private static final String SITE_CACHE_KEY = "https://normalRequestUrl:443/electronics";
 
 	@InjectMocks
 	private CMSSiteFilter cmsSiteFilter;
@@ -67,6 +71,8 @@ public class CMSSiteFilterTest
 	private CMSPageContextService cmsPageContextService;
 	@Mock
 	private SiteChannelValidationStrategy siteChannelValidationStrategy;
+	@Mock
+	private CMSSiteResolutionCache siteResolutionCache;
 
 	@Mock
 	private HttpServletRequest httpRequest;
@@ -84,6 +90,8 @@ public class CMSSiteFilterTest
 	private LanguageModel languageModel;
 	@Mock
 	private CMSPreviewTicketModel ticket;
+	@Mock
+	private CMSSiteModel normalSite;
 
 	@Before
 	public void setup()
@@ -124,4 +132,53 @@ public class CMSSiteFilterTest
 		verify(contextInformationLoader).initializePreviewRequest(previewDataModel);
 		verify(contextInformationLoader).loadFakeContextInformation(httpRequest, previewDataModel);
 	}
+
+	@Test
+	public void givenNewSessionShouldUseCachedSite() throws Exception
+	{
+		givenNormalRequestWithoutSessionSite();
+		when(siteResolutionCache.get(SITE_CACHE_KEY)).thenReturn(normalSite);
+
+		cmsSiteFilter.doFilterInternal(httpRequest, httpResponse, filterChain);
+
+		verify(baseSiteService).setCurrentBaseSite(normalSite, true);
+		verify(contextInformationLoader, never()).initializeSiteFromRequest(anyString());
+		verify(filterChain).doFilter(httpRequest, httpResponse);
+	}
+
+	@Test
+	public void givenNewSessionShouldCacheResolvedSite() throws Exception
+	{
+		givenNormalRequestWithoutSessionSite();
+		when(contextInformationLoader.initializeSiteFromRequest("https://normalRequestUrl")).thenReturn(normalSite);
+
+		cmsSiteFilter.doFilterInternal(httpRequest, httpResponse, filterChain);
+
+		verify(siteResolutionCache).put(SITE_CACHE_KEY, normalSite);
+		verify(filterChain).doFilter(httpRequest, httpResponse);
+	}
+
+	@Test
+	public void givenQueryStringShouldNotUseCache() throws Exception
+	{
+		givenNormalRequestWithoutSessionSite();
+		when(httpRequest.getQueryString()).thenReturn("site=electronics");
+		when(contextInformationLoader.initializeSiteFromRequest("https://normalRequestUrl?site=electronics")).thenReturn(
+				normalSite);
+
+		cmsSiteFilter.doFilterInternal(httpRequest, httpResponse, filterChain);
+
+		verify(siteResolutionCache, never()).getKey(httpRequest);
+		verify(siteResolutionCache, never()).put(anyString(), any(CMSSiteModel.class));
+	}
+
+	private void givenNormalRequestWithoutSessionSite()
+	{
+		when(cmsPageRequestContextData.getPreviewData()).thenReturn(null);
+		when(cmsSiteService.getCurrentSite()).thenReturn(null);
+		when(httpRequest.getRequestURL()).thenReturn(new StringBuffer(NORMAL_REQUEST_URL));
+		when(siteResolutionCache.getKey(httpRequest)).thenReturn(SITE_CACHE_KEY);
+		when(siteChannelValidationStrategy.validateSiteChannel(any())).thenReturn(true);
+		when(normalSite.getActive()).thenReturn(Boolean.TRUE);
+	}
 }
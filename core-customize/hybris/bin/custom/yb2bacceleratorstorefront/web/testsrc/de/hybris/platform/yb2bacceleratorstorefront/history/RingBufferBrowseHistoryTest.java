@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorstorefrontcommons.history.BrowseHistoryEntry;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.servicelayer.session.SessionService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+
+@UnitTest
+@RunWith(MockitoJUnitRunner.class)
+public class RingBufferBrowseHistoryTest
+{
+	private final Map<String, Object> sessionAttributes = new HashMap<>();
+	private RingBufferBrowseHistory browseHistory;
+
+	@Mock
+	private SessionService sessionService;
+	@Mock
+	private CMSSiteService cmsSiteService;
+	@Mock
+	private CMSSiteModel site;
+
+	@Before
+	public void setUp()
+	{
+		browseHistory = new RingBufferBrowseHistory();
+		browseHistory.setSessionService(sessionService);
+		browseHistory.setCmsSiteService(cmsSiteService);
+		browseHistory.setCapacity(3);
+
+		when(site.getUid()).thenReturn("powertools");
+		when(cmsSiteService.getCurrentSite()).thenReturn(site);
+		when(sessionService.hasCurrentSession()).thenReturn(Boolean.TRUE);
+		when(sessionService.getAttribute(anyString())).thenAnswer(invocation -> sessionAttributes.get(invocation.getArguments()[0]));
+		doAnswer(invocation -> sessionAttributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+				.when(sessionService).setAttribute(anyString(), any());
+	}
+
+	@Test
+	public void shouldNotWriteSessionForRepeatedPage()
+	{
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/1", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/1", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/1", null));
+
+		verify(sessionService, times(1)).setAttribute(anyString(), any());
+		assertEquals(1, browseHistory.getSessionWriteCount());
+		assertEquals(2, browseHistory.getSkippedWriteCount());
+	}
+
+	@Test
+	public void shouldFindMostRecentMatchingEntry()
+	{
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/c/10?page=1", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/1", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/c/10", "Drills"));
+
+		assertEquals("Drills", browseHistory.findEntryMatchUrlEndsWith("/c/10").getPageTitle());
+		assertEquals("/p/1", browseHistory.findEntryMatchUrlEndsWith("/1").getUrl());
+	}
+
+	@Test
+	public void shouldOverwriteOldestEntryWhenFull()
+	{
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/1", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/2", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/3", null));
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/4", null));
+
+		assertNull(browseHistory.findEntryMatchUrlEndsWith("/p/1"));
+		assertEquals("/p/2", browseHistory.findEntryMatchUrlEndsWith("/p/2").getUrl());
+		assertEquals("/p/4", browseHistory.findEntryMatchUrlEndsWith("/p/4").getUrl());
+	}
+
+	@Test
+	public void shouldIgnoreEntriesWithoutSession()
+	{
+		when(sessionService.hasCurrentSession()).thenReturn(Boolean.FALSE);
+
+		browseHistory.addBrowseHistoryEntry(new BrowseHistoryEntry("/p/1", null));
+
+		assertNull(browseHistory.findEntryMatchUrlEndsWith("/p/1"));
+		assertEquals(0, browseHistory.getSessionWriteCount());
+	}
+}
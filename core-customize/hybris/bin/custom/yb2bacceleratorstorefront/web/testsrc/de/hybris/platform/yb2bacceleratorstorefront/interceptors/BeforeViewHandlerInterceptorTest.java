@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorservices.addonsupport.RequiredAddOnsNameProvider;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
+import de.hybris.platform.acceleratorstorefrontcommons.interceptors.BeforeViewHandler;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.HandlerMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.ModelAndView;
+
+
+@UnitTest
+public class BeforeViewHandlerInterceptorTest
+{
+	private final CMSSiteService cmsSiteService = mock(CMSSiteService.class);
+	private final CMSSiteModel site = mock(CMSSiteModel.class);
+	private final HandlerMetrics handlerMetrics = new HandlerMetrics();
+	private final List<Object> seenSites = new ArrayList<>();
+
+	private BeforeViewHandlerInterceptor interceptor;
+
+	@Before
+	public void setUp()
+	{
+		when(cmsSiteService.getCurrentSite()).thenReturn(site);
+
+		interceptor = new BeforeViewHandlerInterceptor();
+		interceptor.setCmsSiteService(cmsSiteService);
+		interceptor.setUiExperienceService(mock(UiExperienceService.class));
+		interceptor.setCommerceCommonI18NService(mock(CommerceCommonI18NService.class));
+		interceptor.setRequiredAddOnsNameProvider(mock(RequiredAddOnsNameProvider.class));
+		interceptor.setHandlerMetrics(handlerMetrics);
+		interceptor.setBeforeViewHandlers(Arrays.asList(new SiteHandler(), new PlainSiteHandler(), new SiteHandler()));
+	}
+
+	@Test
+	public void shouldLookUpSharedValuesOnce() throws Exception
+	{
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+
+		interceptor.postHandle(request, new MockHttpServletResponse(), null, new ModelAndView("pages/test"));
+
+		assertEquals(3, seenSites.size());
+		for (final Object seenSite : seenSites)
+		{
+			assertSame(site, seenSite);
+		}
+		verify(cmsSiteService, times(1)).getCurrentSite();
+		assertNull(request.getAttribute(BeforeViewContext.REQUEST_ATTRIBUTE));
+	}
+
+	@Test
+	public void shouldRecordTimePerHandler() throws Exception
+	{
+		interceptor.postHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null, new ModelAndView("pages/test"));
+
+		final String[] summaries = handlerMetrics.getHandlerSummaries();
+		assertEquals(3, summaries.length);
+		assertTrue(summaries[0], summaries[0].startsWith("SiteHandler count=1 "));
+		assertTrue(summaries[1], summaries[1].startsWith("PlainSiteHandler count=1 "));
+	}
+
+	@Test
+	public void shouldNotRunHandlersForRedirect() throws Exception
+	{
+		interceptor.postHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null,
+				new ModelAndView("redirect:/cart"));
+
+		assertTrue(seenSites.isEmpty());
+	}
+
+	@Test
+	public void shouldCreateTransientContextOutsideOfInterceptor() throws Exception
+	{
+		final MockServletContext servletContext = new MockServletContext();
+		final StaticWebApplicationContext applicationContext = new StaticWebApplicationContext();
+		applicationContext.setServletContext(servletContext);
+		applicationContext.getBeanFactory().registerSingleton("cmsSiteService", cmsSiteService);
+		applicationContext.getBeanFactory().registerSingleton("uiExperienceService", mock(UiExperienceService.class));
+		applicationContext.getBeanFactory().registerSingleton("commerceCommonI18NService",
+				mock(CommerceCommonI18NService.class));
+		applicationContext.getBeanFactory().registerSingleton("reqAddOnsNameProvider", mock(RequiredAddOnsNameProvider.class));
+		applicationContext.refresh();
+		servletContext.setAttribute(WebApplicationContext.ROOT_WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+		final MockHttpServletRequest request = new MockHttpServletRequest(servletContext);
+		request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, applicationContext);
+
+		new SiteHandler().beforeView(request, new MockHttpServletResponse(), new ModelAndView("pages/test"));
+
+		assertEquals(1, seenSites.size());
+		assertSame(site, seenSites.get(0));
+		assertNull(request.getAttribute(BeforeViewContext.REQUEST_ATTRIBUTE));
+	}
+
+	protected class SiteHandler implements ContextAwareBeforeViewHandler
+	{
+		@Override
+		public void beforeView(final HttpServletRequest request, final HttpServletResponse response,
+				final ModelAndView modelAndView, final BeforeViewContext context)
+		{
+			seenSites.add(context.getCurrentSite());
+		}
+	}
+
+	protected class PlainSiteHandler implements BeforeViewHandler
+	{
+		@Override
+		public void beforeView(final HttpServletRequest request, final HttpServletResponse response,
+				final ModelAndView modelAndView)
+		{
+			seenSites.add(BeforeViewContext.getCurrent(request).getCurrentSite());
+		}
+	}
+}
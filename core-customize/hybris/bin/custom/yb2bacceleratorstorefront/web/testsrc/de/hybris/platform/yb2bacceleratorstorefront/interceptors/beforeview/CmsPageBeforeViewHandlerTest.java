@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+@UnitTest
+public class CmsPageBeforeViewHandlerTest
+{
+	private static final String CSS_NAME_REGEX = "[^a-zA-Z0-9-]";
+
+	@Test
+	public void shouldSanitiseCssNamesLikeRegex()
+	{
+		assertSanitisedLikeRegex("homepage");
+		assertSanitisedLikeRegex("pages/layout/landingLayout2Page");
+		assertSanitisedLikeRegex("/my-account/order_history");
+		assertSanitisedLikeRegex("Seite für Übersicht");
+		assertSanitisedLikeRegex("emoji😀page");
+		assertSanitisedLikeRegex("");
+	}
+
+	@Test
+	public void shouldIgnoreNullCssName()
+	{
+		final StringBuilder builder = new StringBuilder("page-");
+
+		CmsPageBeforeViewHandler.appendCssName(builder, null);
+
+		Assert.assertEquals("page-", builder.toString());
+	}
+
+	protected void assertSanitisedLikeRegex(final String value)
+	{
+		final StringBuilder builder = new StringBuilder();
+		CmsPageBeforeViewHandler.appendCssName(builder, value);
+		Assert.assertEquals(value.replaceAll(CSS_NAME_REGEX, "-"), builder.toString());
+	}
+}
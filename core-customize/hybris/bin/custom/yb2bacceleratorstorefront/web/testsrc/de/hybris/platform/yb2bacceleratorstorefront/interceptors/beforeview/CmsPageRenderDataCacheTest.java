@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.cache.InvalidationListener;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.yb2bacceleratorstorefront.interceptors.beforeview.CmsPageRenderDataCache.PageRenderData;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class CmsPageRenderDataCacheTest
+{
+	private static final int CMS_TYPE_CODE = 1100;
+	private static final int OTHER_TYPE_CODE = 1;
+
+	private final PK pagePk = PK.createFixedUUIDPK(CMS_TYPE_CODE, 1);
+
+	private CmsPageRenderDataCache cache;
+
+	@Before
+	public void setUp()
+	{
+		cache = new CmsPageRenderDataCache()
+		{
+			@Override
+			protected Set<Integer> resolveTypeCodes()
+			{
+				return Collections.singleton(Integer.valueOf(CMS_TYPE_CODE));
+			}
+		};
+	}
+
+	@Test
+	public void shouldReturnCachedDataForCurrentVersion()
+	{
+		final PageRenderData data = createData(cache.getContentVersion());
+		cache.put(pagePk, data);
+
+		Assert.assertSame(data, cache.get(pagePk));
+		Assert.assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void shouldNotCacheDataComputedForOutdatedVersion()
+	{
+		final long version = cache.getContentVersion();
+		cache.clear();
+
+		cache.put(pagePk, createData(version));
+
+		Assert.assertEquals(0, cache.getSize());
+		Assert.assertNull(cache.get(pagePk));
+	}
+
+	@Test
+	public void shouldClearOnInvalidationOfCmsItem()
+	{
+		cache.put(pagePk, createData(cache.getContentVersion()));
+		cache.get(pagePk);
+		final InvalidationListener listener = cache.new CmsInvalidationListener();
+
+		listener.keyInvalidated(new Object[]
+		{ "1", PK.createFixedUUIDPK(OTHER_TYPE_CODE, 2) }, 0, null, null);
+		Assert.assertNotNull(cache.get(pagePk));
+
+		listener.keyInvalidated(new Object[]
+		{ "1", PK.createFixedUUIDPK(CMS_TYPE_CODE, 3) }, 0, null, null);
+		Assert.assertNull(cache.get(pagePk));
+		Assert.assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void shouldNotCacheWhenDisabled()
+	{
+		cache.setEnabled(false);
+
+		cache.put(pagePk, createData(cache.getContentVersion()));
+
+		Assert.assertNull(cache.get(pagePk));
+		Assert.assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void shouldClearWhenFull()
+	{
+		cache.setMaxEntries(1);
+		cache.put(pagePk, createData(cache.getContentVersion()));
+
+		cache.put(PK.createFixedUUIDPK(CMS_TYPE_CODE, 2), createData(cache.getContentVersion()));
+
+		Assert.assertEquals(1, cache.getSize());
+		Assert.assertNull(cache.get(pagePk));
+	}
+
+	protected PageRenderData createData(final long contentVersion)
+	{
+		return new PageRenderData(contentVersion, "page-homepage", Collections.singleton("cmsaction.js"));
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+
+@UnitTest
+public class FilterChainMetricsTest
+{
+	private static final long SLEEP_MILLIS = 20;
+
+	private FilterChainMetrics metrics;
+	private List<Filter> filters;
+
+	@Before
+	public void setUp()
+	{
+		metrics = new FilterChainMetrics();
+		filters = metrics.wrapFilters(Arrays.<Filter> asList(new TestFilter(0), new TestFilter(SLEEP_MILLIS), new TestFilter(0)),
+				Arrays.asList("first", "sleeping", "last"));
+	}
+
+	@Test
+	public void shouldRecordSelfTimeExcludingDownstreamFilters() throws IOException, ServletException
+	{
+		new ListFilterChain(filters, SLEEP_MILLIS).doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		final String[] summaries = metrics.getFilterSummaries();
+		assertEquals(3, summaries.length);
+		assertTrue(summaries[0], getMax(summaries[0]) < TimeUnit.MILLISECONDS.toMicros(SLEEP_MILLIS));
+		assertTrue(summaries[1], getMax(summaries[1]) >= TimeUnit.MILLISECONDS.toMicros(SLEEP_MILLIS));
+		// the time spent after the last filter does not count as its self time
+		assertTrue(summaries[2], getMax(summaries[2]) < TimeUnit.MILLISECONDS.toMicros(SLEEP_MILLIS));
+	}
+
+	@Test
+	public void shouldKeepSlowestTracedRequests() throws IOException, ServletException
+	{
+		metrics.setTraceSampleRate(1);
+		metrics.setSlowestRequestCount(2);
+		for (int i = 0; i < 3; i++)
+		{
+			final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/request" + i);
+			new ListFilterChain(filters, 0).doFilter(request, new MockHttpServletResponse());
+		}
+
+		final String[] slowest = metrics.getSlowestRequests();
+		assertEquals(2, slowest.length);
+		assertTrue(slowest[0], slowest[0].startsWith("/request") && slowest[0].contains(" sleeping="));
+	}
+
+	@Test
+	public void shouldNotTraceByDefault() throws IOException, ServletException
+	{
+		new ListFilterChain(filters, 0).doFilter(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		assertEquals(0, metrics.getSlowestRequests().length);
+	}
+
+	private static long getMax(final String summary)
+	{
+		return Long.parseLong(summary.substring(summary.indexOf(" max=") + 5));
+	}
+
+	private static class TestFilter implements Filter
+	{
+		private final long sleepMillis;
+
+		TestFilter(final long sleepMillis)
+		{
+			this.sleepMillis = sleepMillis;
+		}
+
+		@Override
+		public void init(final FilterConfig filterConfig)
+		{
+			// nothing to do
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response, final FilterChain chain)
+				throws IOException, ServletException
+		{
+			sleep(sleepMillis);
+			chain.doFilter(request, response);
+		}
+
+		@Override
+		public void destroy()
+		{
+			// nothing to do
+		}
+	}
+
+	/**
+	 * Runs the filters in order like the platform filter chain, then spends the given time in the "servlet".
+	 */
+	private static class ListFilterChain implements FilterChain
+	{
+		private final List<Filter> filters;
+		private final long servletMillis;
+		private int position;
+
+		ListFilterChain(final List<Filter> filters, final long servletMillis)
+		{
+			this.filters = filters;
+			this.servletMillis = servletMillis;
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException, ServletException
+		{
+			if (position < filters.size())
+			{
+				filters.get(position++).doFilter(request, response, this);
+			}
+			else
+			{
+				sleep(servletMillis);
+			}
+		}
+	}
+
+	private static void sleep(final long millis)
+	{
+		if (millis > 0)
+		{
+			try
+			{
+				Thread.sleep(millis);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
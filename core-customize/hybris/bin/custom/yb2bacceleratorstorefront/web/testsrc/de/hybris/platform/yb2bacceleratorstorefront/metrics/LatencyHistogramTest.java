@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+
+@UnitTest
+public class LatencyHistogramTest
+{
+	@Test
+	public void shouldMapValuesToAdjacentBuckets()
+	{
+		int previousIndex = -1;
+		for (long value = 0; value < 1_000_000; value++)
+		{
+			final int index = LatencyHistogram.getBucketIndex(value);
+			assertTrue(index == previousIndex || index == previousIndex + 1);
+			assertTrue(LatencyHistogram.getLowestValue(index) <= value);
+			assertTrue(LatencyHistogram.getHighestValue(index) >= value);
+			previousIndex = index;
+		}
+		assertEquals(LatencyHistogram.MAX_VALUE,
+				LatencyHistogram.getHighestValue(LatencyHistogram.getBucketIndex(LatencyHistogram.MAX_VALUE)));
+	}
+
+	@Test
+	public void shouldReportPercentilesWithinBucketPrecision()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for (int millis = 1; millis <= 1000; millis++)
+		{
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+
+		final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(1000, snapshot.getCount());
+		assertEquals(1_000_000, snapshot.getMax());
+		assertEquals(500_500, snapshot.getMean());
+		assertWithinPrecision(500_000, snapshot.getValueAtPercentile(50));
+		assertWithinPrecision(990_000, snapshot.getValueAtPercentile(99));
+		assertEquals(1_000_000, snapshot.getValueAtPercentile(100));
+	}
+
+	@Test
+	public void shouldClampOutOfRangeValues()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-1);
+		histogram.record(Long.MAX_VALUE);
+
+		final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+		assertEquals(2, snapshot.getCount());
+		assertEquals(0, snapshot.getValueAtPercentile(50));
+		assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getMax());
+	}
+
+	@Test
+	public void shouldClearOnReset()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+		histogram.reset();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getSnapshot().getValueAtPercentile(99));
+	}
+
+	private static void assertWithinPrecision(final long expected, final long actual)
+	{
+		assertTrue("expected " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 16);
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.acceleratorfacades.futurestock.FutureStockFacade;
+import de.hybris.platform.commercefacades.product.data.FutureStockData;
+import de.hybris.platform.commercefacades.product.data.StockData;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.store.services.BaseStoreService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+import org.fest.assertions.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+/**
+ * Compares the cost of the future stock requests of the order form grid with 200 SKUs, as B2B buyers send them, with
+ * the previous implementation, which resolved every request with the future stock facade, copied the result into a new
+ * map and serialized it with an object mapper. The facade is simulated with a fixed latency per call, standing in for
+ * the round trip to the future stock service.
+ */
+@PerformanceTest
+public class BatchedFutureStockLookupPerformanceTest
+{
+	private static final Logger LOG = Logger.getLogger(BatchedFutureStockLookupPerformanceTest.class);
+
+	private static final String PRODUCT_CODE = "base";
+	private static final int SKUS = 200;
+	private static final int FUTURE_STOCKS_PER_SKU = 3;
+	private static final long FACADE_LATENCY_NANOS = 2_000_000L;
+	private static final int WARMUP_ITERATIONS = 100;
+	private static final int MEASURED_ITERATIONS = 500;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private FutureStockFacade futureStockFacade;
+	private BatchedFutureStockLookup lookup;
+	private List<String> skus;
+
+	@Before
+	public void setUp()
+	{
+		skus = new ArrayList<>(SKUS);
+		for (int i = 0; i < SKUS; i++)
+		{
+			skus.add(PRODUCT_CODE + "_" + i);
+		}
+
+		futureStockFacade = Mockito.mock(FutureStockFacade.class);
+		Mockito.when(futureStockFacade.getFutureAvailabilityForSelectedVariants(Matchers.anyString(),
+				Matchers.anyListOf(String.class))).thenAnswer(invocation -> {
+					LockSupport.parkNanos(FACADE_LATENCY_NANOS);
+					@SuppressWarnings("unchecked")
+					final List<String> requestedSkus = (List<String>) invocation.getArguments()[1];
+					final Map<String, List<FutureStockData>> result = new HashMap<>();
+					for (final String sku : requestedSkus)
+					{
+						result.put(sku, createFutureStocks());
+					}
+					return result;
+				});
+
+		final BaseStoreService baseStoreService = Mockito.mock(BaseStoreService.class);
+		final BaseStoreModel baseStore = new BaseStoreModel();
+		baseStore.setUid("powertools");
+		Mockito.when(baseStoreService.getCurrentBaseStore()).thenReturn(baseStore);
+		final CommerceCommonI18NService commerceCommonI18NService = Mockito.mock(CommerceCommonI18NService.class);
+		final LanguageModel language = new LanguageModel();
+		language.setIsocode("en");
+		Mockito.when(commerceCommonI18NService.getCurrentLanguage()).thenReturn(language);
+
+		lookup = new BatchedFutureStockLookup();
+		lookup.setFutureStockFacade(futureStockFacade);
+		lookup.setBaseStoreService(baseStoreService);
+		lookup.setCommerceCommonI18NService(commerceCommonI18NService);
+	}
+
+	@Test
+	public void compareBatchedWithPerRequestLookup() throws IOException
+	{
+		final JsonNode batched = objectMapper.readTree(runBatched());
+		final JsonNode legacy = objectMapper.readTree(runLegacy());
+		Assertions.assertThat(batched.size()).isEqualTo(legacy.size());
+		for (final String sku : skus)
+		{
+			for (int i = 0; i < FUTURE_STOCKS_PER_SKU; i++)
+			{
+				Assertions.assertThat(batched.get(sku).get(i).get("formattedDate"))
+						.isEqualTo(legacy.get(sku).get(i).get("formattedDate"));
+				Assertions.assertThat(batched.get(sku).get(i).get("stock").get("stockLevel"))
+						.isEqualTo(legacy.get(sku).get(i).get("stock").get("stockLevel"));
+			}
+		}
+
+		run(false, WARMUP_ITERATIONS);
+		run(true, WARMUP_ITERATIONS);
+
+		final long legacyNanos = run(false, MEASURED_ITERATIONS);
+		lookup.setTimeToLive(-1);
+		final long uncachedNanos = run(true, MEASURED_ITERATIONS);
+		lookup.setTimeToLive(60000);
+		final long cachedNanos = run(true, MEASURED_ITERATIONS);
+
+		LOG.info(String.format(
+				"Future stock of %d SKUs: per request lookup %.1f us/op, batched without cache hits %.1f us/op, "
+						+ "batched with cache hits %.1f us/op",
+				Integer.valueOf(SKUS), Double.valueOf(legacyNanos / 1e3 / MEASURED_ITERATIONS),
+				Double.valueOf(uncachedNanos / 1e3 / MEASURED_ITERATIONS), Double.valueOf(cachedNanos / 1e3 / MEASURED_ITERATIONS)));
+	}
+
+	protected long run(final boolean batched, final int iterations) throws IOException
+	{
+		long bytes = 0;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			bytes += batched ? runBatched().length : runLegacy().length;
+		}
+		final long elapsed = System.nanoTime() - start;
+		Assertions.assertThat(bytes).isGreaterThan(0);
+		return elapsed;
+	}
+
+	protected byte[] runBatched() throws IOException
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		lookup.write(lookup.getFutureAvailability(PRODUCT_CODE, skus), out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * The lookup as done before the batched lookup, with the response body written by the message converter.
+	 */
+	protected byte[] runLegacy() throws IOException
+	{
+		final Map<String, Object> result = new HashMap<>();
+		for (final Map.Entry<String, List<FutureStockData>> entry : futureStockFacade
+				.getFutureAvailabilityForSelectedVariants(PRODUCT_CODE, skus).entrySet())
+		{
+			result.put(entry.getKey(), entry.getValue());
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		objectMapper.writeValue(out, result);
+		return out.toByteArray();
+	}
+
+	protected List<FutureStockData> createFutureStocks()
+	{
+		final List<FutureStockData> futureStocks = new ArrayList<>(FUTURE_STOCKS_PER_SKU);
+		for (int i = 1; i <= FUTURE_STOCKS_PER_SKU; i++)
+		{
+			final StockData stock = new StockData();
+			stock.setStockLevel(Long.valueOf(i * 10L));
+			final FutureStockData futureStock = new FutureStockData();
+			futureStock.setStock(stock);
+			futureStock.setDate(new Date(i * 86_400_000L));
+			futureStock.setFormattedDate(String.format("0%d/01/1970", Integer.valueOf(i + 1)));
+			futureStocks.add(futureStock);
+		}
+		return futureStocks;
+	}
+}
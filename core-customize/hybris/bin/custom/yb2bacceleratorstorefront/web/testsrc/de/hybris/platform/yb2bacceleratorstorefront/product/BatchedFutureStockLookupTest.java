@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorfacades.futurestock.FutureStockFacade;
+import de.hybris.platform.commercefacades.product.data.FutureStockData;
+import de.hybris.platform.commercefacades.product.data.StockData;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.store.services.BaseStoreService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+@UnitTest
+public class BatchedFutureStockLookupTest
+{
+	private final FutureStockFacade futureStockFacade = mock(FutureStockFacade.class);
+	private final BaseStoreService baseStoreService = mock(BaseStoreService.class);
+	private final CommerceCommonI18NService commerceCommonI18NService = mock(CommerceCommonI18NService.class);
+
+	private BatchedFutureStockLookup lookup;
+
+	@Before
+	public void setUp()
+	{
+		final BaseStoreModel baseStore = new BaseStoreModel();
+		baseStore.setUid("powertools");
+		when(baseStoreService.getCurrentBaseStore()).thenReturn(baseStore);
+		final LanguageModel language = new LanguageModel();
+		language.setIsocode("en");
+		when(commerceCommonI18NService.getCurrentLanguage()).thenReturn(language);
+
+		when(futureStockFacade.getFutureAvailabilityForSelectedVariants(anyString(), anyListOf(String.class)))
+				.thenAnswer(invocation -> {
+					@SuppressWarnings("unchecked")
+					final List<String> skus = (List<String>) invocation.getArguments()[1];
+					final Map<String, List<FutureStockData>> result = new HashMap<>();
+					for (final String sku : skus)
+					{
+						if (!sku.endsWith("_none"))
+						{
+							result.put(sku, Collections.singletonList(createFutureStock(sku.length())));
+						}
+					}
+					return result;
+				});
+
+		lookup = new BatchedFutureStockLookup();
+		lookup.setFutureStockFacade(futureStockFacade);
+		lookup.setBaseStoreService(baseStoreService);
+		lookup.setCommerceCommonI18NService(commerceCommonI18NService);
+	}
+
+	@Test
+	public void shouldResolveMissingSkusInOneBatch()
+	{
+		final Map<String, List<FutureStockData>> first = lookup.getFutureAvailability("base",
+				Arrays.asList("s1", "s2", "s3_none"));
+		final Map<String, List<FutureStockData>> second = lookup.getFutureAvailability("base",
+				Arrays.asList("s4", "s2", "s1", "s3_none"));
+
+		assertEquals(Arrays.asList("s1", "s2"), Arrays.asList(first.keySet().toArray()));
+		assertEquals(Arrays.asList("s4", "s2", "s1"), Arrays.asList(second.keySet().toArray()));
+		verify(futureStockFacade).getFutureAvailabilityForSelectedVariants("base", Arrays.asList("s1", "s2", "s3_none"));
+		verify(futureStockFacade).getFutureAvailabilityForSelectedVariants("base", Collections.singletonList("s4"));
+	}
+
+	@Test
+	public void shouldNotShareCacheBetweenProducts()
+	{
+		lookup.getFutureAvailability("base", Collections.singletonList("s1"));
+		lookup.getFutureAvailability("other", Collections.singletonList("s1"));
+
+		verify(futureStockFacade, times(2)).getFutureAvailabilityForSelectedVariants(anyString(), anyListOf(String.class));
+	}
+
+	@Test
+	public void shouldResolveAgainAfterTimeToLive()
+	{
+		lookup.setTimeToLive(-1);
+
+		lookup.getFutureAvailability("base", Collections.singletonList("s1"));
+		lookup.getFutureAvailability("base", Collections.singletonList("s1"));
+
+		verify(futureStockFacade, times(2)).getFutureAvailabilityForSelectedVariants("base", Collections.singletonList("s1"));
+	}
+
+	@Test
+	public void shouldNotCacheUnavailableService()
+	{
+		when(futureStockFacade.getFutureAvailabilityForSelectedVariants("base", Collections.singletonList("s1")))
+				.thenReturn(null);
+
+		assertNull(lookup.getFutureAvailability("base", Collections.singletonList("s1")));
+		assertNull(lookup.getFutureAvailability("base", Collections.singletonList("s1")));
+		verify(futureStockFacade, times(2)).getFutureAvailabilityForSelectedVariants("base", Collections.singletonList("s1"));
+	}
+
+	@Test
+	public void shouldWriteFutureStocksBySku() throws IOException
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		lookup.write(lookup.getFutureAvailability("base", Arrays.asList("s1", "s2_none")), out);
+
+		final JsonNode json = new ObjectMapper().readTree(out.toByteArray());
+		assertEquals(1, json.size());
+		final JsonNode futureStock = json.get("s1").get(0);
+		assertEquals(2, futureStock.get("stock").get("stockLevel").asInt());
+		assertEquals(1000, futureStock.get("date").asLong());
+		assertEquals("01/01/1970", futureStock.get("formattedDate").asText());
+	}
+
+	protected FutureStockData createFutureStock(final long stockLevel)
+	{
+		final StockData stock = new StockData();
+		stock.setStockLevel(Long.valueOf(stockLevel));
+		final FutureStockData futureStock = new FutureStockData();
+		futureStock.setStock(stock);
+		futureStock.setDate(new Date(1000));
+		futureStock.setFormattedDate("01/01/1970");
+		return futureStock;
+	}
+}
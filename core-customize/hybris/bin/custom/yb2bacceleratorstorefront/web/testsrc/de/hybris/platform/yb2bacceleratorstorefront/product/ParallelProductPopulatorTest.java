@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.commercefacades.product.ProductFacade;
+import de.hybris.platform.commercefacades.product.ProductOption;
+import de.hybris.platform.commercefacades.product.data.PriceData;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.commercefacades.product.data.StockData;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.yb2bacceleratorstorefront.metrics.HandlerMetrics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class ParallelProductPopulatorTest
+{
+	private final ProductModel productModel = mock(ProductModel.class);
+	private final ModelService modelService = mock(ModelService.class);
+	private final ProductFacade productFacade = mock(ProductFacade.class);
+	private final HandlerMetrics optionMetrics = new HandlerMetrics();
+	private final Map<ProductOption, String> populatingThreads = new ConcurrentHashMap<>();
+	private final CountDownLatch stockLatch = new CountDownLatch(1);
+	private volatile boolean ignoreInterrupts;
+
+	private ParallelProductPopulator populator;
+
+	@Before
+	public void setUp()
+	{
+		when(productModel.getPk()).thenReturn(PK.fromLong(1));
+		when(modelService.get(PK.fromLong(1))).thenReturn(productModel);
+		when(productFacade.getProductForOptions(same(productModel), anyCollectionOf(ProductOption.class)))
+				.thenAnswer(invocation -> {
+					@SuppressWarnings("unchecked")
+					final Collection<ProductOption> options = (Collection<ProductOption>) invocation.getArguments()[1];
+					final ProductData productData = new ProductData();
+					productData.setCode("1234");
+					populate(productData, options);
+					return productData;
+				});
+
+		final Map<String, List<ProductOption>> optionGroups = new LinkedHashMap<>();
+		optionGroups.put("price", Arrays.asList(ProductOption.PRICE, ProductOption.PRICE_RANGE));
+		optionGroups.put("stock", Arrays.asList(ProductOption.STOCK));
+		optionGroups.put("review", Arrays.asList(ProductOption.REVIEW));
+
+		populator = new ParallelProductPopulator();
+		populator.setProductFacade(productFacade);
+		populator.setModelService(modelService);
+		populator.setOptionGroups(optionGroups);
+		populator.setOptionMetrics(optionMetrics);
+		populator.setEnabled(true);
+		populator.setThreads(2);
+		populator.setTimeoutMillis(5000);
+	}
+
+	@After
+	public void tearDown()
+	{
+		stockLatch.countDown();
+		populator.destroy();
+	}
+
+	@Test
+	public void shouldPopulateGroupsConcurrently()
+	{
+		stockLatch.countDown();
+		populator.init();
+
+		final ProductData productData = populator.getProductForOptions(productModel,
+				Arrays.asList(ProductOption.BASIC, ProductOption.PRICE, ProductOption.STOCK, ProductOption.REVIEW));
+
+		assertEquals("1234", productData.getCode());
+		assertEquals("name", productData.getName());
+		assertEquals("EUR", productData.getPrice().getCurrencyIso());
+		assertNotNull(productData.getStock());
+		assertEquals(Integer.valueOf(3), productData.getNumberOfReviews());
+
+		final String requestThread = Thread.currentThread().getName();
+		assertEquals(requestThread, populatingThreads.get(ProductOption.BASIC));
+		assertTrue(populatingThreads.get(ProductOption.PRICE).startsWith("product-populator-"));
+		assertTrue(populatingThreads.get(ProductOption.STOCK).startsWith("product-populator-"));
+		assertTrue(populatingThreads.get(ProductOption.REVIEW).startsWith("product-populator-"));
+	}
+
+	@Test
+	public void shouldPopulateGroupOnRequestThreadAfterTimeout()
+	{
+		populator.setTimeoutMillis(50);
+		populator.init();
+
+		final ProductData productData = populator.getProductForOptions(productModel,
+				Arrays.asList(ProductOption.BASIC, ProductOption.STOCK));
+
+		assertEquals(Thread.currentThread().getName(), populatingThreads.get(ProductOption.STOCK));
+		assertNotNull(productData.getStock());
+	}
+
+	@Test
+	public void shouldLeaveOutGroupThatDoesNotStopAfterTimeout()
+	{
+		ignoreInterrupts = true;
+		populator.setTimeoutMillis(50);
+		populator.init();
+
+		final ProductData productData = populator.getProductForOptions(productModel,
+				Arrays.asList(ProductOption.BASIC, ProductOption.STOCK));
+
+		assertNull(populatingThreads.get(ProductOption.STOCK));
+		assertNull(productData.getStock());
+		assertEquals("name", productData.getName());
+	}
+
+	@Test
+	public void shouldPopulateSequentiallyIfDisabled()
+	{
+		populator.setEnabled(false);
+		populator.init();
+
+		final ProductData productData = populator.getProductForOptions(productModel,
+				Arrays.asList(ProductOption.BASIC, ProductOption.REVIEW));
+
+		assertEquals(Thread.currentThread().getName(), populatingThreads.get(ProductOption.REVIEW));
+		assertEquals(Integer.valueOf(3), productData.getNumberOfReviews());
+	}
+
+	@Test
+	public void shouldRecordTimePerGroup()
+	{
+		stockLatch.countDown();
+		populator.init();
+
+		populator.getProductForOptions(productModel, Arrays.asList(ProductOption.BASIC, ProductOption.PRICE));
+
+		final String[] summaries = optionMetrics.getHandlerSummaries();
+		assertEquals(4, summaries.length);
+		assertTrue(summaries[0], summaries[0].startsWith("requestThread count=1 "));
+		assertTrue(summaries[1], summaries[1].startsWith("price count=1 "));
+		assertTrue(summaries[2], summaries[2].startsWith("stock count=0 "));
+	}
+
+	protected void populate(final ProductData target, final Collection<ProductOption> options)
+	{
+		for (final ProductOption option : options)
+		{
+			final boolean worker = Thread.currentThread().getName().startsWith("product-populator-");
+			if (option == ProductOption.STOCK && worker && !awaitStockLatch())
+			{
+				return;
+			}
+			populatingThreads.put(option, Thread.currentThread().getName());
+
+			if (option == ProductOption.BASIC)
+			{
+				target.setName("name");
+			}
+			else if (option == ProductOption.PRICE)
+			{
+				final PriceData price = new PriceData();
+				price.setCurrencyIso("EUR");
+				target.setPrice(price);
+			}
+			else if (option == ProductOption.STOCK)
+			{
+				target.setStock(new StockData());
+			}
+			else if (option == ProductOption.REVIEW)
+			{
+				target.setNumberOfReviews(Integer.valueOf(3));
+			}
+		}
+	}
+
+	protected boolean awaitStockLatch()
+	{
+		while (true)
+		{
+			try
+			{
+				return stockLatch.await(10, TimeUnit.SECONDS);
+			}
+			catch (final InterruptedException e)
+			{
+				if (!ignoreInterrupts)
+				{
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorcms.data.CmsPageRequestContextData;
+import de.hybris.platform.acceleratorcms.services.CMSPageContextService;
+import de.hybris.platform.acceleratorservices.data.RequestContextData;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.cms2.servicelayer.services.CMSSiteService;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+import de.hybris.platform.commerceservices.i18n.CommerceCommonI18NService;
+import de.hybris.platform.core.model.c2l.CurrencyModel;
+import de.hybris.platform.core.model.c2l.LanguageModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.variants.model.VariantProductModel;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+
+@UnitTest
+public class ProductFragmentCacheTest
+{
+	private final UserService userService = mock(UserService.class);
+	private final CMSPageContextService cmsPageContextService = mock(CMSPageContextService.class);
+	private final CMSSiteService cmsSiteService = mock(CMSSiteService.class);
+	private final CommerceCommonI18NService commerceCommonI18NService = mock(CommerceCommonI18NService.class);
+	private final UiExperienceService uiExperienceService = mock(UiExperienceService.class);
+	private final CatalogVersionService catalogVersionService = mock(CatalogVersionService.class);
+	private final RequestContextData requestContextData = new RequestContextData();
+	private final MockHttpServletRequest request = new MockHttpServletRequest();
+	private final ProductData product = new ProductData();
+
+	private ProductFragmentCache cache;
+
+	@Before
+	public void setUp()
+	{
+		final UserModel user = new UserModel();
+		when(userService.getCurrentUser()).thenReturn(user);
+		when(userService.isAnonymousUser(user)).thenReturn(Boolean.TRUE);
+		when(cmsPageContextService.getCmsPageRequestContextData(any(HttpServletRequest.class)))
+				.thenReturn(mock(CmsPageRequestContextData.class));
+
+		final CMSSiteModel site = new CMSSiteModel();
+		site.setUid("powertools");
+		when(cmsSiteService.getCurrentSite()).thenReturn(site);
+		final LanguageModel language = new LanguageModel();
+		language.setIsocode("en");
+		when(commerceCommonI18NService.getCurrentLanguage()).thenReturn(language);
+		final CurrencyModel currency = new CurrencyModel();
+		currency.setIsocode("USD");
+		when(commerceCommonI18NService.getCurrentCurrency()).thenReturn(currency);
+		when(uiExperienceService.getUiExperienceLevel()).thenReturn(UiExperienceLevel.DESKTOP);
+		when(catalogVersionService.getSessionCatalogVersions()).thenReturn(Collections.emptyList());
+
+		final ProductModel productModel = new ProductModel();
+		productModel.setCode("1234");
+		productModel.setModifiedtime(new Date(1000));
+		requestContextData.setProduct(productModel);
+		product.setCode("1234");
+		request.setContextPath("/yb2bacceleratorstorefront");
+
+		cache = new ProductFragmentCache()
+		{
+			@Override
+			protected RequestContextData getRequestContextData(final HttpServletRequest request)
+			{
+				return requestContextData;
+			}
+
+			@Override
+			protected Set<Integer> getInvalidatingTypeCodes()
+			{
+				return Collections.emptySet();
+			}
+		};
+		cache.setUserService(userService);
+		cache.setCmsPageContextService(cmsPageContextService);
+		cache.setCmsSiteService(cmsSiteService);
+		cache.setCommerceCommonI18NService(commerceCommonI18NService);
+		cache.setUiExperienceService(uiExperienceService);
+		cache.setCatalogVersionService(catalogVersionService);
+		cache.setEnabled(true);
+	}
+
+	@Test
+	public void shouldKeyFragmentByContextAndProduct()
+	{
+		final String key = cache.getKey(request, "productImagePanel", product);
+
+		assertEquals("/yb2bacceleratorstorefront|powertools||en|USD|DESKTOP|1234|1000|productImagePanel", key);
+		assertNotEquals(key, cache.getKey(request, "productSpecsTab", product));
+
+		requestContextData.getProduct().setModifiedtime(new Date(2000));
+		assertNotEquals(key, cache.getKey(request, "productImagePanel", product));
+	}
+
+	@Test
+	public void shouldKeyVariantFragmentByBaseProductModification()
+	{
+		final ProductModel baseProduct = new ProductModel();
+		baseProduct.setCode("base");
+		baseProduct.setModifiedtime(new Date(500));
+		final VariantProductModel variant = new VariantProductModel();
+		variant.setCode("1234");
+		variant.setModifiedtime(new Date(1000));
+		variant.setBaseProduct(baseProduct);
+		requestContextData.setProduct(variant);
+
+		final String key = cache.getKey(request, "productDetailsTab", product);
+		assertEquals("/yb2bacceleratorstorefront|powertools||en|USD|DESKTOP|1234|1000,500|productDetailsTab", key);
+
+		baseProduct.setModifiedtime(new Date(2000));
+		assertNotEquals(key, cache.getKey(request, "productDetailsTab", product));
+	}
+
+	@Test
+	public void shouldKeyFragmentByContextPath()
+	{
+		final String key = cache.getKey(request, "productImagePanel", product);
+
+		request.setContextPath("/yb2bacceleratorstorefront2");
+		assertNotEquals(key, cache.getKey(request, "productImagePanel", product));
+	}
+
+	@Test
+	public void shouldNotCacheForCustomers()
+	{
+		when(userService.isAnonymousUser(any(UserModel.class))).thenReturn(Boolean.FALSE);
+
+		assertNull(cache.getKey(request, "productImagePanel", product));
+	}
+
+	@Test
+	public void shouldNotCacheOtherProduct()
+	{
+		product.setCode("5678");
+
+		assertNull(cache.getKey(request, "productImagePanel", product));
+	}
+
+	@Test
+	public void shouldReturnFragmentOfCurrentVersion()
+	{
+		cache.put("key", "<div/>", cache.getContentVersion());
+		assertEquals("<div/>", cache.get("key"));
+
+		final long version = cache.getContentVersion();
+		cache.clear();
+		assertNull(cache.get("key"));
+
+		cache.put("key", "<div/>", version);
+		assertNull(cache.get("key"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void shouldNotCacheLargeOrExpiredFragments()
+	{
+		cache.setMaxFragmentLength(5);
+		cache.put("large", "<div/>", cache.getContentVersion());
+		assertNull(cache.get("large"));
+
+		cache.setMaxFragmentLength(100);
+		cache.setTimeToLive(-1);
+		cache.put("expired", "<div/>", cache.getContentVersion());
+		assertNull(cache.get("expired"));
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.model.product.ProductModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+
+@UnitTest
+public class RequestCachingProductServiceTest
+{
+	private final List<String> loadedCodes = new ArrayList<>();
+	private final RequestCachingProductService productService = new RequestCachingProductService()
+	{
+		@Override
+		protected ProductModel loadProductForCode(final String code)
+		{
+			loadedCodes.add(code);
+			return new ProductModel();
+		}
+	};
+
+	@After
+	public void tearDown()
+	{
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	public void shouldResolveProductOncePerRequest()
+	{
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+		final ProductModel product = productService.getProductForCode("1234");
+		assertSame(product, productService.getProductForCode("1234"));
+		productService.getProductForCode("5678");
+		assertEquals(2, loadedCodes.size());
+
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		productService.getProductForCode("1234");
+		assertEquals(3, loadedCodes.size());
+	}
+
+	@Test
+	public void shouldNotCacheOutsideOfRequest()
+	{
+		productService.getProductForCode("1234");
+		productService.getProductForCode("1234");
+
+		assertEquals(2, loadedCodes.size());
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.product;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.basecommerce.enums.StockLevelStatus;
+import de.hybris.platform.commercefacades.product.PriceDataFactory;
+import de.hybris.platform.commercefacades.product.data.ImageData;
+import de.hybris.platform.commercefacades.product.data.PriceData;
+import de.hybris.platform.commercefacades.product.data.PriceDataType;
+import de.hybris.platform.commercefacades.product.data.ProductData;
+import de.hybris.platform.commercefacades.product.data.VariantCategoryData;
+import de.hybris.platform.commercefacades.product.data.VariantMatrixElementData;
+import de.hybris.platform.commercefacades.product.data.VariantOptionData;
+import de.hybris.platform.commercefacades.product.data.VariantValueCategoryData;
+import de.hybris.platform.commerceservices.price.CommercePriceService;
+import de.hybris.platform.commerceservices.product.ImageFormatMapping;
+import de.hybris.platform.commerceservices.stock.CommerceStockService;
+import de.hybris.platform.commerceservices.stock.strategies.CommerceAvailabilityCalculationStrategy;
+import de.hybris.platform.commerceservices.url.UrlResolver;
+import de.hybris.platform.core.model.media.MediaContainerModel;
+import de.hybris.platform.core.model.media.MediaFormatModel;
+import de.hybris.platform.core.model.media.MediaModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.jalo.order.price.PriceInformation;
+import de.hybris.platform.ordersplitting.model.StockLevelModel;
+import de.hybris.platform.ordersplitting.model.WarehouseModel;
+import de.hybris.platform.servicelayer.dto.converter.Converter;
+import de.hybris.platform.servicelayer.exceptions.ModelNotFoundException;
+import de.hybris.platform.servicelayer.media.MediaContainerService;
+import de.hybris.platform.servicelayer.media.MediaService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.stock.strategy.StockLevelStatusStrategy;
+import de.hybris.platform.store.BaseStoreModel;
+import de.hybris.platform.store.services.BaseStoreService;
+import de.hybris.platform.util.PriceValue;
+import de.hybris.platform.variants.model.VariantProductModel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+
+@UnitTest
+public class VariantMatrixJsonWriterTest
+{
+	private final CommercePriceService commercePriceService = mock(CommercePriceService.class);
+	private final PriceDataFactory priceDataFactory = mock(PriceDataFactory.class);
+	private final CommerceStockService commerceStockService = mock(CommerceStockService.class);
+	private final CommerceAvailabilityCalculationStrategy calculationStrategy = mock(
+			CommerceAvailabilityCalculationStrategy.class);
+	private final StockLevelStatusStrategy stockLevelStatusStrategy = mock(StockLevelStatusStrategy.class);
+	private final BaseStoreService baseStoreService = mock(BaseStoreService.class);
+	private final FlexibleSearchService flexibleSearchService = mock(FlexibleSearchService.class);
+	@SuppressWarnings("unchecked")
+	private final UrlResolver<ProductModel> productModelUrlResolver = mock(UrlResolver.class);
+	private final ImageFormatMapping imageFormatMapping = mock(ImageFormatMapping.class);
+	private final MediaService mediaService = mock(MediaService.class);
+	private final MediaContainerService mediaContainerService = mock(MediaContainerService.class);
+	@SuppressWarnings("unchecked")
+	private final Converter<MediaModel, ImageData> imageConverter = mock(Converter.class);
+	private final ProductModel baseProduct = new ProductModel();
+	private final ProductData productData = new ProductData();
+	private final BaseStoreModel baseStore = new BaseStoreModel();
+
+	private VariantMatrixJsonWriter writer;
+
+	@Before
+	public void setUp()
+	{
+		final List<VariantProductModel> variants = new ArrayList<>();
+		final List<VariantMatrixElementData> matrix = new ArrayList<>();
+		for (final String color : Arrays.asList("black", "red", "blue"))
+		{
+			final List<VariantMatrixElementData> sizes = new ArrayList<>();
+			for (final String size : Arrays.asList("S", "M"))
+			{
+				final VariantProductModel variant = new VariantProductModel();
+				variant.setCode(color + "_" + size);
+				variants.add(variant);
+				when(commercePriceService.getWebPriceForProduct(variant))
+						.thenReturn(new PriceInformation(new PriceValue("USD", 10.0, true)));
+				when(productModelUrlResolver.resolve(variant)).thenReturn("/p/" + variant.getCode());
+				sizes.add(createElement("Size", size, variant.getCode(), Collections.emptyList()));
+			}
+			matrix.add(createElement("Color", color, color + "_S", sizes));
+		}
+		baseProduct.setCode("base");
+		baseProduct.setVariants(variants);
+
+		final MediaContainerModel mediaContainer = new MediaContainerModel();
+		variants.get(0).setGalleryImages(Collections.singletonList(mediaContainer));
+		final MediaFormatModel swatchFormat = new MediaFormatModel();
+		final MediaFormatModel thumbnailFormat = new MediaFormatModel();
+		when(imageFormatMapping.getMediaFormatQualifierForImageFormat("styleSwatch")).thenReturn("30Wx30H");
+		when(imageFormatMapping.getMediaFormatQualifierForImageFormat("thumbnail")).thenReturn("96Wx96H");
+		when(mediaService.getFormat("30Wx30H")).thenReturn(swatchFormat);
+		when(mediaService.getFormat("96Wx96H")).thenReturn(thumbnailFormat);
+		final MediaModel swatch = new MediaModel();
+		when(mediaContainerService.getMediaForFormat(mediaContainer, swatchFormat)).thenReturn(swatch);
+		when(mediaContainerService.getMediaForFormat(mediaContainer, thumbnailFormat))
+				.thenThrow(new ModelNotFoundException("no thumbnail"));
+		final ImageData image = new ImageData();
+		image.setUrl("/medias/black_S.jpg");
+		when(imageConverter.convert(swatch)).thenReturn(image);
+		productData.setCode("base");
+		productData.setVariantMatrix(matrix);
+
+		final PriceData price = new PriceData();
+		price.setCurrencyIso("USD");
+		price.setValue(BigDecimal.TEN);
+		price.setFormattedValue("$10.00");
+		when(priceDataFactory.create(PriceDataType.BUY, BigDecimal.valueOf(10.0), "USD")).thenReturn(price);
+
+		baseStore.setWarehouses(Collections.singletonList(new WarehouseModel()));
+		when(baseStoreService.getCurrentBaseStore()).thenReturn(baseStore);
+		when(commerceStockService.isStockSystemEnabled(baseStore)).thenReturn(Boolean.TRUE);
+		final StockLevelModel stockLevel = new StockLevelModel();
+		stockLevel.setProductCode("black_S");
+		@SuppressWarnings("unchecked")
+		final SearchResult<StockLevelModel> searchResult = mock(SearchResult.class);
+		when(searchResult.getResult()).thenReturn(Collections.singletonList(stockLevel));
+		when(flexibleSearchService.<StockLevelModel> search(any(FlexibleSearchQuery.class))).thenReturn(searchResult);
+		when(calculationStrategy.calculateAvailability(Collections.singletonList(stockLevel))).thenReturn(Long.valueOf(5));
+		when(calculationStrategy.calculateAvailability(Collections.emptyList())).thenReturn(Long.valueOf(0));
+		when(stockLevelStatusStrategy.checkStatus(Collections.singletonList(stockLevel))).thenReturn(StockLevelStatus.INSTOCK);
+		when(stockLevelStatusStrategy.checkStatus(Collections.<StockLevelModel> emptyList()))
+				.thenReturn(StockLevelStatus.OUTOFSTOCK);
+
+		writer = new VariantMatrixJsonWriter();
+		writer.setCommercePriceService(commercePriceService);
+		writer.setPriceDataFactory(priceDataFactory);
+		writer.setCommerceStockService(commerceStockService);
+		writer.setCommerceStockLevelCalculationStrategy(calculationStrategy);
+		writer.setStockLevelStatusStrategy(stockLevelStatusStrategy);
+		writer.setBaseStoreService(baseStoreService);
+		writer.setFlexibleSearchService(flexibleSearchService);
+		writer.setProductModelUrlResolver(productModelUrlResolver);
+		writer.setImageFormatMapping(imageFormatMapping);
+		writer.setMediaService(mediaService);
+		writer.setMediaContainerService(mediaContainerService);
+		writer.setImageConverter(imageConverter);
+		writer.setDefaultPageSize(2);
+		writer.setMaxPageSize(2);
+	}
+
+	@Test
+	public void shouldWritePageOfFirstDimension() throws IOException
+	{
+		final JsonNode json = write(0, 0);
+
+		assertEquals(0, json.get("currentPage").asInt());
+		assertEquals(2, json.get("pageSize").asInt());
+		assertEquals(3, json.get("totalResults").asInt());
+		assertEquals(2, json.get("numberOfPages").asInt());
+		assertEquals(2, json.get("elements").size());
+
+		final JsonNode black = json.get("elements").get(0);
+		assertEquals("Color", black.get("dimension").asText());
+		assertEquals("black", black.get("name").asText());
+		assertEquals("/p/black_S", black.get("url").asText());
+		assertEquals(1, black.get("images").size());
+		assertEquals("styleSwatch", black.get("images").get(0).get("format").asText());
+		assertEquals("/medias/black_S.jpg", black.get("images").get(0).get("url").asText());
+		assertEquals(2, black.get("elements").size());
+
+		final JsonNode small = black.get("elements").get(0);
+		assertEquals("black_S", small.get("sku").asText());
+		assertEquals("$10.00", small.get("price").get("formattedValue").asText());
+		assertEquals(5, small.get("stock").get("stockLevel").asInt());
+		assertEquals("inStock", small.get("stock").get("stockLevelStatus").asText());
+		assertFalse(small.has("elements"));
+		final JsonNode medium = black.get("elements").get(1);
+		assertEquals("/p/black_M", medium.get("url").asText());
+		assertFalse(medium.has("images"));
+		assertEquals("outOfStock", medium.get("stock").get("stockLevelStatus").asText());
+	}
+
+	@Test
+	public void shouldLookUpStockOfPageWithSingleQuery() throws IOException
+	{
+		final JsonNode json = write(1, 5);
+
+		assertEquals(1, json.get("elements").size());
+		assertEquals("blue", json.get("elements").get(0).get("name").asText());
+		verify(flexibleSearchService, times(1)).search(any(FlexibleSearchQuery.class));
+		verify(commercePriceService, times(2)).getWebPriceForProduct(any(ProductModel.class));
+		verify(productModelUrlResolver, times(2)).resolve(any(ProductModel.class));
+		verify(imageConverter, never()).convert(any(MediaModel.class));
+	}
+
+	@Test
+	public void shouldWriteEmptyPageBeyondMatrix() throws IOException
+	{
+		final JsonNode json = write(7, 2);
+
+		assertEquals(0, json.get("elements").size());
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	public void shouldNotQueryStockIfStockSystemIsDisabled() throws IOException
+	{
+		when(commerceStockService.isStockSystemEnabled(baseStore)).thenReturn(Boolean.FALSE);
+
+		final JsonNode json = write(0, 1);
+
+		final JsonNode small = json.get("elements").get(0).get("elements").get(0);
+		assertEquals("inStock", small.get("stock").get("stockLevelStatus").asText());
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+		verify(calculationStrategy, never()).calculateAvailability(anyCollectionOf(StockLevelModel.class));
+	}
+
+	@Test
+	public void shouldWriteNothingIfLookupFails() throws IOException
+	{
+		when(flexibleSearchService.<StockLevelModel> search(any(FlexibleSearchQuery.class)))
+				.thenThrow(new IllegalStateException("stock unavailable"));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try
+		{
+			writer.write(baseProduct, productData, 0, 2, out);
+			fail("Expected the failing stock lookup to be thrown");
+		}
+		catch (final IllegalStateException e)
+		{
+			assertEquals(0, out.size());
+		}
+	}
+
+	protected JsonNode write(final int page, final int pageSize) throws IOException
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.write(baseProduct, productData, page, pageSize, out);
+		return new ObjectMapper().readTree(out.toByteArray());
+	}
+
+	protected VariantMatrixElementData createElement(final String dimension, final String name, final String sku,
+			final List<VariantMatrixElementData> elements)
+	{
+		final VariantCategoryData category = new VariantCategoryData();
+		category.setName(dimension);
+		final VariantValueCategoryData value = new VariantValueCategoryData();
+		value.setName(name);
+		final VariantOptionData variantOption = new VariantOptionData();
+		variantOption.setCode(sku);
+
+		final VariantMatrixElementData element = new VariantMatrixElementData();
+		element.setParentVariantCategory(category);
+		element.setVariantValueCategory(value);
+		element.setVariantOption(variantOption);
+		element.setElements(elements);
+		return element;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.security;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.yb2bacceleratorstorefront.filters.StatelessRequestFilter;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
+
+
+@UnitTest
+public class StatelessAwareCsrfTokenRepositoryTest
+{
+	private final HttpSessionCsrfTokenRepository sessionTokenRepository = new HttpSessionCsrfTokenRepository();
+	private final CookieCsrfTokenRepository statelessTokenRepository = new CookieCsrfTokenRepository();
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	private StatelessAwareCsrfTokenRepository repository;
+	private MockHttpServletRequest request;
+
+	@Before
+	public void setUp()
+	{
+		statelessTokenRepository.setCookieName("acceleratorCsrfToken");
+
+		repository = new StatelessAwareCsrfTokenRepository();
+		repository.setSessionTokenRepository(sessionTokenRepository);
+		repository.setStatelessTokenRepository(statelessTokenRepository);
+
+		request = new MockHttpServletRequest("GET", "/p/123");
+	}
+
+	@Test
+	public void shouldKeepTokenOfStatelessRequestInCookie()
+	{
+		request.setAttribute(StatelessRequestFilter.STATELESS_REQUEST_ATTRIBUTE, Boolean.TRUE);
+		final CsrfToken token = repository.generateToken(request);
+
+		repository.saveToken(token, request, response);
+
+		Assert.assertNull(request.getSession(false));
+		Assert.assertEquals(token.getToken(), response.getCookie("acceleratorCsrfToken").getValue());
+	}
+
+	@Test
+	public void shouldKeepTokenOfOtherRequestsInSession()
+	{
+		final CsrfToken token = repository.generateToken(request);
+
+		repository.saveToken(token, request, response);
+
+		Assert.assertNull(response.getCookie("acceleratorCsrfToken"));
+		Assert.assertEquals(token.getToken(), repository.loadToken(request).getToken());
+	}
+
+	@Test
+	public void shouldMoveTokenOfStatelessPageIntoSession()
+	{
+		request.setMethod("POST");
+		request.setCookies(new Cookie("acceleratorCsrfToken", "token"));
+
+		Assert.assertEquals("token", repository.loadToken(request).getToken());
+		Assert.assertNotNull(request.getSession(false));
+		Assert.assertEquals("token", sessionTokenRepository.loadToken(request).getToken());
+	}
+
+	@Test
+	public void shouldPreferTokenOfSession()
+	{
+		final CsrfToken token = repository.generateToken(request);
+		sessionTokenRepository.saveToken(token, request, response);
+		request.setCookies(new Cookie("acceleratorCsrfToken", "token"));
+
+		Assert.assertEquals(token.getToken(), repository.loadToken(request).getToken());
+	}
+}
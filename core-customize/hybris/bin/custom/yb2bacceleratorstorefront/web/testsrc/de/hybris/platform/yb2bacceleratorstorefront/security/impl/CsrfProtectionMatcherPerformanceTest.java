@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.security.impl;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.testframework.HybrisJUnit4Test;
+import de.hybris.platform.util.Config;
+import de.hybris.platform.yb2bacceleratorstorefront.security.CsrfProtectionMatcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.fest.assertions.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+
+/**
+ * Compares the per request cost of {@link CsrfProtectionMatcher} with the previous implementation, which rebuilt the
+ * pattern set and compiled every regular expression for each POST request. Uses the csrf.allowed.url.patterns of the
+ * sample local.properties.
+ */
+@PerformanceTest
+public class CsrfProtectionMatcherPerformanceTest extends HybrisJUnit4Test
+{
+	private static final Logger LOG = Logger.getLogger(CsrfProtectionMatcherPerformanceTest.class);
+
+	private static final String CSRF_PROTECTION_EXCLUDE_URLS = "csrf.allowed.url.patterns";
+	private static final String LOCAL_PROPERTIES_PATTERNS = "/[^/]+(/[^?]*)+(sop/response)$,/[^/]+(/[^?]*)+(merchant_callback)$,"
+			+ "/[^/]+(/[^?]*)+(hop/response)$,/[^/]+(/[^?]*)+(language)$,/[^/]+(/[^?]*)+(currency)$,/(events)$";
+	private static final List<String> SERVLET_PATHS = Arrays.asList("/cart/add", "/checkout/multi/sop/response",
+			"/my-account/update-profile", "/_s/language", "/events", "/quickOrder/productInfo");
+	private static final int WARMUP_ITERATIONS = 20_000;
+	private static final int MEASURED_ITERATIONS = 200_000;
+
+	private CsrfProtectionMatcher csrfProtectionMatcher;
+	private String excludeUrlListBackup;
+
+	@Before
+	public void setUp()
+	{
+		excludeUrlListBackup = Config.getParameter(CSRF_PROTECTION_EXCLUDE_URLS);
+		Config.setParameter(CSRF_PROTECTION_EXCLUDE_URLS, LOCAL_PROPERTIES_PATTERNS);
+
+		csrfProtectionMatcher = new CsrfProtectionMatcher();
+		csrfProtectionMatcher.setCsrfAllowedUrlPatterns(Collections.<String> emptyList());
+	}
+
+	@After
+	public void cleanUp()
+	{
+		Config.setParameter(CSRF_PROTECTION_EXCLUDE_URLS, excludeUrlListBackup);
+	}
+
+	@Test
+	public void compareCompiledWithPerRequestMatching()
+	{
+		final MockHttpServletRequest[] requests = new MockHttpServletRequest[SERVLET_PATHS.size()];
+		for (int i = 0; i < requests.length; i++)
+		{
+			requests[i] = new MockHttpServletRequest(RequestMethod.POST.toString(), SERVLET_PATHS.get(i));
+			requests[i].setServletPath(SERVLET_PATHS.get(i));
+			Assertions.assertThat(csrfProtectionMatcher.matches(requests[i])).isEqualTo(legacyMatches(requests[i]));
+		}
+
+		run(requests, false, WARMUP_ITERATIONS);
+		run(requests, true, WARMUP_ITERATIONS);
+
+		final long legacyNanos = run(requests, false, MEASURED_ITERATIONS);
+		final long compiledNanos = run(requests, true, MEASURED_ITERATIONS);
+
+		LOG.info(String.format("CSRF matching: per-request compilation %.1f ns/op, precompiled %.1f ns/op",
+				Double.valueOf((double) legacyNanos / MEASURED_ITERATIONS),
+				Double.valueOf((double) compiledNanos / MEASURED_ITERATIONS)));
+	}
+
+	protected long run(final MockHttpServletRequest[] requests, final boolean compiled, final int iterations)
+	{
+		int excluded = 0;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			final MockHttpServletRequest request = requests[i % requests.length];
+			if (compiled ? csrfProtectionMatcher.matches(request) : legacyMatches(request))
+			{
+				excluded++;
+			}
+		}
+		final long elapsed = System.nanoTime() - start;
+		Assertions.assertThat(excluded).isGreaterThan(0);
+		return elapsed;
+	}
+
+	/**
+	 * The matching as done before the patterns were precompiled.
+	 */
+	protected boolean legacyMatches(final MockHttpServletRequest request)
+	{
+		final Set<String> protectionExcludeUrlSet = StringUtils
+				.commaDelimitedListToSet(Config.getParameter(CSRF_PROTECTION_EXCLUDE_URLS));
+		for (final String pattern : protectionExcludeUrlSet)
+		{
+			if (request.getServletPath() != null && request.getServletPath().matches(pattern))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
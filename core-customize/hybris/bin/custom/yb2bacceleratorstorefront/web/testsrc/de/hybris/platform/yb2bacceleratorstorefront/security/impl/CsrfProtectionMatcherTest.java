@@ -9,6 +9,8 @@ import de.hybris.platform.util.Config;
 import de.hybris.platform.yb2bacceleratorstorefront.security.CsrfProtectionMatcher;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.fest.assertions.Assertions;
@@ -109,6 +111,28 @@ public class CsrfProtectionMatcherTest extends HybrisJUnit4Test
 		Assertions.assertThat(csrfProtectionMatcher.matches(request)).isTrue();
 	}
 
+	@Test
+	public void shouldRecompilePatternsWhenAllowedUrlPatternsChange()
+	{
+		request.setMethod(RequestMethod.POST.toString());
+		request.setServletPath("/anyUrlPattern/excludeMeThree");
+		Assertions.assertThat(csrfProtectionMatcher.matches(request)).isTrue();
+
+		csrfProtectionMatcher.setCsrfAllowedUrlPatterns(Collections.singletonList("^(/[^/?]+)*(/excludeMeThree)$"));
+		Assertions.assertThat(csrfProtectionMatcher.matches(request)).isFalse();
+		request.setServletPath("/anyUrlPattern/excludeMeTwo");
+		Assertions.assertThat(csrfProtectionMatcher.matches(request)).isTrue();
+	}
+
+	@Test
+	public void shouldIgnoreInvalidPatterns()
+	{
+		csrfProtectionMatcher.setCsrfAllowedUrlPatterns(Arrays.asList("^(/[^/?]+*(/broken$", "^(/[^/?]+)*(/excludeMeTwo)$"));
+		request.setMethod(RequestMethod.POST.toString());
+		request.setServletPath("/anyUrlPattern/excludeMeTwo");
+		Assertions.assertThat(csrfProtectionMatcher.matches(request)).isFalse();
+	}
+
 	@Test
 	public void shouldPostMethodExcludeURLTwoReturnFalse()
 	{
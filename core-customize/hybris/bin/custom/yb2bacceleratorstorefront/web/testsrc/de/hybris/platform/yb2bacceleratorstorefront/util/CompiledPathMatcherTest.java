@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+
+@UnitTest
+public class CompiledPathMatcherTest
+{
+	private final PathMatcher antPathMatcher = new AntPathMatcher();
+
+	private CompiledPathMatcher<String> matcher;
+
+	@Before
+	public void setUp()
+	{
+		matcher = CompiledPathMatcher.forPatterns(
+				new LinkedHashSet<>(Arrays.asList("/guest/*", "/login/checkout", "/import/csv/**", "/**/cart/export")),
+				antPathMatcher);
+	}
+
+	@Test
+	public void shouldMatchLiteralPatterns()
+	{
+		assertTrue(matcher.matches("/login/checkout"));
+		assertFalse(matcher.matches("/login/checkout/"));
+		assertFalse(matcher.matches("/login"));
+	}
+
+	@Test
+	public void shouldMatchPrefixPatterns()
+	{
+		assertTrue(matcher.matches("/import/csv"));
+		assertTrue(matcher.matches("/import/csv/saved-cart"));
+		assertFalse(matcher.matches("/import/csvx"));
+	}
+
+	@Test
+	public void shouldMatchGenericPatterns()
+	{
+		assertTrue(matcher.matches("/guest/order"));
+		assertTrue(matcher.matches("/cart/export"));
+		assertTrue(matcher.matches("/my-account/cart/export"));
+		assertFalse(matcher.matches("/cart"));
+	}
+
+	@Test
+	public void shouldAgreeWithPathMatcher()
+	{
+		for (final String path : Arrays.asList("/", "/login/checkout", "/login//checkout", "/import/csv/", "/guest",
+				"/guest/", "/guest/a/b", "/x/cart/export/", "login/checkout"))
+		{
+			final boolean expected = antPathMatcher.match("/guest/*", path) || antPathMatcher.match("/login/checkout", path)
+					|| antPathMatcher.match("/import/csv/**", path) || antPathMatcher.match("/**/cart/export", path);
+			assertEquals(path, Boolean.valueOf(expected), Boolean.valueOf(matcher.matches(path)));
+		}
+	}
+
+	@Test
+	public void shouldReturnValueOfFirstDeclaredPattern()
+	{
+		final Map<String, String> mapping = new LinkedHashMap<>();
+		mapping.put("/import/**", "generic");
+		mapping.put("/import/csv/*", "csv");
+		final CompiledPathMatcher<String> mappingMatcher = CompiledPathMatcher.forMapping(mapping, antPathMatcher);
+
+		assertEquals("generic", mappingMatcher.lookup("/import/csv/file"));
+		assertNull(mappingMatcher.lookup("/export/csv/file"));
+	}
+
+	@Test
+	public void shouldNotMatchNullPath()
+	{
+		assertFalse(matcher.matches(null));
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorservices.config.SiteConfigService;
+import de.hybris.platform.cms2.model.site.CMSSiteModel;
+import de.hybris.platform.commerceservices.enums.SiteTheme;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+import de.hybris.platform.yb2bacceleratorstorefront.web.view.UiExperienceViewResolver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+@UnitTest
+public class UiThemeUtilsTest
+{
+	private static final List<String> ADDONS = Arrays.asList("b2bacceleratoraddon", "smarteditaddon");
+
+	private final SiteConfigService siteConfigService = mock(SiteConfigService.class);
+	private final UiExperienceViewResolver viewResolver = mock(UiExperienceViewResolver.class);
+	private final CMSSiteModel site = mock(CMSSiteModel.class);
+
+	private UiThemeUtils uiThemeUtils;
+
+	@Before
+	public void setUp()
+	{
+		when(site.getUid()).thenReturn("powertools");
+		when(site.getTheme()).thenReturn(SiteTheme.valueOf("alpha"));
+		when(viewResolver.getUiExperienceViewPrefix()).thenReturn(Collections.emptyMap());
+		when(siteConfigService.getProperty("b2bacceleratoraddon.css.paths")).thenReturn("/common.css;/other.css");
+		when(siteConfigService.getProperty("b2bacceleratoraddon.css.paths.desktop.alpha")).thenReturn("/alpha.css");
+		when(siteConfigService.getProperty("smarteditaddon.javascript.paths.desktop")).thenReturn("/smartedit.js");
+
+		uiThemeUtils = new UiThemeUtils();
+		uiThemeUtils.setSiteConfigService(siteConfigService);
+		uiThemeUtils.setUiExperienceViewResolver(viewResolver);
+		uiThemeUtils.setDefaultThemeName("blue");
+	}
+
+	@Test
+	public void shouldBuildResourcePaths()
+	{
+		final UiThemeResources resources = uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/store", ADDONS);
+
+		assertEquals("/store/_ui/desktop", resources.getSiteRootUrl());
+		assertEquals("/store/_ui/shared", resources.getSharedResourcePath());
+		assertEquals("/store/_ui/desktop/site-powertools", resources.getSiteResourcePath());
+		assertEquals("/store/_ui/desktop/theme-alpha", resources.getThemeResourcePath());
+		assertEquals("/store/_ui/desktop/common", resources.getCommonResourcePath());
+		assertEquals(Arrays.asList("/store/_ui/addons/b2bacceleratoraddon/common.css",
+				"/store/_ui/addons/b2bacceleratoraddon/other.css"), resources.getAddOnCommonCssPaths());
+		assertEquals(Arrays.asList("/store/_ui/addons/b2bacceleratoraddon/alpha.css"), resources.getAddOnThemeCssPaths());
+		assertEquals(Arrays.asList("/store/_ui/addons/smarteditaddon/smartedit.js"), resources.getAddOnJavaScriptPaths());
+	}
+
+	@Test
+	public void shouldReadConfigurationOncePerKey()
+	{
+		final UiThemeResources resources = uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/store", ADDONS);
+
+		assertSame(resources, uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/store", ADDONS));
+		assertNotSame(resources, uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/other", ADDONS));
+		verify(siteConfigService, times(2)).getProperty("b2bacceleratoraddon.css.paths");
+	}
+
+	@Test
+	public void shouldClearCacheWhenResourcePathPropertyChanges()
+	{
+		final UiThemeResources resources = uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/store", ADDONS);
+		final UiThemeUtils.ConfigChangeListener listener = uiThemeUtils.new ConfigChangeListener();
+
+		listener.configChanged("storefront.show.checkout.flows", "true");
+		assertSame(resources, uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/store", ADDONS));
+
+		listener.configChanged("b2bacceleratoraddon.css.paths.desktop", "/new.css");
+		assertNotSame(resources, uiThemeUtils.getUiThemeResources(site, UiExperienceLevel.DESKTOP, "/store", ADDONS));
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.assets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResourceLoader;
+import org.springframework.mock.web.MockServletContext;
+
+
+@UnitTest
+public class AssetBundlerTest
+{
+	private static final String CONTEXT_PATH = "/store";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path webRoot;
+	private AssetBundler bundler;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		webRoot = temporaryFolder.getRoot().toPath();
+		write("_ui/addons/test/css/first.css", "body { background: url('../images/bg.png'); }\n.logo { background: url(/logo.png); }");
+		write("_ui/addons/test/css/second.css", ".icon { background: url(data:image/png;base64,AAAA); }");
+		write("_ui/addons/test/js/first.js", "var first = 1; // comment\n");
+		write("_ui/addons/test/js/second.js", "first++");
+
+		bundler = new AssetBundler();
+		bundler.setEnabled(true);
+		bundler.setServletContext(new MockServletContext("file:" + webRoot.toFile().getAbsolutePath(),
+				new FileSystemResourceLoader()));
+	}
+
+	@Test
+	public void shouldBundleStyleSheetsWithRewrittenUrls() throws IOException
+	{
+		final List<String> bundle = bundler.bundle(CONTEXT_PATH, "addons-common", AssetBundler.CSS,
+				Arrays.asList(CONTEXT_PATH + "/_ui/addons/test/css/first.css", CONTEXT_PATH + "/_ui/addons/test/css/second.css"));
+
+		assertEquals(1, bundle.size());
+		assertTrue(bundle.get(0), bundle.get(0).matches("/store/_ui/bundles/addons-common-[0-9a-f]{16}\\.css"));
+		final String content = read(bundle.get(0));
+		assertTrue(content, content.contains("url('/store/_ui/addons/test/images/bg.png')"));
+		assertTrue(content, content.contains("url(/logo.png)"));
+		assertTrue(content, content.contains("url(data:image/png;base64,AAAA)"));
+	}
+
+	@Test
+	public void shouldBundleScriptsInOrder() throws IOException
+	{
+		final List<String> bundle = bundler.bundle(CONTEXT_PATH, "addons", AssetBundler.JAVASCRIPT,
+				Arrays.asList(CONTEXT_PATH + "/_ui/addons/test/js/first.js", CONTEXT_PATH + "/_ui/addons/test/js/second.js"));
+
+		assertEquals(1, bundle.size());
+		final String content = read(bundle.get(0));
+		assertTrue(content, content.indexOf("first=1") < content.indexOf("first++"));
+		assertTrue(content, !content.contains("comment"));
+	}
+
+	@Test
+	public void shouldNameBundleAfterContent() throws IOException
+	{
+		final List<String> paths = Arrays.asList(CONTEXT_PATH + "/_ui/addons/test/js/first.js",
+				CONTEXT_PATH + "/_ui/addons/test/js/second.js");
+		final List<String> bundle = bundler.bundle(CONTEXT_PATH, "addons", AssetBundler.JAVASCRIPT, paths);
+		assertEquals(bundle, bundler.bundle(CONTEXT_PATH, "addons", AssetBundler.JAVASCRIPT, paths));
+
+		write("_ui/addons/test/js/second.js", "first--");
+		final List<String> changed = bundler.bundle(CONTEXT_PATH, "addons", AssetBundler.JAVASCRIPT, paths);
+		assertTrue(changed.toString(), !bundle.equals(changed));
+	}
+
+	@Test
+	public void shouldKeepPathsIfResourceIsMissing()
+	{
+		final List<String> paths = Arrays.asList(CONTEXT_PATH + "/_ui/addons/test/js/first.js",
+				CONTEXT_PATH + "/_ui/addons/test/js/missing.js");
+
+		assertEquals(paths, bundler.bundle(CONTEXT_PATH, "addons", AssetBundler.JAVASCRIPT, paths));
+	}
+
+	@Test
+	public void shouldKeepPathsIfStyleSheetImports() throws IOException
+	{
+		write("_ui/addons/test/css/import.css", "@import url(first.css);");
+		final List<String> paths = Arrays.asList(CONTEXT_PATH + "/_ui/addons/test/css/import.css",
+				CONTEXT_PATH + "/_ui/addons/test/css/second.css");
+
+		assertEquals(paths, bundler.bundle(CONTEXT_PATH, "addons-common", AssetBundler.CSS, paths));
+	}
+
+	@Test
+	public void shouldKeepPathsIfDisabled()
+	{
+		bundler.setEnabled(false);
+		final List<String> paths = Arrays.asList(CONTEXT_PATH + "/_ui/addons/test/js/first.js",
+				CONTEXT_PATH + "/_ui/addons/test/js/second.js");
+
+		assertEquals(paths, bundler.bundle(CONTEXT_PATH, "addons", AssetBundler.JAVASCRIPT, paths));
+	}
+
+	protected void write(final String path, final String content) throws IOException
+	{
+		final Path file = webRoot.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	protected String read(final String url) throws IOException
+	{
+		return new String(Files.readAllBytes(new File(webRoot.toFile(), url.substring(CONTEXT_PATH.length())).toPath()),
+				StandardCharsets.UTF_8);
+	}
+}
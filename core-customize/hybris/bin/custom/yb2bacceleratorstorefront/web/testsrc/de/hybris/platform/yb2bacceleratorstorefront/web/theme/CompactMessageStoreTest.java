@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+
+@UnitTest
+public class CompactMessageStoreTest
+{
+	private final CompactMessageStore store = new CompactMessageStore();
+
+	@Test
+	public void shouldFindAllMessages()
+	{
+		final Map<String, String> messages = new HashMap<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			messages.put("text.code." + i, "Message " + i);
+		}
+
+		final CompactMessageTable table = store.createTable(messages);
+
+		assertEquals(1000, table.size());
+		for (int i = 0; i < 1000; i++)
+		{
+			assertEquals("Message " + i, table.get(new String("text.code." + i)));
+		}
+		assertNull(table.get("text.code.1000"));
+	}
+
+	@Test
+	public void shouldShareStringsAndEqualTables()
+	{
+		final Map<String, String> desktop = new HashMap<>();
+		desktop.put(new String("text.title"), new String("Title"));
+		desktop.put(new String("text.footer"), new String("Footer"));
+		final Map<String, String> responsive = new HashMap<>();
+		responsive.put(new String("text.footer"), new String("Footer"));
+		responsive.put(new String("text.title"), new String("Title"));
+		final Map<String, String> mobile = new HashMap<>();
+		mobile.put(new String("text.title"), new String("Mobile title"));
+
+		final CompactMessageTable desktopTable = store.createTable(desktop);
+		final CompactMessageTable responsiveTable = store.createTable(responsive);
+		final CompactMessageTable mobileTable = store.createTable(mobile);
+
+		assertSame(desktopTable, responsiveTable);
+		assertEquals(2, store.getTableCount());
+		assertEquals(1, store.getSharedTableCount());
+		assertEquals("Mobile title", mobileTable.get("text.title"));
+		assertEquals(5, store.getStringCount());
+		assertEquals(5, store.getDeduplicatedStringCount());
+	}
+
+	@Test
+	public void shouldEstimateSavedBytesOnce()
+	{
+		final Properties layer = new Properties();
+		layer.setProperty("text.title", "Title");
+		final Map<String, String> messages = new HashMap<>();
+		messages.put("text.title", "Title");
+
+		store.recordLayerProperties(layer);
+		store.recordLayerProperties(layer);
+		store.createTable(messages);
+
+		assertEquals(CompactMessageStore.PROPERTIES_ENTRY_BYTES + CompactMessageStore.getEstimatedSize("text.title")
+				+ CompactMessageStore.getEstimatedSize("Title"), store.getEstimatedBytesSaved() + store.getRetainedBytes());
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import static org.junit.Assert.assertEquals;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.core.io.FileSystemResourceLoader;
+
+
+@UnitTest
+public class FrozenMessageSourceTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private StaticMessageSource rootMessageSource;
+	private FrozenMessageSource frozenMessageSource;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		writeMessages("base.properties", "text.title=Base title", "text.footer=Base footer", "text.greeting=Hello {0}");
+		writeMessages("base_de.properties", "text.title=Basis Titel");
+		writeMessages("site.properties", "text.title=Site title", "text.greeting=Welcome {0}");
+
+		rootMessageSource = new StaticMessageSource();
+		rootMessageSource.addMessage("text.root", Locale.ENGLISH, "Root message");
+
+		final MessageSource base = createMessageSource("base", rootMessageSource);
+		final MessageSource site = createMessageSource("site", base);
+		frozenMessageSource = FrozenMessageSource.freeze(site);
+	}
+
+	@Test
+	public void shouldLetChildrenOverrideParents()
+	{
+		assertEquals("Site title", frozenMessageSource.getMessage("text.title", null, Locale.ENGLISH));
+		assertEquals("Site title", frozenMessageSource.getMessage("text.title", null, Locale.GERMAN));
+		assertEquals("Base footer", frozenMessageSource.getMessage("text.footer", null, Locale.GERMAN));
+	}
+
+	@Test
+	public void shouldFormatArguments()
+	{
+		assertEquals("Welcome Jane", frozenMessageSource.getMessage("text.greeting", new Object[]
+		{ "Jane" }, Locale.ENGLISH));
+	}
+
+	@Test
+	public void shouldDelegateMissingCodesToFirstNonFlattenableParent()
+	{
+		assertEquals("Root message", frozenMessageSource.getMessage("text.root", null, Locale.ENGLISH));
+		assertEquals("text.unknown", frozenMessageSource.getMessage("text.unknown", null, Locale.ENGLISH));
+	}
+
+	private MessageSource createMessageSource(final String basename, final MessageSource parent)
+	{
+		final FlattenableResourceBundleMessageSource messageSource = new FlattenableResourceBundleMessageSource();
+		messageSource.setBasename(new File(folder.getRoot(), basename).toURI().toString());
+		messageSource.setResourceLoader(new FileSystemResourceLoader());
+		messageSource.setFallbackToSystemLocale(false);
+		messageSource.setDefaultEncoding("UTF-8");
+		messageSource.setParentMessageSource(parent);
+		return messageSource;
+	}
+
+	private void writeMessages(final String fileName, final String... lines) throws IOException
+	{
+		Files.write(new File(folder.getRoot(), fileName).toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.theme;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.ui.context.Theme;
+import org.springframework.ui.context.support.SimpleTheme;
+
+
+@UnitTest
+public class StorefrontResourceBundleSourceTest
+{
+	private static final String POWERTOOLS_THEME = "Desktop,powertools,blue";
+	private static final String ELECTRONICS_THEME = "Responsive,electronics,black";
+
+	private StorefrontResourceBundleSource source;
+
+	@Before
+	public void setUp()
+	{
+		source = new StorefrontResourceBundleSource()
+		{
+			@Override
+			protected Theme computeThemeForGivenKey(final String themeName)
+			{
+				return new SimpleTheme(themeName, new StaticMessageSource());
+			}
+		};
+		source.setBasePrefix("base");
+		source.setSitePrefix("site");
+		source.setThemePrefix("theme");
+	}
+
+	@Test
+	public void shouldMatchMessageFilesOfTheme()
+	{
+		assertTrue(isAffected(POWERTOOLS_THEME, "site-powertools_de"));
+		assertTrue(isAffected(POWERTOOLS_THEME, "site-powertools-desktop"));
+		assertTrue(isAffected(POWERTOOLS_THEME, "theme-blue_en"));
+		assertTrue(isAffected(POWERTOOLS_THEME, "base_de_CH"));
+		assertTrue(isAffected(POWERTOOLS_THEME, MessageFileWatcher.ALL_FILES));
+		assertFalse(isAffected(POWERTOOLS_THEME, "site-electronics_de"));
+		assertFalse(isAffected(POWERTOOLS_THEME, "theme-blue-responsive"));
+	}
+
+	@Test
+	public void shouldSwapOnlyAffectedThemes()
+	{
+		final Theme powertools = source.getTheme(POWERTOOLS_THEME);
+		final Theme electronics = source.getTheme(ELECTRONICS_THEME);
+
+		source.reloadThemes(Collections.singleton("site-powertools_de"));
+
+		assertNotSame(powertools, source.getTheme(POWERTOOLS_THEME));
+		assertSame(electronics, source.getTheme(ELECTRONICS_THEME));
+	}
+
+	private boolean isAffected(final String themeName, final String changedFile)
+	{
+		return source.getMessageBasenames(themeName).stream()
+				.anyMatch(basename -> source.isAffected(basename, Collections.singleton(changedFile)));
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2019 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.yb2bacceleratorstorefront.web.view;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
+import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
+
+import java.util.Locale;
+
+import org.apache.log4j.Logger;
+import org.fest.assertions.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.view.AbstractUrlBasedView;
+import org.springframework.web.servlet.view.InternalResourceView;
+import org.springframework.web.servlet.view.InternalResourceViewResolver;
+
+
+/**
+ * Compares the view resolution throughput of {@link UiExperienceViewResolver} with the previous implementation, which
+ * built a cache key string of view name, locale and ui experience level for every resolution. Page views and
+ * <code>addon:</code> views are measured separately, alternating between two ui experience levels.
+ */
+@PerformanceTest
+public class UiExperienceViewResolverPerformanceTest
+{
+	private static final Logger LOG = Logger.getLogger(UiExperienceViewResolverPerformanceTest.class);
+
+	private static final String[] PAGE_VIEWS =
+	{ "pages/cart/cartPage", "pages/product/productLayout2Page", "pages/category/productGridPage", "pages/layout/landingLayout2Page" };
+	private static final String[] ADDON_VIEWS =
+	{ "pages/addon:/b2bacceleratoraddon/pages/checkout/orderPage", "addon:/b2bacceleratoraddon/cms/productreferencescomponent",
+			"addon:/commerceorgaddon/pages/organization/manageUnitsPage", "addon:/smarteditaddon/cms/cmsparagraphcomponent" };
+	private static final UiExperienceLevel[] LEVELS =
+	{ UiExperienceLevel.DESKTOP, UiExperienceLevel.MOBILE };
+	private static final int WARMUP_ITERATIONS = 50_000;
+	private static final int MEASURED_ITERATIONS = 1_000_000;
+
+	private UiExperienceService uiExperienceService;
+	private UiExperienceViewResolver viewResolver;
+	private LegacyUiExperienceViewResolver legacyViewResolver;
+	private int levelIndex;
+
+	@Before
+	public void setUp()
+	{
+		uiExperienceService = Mockito.mock(UiExperienceService.class);
+		Mockito.when(uiExperienceService.getUiExperienceLevel()).thenAnswer(invocation -> LEVELS[levelIndex]);
+
+		viewResolver = UiExperienceViewResolverTest.createViewResolver(uiExperienceService);
+		legacyViewResolver = new LegacyUiExperienceViewResolver(viewResolver, uiExperienceService);
+		legacyViewResolver.setViewClass(InternalResourceView.class);
+		legacyViewResolver.setPrefix("/WEB-INF/views/");
+		legacyViewResolver.setSuffix(".jsp");
+	}
+
+	@Test
+	public void comparePageViewResolution() throws Exception
+	{
+		compare("page views", PAGE_VIEWS);
+	}
+
+	@Test
+	public void compareAddOnViewResolution() throws Exception
+	{
+		compare("addon views", ADDON_VIEWS);
+	}
+
+	protected void compare(final String description, final String[] viewNames) throws Exception
+	{
+		for (final String viewName : viewNames)
+		{
+			for (levelIndex = 0; levelIndex < LEVELS.length; levelIndex++)
+			{
+				Assertions.assertThat(((AbstractUrlBasedView) viewResolver.resolveViewName(viewName, Locale.ENGLISH)).getUrl())
+						.isEqualTo(((AbstractUrlBasedView) legacyViewResolver.resolveViewName(viewName, Locale.ENGLISH)).getUrl());
+			}
+		}
+
+		run(legacyViewResolver, viewNames, WARMUP_ITERATIONS);
+		run(viewResolver, viewNames, WARMUP_ITERATIONS);
+
+		final long legacyNanos = run(legacyViewResolver, viewNames, MEASURED_ITERATIONS);
+		final long cachedNanos = run(viewResolver, viewNames, MEASURED_ITERATIONS);
+
+		LOG.info(String.format("View resolution of %s: string cache key %.1f ns/op, per level cache %.1f ns/op (%.0f vs %.0f ops/s)",
+				description, Double.valueOf((double) legacyNanos / MEASURED_ITERATIONS),
+				Double.valueOf((double) cachedNanos / MEASURED_ITERATIONS),
+				Double.valueOf(MEASURED_ITERATIONS * 1e9 / legacyNanos), Double.valueOf(MEASURED_ITERATIONS * 1e9 / cachedNanos)));
+	}
+
+	protected long run(final InternalResourceViewResolver resolver, final String[] viewNames, final int iterations)
+			throws Exception
+	{
+		int resolved = 0;
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++)
+		{
+			levelIndex = i & 1;
+			if (resolver.resolveViewName(viewNames[(i >> 1) % viewNames.length], Locale.ENGLISH) != null)
+			{
+				resolved++;
+			}
+		}
+		final long elapsed = System.nanoTime() - start;
+		Assertions.assertThat(resolved).isEqualTo(iterations);
+		return elapsed;
+	}
+
+	/**
+	 * The view resolution as done before the per level caches, with the view name expansion of the current resolver.
+	 */
+	protected static class LegacyUiExperienceViewResolver extends InternalResourceViewResolver
+	{
+		private final UiExperienceViewResolver expander;
+		private final UiExperienceService uiExperienceService;
+
+		protected LegacyUiExperienceViewResolver(final UiExperienceViewResolver expander,
+				final UiExperienceService uiExperienceService)
+		{
+			this.expander = expander;
+			this.uiExperienceService = uiExperienceService;
+		}
+
+		@Override
+		protected Object getCacheKey(final String viewName, final Locale locale)
+		{
+			return super.getCacheKey(viewName, locale) + "_" + uiExperienceService.getUiExperienceLevel().getCode();
+		}
+
+		@Override
+		protected AbstractUrlBasedView buildView(final String viewName) throws Exception
+		{
+			final InternalResourceView view = (InternalResourceView) super.buildView(expander.expandViewName(
+					uiExperienceService.getUiExperienceLevel(), viewName));
+			view.setAlwaysInclude(false);
+			return view;
+		}
+	}
+}
@@ -4,14 +4,21 @@
 package de.hybris.platform.yb2bacceleratorstorefront.web.view;
 
 import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.acceleratorservices.uiexperience.UiExperienceService;
 import de.hybris.platform.commerceservices.enums.UiExperienceLevel;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.View;
+import org.springframework.web.servlet.view.InternalResourceView;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 
 /**
@@ -38,4 +45,52 @@ public class UiExperienceViewResolverTest
 		assertEquals("desktop/pages", viewResolver.getViewName(UiExperienceLevel.DESKTOP, "pages"));
 		assertEquals("mobile/pages", viewResolver.getViewName(UiExperienceLevel.MOBILE, "pages"));
 	}
+
+	@Test
+	public void testResolveViewNameCachesPerUiExperienceLevel() throws Exception
+	{
+		final UiExperienceService uiExperienceService = Mockito.mock(UiExperienceService.class);
+		final UiExperienceViewResolver viewResolver = createViewResolver(uiExperienceService);
+
+		Mockito.when(uiExperienceService.getUiExperienceLevel()).thenReturn(UiExperienceLevel.DESKTOP);
+		final View desktopView = viewResolver.resolveViewName("pages/cart/cartPage", Locale.ENGLISH);
+		assertSame(desktopView, viewResolver.resolveViewName("pages/cart/cartPage", Locale.GERMAN));
+		assertEquals("/WEB-INF/views/desktop/pages/cart/cartPage.jsp", ((InternalResourceView) desktopView).getUrl());
+
+		Mockito.when(uiExperienceService.getUiExperienceLevel()).thenReturn(UiExperienceLevel.MOBILE);
+		final View mobileView = viewResolver.resolveViewName("pages/cart/cartPage", Locale.ENGLISH);
+		assertNotSame(desktopView, mobileView);
+		assertEquals("/WEB-INF/views/mobile/pages/cart/cartPage.jsp", ((InternalResourceView) mobileView).getUrl());
+
+		viewResolver.clearCache();
+		assertNotSame(mobileView, viewResolver.resolveViewName("pages/cart/cartPage", Locale.ENGLISH));
+	}
+
+	@Test
+	public void testGetViewNameForAddOnView()
+	{
+		final UiExperienceViewResolver viewResolver = createViewResolver(Mockito.mock(UiExperienceService.class));
+
+		assertEquals("addons/b2bacceleratoraddon/desktop/pages/checkout/orderPage",
+				viewResolver.getViewName(UiExperienceLevel.DESKTOP, "pages/addon:/b2bacceleratoraddon/pages/checkout/orderPage"));
+		assertEquals("addons/b2bacceleratoraddon/mobile/cms/component",
+				viewResolver.getViewName(UiExperienceLevel.MOBILE, "addon:/b2bacceleratoraddon/cms/component"));
+	}
+
+	protected static UiExperienceViewResolver createViewResolver(final UiExperienceService uiExperienceService)
+	{
+		final UiExperienceViewResolver viewResolver = new UiExperienceViewResolver();
+		viewResolver.setViewClass(InternalResourceView.class);
+		viewResolver.setPrefix("/WEB-INF/views/");
+		viewResolver.setSuffix(".jsp");
+		viewResolver.setAddOnPrefix("addons/");
+		viewResolver.setUnknownUiExperiencePrefix("desktop/");
+		viewResolver.setUiExperienceService(uiExperienceService);
+
+		final Map<UiExperienceLevel, String> deviceViewPrefix = new HashMap<UiExperienceLevel, String>();
+		deviceViewPrefix.put(UiExperienceLevel.DESKTOP, "desktop/");
+		deviceViewPrefix.put(UiExperienceLevel.MOBILE, "mobile/");
+		viewResolver.setUiExperienceViewPrefix(deviceViewPrefix);
+		return viewResolver;
+	}
 }
@@ -101,14 +101,16 @@ ACC.cart = {
                 success: function (data) {
                     grid.html(data);
                     $("#ajaxGrid").removeAttr('id');
-                    var $gridContainer = grid.find(".product-grid-container");
-                    var numGrids = $gridContainer.length;
-                    for (var i = 0; i < numGrids; i++) {
-                        ACC.cart.getProductQuantity($gridContainer.eq(i), mapCodeQuantity, i);
-                    }
-                    grid.slideDown("slow");
-                    ACC.cart.coreCartGridTableActions(element, mapCodeQuantity);
-                    ACC.productorderform.coreTableScrollActions(grid.children('#cartOrderGridForm'));
+                    ACC.productorderform.loadVariantMatrix(grid, null, function () {
+                        var $gridContainer = grid.find(".product-grid-container");
+                        var numGrids = $gridContainer.length;
+                        for (var i = 0; i < numGrids; i++) {
+                            ACC.cart.getProductQuantity($gridContainer.eq(i), mapCodeQuantity, i);
+                        }
+                        grid.slideDown("slow");
+                        ACC.cart.coreCartGridTableActions(element, mapCodeQuantity);
+                        ACC.productorderform.coreTableScrollActions(grid.children('#cartOrderGridForm'));
+                    });
                 },
                 error: function (xht, textStatus, ex) {
                     console.log("Failed to get variant matrix. Error details [" + xht + ", " + textStatus + ", " + ex + "]");   // NOSONAR
@@ -22,6 +22,7 @@ ACC.multidgrid = {
 			height: window.innerHeight > parseInt(cboxOptions.maxHeight) ? cboxOptions.maxHeight : cboxOptions.height,
 			onComplete: function() {
 
+				ACC.productorderform.loadVariantMatrix($('#cboxLoadedContent'));
 				$('body').addClass('offcanvas');
 				var oH = $('#cboxLoadedContent').height();
 				$('#cboxLoadedContent').height((oH - $('#cboxTitle').height()) +'px');
@@ -68,6 +69,7 @@ ACC.multidgrid = {
 			success: function(data)
 			{
 				grid.html(data);
+				ACC.productorderform.loadVariantMatrix(grid);
 				grid.slideDown("slow");
 			},
 			error: function(xht, textStatus, ex)
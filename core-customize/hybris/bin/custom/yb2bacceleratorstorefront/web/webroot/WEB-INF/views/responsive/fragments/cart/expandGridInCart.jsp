@@ -1,8 +1,8 @@
 <%@ page trimDirectiveWhitespaces="true" %>
-<%@ taglib prefix="product" tagdir="/WEB-INF/tags/responsive/product" %>
+<%@ taglib prefix="grid" tagdir="/WEB-INF/tags/responsive/grid" %>
 
 <div id="cartOrderGridForm" class="scrollContent visible">
-    <product:productOrderFormGrid product="${product}" showName="false" readOnly="${readOnly}" />
+    <grid:variantMatrixGrid product="${product}" showName="false" readOnly="${readOnly}" />
     <div class="order-form-scroll right hidden-xs"><span class="glyphicon glyphicon-chevron-right"></span></div>
     <div class="order-form-scroll left hidden-xs"><span class="glyphicon glyphicon-chevron-left"></span></div>
     <div class="order-form-scroll up hidden-xs"><span class="glyphicon glyphicon-chevron-up"></span></div>
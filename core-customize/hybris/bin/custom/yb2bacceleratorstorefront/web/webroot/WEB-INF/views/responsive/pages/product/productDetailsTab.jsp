@@ -1,6 +1,7 @@
 <%@ page trimDirectiveWhitespaces="true"%>
 <%@ taglib prefix="product" tagdir="/WEB-INF/tags/responsive/product"%>
 <%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions" %>
+<%@ taglib prefix="ycommerce" uri="http://hybris.com/tld/ycommercetags" %>
 
 <div class="tabhead">
 	<a href="">${fn:escapeXml(title)}</a> <span class="glyphicon"></span>
@@ -10,7 +11,9 @@
 		<div class="row">
 			<div class="col-md-6 col-lg-4">
 				<div class="tab-container">
-					<product:productDetailsTab product="${product}" />
+					<ycommerce:fragmentCache name="productDetailsTab" product="${product}">
+						<product:productDetailsTab product="${product}" />
+					</ycommerce:fragmentCache>
 				</div>
 			</div>
 		</div>
@@ -2,6 +2,7 @@
 <%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <%@ taglib prefix="template" tagdir="/WEB-INF/tags/responsive/template" %>
 <%@ taglib prefix="product" tagdir="/WEB-INF/tags/responsive/product" %>
+<%@ taglib prefix="grid" tagdir="/WEB-INF/tags/responsive/grid" %>
 <%@ taglib prefix="spring" uri="http://www.springframework.org/tags" %>
 <%@ taglib prefix="common" tagdir="/WEB-INF/tags/responsive/common" %>
 <%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions" %>
@@ -76,7 +77,7 @@
             <form:form name="AddToCartOrderForm" id="AddToCartOrderForm" class="add_to_cart_order_form scrollContent visible"
                        action="${addToCartGridUrl}" method="post"
                        data-grid-confirm-message="${gridConfirmMessage}">
-                <product:productOrderFormGrid product="${product}"/>
+                <grid:variantMatrixGrid product="${product}"/>
             </form:form>
 
             <div class="order-form-scroll right hidden-xs"><span class="glyphicon glyphicon-chevron-right"></span></div>
@@ -21,6 +21,7 @@ ACC.productorderform = {
     selectedVariantData: 'selected-variant',
     selectedVariants: [],
     quantityTotal: 0,
+    skuIndex: 0,
     scrollTopPos: 0,
 
     headerActions: function () {
@@ -28,7 +29,6 @@ ACC.productorderform = {
     },
 
     coreTableActions: function () {
-        ACC.productorderform.coreTableScrollActions(ACC.productorderform.$addToCartOrderForm);
         ACC.productorderform.bindUpdateFutureStockButton(".update_future_stock_button");
         ACC.productorderform.bindHideFutureStockInfo(".hide_future_stock_info");
         ACC.productorderform.bindVariantSelect($(".variant-select-btn"),'AddToCartOrderForm');
@@ -62,7 +62,7 @@ ACC.productorderform = {
             }
         });
 
-        $(document).find(skuQuantityClass).on('blur keypress', function (event) {
+        var updateSkuQuantity = function (event) {
             var code = event.keyCode || event.which || event.charCode;
 
             if (code != 13 && code != undefined) {
@@ -163,6 +163,19 @@ ACC.productorderform = {
 
             $('.js-total-price').html(ACC.productorderform.formatTotalsCurrency(totalPrice));
             $('.js-total-price-value').val(totalPrice);
+        };
+
+        $(document).find(skuQuantityClass).on('blur keypress', updateSkuQuantity);
+
+        // bind the SKUs of every page of the variant matrix as soon as it is rendered
+        ACC.productorderform.loadVariantMatrix(ACC.productorderform.$addToCartOrderForm, function ($tables) {
+            $tables.find(skuQuantityClass).on('blur keypress', updateSkuQuantity);
+            ACC.productorderform.bindVariantSelect($tables.find('.variant-select-btn'), 'AddToCartOrderForm');
+            ACC.productorderform.$emptySkuQuantityInputs = $(".sku-quantity[value]");
+            ACC.productorderform.$nonEmptySkuQuantityInputs = $(".sku-quantity[value]");
+            ACC.productorderform.$totalGridValues = $("[data-grid-total-id]");
+        }, function () {
+            ACC.productorderform.coreTableScrollActions(ACC.productorderform.$addToCartOrderForm);
         });
 
         // MOBILE
@@ -368,6 +381,154 @@ ACC.productorderform = {
         }
     },
 
+    loadVariantMatrix: function ($scope, onPage, onComplete) {
+        var $variantMatrices = $scope.find('.js-variant-matrix');
+        var pendingMatrices = $variantMatrices.length;
+
+        if (pendingMatrices === 0) {
+            if (onComplete) {
+                onComplete();
+            }
+            return;
+        }
+
+        $variantMatrices.each(function () {
+            ACC.productorderform.loadVariantMatrixPage($(this), 0, onPage, function () {
+                pendingMatrices--;
+                if (pendingMatrices === 0 && onComplete) {
+                    onComplete();
+                }
+            });
+        });
+    },
+
+    loadVariantMatrixPage: function ($variantMatrix, page, onPage, onComplete) {
+        $.ajax({
+            url: $variantMatrix.data('variantMatrixUrl'),
+            data: {page: page},
+            type: 'GET',
+            dataType: 'json',
+            success: function (data) {
+                var $tables = ACC.productorderform.renderVariantMatrixPage($variantMatrix, data);
+                if (onPage) {
+                    onPage($tables);
+                }
+
+                if (data.currentPage + 1 < data.numberOfPages) {
+                    ACC.productorderform.loadVariantMatrixPage($variantMatrix, data.currentPage + 1, onPage, onComplete);
+                } else if (onComplete) {
+                    onComplete();
+                }
+            },
+            error: function (xht, textStatus, ex) {
+                console.log("Failed to get variant matrix. Error details [" + xht + ", " + textStatus + ", " + ex + "]");   // NOSONAR
+            }
+        });
+    },
+
+    // renders the elements of a page of the variant matrix like the grid tags and returns the rendered tables
+    renderVariantMatrixPage: function ($variantMatrix, data) {
+        var $groupTemplate = $variantMatrix.find('.js-variant-matrix-group-template');
+        var $tableTemplate = $variantMatrix.find('.js-variant-matrix-table-template');
+        var readOnly = $variantMatrix.data('readOnly') === true;
+        var $tables = $();
+
+        var renderTable = function ($group, firstVariant, table) {
+            $tables = $tables.add($.tmpl($tableTemplate, $.extend({
+                productCode: data.code,
+                skusId: firstVariant.sku,
+                name: firstVariant.name,
+                image: ACC.productorderform.getVariantImage(firstVariant, 'cartIcon'),
+                showName: $variantMatrix.data('showName') === true,
+                title: firstVariant.dimension + (firstVariant.elements ? '/' + firstVariant.elements[0].dimension : ''),
+                styleClass: '',
+                inputTitle: '',
+                property: table.variants[0].dimension,
+                cells: $.map(table.variants, function (variant) {
+                    return ACC.productorderform.createVariantMatrixCell(variant, readOnly);
+                })
+            }, table)).appendTo($group.find('.product-grid-container')));
+        };
+
+        var renderGroup = function (firstVariant) {
+            return $.tmpl($groupTemplate, {
+                skusId: firstVariant.sku,
+                readOnly: readOnly,
+                futureStockUrl: $variantMatrix.data('skusFutureStockUrl')
+            }).appendTo($variantMatrix);
+        };
+
+        if (data.elements.length === 0) {
+            return $tables;
+        }
+
+        if (!data.elements[0].elements) {
+            // one dimension: the elements of every page are added to the group of the first element
+            var $group = $variantMatrix.find('.orderForm_grid_group');
+            var firstVariant = $variantMatrix.data('firstVariant') || data.elements[0];
+            if ($group.length === 0) {
+                $variantMatrix.data('firstVariant', firstVariant);
+                $group = renderGroup(firstVariant);
+            }
+            renderTable($group, firstVariant, {loop: data.currentPage, variants: data.elements});
+            return $tables;
+        }
+
+        $.each(data.elements, function (index, firstVariant) {
+            var $group = renderGroup(firstVariant);
+            var loop = data.currentPage * data.pageSize + index;
+
+            if (firstVariant.elements[0].elements) {
+                $.each(firstVariant.elements, function (thirdIndex, thirdVariant) {
+                    renderTable($group, firstVariant, {
+                        styleClass: 'product-grid-container-dim-3',
+                        loop: '' + loop + thirdIndex,
+                        inputTitle: thirdVariant.name,
+                        variants: thirdVariant.elements
+                    });
+                });
+            } else {
+                renderTable($group, firstVariant, {
+                    styleClass: 'product-grid-container-dim-2',
+                    loop: loop,
+                    variants: firstVariant.elements
+                });
+            }
+        });
+
+        return $tables;
+    },
+
+    createVariantMatrixCell: function (variant, readOnly) {
+        var price = variant.price || {};
+        var stock = variant.stock || {};
+        var hasStockLevel = stock.stockLevel !== undefined;
+
+        return {
+            index: ACC.productorderform.skuIndex++,
+            sku: variant.sku,
+            name: variant.name,
+            price: price.value,
+            formattedPrice: price.formattedValue,
+            hasStockLevel: hasStockLevel,
+            stockLevel: stock.stockLevel,
+            stockLevelText: hasStockLevel && stock.stockLevel > 0 ? stock.stockLevel : '',
+            inStock: hasStockLevel ? stock.stockLevel > 0 : stock.stockLevelStatus !== 'outOfStock',
+            disabled: readOnly || (hasStockLevel && stock.stockLevel === 0)
+        };
+    },
+
+    getVariantImage: function (variant, format) {
+        var url = '';
+        $.each(variant.images || [], function (index, image) {
+            if (image.format === format) {
+                url = image.url;
+                return false;
+            }
+        });
+        return url;
+    },
+
     toJSON: function (gridForm, skipZeroQuantity) {
         var skus = gridForm.find("input.sku").map(function (index, element) {
                 return element.value